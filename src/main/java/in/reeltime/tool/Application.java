@@ -1,8 +1,16 @@
 package in.reeltime.tool;
 
 import com.google.common.collect.ImmutableList;
+import in.reeltime.tool.deployment.DeploymentMode;
 import in.reeltime.tool.deployment.DeploymentService;
 import in.reeltime.tool.factory.ServiceFactory;
+import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.metrics.ApiMetrics;
+import in.reeltime.tool.plan.Plan;
+import in.reeltime.tool.plan.PlanService;
+import in.reeltime.tool.simulator.Simulator;
+import in.reeltime.tool.trace.ChromeTraceExporter;
+import in.reeltime.tool.trace.Tracer;
 import org.apache.commons.cli.*;
 
 import java.io.File;
@@ -23,6 +31,11 @@ public class Application {
     private static final String MAILGUN_API_KEY_OPT = "mailgun-api-key";
     private static final String PRODUCTION_FLAG_OPT = "production";
     private static final String REMOVE_RESOURCES_FLAG_OPT = "remove-resources";
+    private static final String PLAN_FLAG_OPT = "plan";
+    private static final String DEPLOYMENT_MODE_OPT = "deployment-mode";
+    private static final String SIMULATE_FLAG_OPT = "simulate";
+    private static final String TRACE_FILE_OPT = "trace-file";
+    private static final String METRICS_FILE_OPT = "metrics-file";
 
     private static final List<String> REQUIRED_OPTS = new ImmutableList.Builder<String>()
             .add(AWS_ACCESS_KEY_OPT)
@@ -37,15 +50,19 @@ public class Application {
             .add(MAILGUN_API_KEY_OPT)
             .build();
 
+    // A simulation never reaches AWS, so it does not need credentials
+    private static final List<String> CREDENTIAL_OPTS = ImmutableList.of(AWS_ACCESS_KEY_OPT, AWS_SECRET_KEY_OPT);
+
     public static void main(String[] args) {
         CommandLineParser parser = new DefaultParser();
         Options options = getOptions();
 
         try {
             CommandLine line = parser.parse(options, args);
+            boolean simulate = line.hasOption(SIMULATE_FLAG_OPT);
 
             for (String requiredOpt : REQUIRED_OPTS) {
-                if (!line.hasOption(requiredOpt)) {
+                if (!line.hasOption(requiredOpt) && !(simulate && CREDENTIAL_OPTS.contains(requiredOpt))) {
                     throw new ParseException("Missing required opt: " + requiredOpt);
                 }
             }
@@ -73,11 +90,60 @@ public class Application {
             boolean production = Boolean.parseBoolean(productionFlag);
             boolean removeResources = Boolean.parseBoolean(removeResourcesFlag);
 
-            ServiceFactory serviceFactory = new ServiceFactory(environmentName, awsAccessKey, awsSecretKey);
-            DeploymentService deploymentService = serviceFactory.deploymentService();
+            DeploymentMode deploymentMode = getDeploymentMode(line);
+
+            String traceFilePath = line.getOptionValue(TRACE_FILE_OPT);
+
+            if (traceFilePath != null) {
+                Tracer.enable();
+            }
+
+            Simulator simulator = simulate ? new Simulator(hostedZoneDomainName, certificateDomainName) : null;
+
+            ServiceFactory serviceFactory = simulate ?
+                    simulator.serviceFactory(environmentName) :
+                    new ServiceFactory(environmentName, awsAccessKey, awsSecretKey);
+
+            try {
+                if (line.hasOption(PLAN_FLAG_OPT)) {
+                    PlanService planService = serviceFactory.planService();
+
+                    Plan plan = planService.plan(environmentName, applicationName, applicationVersion, war,
+                            certificateDomainName, production, removeResources, deploymentMode);
+
+                    Logger.flush();
+                    System.out.println(plan.format());
+                    return;
+                }
+
+                DeploymentService deploymentService = serviceFactory.deploymentService();
+
+                deploymentService.deploy(accountId, environmentName, applicationName, applicationVersion, war,
+                        hostedZoneDomainName, certificateDomainName, mailgunApiKey, production, removeResources,
+                        deploymentMode);
+            }
+            finally {
+                serviceFactory.shutdown();
+                Logger.flush();
+
+                if (simulator != null) {
+                    System.out.println(simulator.report());
+                }
+
+                if (traceFilePath != null) {
+                    new ChromeTraceExporter().export(Tracer.getFinishedSpans(), new File(traceFilePath));
+                }
 
-            deploymentService.deploy(accountId, environmentName, applicationName, applicationVersion, war,
-                    hostedZoneDomainName, certificateDomainName, mailgunApiKey, production, removeResources);
+                ApiMetrics apiMetrics = serviceFactory.apiMetrics();
+
+                if (apiMetrics.getCallCount() > 0) {
+                    System.out.println(apiMetrics.format());
+                }
+
+                if (line.hasOption(METRICS_FILE_OPT)) {
+                    apiMetrics.writePrometheus(new File(line.getOptionValue(METRICS_FILE_OPT)));
+                }
+            }
         }
         catch (ParseException e) {
             HelpFormatter helpFormatter = new HelpFormatter();
@@ -127,9 +193,35 @@ public class Application {
         Option removeExistingResources = option(REMOVE_RESOURCES_FLAG_OPT, false, "Flag to force removal of existing resources.");
         options.addOption(removeExistingResources);
 
+        Option plan = option(PLAN_FLAG_OPT, false, "Flag to print the changes a deployment would make without making them.");
+        options.addOption(plan);
+
+        Option deploymentMode = option(DEPLOYMENT_MODE_OPT, true, "How to replace the environment: recreate (default), blue-green or rolling.");
+        options.addOption(deploymentMode);
+
+        Option simulate = option(SIMULATE_FLAG_OPT, false, "Flag to run against an in-memory simulation of AWS and report timings and API call counts.");
+        options.addOption(simulate);
+
+        Option traceFile = option(TRACE_FILE_OPT, true, "The file to write a Chrome trace of the run to, for viewing as a flame chart.");
+        options.addOption(traceFile);
+
+        Option metricsFile = option(METRICS_FILE_OPT, true, "The file to write AWS API call metrics to in the Prometheus text format.");
+        options.addOption(metricsFile);
+
         return options;
     }
 
+    private static DeploymentMode getDeploymentMode(CommandLine line) throws ParseException {
+        String deploymentMode = line.getOptionValue(DEPLOYMENT_MODE_OPT, DeploymentMode.RECREATE.getOptionValue());
+
+        try {
+            return DeploymentMode.fromOptionValue(deploymentMode);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
     private static Option option(String longOpt, boolean hasArg, String description) {
         return new Option(null, longOpt, hasArg, description);
     }
@@ -3,15 +3,27 @@ package in.reeltime.tool.access;
 import com.amazonaws.services.certificatemanager.model.CertificateDetail;
 import com.amazonaws.services.identitymanagement.model.InstanceProfile;
 import com.amazonaws.services.identitymanagement.model.Role;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import in.reeltime.tool.access.certificate.CertificateService;
 import in.reeltime.tool.access.profile.InstanceProfileService;
 import in.reeltime.tool.access.role.RolePolicy;
 import in.reeltime.tool.access.role.RolePolicyParameters;
 import in.reeltime.tool.access.role.RoleService;
 import in.reeltime.tool.name.NameService;
+import in.reeltime.tool.plan.ResourceChange;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public class AccessService {
 
+    private static final String EC2_INSTANCE_ROLE_STATE_KEY = "ec2InstanceRole";
+    private static final String TRANSCODER_ROLE_STATE_KEY = "transcoderRole";
+    private static final String EC2_INSTANCE_PROFILE_STATE_KEY = "ec2InstanceProfile";
+    private static final String CERTIFICATE_STATE_KEY = "certificate";
+
     private final NameService nameService;
 
     private final RoleService roleService;
@@ -45,6 +57,94 @@ public class AccessService {
         return new Access(ec2InstanceRole, transcoderRole, ec2InstanceProfile, certificate);
     }
 
+    // Role ids change when a role is recreated under the same name, so they are what gets recorded
+    public Map<String, String> recordAccess(Access access) {
+        return new ImmutableMap.Builder<String, String>()
+                .put(EC2_INSTANCE_ROLE_STATE_KEY, access.getEc2InstanceRole().getRoleName() + ":" + access.getEc2InstanceRole().getRoleId())
+                .put(TRANSCODER_ROLE_STATE_KEY, access.getTranscoderRole().getRoleName() + ":" + access.getTranscoderRole().getRoleId())
+                .put(EC2_INSTANCE_PROFILE_STATE_KEY, access.getEc2InstanceProfile().getInstanceProfileName())
+                .put(CERTIFICATE_STATE_KEY, access.getCertificate().getCertificateArn())
+                .build();
+    }
+
+    public Access restoreAccess(Map<String, String> resources) {
+        Role ec2InstanceRole = restoreRole(resources.get(EC2_INSTANCE_ROLE_STATE_KEY));
+        Role transcoderRole = restoreRole(resources.get(TRANSCODER_ROLE_STATE_KEY));
+
+        String certificateArn = resources.get(CERTIFICATE_STATE_KEY);
+
+        if (ec2InstanceRole == null || transcoderRole == null || certificateArn == null) {
+            return null;
+        }
+
+        InstanceProfile ec2InstanceProfile = instanceProfileService.getInstanceProfile(resources.get(EC2_INSTANCE_PROFILE_STATE_KEY));
+        CertificateDetail certificate = certificateService.getCertificateByArn(certificateArn);
+
+        if (ec2InstanceProfile == null || certificate == null) {
+            return null;
+        }
+
+        return new Access(ec2InstanceRole, transcoderRole, ec2InstanceProfile, certificate);
+    }
+
+    // Entries that are missing or not in the recorded form are treated like a role that no longer exists
+    private Role restoreRole(String recorded) {
+        int separator = recorded != null ? recorded.lastIndexOf(':') : -1;
+
+        if (separator < 0) {
+            return null;
+        }
+
+        String roleName = recorded.substring(0, separator);
+        String roleId = recorded.substring(separator + 1);
+
+        Role role = roleService.getRole(roleName);
+        return role != null && role.getRoleId().equals(roleId) ? role : null;
+    }
+
+    public List<Supplier<ResourceChange>> planAccess(String certificateDomainName) {
+        String ec2InstanceRoleName = nameService.getNameForResource(Role.class, "ec2-instance");
+        String transcoderRoleName = nameService.getNameForResource(Role.class, "transcoder");
+
+        List<Supplier<ResourceChange>> checks = Lists.newArrayList();
+
+        checks.add(() -> ResourceChange.ensure("role", ec2InstanceRoleName, roleService.roleExists(ec2InstanceRoleName)));
+        checks.add(planPolicy(ec2InstanceRoleName, "application-storage"));
+        checks.add(planPolicy(ec2InstanceRoleName, "application-transcoder-jobs"));
+        checks.add(planPolicy(ec2InstanceRoleName, "transcoder-notification-subscription"));
+
+        checks.add(() -> {
+            InstanceProfile instanceProfile = instanceProfileService.getInstanceProfile(ec2InstanceRoleName);
+
+            if (instanceProfile == null) {
+                return new ResourceChange(ResourceChange.Action.CREATE, "instance-profile", ec2InstanceRoleName);
+            }
+
+            boolean hasRole = instanceProfile.getRoles().stream()
+                    .anyMatch(r -> r.getRoleName().equals(ec2InstanceRoleName));
+
+            ResourceChange.Action action = hasRole ? ResourceChange.Action.NONE : ResourceChange.Action.UPDATE;
+            return new ResourceChange(action, "instance-profile", ec2InstanceRoleName);
+        });
+
+        checks.add(() -> ResourceChange.ensure("role", transcoderRoleName, roleService.roleExists(transcoderRoleName)));
+        checks.add(planPolicy(transcoderRoleName, "transcode-videos"));
+
+        checks.add(() -> ResourceChange.require("certificate", certificateDomainName,
+                certificateService.getCertificate(certificateDomainName) != null));
+
+        return checks;
+    }
+
+    private Supplier<ResourceChange> planPolicy(String roleName, String policyNameSuffix) {
+        String policyName = nameService.getNameForResource(RolePolicy.class, policyNameSuffix);
+
+        return () -> {
+            Role role = roleService.getRole(roleName);
+            return ResourceChange.ensure("role-policy", policyName, role != null && roleService.roleHasPolicy(role, policyName));
+        };
+    }
+
     private Role createRole(String roleNameSuffix, String policyName) {
         String roleName = nameService.getNameForResource(Role.class, roleNameSuffix);
         return roleService.createRole(roleName, policyName);
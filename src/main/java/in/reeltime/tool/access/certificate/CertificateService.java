@@ -2,9 +2,9 @@ package in.reeltime.tool.access.certificate;
 
 import com.amazonaws.services.certificatemanager.AWSCertificateManager;
 import com.amazonaws.services.certificatemanager.model.*;
+import in.reeltime.tool.aws.Paginator;
 import in.reeltime.tool.log.Logger;
 
-import java.util.List;
 import java.util.Optional;
 
 public class CertificateService {
@@ -34,18 +34,30 @@ public class CertificateService {
         return result.getCertificate();
     }
 
-    private CertificateSummary getCertificateSummary(String domainName) {
-        ListCertificatesRequest request = new ListCertificatesRequest()
-                .withCertificateStatuses(CertificateStatus.ISSUED);
+    public CertificateDetail getCertificateByArn(String certificateArn) {
+        DescribeCertificateRequest request = new DescribeCertificateRequest()
+                .withCertificateArn(certificateArn);
 
+        try {
+            return acm.describeCertificate(request).getCertificate();
+        }
+        catch (ResourceNotFoundException e) {
+            Logger.info("Certificate [%s] not found", certificateArn);
+            return null;
+        }
+    }
+
+    private CertificateSummary getCertificateSummary(String domainName) {
         Logger.info("Getting certificate summary for domain [%s]", domainName);
 
-        ListCertificatesResult result = acm.listCertificates(request);
-        List<CertificateSummary> certificateSummaries = result.getCertificateSummaryList();
+        Paginator<String, ListCertificatesResult, CertificateSummary> pages = Paginator.paginate(null,
+                nextToken -> acm.listCertificates(new ListCertificatesRequest()
+                        .withCertificateStatuses(CertificateStatus.ISSUED)
+                        .withNextToken(nextToken)),
+                ListCertificatesResult::getCertificateSummaryList,
+                ListCertificatesResult::getNextToken);
 
-        Optional<CertificateSummary> optionalSummary = certificateSummaries.stream()
-                .filter(c -> c.getDomainName().equals(domainName))
-                .findFirst();
+        Optional<CertificateSummary> optionalSummary = pages.find(c -> c.getDomainName().equals(domainName));
 
         return optionalSummary.isPresent() ? optionalSummary.get() : null;
     }
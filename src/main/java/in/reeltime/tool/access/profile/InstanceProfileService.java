@@ -2,17 +2,22 @@ package in.reeltime.tool.access.profile;
 
 import com.amazonaws.services.identitymanagement.AmazonIdentityManagement;
 import com.amazonaws.services.identitymanagement.model.*;
+import in.reeltime.tool.aws.Paginator;
+import in.reeltime.tool.inventory.ResourceCache;
+import in.reeltime.tool.inventory.ResourceInventory;
 import in.reeltime.tool.log.Logger;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class InstanceProfileService {
 
     private final AmazonIdentityManagement iam;
+    private final ResourceCache<String, InstanceProfile> instanceProfiles;
 
-    public InstanceProfileService(AmazonIdentityManagement iam) {
+    public InstanceProfileService(AmazonIdentityManagement iam, ResourceInventory inventory) {
         this.iam = iam;
+        this.instanceProfiles = inventory.cache("instance profiles", this::listInstanceProfiles);
     }
 
     public boolean instanceProfileExists(String instanceProfileName) {
@@ -22,19 +27,25 @@ public class InstanceProfileService {
 
     public InstanceProfile getInstanceProfile(String instanceProfileName) {
         Logger.info("Getting instance profile [%s]", instanceProfileName);
-        List<InstanceProfile> instanceProfiles = iam.listInstanceProfiles().getInstanceProfiles();
+        return instanceProfiles.get(instanceProfileName);
+    }
 
-        Optional<InstanceProfile> optionalProfile = instanceProfiles.stream()
-                .filter(ip -> ip.getInstanceProfileName().equals(instanceProfileName))
-                .findFirst();
+    private Map<String, InstanceProfile> listInstanceProfiles() {
+        Paginator<String, ListInstanceProfilesResult, InstanceProfile> pages = Paginator.paginate(null,
+                marker -> iam.listInstanceProfiles(new ListInstanceProfilesRequest().withMarker(marker)),
+                ListInstanceProfilesResult::getInstanceProfiles,
+                result -> result.isTruncated() ? result.getMarker() : null);
 
-        return optionalProfile.isPresent() ? optionalProfile.get() : null;
+        return pages.prefetching().stream()
+                .collect(Collectors.toMap(InstanceProfile::getInstanceProfileName, ip -> ip));
     }
 
     public InstanceProfile createInstanceProfile(String instanceProfileName) {
-        if (instanceProfileExists(instanceProfileName)) {
+        InstanceProfile existing = getInstanceProfile(instanceProfileName);
+
+        if (existing != null) {
             Logger.info("Instance profile [%s] already exists", instanceProfileName);
-            return getInstanceProfile(instanceProfileName);
+            return existing;
         }
 
         CreateInstanceProfileRequest request = new CreateInstanceProfileRequest()
@@ -43,7 +54,7 @@ public class InstanceProfileService {
         Logger.info("Creating instance profile [%s]", instanceProfileName);
 
         CreateInstanceProfileResult result = iam.createInstanceProfile(request);
-        return result.getInstanceProfile();
+        return instanceProfiles.put(instanceProfileName, result.getInstanceProfile());
     }
 
     public InstanceProfile addRole(InstanceProfile instanceProfile, Role role) {
@@ -68,11 +79,12 @@ public class InstanceProfileService {
     }
 
     private InstanceProfile refreshInstanceProfile(InstanceProfile instanceProfile) {
-        String instanceProfileId = instanceProfile.getInstanceProfileId();
-        List<InstanceProfile> instanceProfiles = iam.listInstanceProfiles().getInstanceProfiles();
+        String instanceProfileName = instanceProfile.getInstanceProfileName();
+
+        GetInstanceProfileRequest request = new GetInstanceProfileRequest()
+                .withInstanceProfileName(instanceProfileName);
 
-        return instanceProfiles.stream()
-                .filter(ip -> ip.getInstanceProfileId().equals(instanceProfileId))
-                .findFirst().get();
+        GetInstanceProfileResult result = iam.getInstanceProfile(request);
+        return instanceProfiles.put(instanceProfileName, result.getInstanceProfile());
     }
 }
@@ -5,6 +5,9 @@ import com.amazonaws.services.identitymanagement.model.*;
 import com.google.common.collect.Maps;
 import groovy.text.SimpleTemplateEngine;
 import groovy.text.Template;
+import in.reeltime.tool.aws.Paginator;
+import in.reeltime.tool.inventory.ResourceCache;
+import in.reeltime.tool.inventory.ResourceInventory;
 import in.reeltime.tool.log.Logger;
 import in.reeltime.tool.resource.ResourceService;
 
@@ -13,7 +16,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class RoleService {
 
@@ -22,10 +25,12 @@ public class RoleService {
 
     private final AmazonIdentityManagement iam;
     private final ResourceService resourceService;
+    private final ResourceCache<String, Role> roles;
 
-    public RoleService(AmazonIdentityManagement iam, ResourceService resourceService) {
+    public RoleService(AmazonIdentityManagement iam, ResourceService resourceService, ResourceInventory inventory) {
         this.iam = iam;
         this.resourceService = resourceService;
+        this.roles = inventory.cache("roles", this::listRoles, this::lookupRole);
     }
 
     public boolean roleExists(String roleName) {
@@ -35,19 +40,37 @@ public class RoleService {
 
     public Role getRole(String roleName) {
         Logger.info("Getting role [%s]", roleName);
-        List<Role> roles = iam.listRoles().getRoles();
+        return roles.get(roleName);
+    }
+
+    private Role lookupRole(String roleName) {
+        GetRoleRequest request = new GetRoleRequest()
+                .withRoleName(roleName);
+
+        try {
+            return iam.getRole(request).getRole();
+        }
+        catch (NoSuchEntityException e) {
+            return null;
+        }
+    }
 
-        Optional<Role> optionalRole = roles.stream()
-                .filter(r -> r.getRoleName().equals(roleName))
-                .findFirst();
+    private Map<String, Role> listRoles() {
+        Paginator<String, ListRolesResult, Role> pages = Paginator.paginate(null,
+                marker -> iam.listRoles(new ListRolesRequest().withMarker(marker)),
+                ListRolesResult::getRoles,
+                result -> result.isTruncated() ? result.getMarker() : null);
 
-        return optionalRole.isPresent() ? optionalRole.get() : null;
+        return pages.prefetching().stream()
+                .collect(Collectors.toMap(Role::getRoleName, r -> r));
     }
 
     public Role createRole(String roleName, String policyDocumentName) {
-        if (roleExists(roleName)) {
+        Role existing = getRole(roleName);
+
+        if (existing != null) {
             Logger.info("Role [%s] already exists", roleName);
-            return getRole(roleName);
+            return existing;
         }
 
         String policyDocument = getPolicyDocument(ROLE_FORMAT, policyDocumentName);
@@ -59,7 +82,7 @@ public class RoleService {
         Logger.info("Creating role [%s]", roleName);
 
         CreateRoleResult result = iam.createRole(request);
-        return result.getRole();
+        return roles.put(roleName, result.getRole());
     }
 
     public boolean roleHasPolicy(Role role, String policyName) {
@@ -94,7 +117,7 @@ public class RoleService {
         Logger.info("Adding policy [%s] to role [%s]", policyName, roleName);
 
         iam.putRolePolicy(request);
-        return refreshRole(role);
+        return role;
     }
 
     private String getPolicyDocument(String format, String policyName) {
@@ -117,13 +140,4 @@ public class RoleService {
             throw new RuntimeException("Failed to get policy document: " + policyDocumentName, e);
         }
     }
-
-    private Role refreshRole(Role role) {
-        String roleId = role.getRoleId();
-        ListRolesResult result = iam.listRoles();
-
-        return result.getRoles().stream()
-                .filter(r -> r.getRoleId().equals(roleId))
-                .findFirst().get();
-    }
 }
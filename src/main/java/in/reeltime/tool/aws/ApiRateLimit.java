@@ -0,0 +1,50 @@
+package in.reeltime.tool.aws;
+
+import in.reeltime.tool.util.SystemPropertyUtil;
+
+public enum ApiRateLimit {
+
+    // Defaults sit just under the published (or empirically observed) account-level limits
+    ACM("acm", 10, 20),
+    EB("eb", 10, 20),
+    EC2("ec2", 20, 100),
+    ELB("elb", 10, 40),
+    ETS("ets", 4, 10),
+    IAM("iam", 10, 20),
+    RDS("rds", 10, 40),
+    ROUTE53("route53", 4, 5),
+    S3("s3", 100, 300),
+    SNS("sns", 20, 30);
+
+    private static final String REQUESTS_PER_SECOND_PROPERTY_FORMAT = "reeltime.aws.%s.requestsPerSecond";
+    private static final String BURST_PROPERTY_FORMAT = "reeltime.aws.%s.burst";
+
+    private final String serviceName;
+    private final long defaultRequestsPerSecond;
+    private final int defaultBurst;
+
+    ApiRateLimit(String serviceName, long defaultRequestsPerSecond, int defaultBurst) {
+        this.serviceName = serviceName;
+        this.defaultRequestsPerSecond = defaultRequestsPerSecond;
+        this.defaultBurst = defaultBurst;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public TokenBucket newTokenBucket() {
+        return newTokenBucket(1.0);
+    }
+
+    // A time scale below one compresses time, so the same budget is spent proportionally faster
+    public TokenBucket newTokenBucket(double timeScale) {
+        String requestsPerSecondProperty = String.format(REQUESTS_PER_SECOND_PROPERTY_FORMAT, serviceName);
+        String burstProperty = String.format(BURST_PROPERTY_FORMAT, serviceName);
+
+        long requestsPerSecond = SystemPropertyUtil.getLongSystemProperty(requestsPerSecondProperty, defaultRequestsPerSecond);
+        int burst = SystemPropertyUtil.getIntSystemProperty(burstProperty, defaultBurst);
+
+        return new TokenBucket(requestsPerSecond / timeScale, burst);
+    }
+}
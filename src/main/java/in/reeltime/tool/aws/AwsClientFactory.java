@@ -1,8 +1,14 @@
 package in.reeltime.tool.aws;
 
+import com.amazonaws.AmazonWebServiceClient;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.internal.StaticCredentialsProvider;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.regions.Region;
+import com.amazonaws.regions.Regions;
 import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.services.certificatemanager.AWSCertificateManager;
 import com.amazonaws.services.certificatemanager.AWSCertificateManagerClient;
@@ -24,68 +30,172 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.AmazonSNSClient;
+import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.metrics.ApiMetrics;
 import in.reeltime.tool.util.SystemPropertyUtil;
 
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 public class AwsClientFactory {
 
     private static final int MAX_ERROR_RETRY = 10;
 
-    private final AWSCredentials credentials;
+    private static final String REGION_PROPERTY = "reeltime.aws.region";
+    private static final String DEFAULT_REGION = "us-east-1";
+
+    private static final String MAX_CONNECTIONS_PROPERTY = "reeltime.aws.maxConnections";
+    private static final int DEFAULT_MAX_CONNECTIONS = 50;
+
+    private static final String CONNECTION_TTL_MILLIS_PROPERTY = "reeltime.aws.connectionTtlMillis";
+    private static final long DEFAULT_CONNECTION_TTL_MILLIS = 60000;
+
+    private static final String TCP_KEEP_ALIVE_PROPERTY = "reeltime.aws.tcpKeepAlive";
+    private static final String DEFAULT_TCP_KEEP_ALIVE = "true";
+
+    private static final String SOCKET_TIMEOUT_MILLIS_PROPERTY = "reeltime.aws.socketTimeoutMillis";
+    private static final int DEFAULT_SOCKET_TIMEOUT_MILLIS = 50000;
+
+    private static final String CONNECTION_TIMEOUT_MILLIS_PROPERTY = "reeltime.aws.connectionTimeoutMillis";
+    private static final int DEFAULT_CONNECTION_TIMEOUT_MILLIS = 10000;
+
+    private static final String CLIENT_KEY_FORMAT = "%s:%s";
+
+    // These have a single endpoint, which the clients already default to, whatever region is configured
+    private static final Set<ApiRateLimit> GLOBAL_SERVICES = EnumSet.of(ApiRateLimit.IAM, ApiRateLimit.ROUTE53);
+
+    private final AWSCredentialsProvider credentialsProvider;
+    private final ClientConfiguration clientConfiguration;
+    private final Region region;
+
+    private final ApiMetrics apiMetrics = new ApiMetrics();
+
+    private final ConcurrentMap<String, AmazonWebServiceClient> clients = new ConcurrentHashMap<>();
 
     public AwsClientFactory(String accessKey, String secretKey) {
         this(new BasicAWSCredentials(accessKey, secretKey));
     }
 
     public AwsClientFactory(AWSCredentials credentials) {
-        this.credentials = credentials;
+        this.credentialsProvider = new StaticCredentialsProvider(credentials);
+        this.clientConfiguration = clientConfiguration();
+        this.region = Region.getRegion(Regions.fromName(
+                SystemPropertyUtil.getSystemProperty(REGION_PROPERTY, DEFAULT_REGION)));
+    }
+
+    public String getRegionName() {
+        return region.getName();
+    }
+
+    public ApiMetrics getApiMetrics() {
+        return apiMetrics;
     }
 
     public AWSCertificateManager acm() {
-        return new AWSCertificateManagerClient(credentials, clientConfiguration());
+        return client(ApiRateLimit.ACM, AWSCertificateManagerClient.class, AWSCertificateManagerClient::new);
     }
 
     public AWSElasticBeanstalk eb() {
-        return new AWSElasticBeanstalkClient(credentials, clientConfiguration());
+        return client(ApiRateLimit.EB, AWSElasticBeanstalkClient.class, AWSElasticBeanstalkClient::new);
     }
 
     public AmazonEC2 ec2() {
-        return new AmazonEC2Client(credentials, clientConfiguration());
+        return client(ApiRateLimit.EC2, AmazonEC2Client.class, AmazonEC2Client::new);
     }
 
     public AmazonElasticLoadBalancing elb() {
-        return new AmazonElasticLoadBalancingClient(credentials, clientConfiguration());
+        return client(ApiRateLimit.ELB, AmazonElasticLoadBalancingClient.class, AmazonElasticLoadBalancingClient::new);
     }
 
     public AmazonElasticTranscoder ets() {
-        return new AmazonElasticTranscoderClient(credentials, clientConfiguration());
+        return client(ApiRateLimit.ETS, AmazonElasticTranscoderClient.class, AmazonElasticTranscoderClient::new);
     }
 
     public AmazonIdentityManagement iam() {
-        return new AmazonIdentityManagementClient(credentials, clientConfiguration());
+        return client(ApiRateLimit.IAM, AmazonIdentityManagementClient.class, AmazonIdentityManagementClient::new);
     }
 
     public AmazonRDS rds() {
-        return new AmazonRDSClient(credentials, clientConfiguration());
+        return client(ApiRateLimit.RDS, AmazonRDSClient.class, AmazonRDSClient::new);
     }
 
     public AmazonRoute53 route53() {
-        return new AmazonRoute53Client(credentials, clientConfiguration());
+        return client(ApiRateLimit.ROUTE53, AmazonRoute53Client.class, AmazonRoute53Client::new);
     }
 
     public AmazonS3 s3() {
-        return new AmazonS3Client(credentials, clientConfiguration());
+        return client(ApiRateLimit.S3, AmazonS3Client.class, AmazonS3Client::new);
     }
 
     public AmazonSNS sns() {
-        return new AmazonSNSClient(credentials, clientConfiguration());
+        return client(ApiRateLimit.SNS, AmazonSNSClient.class, AmazonSNSClient::new);
+    }
+
+    public void shutdown() {
+        for (String key : clients.keySet()) {
+            AmazonWebServiceClient client = clients.remove(key);
+
+            if (client != null) {
+                Logger.debug("Shutting down client [%s]", key);
+                client.shutdown();
+            }
+        }
+    }
+
+    private <T extends AmazonWebServiceClient> T client(ApiRateLimit rateLimit, Class<T> type,
+                                                        ClientConstructor<T> constructor) {
+        String serviceName = rateLimit.getServiceName();
+        String key = String.format(CLIENT_KEY_FORMAT, serviceName, region.getName());
+
+        AmazonWebServiceClient client = clients.computeIfAbsent(key, k -> {
+            RequestMetricCollector metricCollector = new MetricsRequestCollector(serviceName, apiMetrics);
+
+            // First attempts are metered by the request handler and retries by the backoff strategy
+            TokenBucket tokenBucket = rateLimit.newTokenBucket();
+
+            ClientConfiguration configuration = new ClientConfiguration(clientConfiguration);
+            configuration.setRetryPolicy(new RetryPolicy(null,
+                    new RateLimitingBackoffStrategy(serviceName, tokenBucket), MAX_ERROR_RETRY, true));
+
+            T newClient = constructor.create(credentialsProvider, configuration, metricCollector);
+            if (!GLOBAL_SERVICES.contains(rateLimit)) {
+                newClient.setRegion(region);
+            }
+            newClient.addRequestHandler(new TracingRequestHandler(serviceName));
+            newClient.addRequestHandler(new RateLimitingRequestHandler(serviceName, tokenBucket));
+            return newClient;
+        });
+        return type.cast(client);
     }
 
     private ClientConfiguration clientConfiguration() {
         ClientConfiguration clientConfiguration = new ClientConfiguration();
 
         clientConfiguration.setMaxErrorRetry(MAX_ERROR_RETRY);
-        clientConfiguration.setRetryPolicy(new RetryPolicy(null, null, MAX_ERROR_RETRY, true));
+
+        clientConfiguration.setMaxConnections(
+                SystemPropertyUtil.getIntSystemProperty(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS));
+
+        clientConfiguration.setConnectionTTL(
+                SystemPropertyUtil.getLongSystemProperty(CONNECTION_TTL_MILLIS_PROPERTY, DEFAULT_CONNECTION_TTL_MILLIS));
+
+        clientConfiguration.setUseTcpKeepAlive(Boolean.parseBoolean(
+                SystemPropertyUtil.getSystemProperty(TCP_KEEP_ALIVE_PROPERTY, DEFAULT_TCP_KEEP_ALIVE)));
+
+        clientConfiguration.setSocketTimeout(
+                SystemPropertyUtil.getIntSystemProperty(SOCKET_TIMEOUT_MILLIS_PROPERTY, DEFAULT_SOCKET_TIMEOUT_MILLIS));
+
+        clientConfiguration.setConnectionTimeout(
+                SystemPropertyUtil.getIntSystemProperty(CONNECTION_TIMEOUT_MILLIS_PROPERTY, DEFAULT_CONNECTION_TIMEOUT_MILLIS));
 
         return clientConfiguration;
     }
+
+    @FunctionalInterface
+    private interface ClientConstructor<T extends AmazonWebServiceClient> {
+        T create(AWSCredentialsProvider credentialsProvider, ClientConfiguration clientConfiguration,
+                 RequestMetricCollector metricCollector);
+    }
 }
@@ -0,0 +1,107 @@
+package in.reeltime.tool.aws;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+public class CoalescingLoader<K, V> {
+
+    private final String name;
+    private final Function<Set<K>, Map<K, V>> batchFunction;
+
+    private final Object lock = new Object();
+
+    private Map<K, CompletableFuture<V>> pending = Maps.newHashMap();
+    private boolean inFlight = false;
+
+    public CoalescingLoader(String name, Function<Set<K>, Map<K, V>> batchFunction) {
+        this.name = name;
+        this.batchFunction = batchFunction;
+    }
+
+    public V load(K key) {
+        CompletableFuture<V> future;
+        boolean leader;
+
+        synchronized (lock) {
+            future = pending.computeIfAbsent(key, k -> new CompletableFuture<>());
+            leader = !inFlight;
+            inFlight = true;
+        }
+
+        // Keys queued while a call is in flight are sent together in the next call made by the leader
+        if (leader) {
+            drain();
+        }
+        return join(future);
+    }
+
+    private void drain() {
+        boolean drained = false;
+
+        try {
+            while (!drained) {
+                Map<K, CompletableFuture<V>> batch;
+
+                synchronized (lock) {
+                    if (pending.isEmpty()) {
+                        inFlight = false;
+                        drained = true;
+                        continue;
+                    }
+                    batch = pending;
+                    pending = Maps.newHashMap();
+                }
+
+                execute(batch);
+            }
+        }
+        finally {
+            // Callers that queued behind a leader that failed would otherwise wait for a call nobody makes
+            if (!drained) {
+                Map<K, CompletableFuture<V>> abandoned;
+
+                synchronized (lock) {
+                    abandoned = pending;
+                    pending = Maps.newHashMap();
+                    inFlight = false;
+                }
+
+                IllegalStateException e = new IllegalStateException("Failed to load " + name);
+                abandoned.values().forEach(future -> future.completeExceptionally(e));
+            }
+        }
+    }
+
+    private void execute(Map<K, CompletableFuture<V>> batch) {
+        try {
+            Map<K, V> results = batchFunction.apply(ImmutableSet.copyOf(batch.keySet()));
+            batch.forEach((key, future) -> future.complete(results.get(key)));
+        }
+        catch (Throwable t) {
+            batch.values().forEach(future -> future.completeExceptionally(t));
+        }
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Failed to load " + name, cause);
+        }
+    }
+}
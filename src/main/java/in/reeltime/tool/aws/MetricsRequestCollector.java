@@ -0,0 +1,45 @@
+package in.reeltime.tool.aws;
+
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.TimingInfo;
+import in.reeltime.tool.metrics.ApiMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+// Feeds the SDK's per-request timings and counters into the run's API metrics once a call completes
+public class MetricsRequestCollector extends RequestMetricCollector {
+
+    private final String serviceName;
+    private final ApiMetrics apiMetrics;
+
+    public MetricsRequestCollector(String serviceName, ApiMetrics apiMetrics) {
+        this.serviceName = serviceName;
+        this.apiMetrics = apiMetrics;
+    }
+
+    @Override
+    public void collectMetrics(Request<?> request, Response<?> response) {
+        TimingInfo timingInfo = request.getAWSRequestMetrics().getTimingInfo();
+
+        Double latencyMillis = timingInfo.getTimeTakenMillisIfKnown();
+        long latencyMicros = latencyMillis != null ? (long) (latencyMillis * TimeUnit.MILLISECONDS.toMicros(1)) : 0;
+
+        // Every attempt bumps the request count, so anything past the first was a retry
+        long attempts = getCounter(timingInfo, AWSRequestMetrics.Field.RequestCount);
+        long retries = Math.max(0, attempts - 1);
+
+        long throttles = getCounter(timingInfo, AWSRequestMetrics.Field.ThrottleException);
+        long bytes = getCounter(timingInfo, AWSRequestMetrics.Field.BytesProcessed);
+
+        apiMetrics.record(serviceName, OperationNames.of(request), latencyMicros, retries, throttles, bytes,
+                response == null);
+    }
+
+    private static long getCounter(TimingInfo timingInfo, AWSRequestMetrics.Field field) {
+        Number counter = timingInfo.getCounter(field.name());
+        return counter != null ? counter.longValue() : 0;
+    }
+}
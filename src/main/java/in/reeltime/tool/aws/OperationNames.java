@@ -0,0 +1,16 @@
+package in.reeltime.tool.aws;
+
+import com.amazonaws.Request;
+
+// Names an SDK request the way the service's API reference does, e.g. DescribeVpcs
+final class OperationNames {
+
+    private static final String REQUEST_SUFFIX = "Request";
+
+    private OperationNames() { }
+
+    static String of(Request<?> request) {
+        String name = request.getOriginalRequest().getClass().getSimpleName();
+        return name.endsWith(REQUEST_SUFFIX) ? name.substring(0, name.length() - REQUEST_SUFFIX.length()) : name;
+    }
+}
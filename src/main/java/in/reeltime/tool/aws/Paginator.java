@@ -0,0 +1,139 @@
+package in.reeltime.tool.aws;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class Paginator<P, R, T> implements Iterable<T> {
+
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder()
+                    .setNameFormat("page-prefetch-%d")
+                    .setDaemon(true)
+                    .build());
+
+    private final P firstToken;
+    private final Function<P, R> fetchPage;
+    private final Function<R, List<T>> pageItems;
+    private final Function<R, P> nextToken;
+    private final boolean prefetch;
+
+    private Paginator(P firstToken, Function<P, R> fetchPage, Function<R, List<T>> pageItems,
+                      Function<R, P> nextToken, boolean prefetch) {
+        this.firstToken = firstToken;
+        this.fetchPage = fetchPage;
+        this.pageItems = pageItems;
+        this.nextToken = nextToken;
+        this.prefetch = prefetch;
+    }
+
+    public static <P, R, T> Paginator<P, R, T> paginate(P firstToken, Function<P, R> fetchPage,
+                                                        Function<R, List<T>> pageItems, Function<R, P> nextToken) {
+        return new Paginator<>(firstToken, fetchPage, pageItems, nextToken, false);
+    }
+
+    public Paginator<P, R, T> prefetching() {
+        return new Paginator<>(firstToken, fetchPage, pageItems, nextToken, true);
+    }
+
+    public Optional<T> find(Predicate<T> predicate) {
+        return stream().filter(predicate).findFirst();
+    }
+
+    public List<T> toList() {
+        return stream().collect(Collectors.toList());
+    }
+
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PageIterator();
+    }
+
+    private class PageIterator implements Iterator<T> {
+
+        private Iterator<T> items = Collections.emptyIterator();
+
+        private boolean started = false;
+        private P token = null;
+        private CompletableFuture<R> pendingPage = null;
+
+        @Override
+        public boolean hasNext() {
+            while (!items.hasNext()) {
+                R page;
+
+                if (!started) {
+                    started = true;
+                    page = fetchPage.apply(firstToken);
+                }
+                else if (pendingPage != null) {
+                    page = join(pendingPage);
+                    pendingPage = null;
+                }
+                else if (token != null) {
+                    page = fetchPage.apply(token);
+                }
+                else {
+                    return false;
+                }
+
+                accept(page);
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return items.next();
+        }
+
+        private void accept(R page) {
+            items = pageItems.apply(page).iterator();
+            token = nextToken.apply(page);
+
+            // Fetch the next page while the caller works through this one
+            if (token != null && prefetch) {
+                P next = token;
+                token = null;
+                pendingPage = CompletableFuture.supplyAsync(() -> fetchPage.apply(next), PREFETCH_EXECUTOR);
+            }
+        }
+
+        private R join(CompletableFuture<R> future) {
+            try {
+                return future.join();
+            }
+            catch (CompletionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException("Failed to fetch page", cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package in.reeltime.tool.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.retry.RetryPolicy;
+import in.reeltime.tool.log.Logger;
+
+// The request handler is only called once per logical request, so each retry takes its own token here
+public class RateLimitingBackoffStrategy implements RetryPolicy.BackoffStrategy {
+
+    private final String serviceName;
+    private final TokenBucket tokenBucket;
+    private final RetryPolicy.BackoffStrategy backoffStrategy;
+
+    public RateLimitingBackoffStrategy(String serviceName, TokenBucket tokenBucket) {
+        this.serviceName = serviceName;
+        this.tokenBucket = tokenBucket;
+        this.backoffStrategy = PredefinedRetryPolicies.DEFAULT_BACKOFF_STRATEGY;
+    }
+
+    @Override
+    public long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest, AmazonClientException exception,
+                                     int retriesAttempted) {
+        long backoffMillis = backoffStrategy.delayBeforeNextRetry(originalRequest, exception, retriesAttempted);
+        long waitedMillis = tokenBucket.acquire();
+
+        if (waitedMillis > 0) {
+            Logger.debug("Delayed [%s] retry [%s] of [%s] by [%s] ms to stay under the rate limit",
+                    serviceName, retriesAttempted, originalRequest.getClass().getSimpleName(), waitedMillis);
+        }
+
+        // Time spent waiting for the token counts towards the backoff
+        return Math.max(0, backoffMillis - waitedMillis);
+    }
+}
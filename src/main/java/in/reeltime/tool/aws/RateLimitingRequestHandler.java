@@ -0,0 +1,39 @@
+package in.reeltime.tool.aws;
+
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.RequestHandler2;
+import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.trace.Tracer;
+
+public class RateLimitingRequestHandler extends RequestHandler2 {
+
+    private final String serviceName;
+    private final TokenBucket tokenBucket;
+
+    public RateLimitingRequestHandler(String serviceName, TokenBucket tokenBucket) {
+        this.serviceName = serviceName;
+        this.tokenBucket = tokenBucket;
+    }
+
+    @Override
+    public void beforeRequest(Request<?> request) {
+        long waitedMillis = tokenBucket.acquire();
+
+        if (waitedMillis > 0) {
+            // Runs after the tracing handler, so the current span is this request's
+            Tracer.current().setAttribute("rateLimitWaitMillis", waitedMillis);
+
+            Logger.debug("Delayed [%s] request [%s] by [%s] ms to stay under the rate limit",
+                    serviceName, request.getOriginalRequest().getClass().getSimpleName(), waitedMillis);
+        }
+    }
+
+    @Override
+    public void afterResponse(Request<?> request, Response<?> response) {
+    }
+
+    @Override
+    public void afterError(Request<?> request, Response<?> response, Exception e) {
+    }
+}
@@ -0,0 +1,54 @@
+package in.reeltime.tool.aws;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double capacity;
+    private final double nanosPerToken;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double tokensPerSecond, int capacity) {
+        if (tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Tokens per second must be positive");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        this.capacity = capacity;
+        this.nanosPerToken = NANOS_PER_SECOND / tokensPerSecond;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public long acquire() {
+        long waitNanos;
+
+        synchronized (this) {
+            refill();
+
+            // A negative balance reserves future tokens so that waiting callers are served in order
+            tokens -= 1;
+            waitNanos = (tokens >= 0) ? 0 : (long) (-tokens * nanosPerToken);
+        }
+
+        if (waitNanos > 0) {
+            Uninterruptibles.sleepUninterruptibly(waitNanos, TimeUnit.NANOSECONDS);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / nanosPerToken);
+        lastRefillNanos = now;
+    }
+}
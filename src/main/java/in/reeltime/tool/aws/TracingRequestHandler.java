@@ -0,0 +1,63 @@
+package in.reeltime.tool.aws;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.RequestHandler2;
+import in.reeltime.tool.trace.Span;
+import in.reeltime.tool.trace.Tracer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class TracingRequestHandler extends RequestHandler2 {
+
+    private final String serviceName;
+
+    // Requests do not override equals, so each call is tracked by identity
+    private final ConcurrentMap<Request<?>, Span> spans = new ConcurrentHashMap<>();
+
+    public TracingRequestHandler(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    @Override
+    public void beforeRequest(Request<?> request) {
+        if (!Tracer.isEnabled()) {
+            return;
+        }
+
+        String operation = OperationNames.of(request);
+
+        Span span = Tracer.start("aws", serviceName + "." + operation)
+                .setAttribute("service", serviceName)
+                .setAttribute("operation", operation);
+
+        spans.put(request, span);
+    }
+
+    @Override
+    public void afterResponse(Request<?> request, Response<?> response) {
+        Span span = spans.remove(request);
+
+        if (span != null) {
+            span.setAttribute("statusCode", response.getHttpResponse().getStatusCode());
+            span.end();
+        }
+    }
+
+    @Override
+    public void afterError(Request<?> request, Response<?> response, Exception e) {
+        Span span = spans.remove(request);
+
+        if (span != null) {
+            if (e instanceof AmazonServiceException) {
+                AmazonServiceException serviceException = (AmazonServiceException) e;
+                span.setAttribute("statusCode", serviceException.getStatusCode());
+                span.setAttribute("errorCode", serviceException.getErrorCode());
+            }
+            span.setError(e);
+            span.end();
+        }
+    }
+}
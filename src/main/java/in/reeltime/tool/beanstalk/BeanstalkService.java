@@ -1,31 +1,55 @@
 package in.reeltime.tool.beanstalk;
 
+import com.amazonaws.services.elasticbeanstalk.model.ApplicationVersionDescription;
 import com.amazonaws.services.elasticbeanstalk.model.EnvironmentDescription;
 import com.amazonaws.services.s3.model.Bucket;
 import com.amazonaws.services.sns.model.Topic;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import in.reeltime.tool.beanstalk.application.ApplicationService;
 import in.reeltime.tool.beanstalk.application.ApplicationVersionService;
 import in.reeltime.tool.beanstalk.environment.EnvironmentService;
 import in.reeltime.tool.condition.ConditionalService;
 import in.reeltime.tool.deployment.DeploymentConfiguration;
+import in.reeltime.tool.deployment.DeploymentMode;
 import in.reeltime.tool.dns.DNSService;
 import in.reeltime.tool.log.Logger;
 import in.reeltime.tool.notification.subscription.SubscriptionService;
+import in.reeltime.tool.plan.ResourceChange;
 import in.reeltime.tool.storage.Storage;
 import in.reeltime.tool.storage.object.ObjectService;
+import in.reeltime.tool.util.DigestUtil;
 
 import java.io.*;
-import java.net.Socket;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class BeanstalkService {
 
     private static final String PROTOCOL = "https";
-    private static final int PORT = 443;
 
     private static final String ENDPOINT_URL_FILENAME = "endpoint-url.txt";
 
     private static final long WAITING_POLLING_INTERVAL_SECS = 10;
 
+    // Route53 alias records inherit the 60 second TTL of the load balancer they point at
+    private static final long PREVIOUS_ENVIRONMENT_DRAIN_SECS = 60;
+
+    private static final String CONTENT_ADDRESSED_VERSION_LABEL_FORMAT = "%s-%s";
+    private static final int VERSION_LABEL_DIGEST_LENGTH = 12;
+
+    private static final Pattern CONTENT_ADDRESSED_VERSION_LABEL_PATTERN =
+            Pattern.compile(".+-[0-9a-f]{" + VERSION_LABEL_DIGEST_LENGTH + "}");
+
+    // Unused versions kept around to roll back to
+    private static final int RETAINED_APPLICATION_VERSIONS = 3;
+
     private static final String WAITING_FOR_HOST_TO_BE_REACHABLE_STATUS_FORMAT =
             "Waiting for host [%s] to be reachable";
 
@@ -43,10 +67,12 @@ public class BeanstalkService {
     private final DNSService dnsService;
     private final ConditionalService conditionalService;
 
+    private final HostProbe hostProbe;
+
     public BeanstalkService(EnvironmentService environmentService, ApplicationService applicationService,
                             ApplicationVersionService applicationVersionService, ObjectService objectService,
                             SubscriptionService subscriptionService, DNSService dnsService,
-                            ConditionalService conditionalService) {
+                            ConditionalService conditionalService, HostProbe hostProbe) {
         this.environmentService = environmentService;
         this.applicationService = applicationService;
         this.applicationVersionService = applicationVersionService;
@@ -54,6 +80,7 @@ public class BeanstalkService {
         this.subscriptionService = subscriptionService;
         this.dnsService = dnsService;
         this.conditionalService = conditionalService;
+        this.hostProbe = hostProbe;
     }
 
     public void deploy(DeploymentConfiguration deploymentConfiguration) throws FileNotFoundException {
@@ -63,6 +90,8 @@ public class BeanstalkService {
             throw new UnsupportedOperationException("Production deployment is currently not supported!");
         }
 
+        DeploymentMode deploymentMode = deploymentConfiguration.getDeploymentMode();
+
         String environmentName = deploymentConfiguration.getEnvironmentName();
 
         String applicationName = deploymentConfiguration.getApplicationName();
@@ -74,46 +103,68 @@ public class BeanstalkService {
         Bucket warsBucket = storage.getWarsBucket();
 
         String warBucketName = warsBucket.getName();
-        String warObjectKey = war.getName();
 
-        if (!production) {
+        BeanstalkConfiguration configuration = new BeanstalkConfiguration(
+                production,
+                deploymentConfiguration.getNetwork(),
+                deploymentConfiguration.getAccess(),
+                deploymentConfiguration.getStorage(),
+                deploymentConfiguration.getDatabase(),
+                deploymentConfiguration.getTranscoder(),
+                deploymentConfiguration.getExternalConfiguration()
+        );
+
+        EnvironmentDescription rollingUpdateTarget = null;
+
+        if (deploymentMode == DeploymentMode.ROLLING) {
+            rollingUpdateTarget = environmentService.getRollingUpdateTarget(environmentName, applicationName, configuration);
+
+            if (rollingUpdateTarget == null) {
+                Logger.info("No environment can take a rolling update, recreating environment [%s]", environmentName);
+                deploymentMode = DeploymentMode.RECREATE;
+            }
+        }
+
+        List<EnvironmentDescription> previousEnvironments = ImmutableList.of();
+
+        if (deploymentMode == DeploymentMode.BLUE_GREEN) {
+            previousEnvironments = environmentService.getLiveEnvironments(environmentName, applicationName);
+        }
+        else if (deploymentMode == DeploymentMode.RECREATE && !production) {
             Logger.info("Removing existing application version [%s] for non-production environment [%s]",
                     applicationVersion, environmentName);
 
-            environmentService.terminateEnvironment(environmentName, applicationName, applicationVersion);
+            environmentService.terminateLiveEnvironments(environmentName, applicationName);
             applicationVersionService.deleteApplicationVersion(applicationName, applicationVersion);
         }
 
-        if (objectService.objectExists(warBucketName, warObjectKey)) {
-            if (production) {
-                String message = String.format("Object with key [%s] in bucket [%s] already exists!", warObjectKey, warBucketName);
-                throw new IllegalStateException(message);
-            }
-            else {
-                objectService.deleteObject(warBucketName, warObjectKey);
-            }
-        }
+        String warObjectKey = objectService.createContentAddressedObject(war, warsBucket);
 
-        objectService.createObject(war, warsBucket, warObjectKey);
+        // The running environment keeps its version until it is replaced, so the new one needs a label of its own
+        String versionLabel = deploymentMode != DeploymentMode.RECREATE ?
+                getContentAddressedVersionLabel(applicationVersion, warObjectKey) : applicationVersion;
 
         applicationService.createApplication(applicationName);
-        applicationVersionService.createApplicationVersion(applicationName, applicationVersion, warBucketName, warObjectKey);
+        applicationVersionService.createApplicationVersion(applicationName, versionLabel, warBucketName, warObjectKey);
 
         EnvironmentDescription environment = null;
 
         if (!production) {
-            BeanstalkConfiguration configuration = new BeanstalkConfiguration(
-                    production,
-                    deploymentConfiguration.getNetwork(),
-                    deploymentConfiguration.getAccess(),
-                    deploymentConfiguration.getStorage(),
-                    deploymentConfiguration.getDatabase(),
-                    deploymentConfiguration.getTranscoder(),
-                    deploymentConfiguration.getExternalConfiguration()
-            );
-
-            Logger.info("Creating new non-production environment [%s]", environmentName);
-            environment = environmentService.createEnvironment(environmentName, applicationName, applicationVersion, configuration);
+            if (deploymentMode == DeploymentMode.ROLLING) {
+                environment = environmentService.updateEnvironment(rollingUpdateTarget, versionLabel);
+            }
+            else if (deploymentMode == DeploymentMode.BLUE_GREEN) {
+                String slotEnvironmentName = environmentService.getNextEnvironmentName(environmentName, applicationName);
+
+                Logger.info("Creating environment [%s] alongside %s", slotEnvironmentName, getEnvironmentNames(previousEnvironments));
+                environment = environmentService.createEnvironment(slotEnvironmentName, applicationName, versionLabel, configuration);
+
+                environmentService.waitForEnvironmentToBeHealthy(environment.getEnvironmentId());
+            }
+            else {
+                Logger.info("Creating new non-production environment [%s]", environmentName);
+                environment = environmentService.createEnvironment(environmentName, applicationName, versionLabel, configuration);
+            }
         }
 
         Logger.info("Successfully deployed war [%s]", war.getName());
@@ -129,7 +180,8 @@ public class BeanstalkService {
 
         String hostedZoneDomainName = deploymentConfiguration.getHostedZoneDomainName();
 
-        if (!production) {
+        // Only a recreated environment has a new load balancer to point at; the others UPSERT the alias in place
+        if (!production && deploymentMode == DeploymentMode.RECREATE) {
             Logger.info("Removing all DNS records for non-production environment [%s]", environmentName);
             dnsService.deleteAllRecords(environmentName, hostedZoneDomainName);
         }
@@ -142,6 +194,16 @@ public class BeanstalkService {
         Logger.info("Ensuring host [%s] is reachable", hostname);
         waitForHostToBeReachable(hostname);
 
+        CompletableFuture<Void> termination = !previousEnvironments.isEmpty() ?
+                terminatePreviousEnvironments(previousEnvironments) : CompletableFuture.completedFuture(null);
+
+        Logger.info("Removing application versions that no environment runs");
+        deleteUnusedApplicationVersions(applicationName);
+
+        Logger.info("Removing wars that no application version refers to");
+        objectService.deleteUnreferencedContentAddressedObjects(warBucketName,
+                applicationVersionService.getSourceBundleKeys(warBucketName));
+
         Logger.info("Subscribing to transcoder notifications");
         Topic transcoderTopic = deploymentConfiguration.getTranscoder().getTopic();
 
@@ -150,6 +212,92 @@ public class BeanstalkService {
 
         Logger.info("Writing endpoint URL out to file");
         writeEndpointUrl(endpointUrl);
+
+        // Nothing terminates the previous environments once the process has exited
+        ConditionalService.await(termination);
+    }
+
+    private String getContentAddressedVersionLabel(String applicationVersion, String warObjectKey) {
+        String digest = objectService.getContentDigest(warObjectKey);
+        return String.format(CONTENT_ADDRESSED_VERSION_LABEL_FORMAT, applicationVersion, digest.substring(0, VERSION_LABEL_DIGEST_LENGTH));
+    }
+
+    private CompletableFuture<Void> terminatePreviousEnvironments(List<EnvironmentDescription> previousEnvironments) {
+        // Resolvers may still hand out the old load balancer until the alias TTL runs out
+        Logger.info("Draining %s for [%s] secs before termination", getEnvironmentNames(previousEnvironments),
+                PREVIOUS_ENVIRONMENT_DRAIN_SECS);
+
+        return conditionalService.schedule(() -> previousEnvironments.forEach(environmentService::terminateEnvironmentInBackground),
+                PREVIOUS_ENVIRONMENT_DRAIN_SECS, TimeUnit.SECONDS);
+    }
+
+    // Only the labels this tool creates are removed; versions labelled by hand are left alone
+    private void deleteUnusedApplicationVersions(String applicationName) {
+        Set<String> versionLabelsInUse = environmentService.getVersionLabelsInUse(applicationName);
+
+        List<String> unusedVersionLabels = applicationVersionService.getApplicationVersions(applicationName).stream()
+                .filter(v -> CONTENT_ADDRESSED_VERSION_LABEL_PATTERN.matcher(v.getVersionLabel()).matches())
+                .filter(v -> !versionLabelsInUse.contains(v.getVersionLabel()))
+                .sorted(Comparator.comparing(ApplicationVersionDescription::getDateCreated).reversed())
+                .skip(RETAINED_APPLICATION_VERSIONS)
+                .map(ApplicationVersionDescription::getVersionLabel)
+                .collect(Collectors.toList());
+
+        unusedVersionLabels.forEach(label -> applicationVersionService.deleteApplicationVersion(applicationName, label));
+    }
+
+    private List<String> getEnvironmentNames(List<EnvironmentDescription> environments) {
+        return Lists.transform(environments, EnvironmentDescription::getEnvironmentName);
+    }
+
+    public List<Supplier<ResourceChange>> planBeanstalk(String environmentName, String applicationName,
+                                                        String applicationVersion, File war, String warsBucketName,
+                                                        boolean production, DeploymentMode deploymentMode) {
+        String versionName = applicationName + " -- " + applicationVersion;
+
+        List<Supplier<ResourceChange>> checks = Lists.newArrayList();
+
+        checks.add(() -> ResourceChange.ensure("war", war.getName(), objectService.contentAddressedObjectExists(war, warsBucketName)));
+        checks.add(() -> ResourceChange.ensure("application", applicationName, applicationService.applicationExists(applicationName)));
+
+        if (deploymentMode != DeploymentMode.RECREATE) {
+            checks.add(() -> {
+                String versionLabel = String.format(CONTENT_ADDRESSED_VERSION_LABEL_FORMAT, applicationVersion,
+                        DigestUtil.sha256Hex(war).substring(0, VERSION_LABEL_DIGEST_LENGTH));
+
+                boolean exists = applicationVersionService.applicationVersionExists(applicationName, versionLabel);
+                return ResourceChange.ensure("application-version", applicationName + " -- " + versionLabel, exists);
+            });
+            checks.add(() -> deploymentMode == DeploymentMode.BLUE_GREEN ?
+                    ResourceChange.ensure("environment", environmentService.getNextEnvironmentName(environmentName, applicationName), false) :
+                    planRollingUpdate(environmentName, applicationName));
+
+            return checks;
+        }
+
+        // Non-production deploys always terminate the environment and recreate the application version
+        checks.add(() -> {
+            boolean exists = applicationVersionService.applicationVersionExists(applicationName, applicationVersion);
+            return production ? ResourceChange.ensure("application-version", versionName, exists) :
+                    ResourceChange.recreate("application-version", versionName, exists);
+        });
+        checks.add(() -> {
+            boolean exists = environmentService.environmentExists(environmentName, applicationName, applicationVersion);
+            return production ? ResourceChange.ensure("environment", environmentName, exists) :
+                    ResourceChange.recreate("environment", environmentName, exists);
+        });
+
+        return checks;
+    }
+
+    // The configuration hash is only known once the other resources exist, so a rolling update is assumed possible
+    private ResourceChange planRollingUpdate(String environmentName, String applicationName) {
+        List<EnvironmentDescription> liveEnvironments = environmentService.getLiveEnvironments(environmentName, applicationName);
+
+        if (liveEnvironments.size() == 1) {
+            return new ResourceChange(ResourceChange.Action.UPDATE, "environment", liveEnvironments.get(0).getEnvironmentName());
+        }
+        return ResourceChange.recreate("environment", environmentName, !liveEnvironments.isEmpty());
     }
 
     private String getNotificationEndpoint(String hostname, String protocol) {
@@ -175,31 +323,7 @@ public class BeanstalkService {
         String statusMessage = String.format(WAITING_FOR_HOST_TO_BE_REACHABLE_STATUS_FORMAT, hostname);
         String failureMessage = String.format(WAITING_FOR_HOST_TO_BE_REACHABLE_FAILED_FORMAT, hostname);
 
-        conditionalService.waitForCondition(statusMessage, failureMessage, WAITING_POLLING_INTERVAL_SECS,
-                () -> isHostReachable(hostname));
-    }
-
-    private boolean isHostReachable(String hostname) {
-        Socket socket = null;
-        boolean reachable = false;
-
-        try {
-            socket = new Socket(hostname, PORT);
-            reachable = true;
-        }
-        catch (Exception e) {
-            Logger.debug("Failed to open socket: %s", e);
-        }
-        finally {
-            if (socket != null) {
-                try {
-                    socket.close();
-                }
-                catch (IOException e) {
-                    Logger.warn("Failed to close socket: %s", e);
-                }
-            }
-        }
-        return reachable;
+        conditionalService.waitForCondition("host-reachable", statusMessage, failureMessage, WAITING_POLLING_INTERVAL_SECS,
+                () -> hostProbe.isReachable(hostname));
     }
 }
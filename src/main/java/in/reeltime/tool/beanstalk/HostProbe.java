@@ -0,0 +1,7 @@
+package in.reeltime.tool.beanstalk;
+
+@FunctionalInterface
+public interface HostProbe {
+
+    boolean isReachable(String hostname);
+}
@@ -0,0 +1,40 @@
+package in.reeltime.tool.beanstalk;
+
+import in.reeltime.tool.log.Logger;
+
+import java.io.IOException;
+import java.net.Socket;
+
+public class SocketHostProbe implements HostProbe {
+
+    private final int port;
+
+    public SocketHostProbe(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public boolean isReachable(String hostname) {
+        Socket socket = null;
+        boolean reachable = false;
+
+        try {
+            socket = new Socket(hostname, port);
+            reachable = true;
+        }
+        catch (Exception e) {
+            Logger.debug("Failed to open socket: %s", e);
+        }
+        finally {
+            if (socket != null) {
+                try {
+                    socket.close();
+                }
+                catch (IOException e) {
+                    Logger.warn("Failed to close socket: %s", e);
+                }
+            }
+        }
+        return reachable;
+    }
+}
@@ -2,16 +2,21 @@ package in.reeltime.tool.beanstalk.application;
 
 import com.amazonaws.services.elasticbeanstalk.AWSElasticBeanstalk;
 import com.amazonaws.services.elasticbeanstalk.model.*;
+import in.reeltime.tool.inventory.ResourceCache;
+import in.reeltime.tool.inventory.ResourceInventory;
 import in.reeltime.tool.log.Logger;
 
-import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class ApplicationService {
 
     private final AWSElasticBeanstalk eb;
+    private final ResourceCache<String, ApplicationDescription> applications;
 
-    public ApplicationService(AWSElasticBeanstalk eb) {
+    public ApplicationService(AWSElasticBeanstalk eb, ResourceInventory inventory) {
         this.eb = eb;
+        this.applications = inventory.cache("applications", this::describeApplications);
     }
 
     public boolean applicationExists(String applicationName) {
@@ -20,31 +25,34 @@ public class ApplicationService {
     }
 
     public ApplicationDescription getApplication(String applicationName) {
-        DescribeApplicationsRequest request = new DescribeApplicationsRequest()
-                .withApplicationNames(applicationName);
-
         Logger.info("Getting application [%s]", applicationName);
-        DescribeApplicationsResult result = eb.describeApplications(request);
+        return applications.get(applicationName);
+    }
+
+    private Map<String, ApplicationDescription> describeApplications() {
+        DescribeApplicationsResult result = eb.describeApplications();
 
-        List<ApplicationDescription> applications = result.getApplications();
-        return !applications.isEmpty() ? applications.get(0) : null;
+        return result.getApplications().stream()
+                .collect(Collectors.toMap(ApplicationDescription::getApplicationName, a -> a));
     }
 
     public ApplicationDescription createApplication(String applicationName) {
-        if (applicationExists(applicationName)) {
-            Logger.info("Application [%s] already exists");
-            return getApplication(applicationName);
+        ApplicationDescription existing = getApplication(applicationName);
+
+        if (existing != null) {
+            Logger.info("Application [%s] already exists", applicationName);
+            return existing;
         }
 
         Logger.info("Creating application [%s]", applicationName);
         CreateApplicationRequest request = new CreateApplicationRequest(applicationName);
 
         CreateApplicationResult result = eb.createApplication(request);
-        return result.getApplication();
+        return applications.put(applicationName, result.getApplication());
     }
 
     public void deleteApplication(String applicationName) {
-        if (!applicationExists(applicationName)) {
+        if (getApplication(applicationName) == null) {
             Logger.info("Application [%s] does not exist", applicationName);
             return;
         }
@@ -53,5 +61,7 @@ public class ApplicationService {
 
         DeleteApplicationRequest request = new DeleteApplicationRequest(applicationName);
         eb.deleteApplication(request);
+
+        applications.remove(applicationName);
     }
 }
@@ -2,19 +2,25 @@ package in.reeltime.tool.beanstalk.application;
 
 import com.amazonaws.services.elasticbeanstalk.AWSElasticBeanstalk;
 import com.amazonaws.services.elasticbeanstalk.model.*;
+import in.reeltime.tool.inventory.ResourceCache;
+import in.reeltime.tool.inventory.ResourceInventory;
 import in.reeltime.tool.log.Logger;
-import in.reeltime.tool.storage.object.ObjectService;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class ApplicationVersionService {
 
+    private static final String VERSION_KEY_FORMAT = "%s/%s";
+
     private final AWSElasticBeanstalk eb;
-    private final ObjectService objectService;
+    private final ResourceCache<String, ApplicationVersionDescription> applicationVersions;
 
-    public ApplicationVersionService(AWSElasticBeanstalk eb, ObjectService objectService) {
+    public ApplicationVersionService(AWSElasticBeanstalk eb, ResourceInventory inventory) {
         this.eb = eb;
-        this.objectService = objectService;
+        this.applicationVersions = inventory.cache("application versions", this::describeApplicationVersions);
     }
 
     public boolean applicationVersionExists(String applicationName, String versionLabel) {
@@ -23,22 +29,43 @@ public class ApplicationVersionService {
     }
 
     public ApplicationVersionDescription getApplicationVersion(String applicationName, String versionLabel) {
-        DescribeApplicationVersionsRequest request = new DescribeApplicationVersionsRequest()
-                .withApplicationName(applicationName)
-                .withVersionLabels(versionLabel);
-
         Logger.info("Getting application [%s] -- version [%s]", applicationName, versionLabel);
-        DescribeApplicationVersionsResult result = eb.describeApplicationVersions(request);
+        return applicationVersions.get(versionKey(applicationName, versionLabel));
+    }
+
+    public List<ApplicationVersionDescription> getApplicationVersions(String applicationName) {
+        return applicationVersions.values().stream()
+                .filter(v -> applicationName.equals(v.getApplicationName()))
+                .collect(Collectors.toList());
+    }
+
+    // Versions of every application count, since they may share a bucket
+    public Set<String> getSourceBundleKeys(String bucketName) {
+        return applicationVersions.values().stream()
+                .map(ApplicationVersionDescription::getSourceBundle)
+                .filter(b -> b != null && bucketName.equals(b.getS3Bucket()))
+                .map(S3Location::getS3Key)
+                .collect(Collectors.toSet());
+    }
+
+    private Map<String, ApplicationVersionDescription> describeApplicationVersions() {
+        DescribeApplicationVersionsResult result = eb.describeApplicationVersions();
 
-        List<ApplicationVersionDescription> applicationVersions = result.getApplicationVersions();
-        return !applicationVersions.isEmpty() ? applicationVersions.get(0) : null;
+        return result.getApplicationVersions().stream()
+                .collect(Collectors.toMap(v -> versionKey(v.getApplicationName(), v.getVersionLabel()), v -> v));
+    }
+
+    private String versionKey(String applicationName, String versionLabel) {
+        return String.format(VERSION_KEY_FORMAT, applicationName, versionLabel);
     }
 
     public ApplicationVersionDescription createApplicationVersion(String applicationName, String versionLabel,
                                                                   String bucketName, String key) {
-        if (applicationVersionExists(applicationName, versionLabel)) {
+        ApplicationVersionDescription existing = getApplicationVersion(applicationName, versionLabel);
+
+        if (existing != null) {
             Logger.info("Application [%s] -- version [%s] already exists", applicationName, versionLabel);
-            return getApplicationVersion(applicationName, versionLabel);
+            return existing;
         }
 
         S3Location sourceBundle = new S3Location(bucketName, key);
@@ -50,38 +77,24 @@ public class ApplicationVersionService {
 
         Logger.info("Creating application [%s] -- version [%s]", applicationName, versionLabel);
         CreateApplicationVersionResult result = eb.createApplicationVersion(request);
-
-        return result.getApplicationVersion();
+        return applicationVersions.put(versionKey(applicationName, versionLabel), result.getApplicationVersion());
     }
 
     public void deleteApplicationVersion(String applicationName, String versionLabel) {
-        if (!applicationVersionExists(applicationName, versionLabel)) {
+        if (getApplicationVersion(applicationName, versionLabel) == null) {
             Logger.info("Application [%s] -- version [%s] does not exist", applicationName, versionLabel);
             return;
         }
-        ApplicationVersionDescription applicationVersion = getApplicationVersion(applicationName, versionLabel);
-        try {
-            DeleteApplicationVersionRequest request = new DeleteApplicationVersionRequest()
-                    .withApplicationName(applicationName)
-                    .withVersionLabel(versionLabel)
-                    .withDeleteSourceBundle(true);
-
-            Logger.info("Deleting application [%s] -- version [%s] and the associated source bundle",
-                    applicationName, versionLabel);
 
-            eb.deleteApplicationVersion(request);
-        }
-        catch (SourceBundleDeletionException e) {
-            Logger.info("Failed to delete source bundle automatically");
-            Logger.info("AWS exception message: %s", e.getMessage());
-
-            S3Location location = applicationVersion.getSourceBundle();
+        // Source bundles are content addressed and may be shared by other versions
+        DeleteApplicationVersionRequest request = new DeleteApplicationVersionRequest()
+                .withApplicationName(applicationName)
+                .withVersionLabel(versionLabel)
+                .withDeleteSourceBundle(false);
 
-            String bucketName = location.getS3Bucket();
-            String key = location.getS3Key();
+        Logger.info("Deleting application [%s] -- version [%s]", applicationName, versionLabel);
+        eb.deleteApplicationVersion(request);
 
-            Logger.info("Attempting to delete object [%s] from bucket [%s] directly", key, bucketName);
-            objectService.deleteObject(bucketName, key);
-        }
+        applicationVersions.remove(versionKey(applicationName, versionLabel));
     }
 }
@@ -1,10 +1,15 @@
 package in.reeltime.tool.beanstalk.environment;
 
 import com.amazonaws.services.elasticbeanstalk.model.ConfigurationOptionSetting;
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
 import in.reeltime.tool.beanstalk.BeanstalkConfiguration;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class EnvironmentConfigurationService {
 
@@ -145,6 +150,25 @@ public class EnvironmentConfigurationService {
                 .build();
     }
 
+    public String getConfigurationHash(BeanstalkConfiguration beanstalkConfiguration) {
+        List<String> settings = getConfigurationOptionSettings(beanstalkConfiguration).stream()
+                .map(s -> s.getNamespace() + ":" + s.getOptionName() + "=" + s.getValue())
+                .sorted()
+                .collect(Collectors.toList());
+
+        return Hashing.sha256().hashString(Joiner.on('\n').join(settings), StandardCharsets.UTF_8).toString();
+    }
+
+    public Collection<ConfigurationOptionSetting> getRollingDeploymentOptionSettings(String batchSizeType, int batchSize) {
+        return new ImmutableList.Builder<ConfigurationOptionSetting>()
+                .add(command("DeploymentPolicy", "Rolling"))
+                .add(command("BatchSizeType", batchSizeType))
+                .add(command("BatchSize", String.valueOf(batchSize)))
+                // Each batch has to pass health checks before the next one is taken out of service
+                .add(command("IgnoreHealthCheck", "false"))
+                .build();
+    }
+
     private ConfigurationOptionSetting vpc(String optionName, String value) {
         return optionSetting("aws:ec2:vpc", optionName, value);
     }
@@ -173,6 +197,10 @@ public class EnvironmentConfigurationService {
         return optionSetting("aws:elasticbeanstalk:container:tomcat:jvmoptions", optionName, value);
     }
 
+    private ConfigurationOptionSetting command(String optionName, String value) {
+        return optionSetting("aws:elasticbeanstalk:command", optionName, value);
+    }
+
     private ConfigurationOptionSetting optionSetting(String namespace, String optionName, String value) {
         return new ConfigurationOptionSetting(namespace, optionName, value);
     }
@@ -0,0 +1,108 @@
+package in.reeltime.tool.beanstalk.environment;
+
+import com.amazonaws.services.elasticbeanstalk.AWSElasticBeanstalk;
+import com.amazonaws.services.elasticbeanstalk.model.DescribeEventsRequest;
+import com.amazonaws.services.elasticbeanstalk.model.DescribeEventsResult;
+import com.amazonaws.services.elasticbeanstalk.model.EventDescription;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import in.reeltime.tool.log.Logger;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+// Follows the events of an environment from a StartTime cursor, so each poll only returns what is new
+class EnvironmentEventTail {
+
+    private static final Set<String> FAILED_EVENT_SEVERITIES = ImmutableSet.of("ERROR", "FATAL");
+
+    private final AWSElasticBeanstalk eb;
+
+    private final String environmentId;
+    private final String requestId;
+
+    private final String completedEventMessage;
+
+    private Date cursor;
+
+    // StartTime is inclusive, so events sharing the cursor's timestamp come back on the next poll
+    private final Set<String> seenAtCursor = Sets.newHashSet();
+
+    private boolean completed;
+    private String failure;
+
+    EnvironmentEventTail(AWSElasticBeanstalk eb, String environmentId, String requestId,
+                         String completedEventMessage, Date startTime) {
+        this.eb = eb;
+        this.environmentId = environmentId;
+        this.requestId = requestId;
+        this.completedEventMessage = completedEventMessage;
+        this.cursor = startTime;
+    }
+
+    synchronized boolean poll() {
+        for (EventDescription event : describeNewEvents()) {
+            Logger.info("Environment event [%s]: %s", event.getSeverity(), event.getMessage());
+
+            if (FAILED_EVENT_SEVERITIES.contains(event.getSeverity())) {
+                if (failure == null) {
+                    failure = event.getMessage();
+                }
+            }
+            else if (event.getMessage().contains(completedEventMessage)) {
+                completed = true;
+            }
+        }
+        return completed || failure != null;
+    }
+
+    synchronized String getFailure() {
+        return failure;
+    }
+
+    private List<EventDescription> describeNewEvents() {
+        List<EventDescription> events = Lists.newArrayList();
+        String nextToken = null;
+
+        do {
+            DescribeEventsRequest request = new DescribeEventsRequest()
+                    .withEnvironmentId(environmentId)
+                    .withRequestId(requestId)
+                    .withStartTime(cursor)
+                    .withNextToken(nextToken);
+
+            DescribeEventsResult result = eb.describeEvents(request);
+
+            events.addAll(result.getEvents());
+            nextToken = result.getNextToken();
+        }
+        while (nextToken != null);
+
+        // Events are returned newest first
+        List<EventDescription> newEvents = Lists.newArrayList();
+
+        for (EventDescription event : Lists.reverse(events)) {
+            if (advanceCursor(event)) {
+                newEvents.add(event);
+            }
+        }
+        return newEvents;
+    }
+
+    private boolean advanceCursor(EventDescription event) {
+        Date eventDate = event.getEventDate();
+        String eventKey = event.getSeverity() + ":" + event.getMessage();
+
+        if (cursor != null && eventDate.before(cursor)) {
+            return false;
+        }
+
+        if (cursor == null || eventDate.after(cursor)) {
+            cursor = eventDate;
+            seenAtCursor.clear();
+        }
+        return seenAtCursor.add(eventKey);
+    }
+}
@@ -1,5 +1,6 @@
 package in.reeltime.tool.beanstalk.environment;
 
+import com.amazonaws.ResponseMetadata;
 import com.amazonaws.services.elasticbeanstalk.AWSElasticBeanstalk;
 import com.amazonaws.services.elasticbeanstalk.model.*;
 import in.reeltime.tool.beanstalk.BeanstalkConfiguration;
@@ -7,25 +8,48 @@ import in.reeltime.tool.condition.ConditionalService;
 import in.reeltime.tool.log.Logger;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class EnvironmentService {
 
-    private static final long WAIT_FOR_READY_POLLING_IN_SECS = 30;
+    private static final long WAIT_FOR_READY_EVENTS_POLLING_IN_SECS = 10;
     private static final long WAIT_FOR_TERMINATION_POLLING_IN_SECS = 20;
+    private static final long WAIT_FOR_HEALTH_POLLING_IN_SECS = 15;
+    private static final long WAIT_FOR_UPDATE_EVENTS_POLLING_IN_SECS = 10;
 
     private static final String READY = "Ready";
+    private static final String TERMINATING = "Terminating";
     private static final String TERMINATED = "Terminated";
 
+    private static final String HEALTHY = "Green";
+
+    private static final String SLOT_NAME_FORMAT = "%s-%d";
+
+    // Environment tags cannot be read back through this API version, but descriptions can
+    private static final String CONFIGURATION_HASH_DESCRIPTION_FORMAT = "reeltime-config:%s";
+
+    private static final String LAUNCHED_EVENT_MESSAGE = "Successfully launched environment";
+    private static final String UPDATE_COMPLETED_EVENT_MESSAGE = "update completed successfully";
+
     private final AWSElasticBeanstalk eb;
     private final EnvironmentConfigurationService environmentConfigurationService;
     private final ConditionalService conditionalService;
 
+    private final String rollingBatchSizeType;
+    private final int rollingBatchSize;
+
     public EnvironmentService(AWSElasticBeanstalk eb, EnvironmentConfigurationService environmentConfigurationService,
-                              ConditionalService conditionalService) {
+                              ConditionalService conditionalService, String rollingBatchSizeType, int rollingBatchSize) {
         this.eb = eb;
         this.environmentConfigurationService = environmentConfigurationService;
         this.conditionalService = conditionalService;
+        this.rollingBatchSizeType = rollingBatchSizeType;
+        this.rollingBatchSize = rollingBatchSize;
     }
 
     public boolean environmentExists(String environmentName, String applicationName, String versionLabel) {
@@ -42,6 +66,90 @@ public class EnvironmentService {
         return getEnvironment(request);
     }
 
+    // Environments deployed side by side are named <environment>-<slot>; the bare name is slot zero
+    public List<EnvironmentDescription> getLiveEnvironments(String environmentName, String applicationName) {
+        return getSlotEnvironments(environmentName, applicationName).stream()
+                .filter(e -> !e.getStatus().equals(TERMINATING) && !e.getStatus().equals(TERMINATED))
+                .collect(Collectors.toList());
+    }
+
+    // Environments that are still terminating keep their version until they are gone
+    public Set<String> getVersionLabelsInUse(String applicationName) {
+        DescribeEnvironmentsRequest request = new DescribeEnvironmentsRequest()
+                .withApplicationName(applicationName)
+                .withIncludeDeleted(false);
+
+        return eb.describeEnvironments(request).getEnvironments().stream()
+                .filter(e -> !e.getStatus().equals(TERMINATED))
+                .map(EnvironmentDescription::getVersionLabel)
+                .collect(Collectors.toSet());
+    }
+
+    public String getNextEnvironmentName(String environmentName, String applicationName) {
+        // Names of environments that are still terminating cannot be reused yet
+        int nextSlot = getSlotEnvironments(environmentName, applicationName).stream()
+                .mapToInt(e -> getSlot(environmentName, e.getEnvironmentName()))
+                .max()
+                .orElse(0) + 1;
+
+        return String.format(SLOT_NAME_FORMAT, environmentName, nextSlot);
+    }
+
+    private List<EnvironmentDescription> getSlotEnvironments(String environmentName, String applicationName) {
+        DescribeEnvironmentsRequest request = new DescribeEnvironmentsRequest()
+                .withApplicationName(applicationName)
+                .withIncludeDeleted(false);
+
+        Pattern slotPattern = getSlotPattern(environmentName);
+
+        return eb.describeEnvironments(request).getEnvironments().stream()
+                .filter(e -> slotPattern.matcher(e.getEnvironmentName()).matches())
+                .collect(Collectors.toList());
+    }
+
+    private int getSlot(String environmentName, String slotEnvironmentName) {
+        Matcher matcher = getSlotPattern(environmentName).matcher(slotEnvironmentName);
+
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a slot of environment [" + environmentName + "]: " + slotEnvironmentName);
+        }
+        return matcher.group(1) != null ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+
+    private Pattern getSlotPattern(String environmentName) {
+        return Pattern.compile(Pattern.quote(environmentName) + "(?:-(\\d+))?");
+    }
+
+    // Only a single healthy environment that was created from the same configuration can take a code-only update
+    public EnvironmentDescription getRollingUpdateTarget(String environmentName, String applicationName,
+                                                         BeanstalkConfiguration beanstalkConfiguration) {
+        List<EnvironmentDescription> liveEnvironments = getLiveEnvironments(environmentName, applicationName);
+
+        if (liveEnvironments.size() != 1) {
+            Logger.info("Found [%s] live environments for [%s]", liveEnvironments.size(), environmentName);
+            return null;
+        }
+
+        EnvironmentDescription environment = liveEnvironments.get(0);
+        String name = environment.getEnvironmentName();
+
+        if (!environment.getStatus().equals(READY) || !environment.getHealth().equals(HEALTHY)) {
+            Logger.info("Environment [%s] is [%s] with health [%s]", name, environment.getStatus(), environment.getHealth());
+            return null;
+        }
+
+        if (!getConfigurationDescription(beanstalkConfiguration).equals(environment.getDescription())) {
+            Logger.info("Environment [%s] was created from a different configuration", name);
+            return null;
+        }
+        return environment;
+    }
+
+    private String getConfigurationDescription(BeanstalkConfiguration beanstalkConfiguration) {
+        String configurationHash = environmentConfigurationService.getConfigurationHash(beanstalkConfiguration);
+        return String.format(CONFIGURATION_HASH_DESCRIPTION_FORMAT, configurationHash);
+    }
+
     private EnvironmentDescription getEnvironment(String environmentId) {
         DescribeEnvironmentsRequest request = new DescribeEnvironmentsRequest()
                 .withEnvironmentIds(environmentId);
@@ -78,6 +186,7 @@ public class EnvironmentService {
         CreateEnvironmentRequest request = new CreateEnvironmentRequest()
                 .withApplicationName(applicationName)
                 .withEnvironmentName(environmentName)
+                .withDescription(getConfigurationDescription(beanstalkConfiguration))
                 .withOptionSettings(optionSettings)
                 .withSolutionStackName(solutionStack)
                 .withTier(tier)
@@ -92,52 +201,105 @@ public class EnvironmentService {
         return getEnvironment(environmentId);
     }
 
-    public EnvironmentDescription updateEnvironment(String environmentName, String versionLabel) {
+    public EnvironmentDescription updateEnvironment(EnvironmentDescription environment, String versionLabel) {
+        String environmentId = environment.getEnvironmentId();
+
+        Collection<ConfigurationOptionSetting> optionSettings =
+                environmentConfigurationService.getRollingDeploymentOptionSettings(rollingBatchSizeType, rollingBatchSize);
+
         UpdateEnvironmentRequest request = new UpdateEnvironmentRequest()
-                .withEnvironmentName(environmentName)
-                .withVersionLabel(versionLabel);
+                .withEnvironmentId(environmentId)
+                .withVersionLabel(versionLabel)
+                .withOptionSettings(optionSettings);
 
-        Logger.info("Updating environment [%s]", environmentName);
-        UpdateEnvironmentResult result = eb.updateEnvironment(request);
+        Logger.info("Rolling version [%s] out to environment [%s] in batches of [%s] (%s)",
+                versionLabel, environment.getEnvironmentName(), rollingBatchSize, rollingBatchSizeType);
 
-        return getEnvironment(result.getEnvironmentId());
+        eb.updateEnvironment(request);
+        ResponseMetadata metadata = eb.getCachedResponseMetadata(request);
+
+        waitForEnvironmentToBeUpdated(environmentId, metadata != null ? metadata.getRequestId() : null);
+        return getEnvironment(environmentId);
+    }
+
+    private void waitForEnvironmentToBeUpdated(String environmentId, String requestId) {
+        String statusMessage = "Waiting for environment update to complete";
+        String failureMessage = "Environment update did not complete during the expected time. Check AWS console for more info.";
+
+        // Without a request id to filter on, only events from now on belong to this update
+        Date startTime = requestId != null ? null : new Date();
+
+        EnvironmentEventTail tail = new EnvironmentEventTail(eb, environmentId, requestId, UPDATE_COMPLETED_EVENT_MESSAGE, startTime);
+        waitForEvents("environment-updated", statusMessage, failureMessage, WAIT_FOR_UPDATE_EVENTS_POLLING_IN_SECS, tail);
     }
 
-    public void terminateEnvironment(String environmentName, String applicationName, String versionLabel) {
-        if (!environmentExists(environmentName, applicationName, versionLabel)) {
-            Logger.info("Environment [%s] does not exist for application [%s] -- version [%s]",
-                    environmentName, applicationName, versionLabel);
-            return;
+    // Tailing events reports progress as it happens and ends on the first failure instead of at the deadline
+    private void waitForEvents(String resourceType, String statusMessage, String failureMessage,
+                               long pollingInterval, EnvironmentEventTail tail) {
+        conditionalService.waitForCondition(resourceType, statusMessage, failureMessage, pollingInterval, tail::poll);
+
+        if (tail.getFailure() != null) {
+            throw new IllegalStateException("Environment reported a failure: " + tail.getFailure());
         }
+    }
 
+    // Slots left behind by earlier blue/green deploys are terminated along with the bare environment
+    public void terminateLiveEnvironments(String environmentName, String applicationName) {
+        List<EnvironmentDescription> liveEnvironments = getLiveEnvironments(environmentName, applicationName);
+
+        if (liveEnvironments.isEmpty()) {
+            Logger.info("No live environments for [%s] in application [%s]", environmentName, applicationName);
+        }
+
+        for (EnvironmentDescription environment : liveEnvironments) {
+            TerminateEnvironmentRequest request = new TerminateEnvironmentRequest()
+                    .withEnvironmentId(environment.getEnvironmentId());
+
+            Logger.info("Terminating environment [%s]", environment.getEnvironmentName());
+            eb.terminateEnvironment(request);
+        }
+
+        waitForEnvironmentsToTerminate(environmentName, applicationName);
+        Logger.info("Successfully terminated environments");
+    }
+
+    // Termination is left to run on the AWS side; the environment keeps serving until its load balancer is removed
+    public void terminateEnvironmentInBackground(EnvironmentDescription environment) {
         TerminateEnvironmentRequest request = new TerminateEnvironmentRequest()
-                .withEnvironmentName(environmentName);
+                .withEnvironmentId(environment.getEnvironmentId());
 
-        Logger.info("Terminating environment [%s]", environmentName);
+        Logger.info("Terminating environment [%s] in the background", environment.getEnvironmentName());
         eb.terminateEnvironment(request);
+    }
+
+    public void waitForEnvironmentToBeHealthy(String environmentId) {
+        String statusMessage = "Waiting for environment to report healthy";
+        String failureMessage = "Environment did not become healthy during the expected time. Check AWS console for more info.";
+
+        conditionalService.waitForCondition("environment-healthy", statusMessage, failureMessage, WAIT_FOR_HEALTH_POLLING_IN_SECS,
+                () -> environmentIsHealthy(environmentId));
+    }
 
-        waitForEnvironmentToTerminate(environmentName, applicationName, versionLabel);
-        Logger.info("Successfully terminated environment");
+    private boolean environmentIsHealthy(String environmentId) {
+        EnvironmentDescription environment = getEnvironment(environmentId);
+        return environment != null && environment.getStatus().equals(READY) && environment.getHealth().equals(HEALTHY);
     }
 
     private void waitForEnvironmentToBeReady(String environmentId) {
         String statusMessage = "Waiting for environment to go live";
         String failureMessage = "Exceeded max retries for polling environment status. Check AWS console for more info.";
 
-        conditionalService.waitForCondition(statusMessage, failureMessage, WAIT_FOR_READY_POLLING_IN_SECS,
-                () -> environmentIsReady(environmentId));
-    }
-
-    private boolean environmentIsReady(String environmentId) {
-        EnvironmentDescription environment = getEnvironment(environmentId);
-        return environment != null && environment.getStatus().equals(READY);
+        // Every event of a newly created environment belongs to its launch
+        EnvironmentEventTail tail = new EnvironmentEventTail(eb, environmentId, null, LAUNCHED_EVENT_MESSAGE, null);
+        waitForEvents("environment-ready", statusMessage, failureMessage, WAIT_FOR_READY_EVENTS_POLLING_IN_SECS, tail);
     }
 
-    private void waitForEnvironmentToTerminate(String environmentName, String applicationName, String versionLabel) {
-        String statusMessage = "Waiting for environment to terminate";
+    // Environments still terminating from an earlier deploy hold on to their names too
+    private void waitForEnvironmentsToTerminate(String environmentName, String applicationName) {
+        String statusMessage = "Waiting for environments to terminate";
         String failureMessage = "Exceeded max retries for polling environment health. Check AWS console for more info.";
 
-        conditionalService.waitForCondition(statusMessage, failureMessage, WAIT_FOR_TERMINATION_POLLING_IN_SECS,
-                () -> !environmentExists(environmentName, applicationName, versionLabel));
+        conditionalService.waitForCondition("environment-terminated", statusMessage, failureMessage, WAIT_FOR_TERMINATION_POLLING_IN_SECS,
+                () -> getSlotEnvironments(environmentName, applicationName).stream().allMatch(e -> e.getStatus().equals(TERMINATED)));
     }
 }
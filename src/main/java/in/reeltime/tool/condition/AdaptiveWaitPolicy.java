@@ -0,0 +1,59 @@
+package in.reeltime.tool.condition;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveWaitPolicy extends WaitPolicy {
+
+    private static final long MIN_DENSE_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private static final int DENSE_DIVISOR = 5;
+
+    // A wide window is spread over this many polls rather than polled at the dense rate throughout
+    private static final int MAX_DENSE_POLLS = 10;
+    private static final int SPARSE_MULTIPLIER = 4;
+
+    private final long expectedEarliestMillis;
+    private final long expectedLatestMillis;
+
+    private final long denseDelayMillis;
+    private final long sparseDelayMillis;
+    private final long maxDelayMillis;
+
+    public AdaptiveWaitPolicy(WaitPolicy basePolicy, long expectedEarliestMillis, long expectedLatestMillis) {
+        super(basePolicy);
+        this.expectedEarliestMillis = expectedEarliestMillis;
+        this.expectedLatestMillis = expectedLatestMillis;
+
+        long baseDelay = basePolicy.getInitialDelayMillis();
+
+        long windowDelay = (expectedLatestMillis - expectedEarliestMillis) / MAX_DENSE_POLLS;
+        long denseDelay = Math.max(MIN_DENSE_DELAY_MILLIS, Math.max(baseDelay / DENSE_DIVISOR, windowDelay));
+
+        this.denseDelayMillis = Math.min(baseDelay, denseDelay);
+        this.sparseDelayMillis = baseDelay * SPARSE_MULTIPLIER;
+        this.maxDelayMillis = basePolicy.getMaxDelayMillis();
+    }
+
+    @Override
+    public long nextDelayMillis(int attempt, long elapsedMillis) {
+        long delay;
+
+        if (elapsedMillis < expectedEarliestMillis) {
+            // Close half of the remaining gap each time so the first dense poll lands on the window
+            long untilWindow = expectedEarliestMillis - elapsedMillis;
+            delay = Math.max(denseDelayMillis, Math.min(untilWindow / 2, sparseDelayMillis));
+            delay = Math.min(delay, untilWindow);
+        }
+        else if (elapsedMillis <= expectedLatestMillis) {
+            delay = denseDelayMillis;
+        }
+        else {
+            // Slower than ever observed: back off gradually towards the regular interval
+            long overdue = elapsedMillis - expectedLatestMillis;
+            delay = Math.max(denseDelayMillis, Math.min(overdue / 4, maxDelayMillis));
+        }
+
+        long remaining = getDeadlineMillis() - elapsedMillis;
+        return Math.max(0, Math.min(delay, remaining));
+    }
+}
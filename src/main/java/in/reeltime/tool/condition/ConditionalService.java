@@ -1,29 +1,145 @@
 package in.reeltime.tool.condition;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import in.reeltime.tool.log.LogContext;
 import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.trace.Span;
+import in.reeltime.tool.trace.Tracer;
+import in.reeltime.tool.util.StateDirectoryUtil;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 public class ConditionalService {
 
-    private static final int MAX_RETRIES = 90;
-    private static final long MILLIS_PER_SECOND = 1000;
+    private static final int DEFAULT_SCHEDULER_THREADS = 4;
+    private static final int DEFAULT_PROBE_THREADS = 8;
 
-    public void waitForCondition(String statusMessage, String failureMessage,
+    private static final String TRANSITION_HISTORY_FILENAME = "transition-history.json";
+
+    private static final int MIN_SAMPLES_FOR_ADAPTIVE_POLLING = 3;
+
+    // Dense polling covers the quartiles around the median; the tails are too rare to poll densely for
+    private static final double EXPECTED_EARLIEST_PERCENTILE = 0.25;
+    private static final double EXPECTED_LATEST_PERCENTILE = 0.75;
+
+    // The scheduler only keeps time; conditions make blocking AWS calls that may queue on a rate limit, so they
+    // run on the probe executor where a slow one cannot hold up the timing of every other wait
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService probeExecutor;
+    private final TransitionHistory transitionHistory;
+
+    // Policies and history are kept in the time of the resources being waited on; this converts it to wall clock time
+    private final double timeScale;
+
+    public ConditionalService() {
+        this(1.0);
+    }
+
+    public ConditionalService(double timeScale) {
+        this(defaultScheduler(), new TransitionHistory(StateDirectoryUtil.getStateFile(TRANSITION_HISTORY_FILENAME)), timeScale);
+    }
+
+    public ConditionalService(ScheduledExecutorService scheduler, TransitionHistory transitionHistory) {
+        this(scheduler, transitionHistory, 1.0);
+    }
+
+    public ConditionalService(ScheduledExecutorService scheduler, TransitionHistory transitionHistory, double timeScale) {
+        if (timeScale <= 0) {
+            throw new IllegalArgumentException("Time scale must be positive");
+        }
+
+        this.scheduler = scheduler;
+        this.probeExecutor = defaultProbeExecutor();
+        this.transitionHistory = transitionHistory;
+        this.timeScale = timeScale;
+    }
+
+    public void waitForCondition(String resourceType, String statusMessage, String failureMessage,
                                  long pollingInterval, Callable<Boolean> condition) {
-        int retryCount = 0;
+        WaitPolicy policy = WaitPolicy.forPollingInterval(pollingInterval);
+        await(waitForConditionAsync(resourceType, statusMessage, failureMessage, policy, condition));
+    }
+
+    public CompletableFuture<Void> waitForConditionAsync(String resourceType, String statusMessage,
+                                                         String failureMessage, WaitPolicy policy,
+                                                         Callable<Boolean> condition) {
+        WaitPolicy adaptivePolicy = adaptPolicy(resourceType, policy);
 
-        while (!checkCondition(condition) && retryCount < MAX_RETRIES) {
-            Logger.info(statusMessage);
-            sleep(pollingInterval);
-            retryCount++;
+        Waiter waiter = new Waiter(resourceType, statusMessage, failureMessage, adaptivePolicy, condition);
+        probeExecutor.execute(waiter::poll);
+        return waiter.future;
+    }
+
+    public void sleep(long duration, TimeUnit unit) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(toWallClockNanos(unit.toMillis(duration)));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sleeping", e);
+        }
+    }
+
+    // Runs the task on the probe executor once the delay has passed, leaving the caller free in the meantime
+    public CompletableFuture<Void> schedule(Runnable task, long delay, TimeUnit unit) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Runnable complete = () -> {
+            try {
+                task.run();
+                future.complete(null);
+            }
+            catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        };
+
+        scheduler.schedule(() -> probeExecutor.execute(complete), toWallClockNanos(unit.toMillis(delay)), TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        probeExecutor.shutdownNow();
+    }
+
+    public static void await(CompletableFuture<?> future) {
+        try {
+            future.join();
         }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause();
 
-        if (!checkCondition(condition) && retryCount >= MAX_RETRIES) {
-            throw new IllegalStateException("Condition not met: " + failureMessage);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        catch (CancellationException e) {
+            throw new IllegalStateException("Wait was cancelled", e);
         }
     }
 
+    private WaitPolicy adaptPolicy(String resourceType, WaitPolicy policy) {
+        if (transitionHistory.getSampleCount(resourceType) < MIN_SAMPLES_FOR_ADAPTIVE_POLLING) {
+            return policy;
+        }
+
+        long expectedEarliest = transitionHistory.getPercentileMillis(resourceType, EXPECTED_EARLIEST_PERCENTILE);
+        long expectedLatest = transitionHistory.getPercentileMillis(resourceType, EXPECTED_LATEST_PERCENTILE);
+
+        Logger.debug("Expecting [%s] to complete between [%s] and [%s] ms", resourceType, expectedEarliest, expectedLatest);
+        return new AdaptiveWaitPolicy(policy, expectedEarliest, expectedLatest);
+    }
+
     private boolean checkCondition(Callable<Boolean> condition) {
         try {
             return condition.call();
@@ -34,12 +150,103 @@ public class ConditionalService {
         }
     }
 
-    private void sleep(long seconds) {
-        try {
-            Thread.sleep(seconds * MILLIS_PER_SECOND);
+    private long toWallClockNanos(long millis) {
+        return (long) (TimeUnit.MILLISECONDS.toNanos(millis) * timeScale);
+    }
+
+    private long fromWallClockNanos(long nanos) {
+        return (long) (TimeUnit.NANOSECONDS.toMillis(nanos) / timeScale);
+    }
+
+    private static ScheduledExecutorService defaultScheduler() {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("waiter-%d")
+                .setDaemon(true)
+                .build();
+
+        return Executors.newScheduledThreadPool(DEFAULT_SCHEDULER_THREADS, threadFactory);
+    }
+
+    // Probes beyond the pool size queue up rather than each starting another thread
+    private static ExecutorService defaultProbeExecutor() {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("waiter-probe-%d")
+                .setDaemon(true)
+                .build();
+
+        return Executors.newFixedThreadPool(DEFAULT_PROBE_THREADS, threadFactory);
+    }
+
+    private class Waiter {
+        private final String resourceType;
+        private final String statusMessage;
+        private final String failureMessage;
+
+        private final WaitPolicy policy;
+        private final Callable<Boolean> condition;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final long startTime = System.nanoTime();
+
+        // Polls run on the probe threads, so the span is started here under the caller's
+        private final Span span;
+
+        private int attempt = 0;
+
+        private Waiter(String resourceType, String statusMessage, String failureMessage,
+                       WaitPolicy policy, Callable<Boolean> condition) {
+            this.resourceType = resourceType;
+            this.statusMessage = statusMessage;
+            this.failureMessage = failureMessage;
+            this.policy = policy;
+            this.condition = condition;
+
+            this.span = Tracer.startAsync("wait", resourceType)
+                    .setAttribute("resourceType", resourceType)
+                    .setAttribute("status", statusMessage);
         }
-        catch (InterruptedException e) {
-            Logger.warn("Thread interrupted while sleeping: " + e.getMessage());
+
+        private void poll() {
+            if (future.isDone()) {
+                endSpan("cancelled");
+                return;
+            }
+
+            long elapsed = fromWallClockNanos(System.nanoTime() - startTime);
+
+            if (checkCondition(condition)) {
+                // Only transitions that had to be waited on say anything about how long they take
+                if (attempt > 0) {
+                    transitionHistory.record(resourceType, elapsed);
+                }
+                endSpan("met");
+                future.complete(null);
+                return;
+            }
+
+            if (elapsed >= policy.getDeadlineMillis()) {
+                endSpan("timed out");
+                future.completeExceptionally(new IllegalStateException("Condition not met: " + failureMessage));
+                return;
+            }
+
+            LogContext logContext = LogContext.resource(resourceType);
+
+            try {
+                Logger.info(statusMessage);
+            }
+            finally {
+                logContext.close();
+            }
+
+            long delay = policy.nextDelayMillis(attempt++, elapsed);
+            scheduler.schedule(() -> probeExecutor.execute(this::poll), toWallClockNanos(delay), TimeUnit.NANOSECONDS);
+        }
+
+        private void endSpan(String outcome) {
+            span.setAttribute("polls", attempt + 1);
+            span.setAttribute("outcome", outcome);
+            span.end();
         }
     }
 }
@@ -0,0 +1,84 @@
+package in.reeltime.tool.condition;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.log.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class TransitionHistory {
+
+    private static final int MAX_SAMPLES_PER_RESOURCE_TYPE = 20;
+
+    private final File file;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, List<Long>> samples;
+
+    public TransitionHistory(File file) {
+        this.file = file;
+        this.objectMapper = new ObjectMapper();
+        this.samples = load();
+    }
+
+    public synchronized int getSampleCount(String resourceType) {
+        List<Long> durations = samples.get(resourceType);
+        return durations != null ? durations.size() : 0;
+    }
+
+    public synchronized long getPercentileMillis(String resourceType, double percentile) {
+        List<Long> durations = samples.get(resourceType);
+
+        if (durations == null || durations.isEmpty()) {
+            throw new IllegalArgumentException("No samples recorded for resource type: " + resourceType);
+        }
+
+        List<Long> sorted = Lists.newArrayList(durations);
+        Collections.sort(sorted);
+
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        index = Math.max(0, Math.min(index, sorted.size() - 1));
+
+        return sorted.get(index);
+    }
+
+    public synchronized void record(String resourceType, long durationMillis) {
+        List<Long> durations = samples.computeIfAbsent(resourceType, k -> Lists.newArrayList());
+        durations.add(durationMillis);
+
+        while (durations.size() > MAX_SAMPLES_PER_RESOURCE_TYPE) {
+            durations.remove(0);
+        }
+
+        save();
+    }
+
+    private Map<String, List<Long>> load() {
+        if (!file.exists()) {
+            return Maps.newHashMap();
+        }
+
+        try {
+            return objectMapper.readValue(file, new TypeReference<Map<String, List<Long>>>() {});
+        }
+        catch (IOException e) {
+            Logger.warn("Ignoring unreadable transition history [%s]: %s", file.getPath(), e.getMessage());
+            return Maps.newHashMap();
+        }
+    }
+
+    private void save() {
+        try {
+            objectMapper.writeValue(file, samples);
+        }
+        catch (IOException e) {
+            Logger.warn("Failed to write transition history [%s]: %s", file.getPath(), e.getMessage());
+        }
+    }
+}
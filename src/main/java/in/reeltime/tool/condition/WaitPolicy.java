@@ -0,0 +1,116 @@
+package in.reeltime.tool.condition;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class WaitPolicy {
+
+    private static final int MAX_RETRIES = 90;
+
+    private static final double DEFAULT_MULTIPLIER = 1.25;
+    private static final double DEFAULT_JITTER = 0.1;
+
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final double multiplier;
+    private final double jitter;
+    private final long deadlineMillis;
+
+    private WaitPolicy(Builder builder) {
+        this.initialDelayMillis = builder.initialDelayMillis;
+        this.maxDelayMillis = builder.maxDelayMillis;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.deadlineMillis = builder.deadlineMillis;
+    }
+
+    protected WaitPolicy(WaitPolicy policy) {
+        this.initialDelayMillis = policy.initialDelayMillis;
+        this.maxDelayMillis = policy.maxDelayMillis;
+        this.multiplier = policy.multiplier;
+        this.jitter = policy.jitter;
+        this.deadlineMillis = policy.deadlineMillis;
+    }
+
+    // Polls no less often than the original fixed interval (90 polls); jitter only ever brings a poll forward
+    public static WaitPolicy forPollingInterval(long pollingIntervalSecs) {
+        long intervalMillis = TimeUnit.SECONDS.toMillis(pollingIntervalSecs);
+
+        return new Builder()
+                .withInitialDelay(intervalMillis, TimeUnit.MILLISECONDS)
+                .withMaxDelay(intervalMillis, TimeUnit.MILLISECONDS)
+                .withMultiplier(1.0)
+                .withJitter(DEFAULT_JITTER)
+                .withDeadline(intervalMillis * MAX_RETRIES, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public long getInitialDelayMillis() {
+        return initialDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    public long nextDelayMillis(int attempt, long elapsedMillis) {
+        double delay = initialDelayMillis * Math.pow(multiplier, attempt);
+        delay = Math.min(delay, maxDelayMillis);
+
+        if (jitter > 0) {
+            double spread = delay * jitter;
+            delay += ThreadLocalRandom.current().nextDouble(-spread, spread);
+            delay = Math.min(delay, maxDelayMillis);
+        }
+
+        long remaining = deadlineMillis - elapsedMillis;
+        return Math.max(0, Math.min((long) delay, remaining));
+    }
+
+    public static class Builder {
+        private long initialDelayMillis = TimeUnit.SECONDS.toMillis(5);
+        private long maxDelayMillis = TimeUnit.SECONDS.toMillis(30);
+        private double multiplier = DEFAULT_MULTIPLIER;
+        private double jitter = DEFAULT_JITTER;
+        private long deadlineMillis = TimeUnit.MINUTES.toMillis(45);
+
+        public Builder withInitialDelay(long delay, TimeUnit unit) {
+            this.initialDelayMillis = unit.toMillis(delay);
+            return this;
+        }
+
+        public Builder withMaxDelay(long delay, TimeUnit unit) {
+            this.maxDelayMillis = unit.toMillis(delay);
+            return this;
+        }
+
+        public Builder withMultiplier(double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        public Builder withJitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        public Builder withDeadline(long deadline, TimeUnit unit) {
+            this.deadlineMillis = unit.toMillis(deadline);
+            return this;
+        }
+
+        public WaitPolicy build() {
+            if (multiplier < 1.0) {
+                throw new IllegalArgumentException("Multiplier must be at least 1.0");
+            }
+            if (jitter < 0.0 || jitter >= 1.0) {
+                throw new IllegalArgumentException("Jitter must be in the range [0.0, 1.0)");
+            }
+            return new WaitPolicy(this);
+        }
+    }
+}
@@ -3,38 +3,109 @@ package in.reeltime.tool.database;
 import com.amazonaws.services.ec2.model.SecurityGroup;
 import com.amazonaws.services.rds.model.DBInstance;
 import com.amazonaws.services.rds.model.DBSubnetGroup;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import in.reeltime.tool.database.instance.DatabaseInstanceService;
+import in.reeltime.tool.database.standby.StandbyPoolService;
 import in.reeltime.tool.database.subnet.DatabaseSubnetGroupService;
 import in.reeltime.tool.name.NameService;
 import in.reeltime.tool.network.Network;
+import in.reeltime.tool.plan.ResourceChange;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public class DatabaseService {
 
+    private static final String AVAILABLE_STATUS = "available";
+
+    private static final String SUBNET_GROUP_STATE_KEY = "subnetGroup";
+    private static final String INSTANCE_STATE_KEY = "instance";
+
     private final NameService nameService;
 
     private final DatabaseSubnetGroupService databaseSubnetGroupService;
     private final DatabaseInstanceService databaseInstanceService;
+    private final StandbyPoolService standbyPoolService;
 
     public DatabaseService(NameService nameService, DatabaseSubnetGroupService databaseSubnetGroupService,
-                           DatabaseInstanceService databaseInstanceService) {
+                           DatabaseInstanceService databaseInstanceService, StandbyPoolService standbyPoolService) {
         this.nameService = nameService;
         this.databaseSubnetGroupService = databaseSubnetGroupService;
         this.databaseInstanceService = databaseInstanceService;
+        this.standbyPoolService = standbyPoolService;
     }
 
     public Database setupDatabase(Network network) {
         DatabaseConfiguration configuration = getConfiguration(network);
+        DBInstance instance = null;
+
+        if (standbyPoolService.isEnabled() && !databaseInstanceService.instanceExists(configuration.getDbInstanceIdentifier())) {
+            instance = standbyPoolService.claimStandby(configuration);
+        }
 
-        DBInstance instance = databaseInstanceService.createInstance(configuration);
-        instance = databaseInstanceService.waitForInstanceToBecomeAvailable(instance);
+        if (instance == null) {
+            instance = databaseInstanceService.createInstance(configuration);
+            instance = databaseInstanceService.waitForInstanceToBecomeAvailable(instance);
+        }
 
+        if (standbyPoolService.isEnabled()) {
+            standbyPoolService.refill(configuration);
+        }
         return new Database(configuration, instance);
     }
 
+    public Map<String, String> recordDatabase(Database database) {
+        DatabaseConfiguration configuration = database.getConfiguration();
+
+        return ImmutableMap.of(
+                SUBNET_GROUP_STATE_KEY, configuration.getDbSubnetGroup().getDBSubnetGroupName(),
+                INSTANCE_STATE_KEY, configuration.getDbInstanceIdentifier());
+    }
+
+    public Database restoreDatabase(Map<String, String> resources, Network network) {
+        DBInstance instance = databaseInstanceService.getInstance(resources.get(INSTANCE_STATE_KEY));
+
+        if (instance == null || !instance.getDBInstanceStatus().equals(AVAILABLE_STATUS)) {
+            return null;
+        }
+
+        DBSubnetGroup subnetGroup = databaseSubnetGroupService.getSubnetGroup(resources.get(SUBNET_GROUP_STATE_KEY));
+
+        if (subnetGroup == null) {
+            return null;
+        }
+
+        return new Database(getConfiguration(subnetGroup, network), instance);
+    }
+
+    public List<Supplier<ResourceChange>> planDatabase(boolean recreate) {
+        String groupName = nameService.getNameForResource(DBSubnetGroup.class);
+        String identifier = nameService.getNameForResource(DBInstance.class, "identifier");
+
+        List<Supplier<ResourceChange>> checks = Lists.newArrayList();
+
+        checks.add(() -> plan(recreate, "db-subnet-group", groupName, databaseSubnetGroupService.subnetGroupExists(groupName)));
+        checks.add(() -> plan(recreate, "db-instance", identifier, databaseInstanceService.instanceExists(identifier)));
+
+        return checks;
+    }
+
+    private ResourceChange plan(boolean recreate, String resourceType, String name, boolean exists) {
+        return recreate ? ResourceChange.recreate(resourceType, name, exists) : ResourceChange.ensure(resourceType, name, exists);
+    }
+
     public void tearDownDatabase() {
         String groupName = nameService.getNameForResource(DBSubnetGroup.class);
         String identifier = nameService.getNameForResource(DBInstance.class, "identifier");
 
+        // Standby instances share the subnet group, so it stays for the next claim
+        if (standbyPoolService.isEnabled()) {
+            standbyPoolService.retireInstance(identifier);
+            return;
+        }
+
         databaseInstanceService.deleteInstance(identifier);
         databaseInstanceService.waitForInstanceToBeDeleted(identifier);
         databaseSubnetGroupService.deleteSubnetGroup(groupName);
@@ -44,6 +115,10 @@ public class DatabaseService {
         String groupName = nameService.getNameForResource(DBSubnetGroup.class);
         DBSubnetGroup subnetGroup = databaseSubnetGroupService.createSubnetGroup(groupName, network.getDatabaseSubnets());
 
+        return getConfiguration(subnetGroup, network);
+    }
+
+    private DatabaseConfiguration getConfiguration(DBSubnetGroup subnetGroup, Network network) {
         String identifier = nameService.getNameForResource(DBInstance.class, "identifier");
         String databaseName = nameService.getNameForResource(Database.class);
 
@@ -4,11 +4,15 @@ import com.amazonaws.services.ec2.model.SecurityGroup;
 import com.amazonaws.services.rds.AmazonRDS;
 import com.amazonaws.services.rds.model.*;
 import com.google.common.collect.Lists;
+import in.reeltime.tool.aws.Paginator;
 import in.reeltime.tool.condition.ConditionalService;
+import in.reeltime.tool.condition.WaitPolicy;
 import in.reeltime.tool.database.DatabaseConfiguration;
 import in.reeltime.tool.log.Logger;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 public class DatabaseInstanceService {
 
@@ -26,6 +30,12 @@ public class DatabaseInstanceService {
     private static final String WAITING_FOR_DELETION_FAILED_FORMAT =
             "Database instance [%s] did not complete deletion during the expected time";
 
+    private static final String WAITING_FOR_RENAME_STATUS_FORMAT =
+            "Waiting for database instance [%s] to be renamed";
+
+    private static final String WAITING_FOR_RENAME_FAILED_FORMAT =
+            "Database instance [%s] was not renamed during the expected time";
+
     private final AmazonRDS rds;
     private final ConditionalService conditionalService;
 
@@ -57,9 +67,22 @@ public class DatabaseInstanceService {
         }
     }
 
+    public List<DBInstance> getInstancesWithPrefix(String identifierPrefix) {
+        Paginator<String, DescribeDBInstancesResult, DBInstance> pages = Paginator.paginate(null,
+                marker -> rds.describeDBInstances(new DescribeDBInstancesRequest().withMarker(marker)),
+                DescribeDBInstancesResult::getDBInstances,
+                DescribeDBInstancesResult::getMarker);
+
+        return pages.stream()
+                .filter(i -> i.getDBInstanceIdentifier().startsWith(identifierPrefix))
+                .collect(Collectors.toList());
+    }
+
     public DBInstance createInstance(DatabaseConfiguration configuration) {
-        String instanceIdentifier = configuration.getDbInstanceIdentifier();
+        return createInstance(configuration, configuration.getDbInstanceIdentifier());
+    }
 
+    public DBInstance createInstance(DatabaseConfiguration configuration, String instanceIdentifier) {
         if (instanceExists(instanceIdentifier)) {
             Logger.info("Database instance with identifier [%s] already exists", instanceIdentifier);
             return getInstance(instanceIdentifier);
@@ -100,6 +123,20 @@ public class DatabaseInstanceService {
         return rds.createDBInstance(request);
     }
 
+    public void renameInstance(String instanceIdentifier, String newInstanceIdentifier, SecurityGroup securityGroup) {
+        ModifyDBInstanceRequest request = new ModifyDBInstanceRequest()
+                .withDBInstanceIdentifier(instanceIdentifier)
+                .withNewDBInstanceIdentifier(newInstanceIdentifier)
+                .withApplyImmediately(true);
+
+        if (securityGroup != null) {
+            request.setVpcSecurityGroupIds(Lists.newArrayList(securityGroup.getGroupId()));
+        }
+
+        Logger.info("Renaming database instance [%s] to [%s]", instanceIdentifier, newInstanceIdentifier);
+        rds.modifyDBInstance(request);
+    }
+
     public void deleteInstance(String instanceIdentifier) {
         if (!instanceExists(instanceIdentifier)) {
             Logger.info("Database instance [%s] does not exist", instanceIdentifier);
@@ -115,28 +152,52 @@ public class DatabaseInstanceService {
     }
 
     public DBInstance waitForInstanceToBecomeAvailable(DBInstance instance) {
+        CompletableFuture<DBInstance> future = waitForInstanceToBecomeAvailableAsync(instance);
+        ConditionalService.await(future);
+        return future.join();
+    }
+
+    public CompletableFuture<DBInstance> waitForInstanceToBecomeAvailableAsync(DBInstance instance) {
         String identifier = instance.getDBInstanceIdentifier();
 
         String statusMessage = String.format(WAITING_FOR_AVAILABLE_STATUS_FORMAT, identifier);
         String failureMessage = String.format(WAITING_FOR_AVAILABLE_FAILED_FORMAT, identifier);
 
-        conditionalService.waitForCondition(statusMessage, failureMessage, WAITING_POLLING_INTERVAL_SECS,
-                () -> checkInstanceStatus(identifier, "available"));
+        WaitPolicy policy = WaitPolicy.forPollingInterval(WAITING_POLLING_INTERVAL_SECS);
 
-        return refreshInstance(instance);
+        return conditionalService.waitForConditionAsync("db-instance-available", statusMessage, failureMessage, policy,
+                () -> checkInstanceStatus(identifier, "available"))
+                .thenApply(v -> refreshInstance(instance));
     }
 
     public void waitForInstanceToBeDeleted(String identifier) {
+        ConditionalService.await(waitForInstanceToBeDeletedAsync(identifier));
+    }
+
+    public CompletableFuture<Void> waitForInstanceToBeDeletedAsync(String identifier) {
         String statusMessage = String.format(WAITING_FOR_DELETION_STATUS_FORMAT, identifier);
         String failureMessage = String.format(WAITING_FOR_DELETION_FAILED_FORMAT, identifier);
 
-        conditionalService.waitForCondition(statusMessage, failureMessage, WAITING_POLLING_INTERVAL_SECS,
+        WaitPolicy policy = WaitPolicy.forPollingInterval(WAITING_POLLING_INTERVAL_SECS);
+
+        return conditionalService.waitForConditionAsync("db-instance-deleted", statusMessage, failureMessage, policy,
                 () -> !instanceExists(identifier));
     }
 
+    // The old identifier stops resolving once the rename has been applied
+    public void waitForInstanceToBeRenamed(String identifier) {
+        String statusMessage = String.format(WAITING_FOR_RENAME_STATUS_FORMAT, identifier);
+        String failureMessage = String.format(WAITING_FOR_RENAME_FAILED_FORMAT, identifier);
+
+        WaitPolicy policy = WaitPolicy.forPollingInterval(WAITING_POLLING_INTERVAL_SECS);
+
+        ConditionalService.await(conditionalService.waitForConditionAsync("db-instance-renamed", statusMessage,
+                failureMessage, policy, () -> !instanceExists(identifier)));
+    }
+
     private boolean checkInstanceStatus(String identifier, String status) {
         DBInstance instance = getInstance(identifier);
-        return instance.getDBInstanceStatus().equals(status);
+        return instance != null && instance.getDBInstanceStatus().equals(status);
     }
 
     private DBInstance refreshInstance(DBInstance instance) {
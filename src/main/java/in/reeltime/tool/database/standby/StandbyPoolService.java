@@ -0,0 +1,111 @@
+package in.reeltime.tool.database.standby;
+
+import com.amazonaws.services.rds.model.DBInstance;
+import com.google.common.collect.ImmutableSet;
+import in.reeltime.tool.database.DatabaseConfiguration;
+import in.reeltime.tool.database.instance.DatabaseInstanceService;
+import in.reeltime.tool.log.Logger;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class StandbyPoolService {
+
+    private static final String STANDBY_PREFIX_FORMAT = "%s-standby-";
+    private static final String STANDBY_IDENTIFIER_FORMAT = "%s-standby-%d";
+    private static final String RETIRED_IDENTIFIER_FORMAT = "%s-retired-%d";
+
+    private static final String AVAILABLE_STATUS = "available";
+    private static final String DELETING_STATUS = "deleting";
+
+    // Standbys in these states never become available and have to be replaced
+    private static final Set<String> BROKEN_STATUSES = ImmutableSet.of("failed", "incompatible-parameters");
+
+    private final DatabaseInstanceService databaseInstanceService;
+    private final int poolSize;
+
+    public StandbyPoolService(DatabaseInstanceService databaseInstanceService, int poolSize) {
+        this.databaseInstanceService = databaseInstanceService;
+        this.poolSize = poolSize;
+    }
+
+    public boolean isEnabled() {
+        return poolSize > 0;
+    }
+
+    public DBInstance claimStandby(DatabaseConfiguration configuration) {
+        String identifier = configuration.getDbInstanceIdentifier();
+
+        DBInstance standby = getStandbys(identifier).stream()
+                .filter(i -> i.getDBInstanceStatus().equals(AVAILABLE_STATUS))
+                .findFirst()
+                .orElse(null);
+
+        if (standby == null) {
+            Logger.info("No standby database instance is available for [%s]", identifier);
+            return null;
+        }
+
+        String standbyIdentifier = standby.getDBInstanceIdentifier();
+        Logger.info("Claiming standby database instance [%s] for [%s]", standbyIdentifier, identifier);
+
+        databaseInstanceService.renameInstance(standbyIdentifier, identifier, configuration.getSecurityGroup());
+        databaseInstanceService.waitForInstanceToBeRenamed(standbyIdentifier);
+
+        return databaseInstanceService.waitForInstanceToBecomeAvailable(new DBInstance().withDBInstanceIdentifier(identifier));
+    }
+
+    // Creation is not waited on; the standbys provision while the rest of the deployment runs
+    public void refill(DatabaseConfiguration configuration) {
+        String identifier = configuration.getDbInstanceIdentifier();
+        List<DBInstance> standbys = getStandbys(identifier);
+
+        // A broken standby holds on to its identifier until it is gone, so its slot is refilled on a later deploy
+        standbys.stream()
+                .filter(i -> BROKEN_STATUSES.contains(i.getDBInstanceStatus()))
+                .forEach(i -> {
+                    Logger.info("Deleting standby database instance [%s] in state [%s]",
+                            i.getDBInstanceIdentifier(), i.getDBInstanceStatus());
+                    databaseInstanceService.deleteInstance(i.getDBInstanceIdentifier());
+                });
+
+        Set<String> standbyIdentifiers = standbys.stream()
+                .map(DBInstance::getDBInstanceIdentifier)
+                .collect(Collectors.toSet());
+
+        for (int slot = 1; slot <= poolSize; slot++) {
+            String standbyIdentifier = String.format(STANDBY_IDENTIFIER_FORMAT, identifier, slot);
+
+            if (!standbyIdentifiers.contains(standbyIdentifier)) {
+                Logger.info("Refilling standby database instance [%s]", standbyIdentifier);
+                databaseInstanceService.createInstance(configuration, standbyIdentifier);
+            }
+        }
+    }
+
+    // Renaming frees the identifier within minutes, whereas deletion holds on to it until the instance is gone
+    public void retireInstance(String identifier) {
+        if (!databaseInstanceService.instanceExists(identifier)) {
+            Logger.info("Database instance [%s] does not exist", identifier);
+            return;
+        }
+
+        String retiredIdentifier = String.format(RETIRED_IDENTIFIER_FORMAT, identifier, System.currentTimeMillis() / 1000);
+
+        databaseInstanceService.renameInstance(identifier, retiredIdentifier, null);
+        databaseInstanceService.waitForInstanceToBeRenamed(identifier);
+
+        // RDS rejects the delete while the instance is still renaming or modifying
+        databaseInstanceService.waitForInstanceToBecomeAvailable(new DBInstance().withDBInstanceIdentifier(retiredIdentifier));
+        databaseInstanceService.deleteInstance(retiredIdentifier);
+    }
+
+    private List<DBInstance> getStandbys(String identifier) {
+        String prefix = String.format(STANDBY_PREFIX_FORMAT, identifier);
+
+        return databaseInstanceService.getInstancesWithPrefix(prefix).stream()
+                .filter(i -> !i.getDBInstanceStatus().equals(DELETING_STATUS))
+                .collect(Collectors.toList());
+    }
+}
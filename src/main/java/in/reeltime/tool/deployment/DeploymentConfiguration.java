@@ -13,6 +13,8 @@ public class DeploymentConfiguration {
 
     private final boolean production;
 
+    private final DeploymentMode deploymentMode;
+
     private final String environmentName;
 
     private final String applicationName;
@@ -37,6 +39,7 @@ public class DeploymentConfiguration {
 
     private DeploymentConfiguration(Builder builder) {
         this.production = builder.production;
+        this.deploymentMode = builder.deploymentMode;
         this.environmentName = builder.environmentName;
         this.applicationName = builder.applicationName;
         this.applicationVersion = builder.applicationVersion;
@@ -54,6 +57,10 @@ public class DeploymentConfiguration {
         return production;
     }
 
+    public DeploymentMode getDeploymentMode() {
+        return deploymentMode;
+    }
+
     public String getEnvironmentName() {
         return environmentName;
     }
@@ -101,6 +108,7 @@ public class DeploymentConfiguration {
     public static class Builder {
 
         private boolean production;
+        private DeploymentMode deploymentMode = DeploymentMode.RECREATE;
         private String environmentName;
         private String applicationName;
         private String applicationVersion;
@@ -118,6 +126,11 @@ public class DeploymentConfiguration {
             return this;
         }
 
+        Builder withDeploymentMode(DeploymentMode deploymentMode) {
+            this.deploymentMode = deploymentMode;
+            return this;
+        }
+
         Builder withEnvironmentName(String environmentName) {
             this.environmentName = environmentName;
             return this;
@@ -0,0 +1,32 @@
+package in.reeltime.tool.deployment;
+
+public enum DeploymentMode {
+
+    // Terminate the existing environment, then create its replacement under the same name
+    RECREATE("recreate"),
+
+    // Create the replacement alongside the existing environment and flip DNS once it is healthy
+    BLUE_GREEN("blue-green"),
+
+    // Roll a new application version out to the existing environment when its configuration is unchanged
+    ROLLING("rolling");
+
+    private final String optionValue;
+
+    DeploymentMode(String optionValue) {
+        this.optionValue = optionValue;
+    }
+
+    public String getOptionValue() {
+        return optionValue;
+    }
+
+    public static DeploymentMode fromOptionValue(String optionValue) {
+        for (DeploymentMode mode : values()) {
+            if (mode.optionValue.equals(optionValue)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown deployment mode: " + optionValue);
+    }
+}
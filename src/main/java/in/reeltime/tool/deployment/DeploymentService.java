@@ -8,19 +8,38 @@ import in.reeltime.tool.database.Database;
 import in.reeltime.tool.database.DatabaseService;
 import in.reeltime.tool.dns.DNSService;
 import in.reeltime.tool.external.ExternalConfiguration;
+import in.reeltime.tool.log.LogContext;
 import in.reeltime.tool.log.Logger;
 import in.reeltime.tool.network.Network;
 import in.reeltime.tool.network.NetworkService;
+import in.reeltime.tool.state.DeploymentState;
 import in.reeltime.tool.storage.Storage;
 import in.reeltime.tool.storage.StorageService;
+import in.reeltime.tool.task.TaskGraph;
+import in.reeltime.tool.task.TaskKey;
+import in.reeltime.tool.task.TaskResults;
+import in.reeltime.tool.trace.Span;
+import in.reeltime.tool.trace.Tracer;
 import in.reeltime.tool.transcoder.Transcoder;
 import in.reeltime.tool.transcoder.TranscoderService;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.TreeMap;
 
 public class DeploymentService {
 
+    private static final int MAX_CONCURRENT_STEPS = 4;
+
+    private static final TaskKey<Void> TRANSCODER_TEAR_DOWN = TaskKey.of("TranscoderTearDown", Void.class);
+    private static final TaskKey<Void> DATABASE_TEAR_DOWN = TaskKey.of("DatabaseTearDown", Void.class);
+
+    private static final TaskKey<Network> NETWORK = TaskKey.of(Network.class);
+    private static final TaskKey<Database> DATABASE = TaskKey.of(Database.class);
+    private static final TaskKey<Storage> STORAGE = TaskKey.of(Storage.class);
+    private static final TaskKey<Access> ACCESS = TaskKey.of(Access.class);
+    private static final TaskKey<Transcoder> TRANSCODER = TaskKey.of(Transcoder.class);
+
     private final NetworkService networkService;
 
     private final DatabaseService databaseService;
@@ -33,50 +52,125 @@ public class DeploymentService {
 
     private final BeanstalkService beanstalkService;
 
+    private final DeploymentState state;
+
     public DeploymentService(NetworkService networkService, DatabaseService databaseService,
                              StorageService storageService, AccessService accessService,
-                             TranscoderService transcoderService, BeanstalkService beanstalkService) {
+                             TranscoderService transcoderService, BeanstalkService beanstalkService,
+                             DeploymentState state) {
         this.networkService = networkService;
         this.databaseService = databaseService;
         this.storageService = storageService;
         this.accessService = accessService;
         this.transcoderService = transcoderService;
         this.beanstalkService = beanstalkService;
+        this.state = state;
     }
 
     public void deploy(String accountId, String environmentName, String applicationName, String applicationVersion,
                        File war, String hostedZoneDomainName, String certificateDomainName, String mailgunApiKey,
-                       boolean production, boolean removeResources) throws FileNotFoundException {
+                       boolean production, boolean removeResources, DeploymentMode deploymentMode) throws FileNotFoundException {
         if (!war.exists()) {
             String message = String.format("War file [%s] not found", war.getName());
             throw new FileNotFoundException(message);
         }
 
-        if (!production) {
-            Logger.info("Tearing down transcoder");
-            transcoderService.tearDownTranscoder();
-        }
+        Span span = Tracer.start("phase", "deploy")
+                .setAttribute("environmentName", environmentName)
+                .setAttribute("applicationVersion", applicationVersion)
+                .setAttribute("deploymentMode", deploymentMode.getOptionValue())
+                .setAttribute("production", production);
 
-        if (!production && removeResources) {
-            Logger.info("Tearing down database");
-            databaseService.tearDownDatabase();
+        try {
+            runDeployment(accountId, environmentName, applicationName, applicationVersion, war, hostedZoneDomainName,
+                    certificateDomainName, mailgunApiKey, production, removeResources, deploymentMode);
         }
+        catch (Exception e) {
+            span.setError(e);
+            throw e;
+        }
+        finally {
+            span.end();
+        }
+    }
 
-        Network network = networkService.setupNetwork();
-        Database database = databaseService.setupDatabase(network);
-
-        Storage storage = storageService.setupStorage();
-        String transcoderTopicName = transcoderService.getTranscoderTopicName();
+    private void runDeployment(String accountId, String environmentName, String applicationName, String applicationVersion,
+                               File war, String hostedZoneDomainName, String certificateDomainName, String mailgunApiKey,
+                               boolean production, boolean removeResources, DeploymentMode deploymentMode)
+            throws FileNotFoundException {
+        TaskGraph graph = new TaskGraph.Builder()
+                .add(TRANSCODER_TEAR_DOWN, results -> {
+                    if (!production) {
+                        Logger.info("Tearing down transcoder");
+                        transcoderService.tearDownTranscoder();
+                        state.forget(TRANSCODER.getName());
+                    }
+                    return null;
+                })
+                .add(DATABASE_TEAR_DOWN, results -> {
+                    if (!production && removeResources) {
+                        Logger.info("Tearing down database");
+                        databaseService.tearDownDatabase();
+                        state.forget(DATABASE.getName());
+                    }
+                    return null;
+                })
+                .add(NETWORK, results -> state.runStep(NETWORK.getName(),
+                        DeploymentState.hashInputs(environmentName),
+                        networkService::restoreNetwork,
+                        networkService::setupNetwork,
+                        networkService::recordNetwork))
+                .add(DATABASE, results -> {
+                    Network network = results.get(NETWORK);
+
+                    return state.runStep(DATABASE.getName(),
+                            DeploymentState.hashInputs(environmentName, new TreeMap<>(networkService.recordNetwork(network))),
+                            resources -> databaseService.restoreDatabase(resources, network),
+                            () -> databaseService.setupDatabase(network),
+                            databaseService::recordDatabase);
+                }, NETWORK, DATABASE_TEAR_DOWN)
+                .add(STORAGE, results -> state.runStep(STORAGE.getName(),
+                        DeploymentState.hashInputs(environmentName),
+                        storageService::restoreStorage,
+                        storageService::setupStorage,
+                        storageService::recordStorage))
+                .add(ACCESS, results -> {
+                    Storage storage = results.get(STORAGE);
+                    String transcoderTopicName = transcoderService.getTranscoderTopicName();
+
+                    RolePolicyParameters rolePolicyParameters = new RolePolicyParameters(
+                            accountId,
+                            storage.getMasterVideosBucket(),
+                            storage.getThumbnailsBucket(),
+                            storage.getPlaylistsAndSegmentsBucket(),
+                            transcoderTopicName);
+
+                    return state.runStep(ACCESS.getName(),
+                            DeploymentState.hashInputs(environmentName, new TreeMap<>(rolePolicyParameters.toMap()), certificateDomainName),
+                            accessService::restoreAccess,
+                            () -> accessService.setupAccess(rolePolicyParameters, certificateDomainName),
+                            accessService::recordAccess);
+                }, STORAGE)
+                .add(TRANSCODER, results -> {
+                    Storage storage = results.get(STORAGE);
+                    Access access = results.get(ACCESS);
+
+                    return state.runStep(TRANSCODER.getName(),
+                            DeploymentState.hashInputs(environmentName, new TreeMap<>(storageService.recordStorage(storage)),
+                                    access.getTranscoderRole().getArn()),
+                            transcoderService::restoreTranscoder,
+                            () -> transcoderService.setupTranscoder(storage, access),
+                            transcoderService::recordTranscoder);
+                }, STORAGE, ACCESS, TRANSCODER_TEAR_DOWN)
+                .build();
 
-        RolePolicyParameters rolePolicyParameters = new RolePolicyParameters(
-                accountId,
-                storage.getMasterVideosBucket(),
-                storage.getThumbnailsBucket(),
-                storage.getPlaylistsAndSegmentsBucket(),
-                transcoderTopicName);
+        TaskResults results = graph.execute("deployment", MAX_CONCURRENT_STEPS);
 
-        Access access = accessService.setupAccess(rolePolicyParameters, certificateDomainName);
-        Transcoder transcoder = transcoderService.setupTranscoder(storage, access);
+        Network network = results.get(NETWORK);
+        Database database = results.get(DATABASE);
+        Storage storage = results.get(STORAGE);
+        Access access = results.get(ACCESS);
+        Transcoder transcoder = results.get(TRANSCODER);
 
         ExternalConfiguration externalConfiguration = new ExternalConfiguration.Builder()
                 .withMailgunApiKey(mailgunApiKey)
@@ -84,6 +178,7 @@ public class DeploymentService {
 
         DeploymentConfiguration configuration = new DeploymentConfiguration.Builder()
                 .isProduction(production)
+                .withDeploymentMode(deploymentMode)
                 .withAccess(access)
                 .withApplicationName(applicationName)
                 .withApplicationVersion(applicationVersion)
@@ -97,6 +192,15 @@ public class DeploymentService {
                 .withWar(war)
                 .build();
 
-        beanstalkService.deploy(configuration);
+        LogContext logContext = LogContext.phase("Beanstalk");
+        Span span = Tracer.start("phase", "beanstalk");
+
+        try {
+            beanstalkService.deploy(configuration);
+        }
+        finally {
+            span.end();
+            logContext.close();
+        }
     }
 }
@@ -3,6 +3,7 @@ package in.reeltime.tool.dns.record;
 import com.amazonaws.services.route53.AmazonRoute53;
 import com.amazonaws.services.route53.model.*;
 import com.google.common.collect.Lists;
+import in.reeltime.tool.aws.Paginator;
 import in.reeltime.tool.condition.ConditionalService;
 import in.reeltime.tool.log.Logger;
 
@@ -32,14 +33,11 @@ public class RecordService {
     }
 
     public boolean aliasRecordExists(HostedZone hostedZone, RRType recordType, String dnsName, String aliasTargetDNSName) {
-        List<ResourceRecordSet> resourceRecordSets = getResourceRecordSets(hostedZone);
-
-        Optional<ResourceRecordSet> optional = resourceRecordSets.stream()
-                .filter(r -> r.getName().startsWith(dnsName) &&
+        Optional<ResourceRecordSet> optional = getResourceRecordSets(hostedZone)
+                .find(r -> r.getName().startsWith(dnsName) &&
                         r.getType().equals(recordType.toString()) &&
                         r.getAliasTarget() != null &&
-                        r.getAliasTarget().getDNSName().startsWith(aliasTargetDNSName))
-                .findFirst();
+                        r.getAliasTarget().getDNSName().startsWith(aliasTargetDNSName));
 
         return optional.isPresent();
     }
@@ -73,9 +71,7 @@ public class RecordService {
     }
 
     public void deleteAllRecords(HostedZone hostedZone, String dnsName) {
-        List<ResourceRecordSet> resourceRecordSets = getResourceRecordSets(hostedZone);
-
-        List<ResourceRecordSet> resourceRecordSetsToDelete = resourceRecordSets.stream()
+        List<ResourceRecordSet> resourceRecordSetsToDelete = getResourceRecordSets(hostedZone).prefetching().stream()
                 .filter(r -> r.getName().startsWith(dnsName))
                 .collect(Collectors.toList());
 
@@ -97,13 +93,20 @@ public class RecordService {
         submitChangeBatch(hostedZone, changeBatch);
     }
 
-    private List<ResourceRecordSet> getResourceRecordSets(HostedZone hostedZone) {
+    private Paginator<ListResourceRecordSetsRequest, ListResourceRecordSetsResult, ResourceRecordSet>
+            getResourceRecordSets(HostedZone hostedZone) {
         String hostedZoneId = hostedZone.getId();
 
         ListResourceRecordSetsRequest request = new ListResourceRecordSetsRequest(hostedZoneId);
-        ListResourceRecordSetsResult result = route53.listResourceRecordSets(request);
 
-        return result.getResourceRecordSets();
+        // Route53 pages on a (name, type, identifier) triple rather than a single token
+        return Paginator.paginate(request,
+                route53::listResourceRecordSets,
+                ListResourceRecordSetsResult::getResourceRecordSets,
+                result -> !result.isTruncated() ? null : new ListResourceRecordSetsRequest(hostedZoneId)
+                        .withStartRecordName(result.getNextRecordName())
+                        .withStartRecordType(result.getNextRecordType())
+                        .withStartRecordIdentifier(result.getNextRecordIdentifier()));
     }
 
     private void submitChangeBatch(HostedZone hostedZone, ChangeBatch changeBatch) {
@@ -120,7 +123,7 @@ public class RecordService {
         String statusMessage = String.format(WAITING_FOR_INSYNC_STATUS_FORMAT, changeId);
         String failureMessage = String.format(WAITING_FOR_INSYNC_FAILED_FORMAT, changeId);
 
-        conditionalService.waitForCondition(statusMessage, failureMessage, WAITING_POLLING_INTERVAL_SECS,
+        conditionalService.waitForCondition("route53-change-insync", statusMessage, failureMessage, WAITING_POLLING_INTERVAL_SECS,
                 () ->  changeBatchIsInSync(changeId));
     }
 
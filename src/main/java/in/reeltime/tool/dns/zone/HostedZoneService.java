@@ -1,14 +1,16 @@
 package in.reeltime.tool.dns.zone;
 
 import com.amazonaws.services.elasticloadbalancing.AmazonElasticLoadBalancing;
+import com.amazonaws.services.elasticloadbalancing.model.DescribeLoadBalancersRequest;
 import com.amazonaws.services.elasticloadbalancing.model.DescribeLoadBalancersResult;
 import com.amazonaws.services.elasticloadbalancing.model.LoadBalancerDescription;
 import com.amazonaws.services.route53.AmazonRoute53;
 import com.amazonaws.services.route53.model.HostedZone;
+import com.amazonaws.services.route53.model.ListHostedZonesRequest;
 import com.amazonaws.services.route53.model.ListHostedZonesResult;
+import in.reeltime.tool.aws.Paginator;
 import in.reeltime.tool.log.Logger;
 
-import java.util.List;
 import java.util.Optional;
 
 public class HostedZoneService {
@@ -24,12 +26,12 @@ public class HostedZoneService {
     public HostedZone getHostedZone(String domainName) {
         Logger.info("Getting hosted zone for domain [%s]", domainName);
 
-        ListHostedZonesResult result = route53.listHostedZones();
-        List<HostedZone> hostedZones = result.getHostedZones();
+        Paginator<String, ListHostedZonesResult, HostedZone> pages = Paginator.paginate(null,
+                marker -> route53.listHostedZones(new ListHostedZonesRequest().withMarker(marker)),
+                ListHostedZonesResult::getHostedZones,
+                result -> result.isTruncated() ? result.getNextMarker() : null);
 
-        Optional<HostedZone> optional = hostedZones.stream()
-                .filter(hz -> hz.getName().startsWith(domainName))
-                .findFirst();
+        Optional<HostedZone> optional = pages.find(hz -> hz.getName().startsWith(domainName));
 
         if (!optional.isPresent()) {
             String message = String.format("HostedZone not found for domain name [%s]", domainName);
@@ -42,12 +44,12 @@ public class HostedZoneService {
     public String getHostedZoneIdForLoadBalancer(String dnsName) {
         Logger.info("Getting hosted zone id for load balancer with dns name [%s]", dnsName);
 
-        DescribeLoadBalancersResult result = elb.describeLoadBalancers();
-        List<LoadBalancerDescription> loadBalancers = result.getLoadBalancerDescriptions();
+        Paginator<String, DescribeLoadBalancersResult, LoadBalancerDescription> pages = Paginator.paginate(null,
+                marker -> elb.describeLoadBalancers(new DescribeLoadBalancersRequest().withMarker(marker)),
+                DescribeLoadBalancersResult::getLoadBalancerDescriptions,
+                DescribeLoadBalancersResult::getNextMarker);
 
-        Optional<LoadBalancerDescription> optional = loadBalancers.stream()
-                .filter(lb -> lb.getDNSName().startsWith(dnsName))
-                .findFirst();
+        Optional<LoadBalancerDescription> optional = pages.find(lb -> lb.getDNSName().startsWith(dnsName));
 
         if (!optional.isPresent()) {
             String message = String.format("Load balancer not found for dns name [%s]", dnsName);
@@ -16,6 +16,8 @@ import in.reeltime.tool.access.profile.InstanceProfileService;
 import in.reeltime.tool.access.role.RoleService;
 import in.reeltime.tool.aws.AwsClientFactory;
 import in.reeltime.tool.beanstalk.BeanstalkService;
+import in.reeltime.tool.beanstalk.HostProbe;
+import in.reeltime.tool.beanstalk.SocketHostProbe;
 import in.reeltime.tool.beanstalk.application.ApplicationService;
 import in.reeltime.tool.beanstalk.application.ApplicationVersionService;
 import in.reeltime.tool.beanstalk.environment.EnvironmentConfigurationService;
@@ -23,14 +25,18 @@ import in.reeltime.tool.beanstalk.environment.EnvironmentService;
 import in.reeltime.tool.condition.ConditionalService;
 import in.reeltime.tool.database.DatabaseService;
 import in.reeltime.tool.database.instance.DatabaseInstanceService;
+import in.reeltime.tool.database.standby.StandbyPoolService;
 import in.reeltime.tool.database.subnet.DatabaseSubnetGroupService;
 import in.reeltime.tool.deployment.DeploymentService;
 import in.reeltime.tool.dns.DNSService;
 import in.reeltime.tool.dns.record.RecordService;
 import in.reeltime.tool.dns.zone.HostedZoneService;
+import in.reeltime.tool.inventory.ResourceInventory;
+import in.reeltime.tool.metrics.ApiMetrics;
 import in.reeltime.tool.name.AmazonEC2NameService;
 import in.reeltime.tool.name.NameService;
 import in.reeltime.tool.network.NetworkService;
+import in.reeltime.tool.network.describe.Ec2DescribeService;
 import in.reeltime.tool.network.gateway.InternetGatewayService;
 import in.reeltime.tool.network.gateway.NatGatewayService;
 import in.reeltime.tool.network.route.RouteService;
@@ -40,42 +46,99 @@ import in.reeltime.tool.network.subnet.SubnetService;
 import in.reeltime.tool.network.vpc.VpcService;
 import in.reeltime.tool.notification.subscription.SubscriptionService;
 import in.reeltime.tool.notification.topic.TopicService;
+import in.reeltime.tool.plan.PlanService;
 import in.reeltime.tool.resource.ResourceService;
+import in.reeltime.tool.state.DeploymentState;
 import in.reeltime.tool.storage.StorageService;
 import in.reeltime.tool.storage.bucket.BucketService;
+import in.reeltime.tool.storage.object.DeltaUploadService;
+import in.reeltime.tool.storage.object.MultipartUploadService;
 import in.reeltime.tool.storage.object.ObjectService;
 import in.reeltime.tool.transcoder.TranscoderService;
 import in.reeltime.tool.transcoder.pipeline.PipelineService;
+import in.reeltime.tool.util.StateDirectoryUtil;
+import in.reeltime.tool.util.SystemPropertyUtil;
+
+import java.io.File;
 
 public class ServiceFactory {
 
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    private static final String UPLOAD_PART_SIZE_MB_PROPERTY = "reeltime.upload.partSizeMB";
+    private static final long DEFAULT_UPLOAD_PART_SIZE_MB = 16;
+
+    private static final String UPLOAD_PARALLELISM_PROPERTY = "reeltime.upload.parallelism";
+    private static final int DEFAULT_UPLOAD_PARALLELISM = 4;
+
+    private static final String UPLOAD_DELTA_PROPERTY = "reeltime.upload.delta";
+    private static final String DEFAULT_UPLOAD_DELTA = "true";
+
+    private static final String DATABASE_STANDBY_POOL_SIZE_PROPERTY = "reeltime.database.standbyPoolSize";
+    private static final int DEFAULT_DATABASE_STANDBY_POOL_SIZE = 0;
+
+    private static final String ROLLING_BATCH_SIZE_TYPE_PROPERTY = "reeltime.rolling.batchSizeType";
+    private static final String DEFAULT_ROLLING_BATCH_SIZE_TYPE = "Percentage";
+
+    private static final String ROLLING_BATCH_SIZE_PROPERTY = "reeltime.rolling.batchSize";
+    private static final int DEFAULT_ROLLING_BATCH_SIZE = 30;
+
+    private static final String STATE_ENABLED_PROPERTY = "reeltime.state.enabled";
+    private static final String DEFAULT_STATE_ENABLED = "true";
+
+    private static final String STATE_FILENAME_FORMAT = "state-%s.json";
+
+    private static final int HTTPS_PORT = 443;
+
     private final String environmentName;
     private final AwsClientFactory awsClientFactory;
+    private final ConditionalService conditionalService;
+    private final HostProbe hostProbe;
+    private final IpAddressService ipAddressService;
+    private final ResourceInventory inventory;
 
     public ServiceFactory(String environmentName, String awsAccessKey, String awsSecretKey) {
         this(environmentName, new AwsClientFactory(awsAccessKey, awsSecretKey));
     }
 
     public ServiceFactory(String environmentName, AwsClientFactory awsClientFactory) {
+        this(environmentName, awsClientFactory, new ConditionalService(), new SocketHostProbe(HTTPS_PORT),
+                new IpAddressService());
+    }
+
+    public ServiceFactory(String environmentName, AwsClientFactory awsClientFactory, ConditionalService conditionalService,
+                          HostProbe hostProbe, IpAddressService ipAddressService) {
         this.environmentName = environmentName;
         this.awsClientFactory = awsClientFactory;
+        this.conditionalService = conditionalService;
+        this.hostProbe = hostProbe;
+        this.ipAddressService = ipAddressService;
+        this.inventory = new ResourceInventory();
+    }
+
+    public void shutdown() {
+        conditionalService.shutdown();
+        awsClientFactory.shutdown();
+    }
+
+    public ApiMetrics apiMetrics() {
+        return awsClientFactory.getApiMetrics();
     }
 
     public NetworkService networkService() {
         AmazonEC2 ec2 = awsClientFactory.ec2();
         AmazonEC2NameService nameService = new AmazonEC2NameService(environmentName, ec2);
 
-        ConditionalService conditionalService = new ConditionalService();
-        VpcService vpcService = new VpcService(ec2);
+        Ec2DescribeService describeService = new Ec2DescribeService(ec2);
+        VpcService vpcService = new VpcService(ec2, describeService);
 
-        SubnetService subnetService = new SubnetService(ec2, conditionalService);
-        RouteService routeService = new RouteService(ec2);
+        SubnetService subnetService = new SubnetService(ec2, describeService, conditionalService);
+        RouteService routeService = new RouteService(ec2, describeService);
 
-        InternetGatewayService internetGatewayService = new InternetGatewayService(ec2);
-        NatGatewayService natGatewayService = new NatGatewayService(ec2, conditionalService);
+        InternetGatewayService internetGatewayService = new InternetGatewayService(ec2, describeService);
+        NatGatewayService natGatewayService = new NatGatewayService(ec2, describeService, conditionalService);
 
-        IpAddressService ipAddressService = new IpAddressService();
-        SecurityGroupService securityGroupService = new SecurityGroupService(ec2, ipAddressService);
+        SecurityGroupService securityGroupService = new SecurityGroupService(ec2, describeService, ipAddressService);
 
         return new NetworkService(nameService, vpcService, subnetService, routeService,
                 internetGatewayService, natGatewayService, securityGroupService);
@@ -85,19 +148,21 @@ public class ServiceFactory {
         AmazonRDS rds = awsClientFactory.rds();
 
         NameService nameService = new NameService(environmentName);
-        ConditionalService conditionalService = new ConditionalService();
 
         DatabaseSubnetGroupService databaseSubnetGroupService = new DatabaseSubnetGroupService(rds);
         DatabaseInstanceService databaseInstanceService = new DatabaseInstanceService(rds, conditionalService);
 
-        return new DatabaseService(nameService, databaseSubnetGroupService, databaseInstanceService);
+        int standbyPoolSize = SystemPropertyUtil.getIntSystemProperty(DATABASE_STANDBY_POOL_SIZE_PROPERTY, DEFAULT_DATABASE_STANDBY_POOL_SIZE);
+        StandbyPoolService standbyPoolService = new StandbyPoolService(databaseInstanceService, standbyPoolSize);
+
+        return new DatabaseService(nameService, databaseSubnetGroupService, databaseInstanceService, standbyPoolService);
     }
 
     public StorageService storageService() {
         AmazonS3 s3 = awsClientFactory.s3();
 
         NameService nameService = new NameService(environmentName);
-        BucketService bucketService = new BucketService(s3);
+        BucketService bucketService = new BucketService(s3, inventory);
 
         return new StorageService(nameService, bucketService);
     }
@@ -108,8 +173,8 @@ public class ServiceFactory {
 
         NameService nameService = new NameService(environmentName);
 
-        TopicService topicService = new TopicService(sns);
-        PipelineService pipelineService = new PipelineService(ets);
+        TopicService topicService = new TopicService(sns, inventory);
+        PipelineService pipelineService = new PipelineService(ets, inventory);
 
         return new TranscoderService(nameService, topicService, pipelineService);
     }
@@ -121,8 +186,8 @@ public class ServiceFactory {
         NameService nameService = new NameService(environmentName);
         ResourceService resourceService = new ResourceService();
 
-        RoleService roleService = new RoleService(iam, resourceService);
-        InstanceProfileService instanceProfileService = new InstanceProfileService(iam);
+        RoleService roleService = new RoleService(iam, resourceService, inventory);
+        InstanceProfileService instanceProfileService = new InstanceProfileService(iam, inventory);
 
         CertificateService certificateService = new CertificateService(acm);
 
@@ -138,14 +203,25 @@ public class ServiceFactory {
         AmazonS3 s3 = awsClientFactory.s3();
         AmazonSNS sns = awsClientFactory.sns();
 
-        ConditionalService conditionalService = new ConditionalService();
-        ObjectService objectService = new ObjectService(s3, conditionalService);
+        long partSizeMB = SystemPropertyUtil.getLongSystemProperty(UPLOAD_PART_SIZE_MB_PROPERTY, DEFAULT_UPLOAD_PART_SIZE_MB);
+        int parallelism = SystemPropertyUtil.getIntSystemProperty(UPLOAD_PARALLELISM_PROPERTY, DEFAULT_UPLOAD_PARALLELISM);
+
+        MultipartUploadService multipartUploadService = new MultipartUploadService(s3, partSizeMB * MEGABYTE, parallelism);
+        boolean deltaUpload = Boolean.parseBoolean(SystemPropertyUtil.getSystemProperty(UPLOAD_DELTA_PROPERTY, DEFAULT_UPLOAD_DELTA));
+
+        DeltaUploadService deltaUploadService = new DeltaUploadService(s3, multipartUploadService, deltaUpload);
+        ObjectService objectService = new ObjectService(s3, multipartUploadService, deltaUploadService, conditionalService);
 
         EnvironmentConfigurationService environmentConfigurationService = new EnvironmentConfigurationService();
-        EnvironmentService environmentService = new EnvironmentService(eb, environmentConfigurationService, conditionalService);
 
-        ApplicationService applicationService = new ApplicationService(eb);
-        ApplicationVersionService applicationVersionService = new ApplicationVersionService(eb, objectService);
+        String rollingBatchSizeType = SystemPropertyUtil.getSystemProperty(ROLLING_BATCH_SIZE_TYPE_PROPERTY, DEFAULT_ROLLING_BATCH_SIZE_TYPE);
+        int rollingBatchSize = SystemPropertyUtil.getIntSystemProperty(ROLLING_BATCH_SIZE_PROPERTY, DEFAULT_ROLLING_BATCH_SIZE);
+
+        EnvironmentService environmentService = new EnvironmentService(eb, environmentConfigurationService, conditionalService,
+                rollingBatchSizeType, rollingBatchSize);
+
+        ApplicationService applicationService = new ApplicationService(eb, inventory);
+        ApplicationVersionService applicationVersionService = new ApplicationVersionService(eb, inventory);
 
         SubscriptionService subscriptionService = new SubscriptionService(sns);
 
@@ -154,10 +230,21 @@ public class ServiceFactory {
 
         DNSService dnsService = new DNSService(hostedZoneService, recordService);
 
-        return new BeanstalkService(environmentService, applicationService, applicationVersionService, objectService, subscriptionService, dnsService, conditionalService);
+        return new BeanstalkService(environmentService, applicationService, applicationVersionService, objectService, subscriptionService, dnsService, conditionalService, hostProbe);
+    }
+
+    public PlanService planService() {
+        return new PlanService(networkService(), databaseService(), storageService(), accessService(), transcoderService(), beanstalkService());
     }
 
     public DeploymentService deploymentService() {
-        return new DeploymentService(networkService(), databaseService(), storageService(), accessService(), transcoderService(), beanstalkService());
+        return new DeploymentService(networkService(), databaseService(), storageService(), accessService(), transcoderService(), beanstalkService(), deploymentState());
+    }
+
+    private DeploymentState deploymentState() {
+        File stateFile = StateDirectoryUtil.getStateFile(String.format(STATE_FILENAME_FORMAT, environmentName));
+        boolean enabled = Boolean.parseBoolean(SystemPropertyUtil.getSystemProperty(STATE_ENABLED_PROPERTY, DEFAULT_STATE_ENABLED));
+
+        return new DeploymentState(stateFile, enabled);
     }
 }
@@ -0,0 +1,85 @@
+package in.reeltime.tool.inventory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.log.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class ResourceCache<K, V> {
+
+    private final String resourceType;
+    private final Supplier<Map<K, V>> loader;
+    private final Function<K, V> lookup;
+
+    private Map<K, V> resources;
+    private final Map<K, Optional<V>> lookedUp = Maps.newHashMap();
+
+    public ResourceCache(String resourceType, Supplier<Map<K, V>> loader) {
+        this(resourceType, loader, null);
+    }
+
+    public ResourceCache(String resourceType, Supplier<Map<K, V>> loader, Function<K, V> lookup) {
+        this.resourceType = resourceType;
+        this.loader = loader;
+        this.lookup = lookup;
+    }
+
+    public synchronized V get(K key) {
+        if (resources == null && lookup != null) {
+            return lookedUp.computeIfAbsent(key, this::lookup).orElse(null);
+        }
+        return getResources().get(key);
+    }
+
+    public synchronized boolean contains(K key) {
+        return get(key) != null;
+    }
+
+    public synchronized List<V> values() {
+        return ImmutableList.copyOf(getResources().values());
+    }
+
+    public synchronized V put(K key, V value) {
+        // Nothing to update until the first lookup loads the inventory, which will include the new value
+        if (resources != null) {
+            resources.put(key, value);
+        }
+        else if (lookup != null) {
+            lookedUp.put(key, Optional.of(value));
+        }
+        return value;
+    }
+
+    public synchronized void remove(K key) {
+        if (resources != null) {
+            resources.remove(key);
+        }
+        else if (lookup != null) {
+            lookedUp.put(key, Optional.empty());
+        }
+    }
+
+    public synchronized void invalidate() {
+        resources = null;
+        lookedUp.clear();
+    }
+
+    private Optional<V> lookup(K key) {
+        Logger.debug("Looking up [%s] in [%s]", key, resourceType);
+        return Optional.ofNullable(lookup.apply(key));
+    }
+
+    private Map<K, V> getResources() {
+        if (resources == null) {
+            Logger.debug("Loading inventory of [%s]", resourceType);
+            resources = Maps.newHashMap(loader.get());
+            lookedUp.clear();
+        }
+        return resources;
+    }
+}
@@ -0,0 +1,22 @@
+package in.reeltime.tool.inventory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class ResourceInventory {
+
+    private final ConcurrentMap<String, ResourceCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <K, V> ResourceCache<K, V> cache(String resourceType, Supplier<Map<K, V>> loader) {
+        return (ResourceCache<K, V>) caches.computeIfAbsent(resourceType, t -> new ResourceCache<>(t, loader));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> ResourceCache<K, V> cache(String resourceType, Supplier<Map<K, V>> loader, Function<K, V> lookup) {
+        return (ResourceCache<K, V>) caches.computeIfAbsent(resourceType, t -> new ResourceCache<>(t, loader, lookup));
+    }
+}
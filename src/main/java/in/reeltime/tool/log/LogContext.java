@@ -0,0 +1,58 @@
+package in.reeltime.tool.log;
+
+// The phase and resource a thread is working on, attached to the structured lines it logs.
+// Contexts nest; closing one restores the context that was current when it was opened.
+public class LogContext implements AutoCloseable {
+
+    private static final ThreadLocal<LogContext> CURRENT = new ThreadLocal<>();
+
+    private final String phase;
+    private final String resource;
+    private final LogContext previous;
+
+    private LogContext(String phase, String resource, LogContext previous) {
+        this.phase = phase;
+        this.resource = resource;
+        this.previous = previous;
+    }
+
+    public static LogContext phase(String phase) {
+        LogContext current = CURRENT.get();
+        return open(phase, current != null ? current.resource : null, current);
+    }
+
+    public static LogContext resource(String resource) {
+        LogContext current = CURRENT.get();
+        return open(current != null ? current.phase : null, resource, current);
+    }
+
+    static String getPhase() {
+        LogContext current = CURRENT.get();
+        return current != null ? current.phase : null;
+    }
+
+    static String getResource() {
+        LogContext current = CURRENT.get();
+        return current != null ? current.resource : null;
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() != this) {
+            return;
+        }
+
+        if (previous != null) {
+            CURRENT.set(previous);
+        }
+        else {
+            CURRENT.remove();
+        }
+    }
+
+    private static LogContext open(String phase, String resource, LogContext previous) {
+        LogContext context = new LogContext(phase, resource, previous);
+        CURRENT.set(context);
+        return context;
+    }
+}
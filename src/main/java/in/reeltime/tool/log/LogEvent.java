@@ -0,0 +1,18 @@
+package in.reeltime.tool.log;
+
+// A slot in the ring buffer, reused for every event that lands in it
+class LogEvent {
+    LogLevel level;
+    long timestamp;
+    String threadName;
+    String phase;
+    String resource;
+    String message;
+
+    void clear() {
+        threadName = null;
+        phase = null;
+        resource = null;
+        message = null;
+    }
+}
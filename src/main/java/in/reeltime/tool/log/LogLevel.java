@@ -0,0 +1,17 @@
+package in.reeltime.tool.log;
+
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR;
+
+    public static LogLevel fromPropertyValue(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package in.reeltime.tool.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// A bounded queue of preallocated events for many producers and a single consumer. A producer claims a
+// sequence with one atomic increment, fills the slot it maps to and publishes it; the consumer reads the
+// sequences back in order. A producer that laps the consumer waits for room rather than dropping lines.
+class LogRingBuffer {
+
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final LogEvent[] events;
+    private final int mask;
+
+    // Holds the sequence last published in each slot, so the consumer can tell a filled slot from a stale one
+    private final AtomicLongArray published;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+
+    LogRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+
+        this.events = new LogEvent[size];
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+
+        for (int i = 0; i < size; i++) {
+            events[i] = new LogEvent();
+            published.set(i, -1);
+        }
+    }
+
+    long claim() {
+        long sequence = claimed.getAndIncrement();
+
+        while (sequence - consumed.get() >= events.length) {
+            LockSupport.parkNanos(FULL_WAIT_NANOS);
+        }
+        return sequence;
+    }
+
+    LogEvent get(long sequence) {
+        return events[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+    }
+
+    // Hands every published event to the handler in order and frees its slot, stopping at the first gap
+    int drain(Consumer<LogEvent> handler) {
+        int count = 0;
+        long next = consumed.get();
+
+        while (published.get((int) next & mask) == next) {
+            LogEvent event = events[(int) next & mask];
+
+            handler.accept(event);
+            event.clear();
+
+            consumed.set(++next);
+            count++;
+        }
+        return count;
+    }
+
+    long getClaimed() {
+        return claimed.get();
+    }
+
+    long getConsumed() {
+        return consumed.get();
+    }
+}
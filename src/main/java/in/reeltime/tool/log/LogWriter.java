@@ -0,0 +1,157 @@
+package in.reeltime.tool.log;
+
+import java.io.PrintStream;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Drains the ring buffer on a single thread, formatting each batch of events into one write
+class LogWriter implements Runnable {
+
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Batches are rebuilt in a fresh buffer if a burst of output has grown the reused one past this
+    private static final int MAX_RETAINED_BATCH_CHARS = 1 << 20;
+
+    private static final String TEXT_TIMESTAMP_PATTERN = "EEE MMM d yyyy HH:mm:ss";
+    private static final String JSON_TIMESTAMP_PATTERN = "yyyy-MM-dd'T'HH:mm:ss";
+
+    private final LogRingBuffer buffer;
+    private final PrintStream out;
+    private final boolean json;
+
+    private final TimestampFormatter timestampFormatter;
+    private final Consumer<LogEvent> append = this::append;
+
+    private StringBuilder batch = new StringBuilder();
+
+    // Sequences before this one have reached the output stream
+    private volatile long written = 0;
+
+    LogWriter(LogRingBuffer buffer, PrintStream out, boolean json) {
+        this.buffer = buffer;
+        this.out = out;
+        this.json = json;
+        this.timestampFormatter = json ?
+                new TimestampFormatter(JSON_TIMESTAMP_PATTERN, ZoneOffset.UTC) :
+                new TimestampFormatter(TEXT_TIMESTAMP_PATTERN, ZoneId.systemDefault());
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (!writeBatch()) {
+                LockSupport.parkNanos(IDLE_WAIT_NANOS);
+            }
+        }
+    }
+
+    long getWritten() {
+        return written;
+    }
+
+    private boolean writeBatch() {
+        try {
+            if (buffer.drain(append) == 0) {
+                return false;
+            }
+
+            out.print(batch);
+            out.flush();
+        }
+        catch (RuntimeException e) {
+            // Nothing is left to report a failure to, but the events must still be released
+            e.printStackTrace();
+        }
+        finally {
+            batch = batch.capacity() > MAX_RETAINED_BATCH_CHARS ? new StringBuilder() : batch;
+            batch.setLength(0);
+            written = buffer.getConsumed();
+        }
+        return true;
+    }
+
+    private void append(LogEvent event) {
+        if (json) {
+            appendJson(event);
+        }
+        else {
+            appendText(event);
+        }
+        batch.append(System.lineSeparator());
+    }
+
+    // [LEVEL] - [timestamp] message
+    private void appendText(LogEvent event) {
+        batch.append('[').append(event.level).append("] - [");
+        timestampFormatter.appendTo(batch, event.timestamp);
+        batch.append("] ").append(event.message);
+    }
+
+    private void appendJson(LogEvent event) {
+        batch.append("{\"timestamp\":\"");
+        timestampFormatter.appendTo(batch, event.timestamp);
+        appendMillis(event.timestamp);
+        batch.append("Z\",\"level\":\"").append(event.level).append('"');
+
+        appendJsonField("thread", event.threadName);
+        appendJsonField("phase", event.phase);
+        appendJsonField("resource", event.resource);
+        appendJsonField("message", event.message);
+
+        batch.append('}');
+    }
+
+    private void appendMillis(long timestamp) {
+        int millis = (int) Math.floorMod(timestamp, 1000L);
+
+        batch.append('.');
+        if (millis < 100) {
+            batch.append('0');
+        }
+        if (millis < 10) {
+            batch.append('0');
+        }
+        batch.append(millis);
+    }
+
+    private void appendJsonField(String name, String value) {
+        if (value == null) {
+            return;
+        }
+
+        batch.append(",\"").append(name).append("\":\"");
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    batch.append("\\\"");
+                    break;
+                case '\\':
+                    batch.append("\\\\");
+                    break;
+                case '\n':
+                    batch.append("\\n");
+                    break;
+                case '\r':
+                    batch.append("\\r");
+                    break;
+                case '\t':
+                    batch.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        batch.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        batch.append(c);
+                    }
+            }
+        }
+        batch.append('"');
+    }
+}
@@ -1,54 +1,115 @@
 package in.reeltime.tool.log;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import in.reeltime.tool.util.SystemPropertyUtil;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Lines below the configured level are dropped before their message is formatted. The rest are handed
+// to a ring buffer and written by a single thread, so logging never blocks on the console and lines
+// from concurrent tasks never interleave.
 public class Logger {
 
-    private static final String LOG_FORMAT = "[%s] - [%s] %s";
+    private static final String LEVEL_PROPERTY = "reeltime.log.level";
+    private static final String DEFAULT_LEVEL = "info";
+
+    private static final String FORMAT_PROPERTY = "reeltime.log.format";
+    private static final String DEFAULT_FORMAT = "text";
+    private static final String JSON_FORMAT = "json";
+
+    private static final String BUFFER_SIZE_PROPERTY = "reeltime.log.bufferSize";
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final long FLUSH_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final LogLevel LEVEL = LogLevel.fromPropertyValue(
+            SystemPropertyUtil.getSystemProperty(LEVEL_PROPERTY, DEFAULT_LEVEL));
+
+    private static final LogRingBuffer BUFFER = new LogRingBuffer(
+            SystemPropertyUtil.getIntSystemProperty(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE));
+
+    private static final LogWriter WRITER = new LogWriter(BUFFER, System.out,
+            JSON_FORMAT.equalsIgnoreCase(SystemPropertyUtil.getSystemProperty(FORMAT_PROPERTY, DEFAULT_FORMAT)));
+
+    private static final Thread WRITER_THREAD = new Thread(WRITER, "log-writer");
+
+    static {
+        WRITER_THREAD.setDaemon(true);
+        WRITER_THREAD.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(Logger::flush, "log-flush"));
+    }
 
     private Logger() { }
 
+    public static boolean isDebugEnabled() {
+        return isEnabled(LogLevel.DEBUG);
+    }
+
     public static void debug(String message) {
-        log("DEBUG", message);
+        log(LogLevel.DEBUG, message);
     }
 
     public static void debug(String format, Object... args) {
-        String message = String.format(format, args);
-        log("DEBUG", message);
+        log(LogLevel.DEBUG, format, args);
     }
 
     public static void info(String message) {
-        log("INFO", message);
+        log(LogLevel.INFO, message);
     }
 
     public static void info(String format, Object...args) {
-        String message = String.format(format, args);
-        log("INFO", message);
+        log(LogLevel.INFO, format, args);
     }
 
     public static void warn(String message) {
-        log("WARN", message);
+        log(LogLevel.WARN, message);
     }
 
     public static void warn(String format, Object...args) {
-        String message = String.format(format, args);
-        log("WARN", message);
+        log(LogLevel.WARN, format, args);
     }
 
     public static void error(String message) {
-        log("ERROR", message);
+        log(LogLevel.ERROR, message);
+    }
+
+    // Waits until everything logged so far has been written, e.g. before printing to the console directly
+    public static void flush() {
+        long target = BUFFER.getClaimed();
+
+        while (WRITER.getWritten() < target && WRITER_THREAD.isAlive()) {
+            LockSupport.parkNanos(FLUSH_WAIT_NANOS);
+        }
     }
 
-    private static void log(String level, String message) {
-        String timestamp = getCurrentTime();
-        String text = String.format(LOG_FORMAT, level, timestamp, message);
-        System.out.println(text);
+    private static boolean isEnabled(LogLevel level) {
+        return level.compareTo(LEVEL) >= 0;
     }
 
-    private static String getCurrentTime() {
-        DateFormat dateFormat = new SimpleDateFormat("EEE MMM d yyyy HH:mm:ss");
-        return dateFormat.format(new Date());
+    private static void log(LogLevel level, String format, Object... args) {
+        if (isEnabled(level)) {
+            enqueue(level, String.format(format, args));
+        }
+    }
+
+    private static void log(LogLevel level, String message) {
+        if (isEnabled(level)) {
+            enqueue(level, message);
+        }
+    }
+
+    private static void enqueue(LogLevel level, String message) {
+        long sequence = BUFFER.claim();
+        LogEvent event = BUFFER.get(sequence);
+
+        event.level = level;
+        event.timestamp = System.currentTimeMillis();
+        event.threadName = Thread.currentThread().getName();
+        event.phase = LogContext.getPhase();
+        event.resource = LogContext.getResource();
+        event.message = message;
+
+        BUFFER.publish(sequence);
     }
 }
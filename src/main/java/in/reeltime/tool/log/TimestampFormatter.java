@@ -0,0 +1,38 @@
+package in.reeltime.tool.log;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+// Formats timestamps to the second, reformatting only when the second changes. Safe to share between threads.
+class TimestampFormatter {
+
+    private final DateTimeFormatter formatter;
+
+    private volatile CachedSecond cached = new CachedSecond(Long.MIN_VALUE, "");
+
+    TimestampFormatter(String pattern, ZoneId zone) {
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(zone);
+    }
+
+    void appendTo(StringBuilder sb, long timestamp) {
+        long epochSecond = Math.floorDiv(timestamp, 1000);
+        CachedSecond second = cached;
+
+        if (second.epochSecond != epochSecond) {
+            second = new CachedSecond(epochSecond, formatter.format(Instant.ofEpochSecond(epochSecond)));
+            cached = second;
+        }
+        sb.append(second.text);
+    }
+
+    private static class CachedSecond {
+        private final long epochSecond;
+        private final String text;
+
+        private CachedSecond(long epochSecond, String text) {
+            this.epochSecond = epochSecond;
+            this.text = text;
+        }
+    }
+}
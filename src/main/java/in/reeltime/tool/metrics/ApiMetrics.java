@@ -0,0 +1,161 @@
+package in.reeltime.tool.metrics;
+
+import com.google.common.base.Strings;
+import in.reeltime.tool.log.Logger;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Per-service, per-operation counters and latency histograms for the AWS API calls made in a run
+public class ApiMetrics {
+
+    private static final String OPERATION_KEY_FORMAT = "%s:%s";
+
+    private static final String HEADER_FORMAT = "%-46s %6s %7s %9s %6s %12s %8s %8s %8s %8s%n";
+    private static final String ROW_FORMAT = "%-46s %6d %7d %9d %6d %12d %8.1f %8.1f %8.1f %8.1f%n";
+    private static final String TOTAL_FORMAT = "%-46s %6d %7d %9d %6d %12d%n";
+
+    private static final String METRIC_PREFIX = "reeltime_aws_api_";
+
+    // Upper bounds of the exported latency buckets, in seconds
+    private static final double[] LATENCY_BUCKETS = { 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60 };
+
+    private final ConcurrentMap<String, ConcurrentMap<String, OperationMetrics>> services = new ConcurrentHashMap<>();
+
+    public void record(String serviceName, String operation, long latencyMicros, long retries, long throttles,
+                       long bytes, boolean failed) {
+        OperationMetrics metrics = services.computeIfAbsent(serviceName, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operation, k -> new OperationMetrics());
+
+        metrics.calls.increment();
+        metrics.retries.add(retries);
+        metrics.throttles.add(throttles);
+        metrics.bytes.add(bytes);
+
+        if (failed) {
+            metrics.errors.increment();
+        }
+        metrics.latency.record(latencyMicros);
+    }
+
+    public long getCallCount() {
+        return snapshot().values().stream()
+                .mapToLong(m -> m.calls.sum())
+                .sum();
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(HEADER_FORMAT, "Operation", "Calls", "Retries", "Throttled", "Errors", "Bytes",
+                "p50 ms", "p90 ms", "p99 ms", "Max ms"));
+
+        long calls = 0;
+        long retries = 0;
+        long throttles = 0;
+        long errors = 0;
+        long bytes = 0;
+
+        for (Map.Entry<String, OperationMetrics> entry : snapshot().entrySet()) {
+            OperationMetrics metrics = entry.getValue();
+            LatencyHistogram latency = metrics.latency;
+
+            calls += metrics.calls.sum();
+            retries += metrics.retries.sum();
+            throttles += metrics.throttles.sum();
+            errors += metrics.errors.sum();
+            bytes += metrics.bytes.sum();
+
+            sb.append(String.format(ROW_FORMAT, entry.getKey(), metrics.calls.sum(), metrics.retries.sum(),
+                    metrics.throttles.sum(), metrics.errors.sum(), metrics.bytes.sum(),
+                    toMillis(latency.getValueAtPercentile(0.5)), toMillis(latency.getValueAtPercentile(0.9)),
+                    toMillis(latency.getValueAtPercentile(0.99)), toMillis(latency.getMax())));
+        }
+
+        sb.append(Strings.repeat("-", 127)).append(System.lineSeparator());
+        sb.append(String.format(TOTAL_FORMAT, "Total", calls, retries, throttles, errors, bytes));
+
+        return sb.toString();
+    }
+
+    // Writes the metrics in the Prometheus text exposition format, e.g. for the node exporter's textfile collector
+    public void writePrometheus(File file) {
+        SortedMap<String, OperationMetrics> snapshot = snapshot();
+
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writeCounter(writer, snapshot, "calls_total", "AWS API calls made.", m -> m.calls);
+            writeCounter(writer, snapshot, "retries_total", "Retried attempts of AWS API calls.", m -> m.retries);
+            writeCounter(writer, snapshot, "throttles_total", "Throttling errors returned by AWS APIs.", m -> m.throttles);
+            writeCounter(writer, snapshot, "errors_total", "AWS API calls that failed after retries.", m -> m.errors);
+            writeCounter(writer, snapshot, "bytes_total", "Bytes transferred by AWS API calls.", m -> m.bytes);
+
+            String name = METRIC_PREFIX + "latency_seconds";
+            writer.printf("# HELP %s Latency of AWS API calls, including retries.%n", name);
+            writer.printf("# TYPE %s histogram%n", name);
+
+            for (Map.Entry<String, OperationMetrics> entry : snapshot.entrySet()) {
+                String labels = getLabels(entry.getKey());
+                LatencyHistogram latency = entry.getValue().latency;
+
+                for (double bucket : LATENCY_BUCKETS) {
+                    long micros = (long) (bucket * TimeUnit.SECONDS.toMicros(1));
+                    writer.printf("%s_bucket{%s,le=\"%s\"} %d%n", name, labels, bucket, latency.getCountAtOrBelow(micros));
+                }
+
+                writer.printf("%s_bucket{%s,le=\"+Inf\"} %d%n", name, labels, latency.getCount());
+                writer.printf("%s_sum{%s} %s%n", name, labels, latency.getSum() / (double) TimeUnit.SECONDS.toMicros(1));
+                writer.printf("%s_count{%s} %d%n", name, labels, latency.getCount());
+            }
+
+            Logger.info("Wrote AWS API metrics to [%s]", file.getPath());
+        }
+        catch (FileNotFoundException e) {
+            Logger.warn("Failed to write AWS API metrics [%s]: %s", file.getPath(), e.getMessage());
+        }
+    }
+
+    private void writeCounter(PrintWriter writer, SortedMap<String, OperationMetrics> snapshot, String suffix,
+                              String help, Function<OperationMetrics, LongAdder> counter) {
+        String name = METRIC_PREFIX + suffix;
+        writer.printf("# HELP %s %s%n", name, help);
+        writer.printf("# TYPE %s counter%n", name);
+
+        snapshot.forEach((key, metrics) ->
+                writer.printf("%s{%s} %d%n", name, getLabels(key), counter.apply(metrics).sum()));
+    }
+
+    private SortedMap<String, OperationMetrics> snapshot() {
+        SortedMap<String, OperationMetrics> snapshot = new TreeMap<>();
+
+        services.forEach((serviceName, operations) -> operations.forEach((operation, metrics) ->
+                snapshot.put(String.format(OPERATION_KEY_FORMAT, serviceName, operation), metrics)));
+
+        return snapshot;
+    }
+
+    private static String getLabels(String key) {
+        int separator = key.indexOf(':');
+        return String.format("service=\"%s\",operation=\"%s\"", key.substring(0, separator), key.substring(separator + 1));
+    }
+
+    private static double toMillis(long micros) {
+        return micros / (double) TimeUnit.MILLISECONDS.toMicros(1);
+    }
+
+    private static class OperationMetrics {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder throttles = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,97 @@
+package in.reeltime.tool.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// A log-linear histogram in the style of HdrHistogram. Each power of two is split into a fixed number
+// of linear sub-buckets, so any value is reported to within about 3% while the buckets for microseconds
+// up to days fit in one preallocated array. Recording only increments counters and never allocates.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketIndex(MAX_VALUE) + 1);
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void record(long value) {
+        long clamped = Math.max(0, Math.min(value, MAX_VALUE));
+
+        counts.incrementAndGet(bucketIndex(clamped));
+        count.increment();
+        sum.add(clamped);
+        max.accumulate(clamped);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // The highest value equivalent to the one below which the given fraction of recorded values fall
+    public long getValueAtPercentile(double percentile) {
+        long total = getCount();
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile * total));
+        long running = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            running += counts.get(i);
+
+            if (running >= target) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    // Counts the values whose whole bucket lies at or below the given value
+    public long getCountAtOrBelow(long value) {
+        long total = 0;
+
+        for (int i = 0; i < counts.length() && highestEquivalentValue(i) <= value; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+
+        return ((long) (SUB_BUCKET_COUNT + subBucket) << shift) + (1L << shift) - 1;
+    }
+}
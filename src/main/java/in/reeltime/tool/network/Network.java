@@ -1,5 +1,8 @@
 package in.reeltime.tool.network;
 
+import com.amazonaws.services.ec2.model.InternetGateway;
+import com.amazonaws.services.ec2.model.NatGateway;
+import com.amazonaws.services.ec2.model.RouteTable;
 import com.amazonaws.services.ec2.model.SecurityGroup;
 import com.amazonaws.services.ec2.model.Subnet;
 import com.amazonaws.services.ec2.model.Vpc;
@@ -21,6 +24,13 @@ public class Network {
     private final List<Subnet> loadBalancerSubnets;
     private final SecurityGroup loadBalancerSecurityGroup;
 
+    private final RouteTable publicRouteTable;
+    private final RouteTable applicationRouteTable;
+    private final RouteTable databaseRouteTable;
+
+    private final InternetGateway internetGateway;
+    private final NatGateway natGateway;
+
     private Network(Builder builder) {
         this.vpc = builder.vpc;
 
@@ -32,6 +42,13 @@ public class Network {
 
         this.loadBalancerSubnets = ImmutableList.copyOf(builder.loadBalancerSubnets);
         this.loadBalancerSecurityGroup = builder.loadBalancerSecurityGroup;
+
+        this.publicRouteTable = builder.publicRouteTable;
+        this.applicationRouteTable = builder.applicationRouteTable;
+        this.databaseRouteTable = builder.databaseRouteTable;
+
+        this.internetGateway = builder.internetGateway;
+        this.natGateway = builder.natGateway;
     }
 
     public Vpc getVpc() {
@@ -62,6 +79,26 @@ public class Network {
         return loadBalancerSecurityGroup;
     }
 
+    public RouteTable getPublicRouteTable() {
+        return publicRouteTable;
+    }
+
+    public RouteTable getApplicationRouteTable() {
+        return applicationRouteTable;
+    }
+
+    public RouteTable getDatabaseRouteTable() {
+        return databaseRouteTable;
+    }
+
+    public InternetGateway getInternetGateway() {
+        return internetGateway;
+    }
+
+    public NatGateway getNatGateway() {
+        return natGateway;
+    }
+
     public static class Builder {
         private Vpc vpc;
 
@@ -74,6 +111,13 @@ public class Network {
         private List<Subnet> loadBalancerSubnets;
         private SecurityGroup loadBalancerSecurityGroup;
 
+        private RouteTable publicRouteTable;
+        private RouteTable applicationRouteTable;
+        private RouteTable databaseRouteTable;
+
+        private InternetGateway internetGateway;
+        private NatGateway natGateway;
+
         private List<SecurityGroup> amazonServicesSecurityGroups;
 
         public Builder() {
@@ -117,6 +161,31 @@ public class Network {
             return this;
         }
 
+        Builder withPublicRouteTable(RouteTable routeTable) {
+            publicRouteTable = routeTable;
+            return this;
+        }
+
+        Builder withApplicationRouteTable(RouteTable routeTable) {
+            applicationRouteTable = routeTable;
+            return this;
+        }
+
+        Builder withDatabaseRouteTable(RouteTable routeTable) {
+            databaseRouteTable = routeTable;
+            return this;
+        }
+
+        Builder withInternetGateway(InternetGateway internetGateway) {
+            this.internetGateway = internetGateway;
+            return this;
+        }
+
+        Builder withNatGateway(NatGateway natGateway) {
+            this.natGateway = natGateway;
+            return this;
+        }
+
         Network build() {
             return new Network(this);
         }
@@ -1,6 +1,13 @@
 package in.reeltime.tool.network;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.ec2.model.*;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import in.reeltime.tool.condition.WaitPolicy;
 import in.reeltime.tool.log.Logger;
 import in.reeltime.tool.name.AmazonEC2NameService;
 import in.reeltime.tool.network.gateway.InternetGatewayService;
@@ -9,11 +16,84 @@ import in.reeltime.tool.network.route.RouteService;
 import in.reeltime.tool.network.security.SecurityGroupService;
 import in.reeltime.tool.network.subnet.SubnetService;
 import in.reeltime.tool.network.vpc.VpcService;
+import in.reeltime.tool.plan.ResourceChange;
+import in.reeltime.tool.task.TaskGraph;
+import in.reeltime.tool.task.TaskKey;
+import in.reeltime.tool.task.TaskResults;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class NetworkService {
 
+    private static final int MAX_CONCURRENT_SETUP_TASKS = 8;
+    private static final int MAX_CONCURRENT_TEAR_DOWN_TASKS = 6;
+
+    private static final String DEPENDENCY_VIOLATION_ERROR_CODE = "DependencyViolation";
+
+    private static final WaitPolicy DEPENDENCY_RETRY_POLICY = new WaitPolicy.Builder()
+            .withInitialDelay(2, TimeUnit.SECONDS)
+            .withMaxDelay(30, TimeUnit.SECONDS)
+            .withDeadline(10, TimeUnit.MINUTES)
+            .build();
+
+    private static final String VPC_STATE_KEY = "vpc";
+    private static final String APPLICATION_SUBNETS_STATE_KEY = "applicationSubnets";
+    private static final String DATABASE_SUBNETS_STATE_KEY = "databaseSubnets";
+    private static final String LOAD_BALANCER_SUBNETS_STATE_KEY = "loadBalancerSubnets";
+    private static final String APPLICATION_SECURITY_GROUP_STATE_KEY = "applicationSecurityGroup";
+    private static final String DATABASE_SECURITY_GROUP_STATE_KEY = "databaseSecurityGroup";
+    private static final String LOAD_BALANCER_SECURITY_GROUP_STATE_KEY = "loadBalancerSecurityGroup";
+    private static final String PUBLIC_ROUTE_TABLE_STATE_KEY = "publicRouteTable";
+    private static final String APPLICATION_ROUTE_TABLE_STATE_KEY = "applicationRouteTable";
+    private static final String DATABASE_ROUTE_TABLE_STATE_KEY = "databaseRouteTable";
+    private static final String INTERNET_GATEWAY_STATE_KEY = "internetGateway";
+    private static final String NAT_GATEWAY_STATE_KEY = "natGateway";
+
+    private static final List<String> STATE_KEYS = ImmutableList.of(VPC_STATE_KEY, APPLICATION_SUBNETS_STATE_KEY,
+            DATABASE_SUBNETS_STATE_KEY, LOAD_BALANCER_SUBNETS_STATE_KEY, APPLICATION_SECURITY_GROUP_STATE_KEY,
+            DATABASE_SECURITY_GROUP_STATE_KEY, LOAD_BALANCER_SECURITY_GROUP_STATE_KEY, PUBLIC_ROUTE_TABLE_STATE_KEY,
+            APPLICATION_ROUTE_TABLE_STATE_KEY, DATABASE_ROUTE_TABLE_STATE_KEY, INTERNET_GATEWAY_STATE_KEY,
+            NAT_GATEWAY_STATE_KEY);
+
+    private static final String DEFAULT_ROUTE_CIDR_BLOCK = "0.0.0.0/0";
+
+    private static final List<String> ROUTE_TABLE_NAME_SUFFIXES = ImmutableList.of("public", "application", "database");
+    private static final List<String> SUBNET_NAME_SUFFIXES = ImmutableList.of("public", "application", "database-1", "database-2");
+    private static final List<String> SECURITY_GROUP_NAME_SUFFIXES = ImmutableList.of("load-balancer", "application", "database");
+
+    private static final TaskKey<RouteTable> PUBLIC_ROUTE_TABLE = TaskKey.of("PublicRouteTable", RouteTable.class);
+    private static final TaskKey<RouteTable> APPLICATION_ROUTE_TABLE = TaskKey.of("ApplicationRouteTable", RouteTable.class);
+    private static final TaskKey<RouteTable> DATABASE_ROUTE_TABLE = TaskKey.of("DatabaseRouteTable", RouteTable.class);
+    private static final TaskKey<Subnet> PUBLIC_SUBNET = TaskKey.of("PublicSubnet", Subnet.class);
+    private static final TaskKey<Subnet> APPLICATION_SUBNET = TaskKey.of("ApplicationSubnet", Subnet.class);
+    private static final TaskKey<Subnet> DATABASE_SUBNET_1 = TaskKey.of("DatabaseSubnet1", Subnet.class);
+    private static final TaskKey<Subnet> DATABASE_SUBNET_2 = TaskKey.of("DatabaseSubnet2", Subnet.class);
+    private static final TaskKey<InternetGateway> INTERNET_GATEWAY = TaskKey.of("InternetGateway", InternetGateway.class);
+    private static final TaskKey<NatGateway> NAT_GATEWAY = TaskKey.of("NatGateway", NatGateway.class);
+    private static final TaskKey<Void> PUBLIC_ROUTES = TaskKey.of("PublicRoutes", Void.class);
+    private static final TaskKey<Void> APPLICATION_ROUTES = TaskKey.of("ApplicationRoutes", Void.class);
+    private static final TaskKey<Void> APPLICATION_NAT_ROUTE = TaskKey.of("ApplicationNatRoute", Void.class);
+    private static final TaskKey<Void> DATABASE_ROUTES = TaskKey.of("DatabaseRoutes", Void.class);
+    private static final TaskKey<SecurityGroup> LOAD_BALANCER_SECURITY_GROUP = TaskKey.of("LoadBalancerSecurityGroup", SecurityGroup.class);
+    private static final TaskKey<SecurityGroup> APPLICATION_SECURITY_GROUP = TaskKey.of("ApplicationSecurityGroup", SecurityGroup.class);
+    private static final TaskKey<SecurityGroup> DATABASE_SECURITY_GROUP = TaskKey.of("DatabaseSecurityGroup", SecurityGroup.class);
+
+    private static final TaskKey<Void> DATABASE_SECURITY_GROUP_TEAR_DOWN = TaskKey.of("DatabaseSecurityGroupTearDown", Void.class);
+    private static final TaskKey<Void> APPLICATION_SECURITY_GROUP_TEAR_DOWN = TaskKey.of("ApplicationSecurityGroupTearDown", Void.class);
+    private static final TaskKey<Void> LOAD_BALANCER_SECURITY_GROUP_TEAR_DOWN = TaskKey.of("LoadBalancerSecurityGroupTearDown", Void.class);
+    private static final TaskKey<Void> DATABASE_TIER_TEAR_DOWN = TaskKey.of("DatabaseTierTearDown", Void.class);
+    private static final TaskKey<Void> APPLICATION_TIER_TEAR_DOWN = TaskKey.of("ApplicationTierTearDown", Void.class);
+    private static final TaskKey<Void> NAT_GATEWAY_TEAR_DOWN = TaskKey.of("NatGatewayTearDown", Void.class);
+    private static final TaskKey<Void> INTERNET_GATEWAY_TEAR_DOWN = TaskKey.of("InternetGatewayTearDown", Void.class);
+    private static final TaskKey<Void> PUBLIC_TIER_TEAR_DOWN = TaskKey.of("PublicTierTearDown", Void.class);
+    private static final TaskKey<Void> VPC_TEAR_DOWN = TaskKey.of("VpcTearDown", Void.class);
+
     private final AmazonEC2NameService nameService;
 
     private final VpcService vpcService;
@@ -50,117 +130,331 @@ public class NetworkService {
 
         Vpc vpc = createVpc("10.0.0.0/16");
 
-        RouteTable publicRouteTable = createRouteTable(vpc, "public");
+        // Everything hangs off the vpc; tasks only join where AWS needs one resource to exist before another.
+        // Each task names what it creates straight away rather than after slow tasks like the NAT gateway wait.
+        TaskGraph graph = new TaskGraph.Builder()
+                .add(PUBLIC_ROUTE_TABLE, results -> createRouteTable(vpc, "public"))
+                .add(APPLICATION_ROUTE_TABLE, results -> createRouteTable(vpc, "application"))
+                .add(DATABASE_ROUTE_TABLE, results -> createRouteTable(vpc, "database"))
+                .add(PUBLIC_SUBNET, results -> createSubnet(vpc, zone1, "10.0.0.0/24", "public"))
+                .add(APPLICATION_SUBNET, results -> createSubnet(vpc, zone1, "10.0.20.0/24", "application"))
+                .add(DATABASE_SUBNET_1, results -> createSubnet(vpc, zone1, "10.0.30.0/24", "database-1"))
+                .add(DATABASE_SUBNET_2, results -> createSubnet(vpc, zone2, "10.0.31.0/24", "database-2"))
+                .add(INTERNET_GATEWAY, results -> internetGatewayService.addInternetGateway(vpc))
+                .add(PUBLIC_ROUTES, results -> {
+                    RouteTable publicRouteTable = results.get(PUBLIC_ROUTE_TABLE);
+                    String internetGatewayId = results.get(INTERNET_GATEWAY).getInternetGatewayId();
+
+                    associateRouteTableWithSubnet(publicRouteTable, results.get(PUBLIC_SUBNET));
+                    routeService.addInternetGatewayRoute(publicRouteTable, DEFAULT_ROUTE_CIDR_BLOCK, internetGatewayId);
+                    return null;
+                }, PUBLIC_ROUTE_TABLE, PUBLIC_SUBNET, INTERNET_GATEWAY)
+                // A NAT gateway can only be created once the vpc has an internet gateway attached
+                .add(NAT_GATEWAY, results -> natGatewayService.addNatGateway(results.get(PUBLIC_SUBNET)),
+                        PUBLIC_SUBNET, INTERNET_GATEWAY)
+                .add(APPLICATION_ROUTES, results -> {
+                    RouteTable applicationRouteTable = results.get(APPLICATION_ROUTE_TABLE);
+                    associateRouteTableWithSubnet(applicationRouteTable, results.get(APPLICATION_SUBNET));
+                    return null;
+                }, APPLICATION_ROUTE_TABLE, APPLICATION_SUBNET)
+                .add(APPLICATION_NAT_ROUTE, results -> {
+                    String natGatewayId = results.get(NAT_GATEWAY).getNatGatewayId();
+                    routeService.addNatGatewayRoute(results.get(APPLICATION_ROUTE_TABLE), DEFAULT_ROUTE_CIDR_BLOCK, natGatewayId);
+                    return null;
+                }, APPLICATION_ROUTE_TABLE, NAT_GATEWAY)
+                .add(DATABASE_ROUTES, results -> {
+                    RouteTable databaseRouteTable = results.get(DATABASE_ROUTE_TABLE);
+
+                    associateRouteTableWithSubnet(databaseRouteTable, results.get(DATABASE_SUBNET_1));
+                    associateRouteTableWithSubnet(databaseRouteTable, results.get(DATABASE_SUBNET_2));
+                    return null;
+                }, DATABASE_ROUTE_TABLE, DATABASE_SUBNET_1, DATABASE_SUBNET_2)
+                .add(LOAD_BALANCER_SECURITY_GROUP, results -> {
+                    SecurityGroup loadBalancerSecurityGroup = createSecurityGroup(vpc, "load-balancer");
+                    return securityGroupService.addIngressRule(loadBalancerSecurityGroup, "0.0.0.0/0", "tcp", 443);
+                })
+                .add(APPLICATION_SECURITY_GROUP, results -> createSecurityGroup(vpc, "application"))
+                .add(DATABASE_SECURITY_GROUP, results -> {
+                    SecurityGroup databaseSecurityGroup = createSecurityGroup(vpc, "database");
+
+                    databaseSecurityGroup = securityGroupService.addIngressRule(databaseSecurityGroup,
+                            results.get(APPLICATION_SECURITY_GROUP), "tcp", 3306);
+                    return securityGroupService.revokeAllEgressRules(databaseSecurityGroup);
+                }, APPLICATION_SECURITY_GROUP)
+                .build();
+
+        TaskResults results = graph.execute("network-setup", MAX_CONCURRENT_SETUP_TASKS);
+
+        return new Network.Builder()
+                .withVpc(vpc)
+                .withApplicationSubnet(results.get(APPLICATION_SUBNET))
+                .withApplicationSecurityGroup(results.get(APPLICATION_SECURITY_GROUP))
+                .withDatabaseSubnet(results.get(DATABASE_SUBNET_1))
+                .withDatabaseSubnet(results.get(DATABASE_SUBNET_2))
+                .withDatabaseSecurityGroup(results.get(DATABASE_SECURITY_GROUP))
+                .withLoadBalancerSubnet(results.get(PUBLIC_SUBNET))
+                .withLoadBalancerSecurityGroup(results.get(LOAD_BALANCER_SECURITY_GROUP))
+                .withPublicRouteTable(results.get(PUBLIC_ROUTE_TABLE))
+                .withApplicationRouteTable(results.get(APPLICATION_ROUTE_TABLE))
+                .withDatabaseRouteTable(results.get(DATABASE_ROUTE_TABLE))
+                .withInternetGateway(results.get(INTERNET_GATEWAY))
+                .withNatGateway(results.get(NAT_GATEWAY))
+                .build();
+    }
 
-        Subnet publicSubnet = createSubnet(vpc, zone1, "10.0.0.0/24", "public");
-        associateRouteTableWithSubnet(publicRouteTable, publicSubnet);
+    public Map<String, String> recordNetwork(Network network) {
+        return new ImmutableMap.Builder<String, String>()
+                .put(VPC_STATE_KEY, network.getVpc().getVpcId())
+                .put(APPLICATION_SUBNETS_STATE_KEY, joinIds(network.getApplicationSubnets(), Subnet::getSubnetId))
+                .put(DATABASE_SUBNETS_STATE_KEY, joinIds(network.getDatabaseSubnets(), Subnet::getSubnetId))
+                .put(LOAD_BALANCER_SUBNETS_STATE_KEY, joinIds(network.getLoadBalancerSubnets(), Subnet::getSubnetId))
+                .put(APPLICATION_SECURITY_GROUP_STATE_KEY, network.getApplicationSecurityGroup().getGroupId())
+                .put(DATABASE_SECURITY_GROUP_STATE_KEY, network.getDatabaseSecurityGroup().getGroupId())
+                .put(LOAD_BALANCER_SECURITY_GROUP_STATE_KEY, network.getLoadBalancerSecurityGroup().getGroupId())
+                .put(PUBLIC_ROUTE_TABLE_STATE_KEY, network.getPublicRouteTable().getRouteTableId())
+                .put(APPLICATION_ROUTE_TABLE_STATE_KEY, network.getApplicationRouteTable().getRouteTableId())
+                .put(DATABASE_ROUTE_TABLE_STATE_KEY, network.getDatabaseRouteTable().getRouteTableId())
+                .put(INTERNET_GATEWAY_STATE_KEY, network.getInternetGateway().getInternetGatewayId())
+                .put(NAT_GATEWAY_STATE_KEY, network.getNatGateway().getNatGatewayId())
+                .build();
+    }
 
-        InternetGateway internetGateway = internetGatewayService.addInternetGateway(vpc);
-        routeService.addInternetGatewayRoute(publicRouteTable, "0.0.0.0/0", internetGateway.getInternetGatewayId());
+    // Anything recorded that has gone, or that no longer routes the way setup left it, sends the step back to setup
+    public Network restoreNetwork(Map<String, String> resources) {
+        // State recorded before the route tables and gateways were tracked cannot be verified
+        if (!resources.keySet().containsAll(STATE_KEYS)) {
+            return null;
+        }
 
-        RouteTable applicationRouteTable = createRouteTable(vpc, "application");
+        Vpc vpc = vpcService.getVpcById(resources.get(VPC_STATE_KEY));
 
-        Subnet applicationSubnet = createSubnet(vpc, zone1, "10.0.20.0/24", "application");
-        associateRouteTableWithSubnet(applicationRouteTable, applicationSubnet);
+        if (vpc == null) {
+            return null;
+        }
 
-        NatGateway natGateway = natGatewayService.addNatGateway(publicSubnet);
-        routeService.addNatGatewayRoute(applicationRouteTable, "0.0.0.0/0", natGateway.getNatGatewayId());
+        List<String> applicationSubnetIds = splitIds(resources.get(APPLICATION_SUBNETS_STATE_KEY));
+        List<String> databaseSubnetIds = splitIds(resources.get(DATABASE_SUBNETS_STATE_KEY));
+        List<String> loadBalancerSubnetIds = splitIds(resources.get(LOAD_BALANCER_SUBNETS_STATE_KEY));
 
-        RouteTable databaseRouteTable = createRouteTable(vpc, "database");
+        List<String> subnetIds = Lists.newArrayList(Iterables.concat(applicationSubnetIds, databaseSubnetIds, loadBalancerSubnetIds));
 
-        Subnet databaseSubnet1 = createSubnet(vpc, zone1, "10.0.30.0/24", "database-1");
-        associateRouteTableWithSubnet(databaseRouteTable, databaseSubnet1);
+        Map<String, Subnet> subnets = subnetService.getSubnetsById(subnetIds).stream()
+                .collect(Collectors.toMap(Subnet::getSubnetId, s -> s));
 
-        Subnet databaseSubnet2 = createSubnet(vpc, zone2, "10.0.31.0/24", "database-2");
-        associateRouteTableWithSubnet(databaseRouteTable, databaseSubnet2);
+        List<String> groupIds = Lists.newArrayList(
+                resources.get(APPLICATION_SECURITY_GROUP_STATE_KEY),
+                resources.get(DATABASE_SECURITY_GROUP_STATE_KEY),
+                resources.get(LOAD_BALANCER_SECURITY_GROUP_STATE_KEY));
 
-        SecurityGroup loadBalancerSecurityGroup = createSecurityGroup(vpc, "load-balancer");
+        Map<String, SecurityGroup> securityGroups = securityGroupService.getSecurityGroupsById(groupIds).stream()
+                .collect(Collectors.toMap(SecurityGroup::getGroupId, g -> g));
 
-        loadBalancerSecurityGroup = securityGroupService.addIngressRule(loadBalancerSecurityGroup, "0.0.0.0/0", "tcp", 443);
+        if (!subnets.keySet().containsAll(subnetIds) || !securityGroups.keySet().containsAll(groupIds)) {
+            return null;
+        }
 
-        SecurityGroup applicationSecurityGroup = createSecurityGroup(vpc, "application");
-        SecurityGroup databaseSecurityGroup = createSecurityGroup(vpc, "database");
+        List<String> routeTableIds = Lists.newArrayList();
+        routeTableIds.add(resources.get(PUBLIC_ROUTE_TABLE_STATE_KEY));
+        routeTableIds.add(resources.get(APPLICATION_ROUTE_TABLE_STATE_KEY));
+        routeTableIds.add(resources.get(DATABASE_ROUTE_TABLE_STATE_KEY));
 
-        databaseSecurityGroup = securityGroupService.addIngressRule(databaseSecurityGroup, applicationSecurityGroup, "tcp", 3306);
-        databaseSecurityGroup = securityGroupService.revokeAllEgressRules(databaseSecurityGroup);
+        Map<String, RouteTable> routeTables = routeService.getRouteTablesById(routeTableIds).stream()
+                .collect(Collectors.toMap(RouteTable::getRouteTableId, r -> r));
 
-        return new Network.Builder()
+        if (!routeTables.keySet().containsAll(routeTableIds)) {
+            return null;
+        }
+
+        InternetGateway internetGateway = internetGatewayService.getInternetGatewayById(resources.get(INTERNET_GATEWAY_STATE_KEY));
+
+        if (internetGateway == null || !internetGatewayService.internetGatewayAttached(internetGateway, vpc)) {
+            return null;
+        }
+
+        NatGateway natGateway = natGatewayService.getNatGatewayById(resources.get(NAT_GATEWAY_STATE_KEY));
+
+        if (natGateway == null || !natGatewayService.natGatewayAvailable(natGateway)) {
+            return null;
+        }
+
+        RouteTable publicRouteTable = routeTables.get(routeTableIds.get(0));
+        RouteTable applicationRouteTable = routeTables.get(routeTableIds.get(1));
+        RouteTable databaseRouteTable = routeTables.get(routeTableIds.get(2));
+
+        String internetGatewayId = internetGateway.getInternetGatewayId();
+        String natGatewayId = natGateway.getNatGatewayId();
+
+        if (!routeService.routeTableHasInternetGatewayRoute(publicRouteTable, DEFAULT_ROUTE_CIDR_BLOCK, internetGatewayId) ||
+                !routeService.routeTableHasNatGatewayRoute(applicationRouteTable, DEFAULT_ROUTE_CIDR_BLOCK, natGatewayId)) {
+            return null;
+        }
+
+        Network.Builder builder = new Network.Builder()
                 .withVpc(vpc)
-                .withApplicationSubnet(applicationSubnet)
-                .withApplicationSecurityGroup(applicationSecurityGroup)
-                .withDatabaseSubnet(databaseSubnet1)
-                .withDatabaseSubnet(databaseSubnet2)
-                .withDatabaseSecurityGroup(databaseSecurityGroup)
-                .withLoadBalancerSubnet(publicSubnet)
-                .withLoadBalancerSecurityGroup(loadBalancerSecurityGroup)
-                .build();
+                .withApplicationSecurityGroup(securityGroups.get(groupIds.get(0)))
+                .withDatabaseSecurityGroup(securityGroups.get(groupIds.get(1)))
+                .withLoadBalancerSecurityGroup(securityGroups.get(groupIds.get(2)))
+                .withPublicRouteTable(publicRouteTable)
+                .withApplicationRouteTable(applicationRouteTable)
+                .withDatabaseRouteTable(databaseRouteTable)
+                .withInternetGateway(internetGateway)
+                .withNatGateway(natGateway);
+
+        applicationSubnetIds.forEach(id -> builder.withApplicationSubnet(subnets.get(id)));
+        databaseSubnetIds.forEach(id -> builder.withDatabaseSubnet(subnets.get(id)));
+        loadBalancerSubnetIds.forEach(id -> builder.withLoadBalancerSubnet(subnets.get(id)));
+
+        return builder.build();
     }
 
-    public void tearDownNetwork() {
-        Vpc vpc = getVpc();
+    private static <T> String joinIds(List<T> resources, Function<T, String> id) {
+        return resources.stream().map(id).collect(Collectors.joining(","));
+    }
 
-        if (vpc == null) {
-            Logger.info("Vpc does not exist");
-            return;
+    private static List<String> splitIds(String ids) {
+        return ids != null ? Splitter.on(',').omitEmptyStrings().splitToList(ids) : ImmutableList.of();
+    }
+
+    public List<Supplier<ResourceChange>> planNetwork() {
+        List<Supplier<ResourceChange>> checks = Lists.newArrayList();
+
+        String vpcName = nameService.getNameForResource(Vpc.class);
+        checks.add(() -> ResourceChange.ensure("vpc", vpcName, vpcService.getVpc(vpcName) != null));
+
+        for (String nameSuffix : ROUTE_TABLE_NAME_SUFFIXES) {
+            String name = nameService.getNameForResource(RouteTable.class, nameSuffix);
+            checks.add(planInVpc("route-table", name, vpc -> routeService.getRouteTable(vpc, name) != null));
         }
 
-        deleteSecurityGroup(vpc, "database");
-        deleteSecurityGroup(vpc, "application");
-        deleteSecurityGroup(vpc, "load-balancer");
+        for (String nameSuffix : SUBNET_NAME_SUFFIXES) {
+            String name = nameService.getNameForResource(Subnet.class, nameSuffix);
+            checks.add(planInVpc("subnet", name, vpc -> subnetService.getSubnet(vpc, name) != null));
+        }
 
-        RouteTable databaseRouteTable = getRouteTable(vpc, "database");
+        checks.add(planInVpc("internet-gateway", vpcName, internetGatewayService::internetGatewayExists));
 
-        Subnet databaseSubnet1 = getSubnet(vpc, "database-1");
-        Subnet databaseSubnet2 = getSubnet(vpc, "database-2");
+        String publicSubnetName = nameService.getNameForResource(Subnet.class, "public");
+        checks.add(planInVpc("nat-gateway", publicSubnetName, vpc -> {
+            Subnet subnet = subnetService.getSubnet(vpc, publicSubnetName);
+            return subnet != null && natGatewayService.natGatewayExists(subnet);
+        }));
 
-        disassociateRouteTableWithSubnet(databaseRouteTable, databaseSubnet1);
-        disassociateRouteTableWithSubnet(databaseRouteTable, databaseSubnet2);
+        for (String nameSuffix : SECURITY_GROUP_NAME_SUFFIXES) {
+            String name = nameService.getNameForResource(SecurityGroup.class, nameSuffix);
+            checks.add(planInVpc("security-group", name, vpc -> securityGroupService.securityGroupExists(vpc, name)));
+        }
 
-        deleteSubnet(vpc, "database-1");
-        deleteSubnet(vpc, "database-2");
-        deleteRouteTable(vpc, "database");
+        return checks;
+    }
 
-        RouteTable applicationRouteTable = getRouteTable(vpc, "application");
+    private Supplier<ResourceChange> planInVpc(String resourceType, String name, Predicate<Vpc> exists) {
+        String vpcName = nameService.getNameForResource(Vpc.class);
 
-        Subnet applicationSubnet = getSubnet(vpc, "application");
-        disassociateRouteTableWithSubnet(applicationRouteTable, applicationSubnet);
+        return () -> {
+            Vpc vpc = vpcService.getVpc(vpcName);
+            return ResourceChange.ensure(resourceType, name, vpc != null && exists.test(vpc));
+        };
+    }
 
-        deleteSubnet(vpc, "application");
-        deleteRouteTable(vpc, "application");
+    public void tearDownNetwork() {
+        Vpc vpc = getVpc();
 
-        RouteTable publicRouteTable = getRouteTable(vpc, "public");
-        Subnet publicSubnet = getSubnet(vpc, "public");
+        if (vpc == null) {
+            Logger.info("Vpc does not exist");
+            return;
+        }
+
+        // Each task only waits on resources that AWS refuses to delete while they exist
+        TaskGraph graph = new TaskGraph.Builder()
+                .add(DATABASE_SECURITY_GROUP_TEAR_DOWN, results ->
+                        deleteSecurityGroup(vpc, "database"))
+                .add(APPLICATION_SECURITY_GROUP_TEAR_DOWN, results ->
+                        deleteSecurityGroup(vpc, "application"),
+                        DATABASE_SECURITY_GROUP_TEAR_DOWN)
+                .add(LOAD_BALANCER_SECURITY_GROUP_TEAR_DOWN, results ->
+                        deleteSecurityGroup(vpc, "load-balancer"))
+                .add(DATABASE_TIER_TEAR_DOWN, results ->
+                        tearDownTier(vpc, "database", "database-1", "database-2"))
+                .add(APPLICATION_TIER_TEAR_DOWN, results ->
+                        tearDownTier(vpc, "application", "application"))
+                .add(NAT_GATEWAY_TEAR_DOWN, results ->
+                        removeNatGateway(getSubnet(vpc, "public")))
+                .add(INTERNET_GATEWAY_TEAR_DOWN, results ->
+                        retryOnDependencyViolation("remove internet gateway", () -> internetGatewayService.removeInternetGateway(vpc)),
+                        NAT_GATEWAY_TEAR_DOWN)
+                .add(PUBLIC_TIER_TEAR_DOWN, results ->
+                        tearDownTier(vpc, "public", "public"),
+                        NAT_GATEWAY_TEAR_DOWN)
+                .add(VPC_TEAR_DOWN, results ->
+                        retryOnDependencyViolation("delete vpc", () -> vpcService.deleteVpc(vpc)),
+                        APPLICATION_SECURITY_GROUP_TEAR_DOWN, LOAD_BALANCER_SECURITY_GROUP_TEAR_DOWN,
+                        DATABASE_TIER_TEAR_DOWN, APPLICATION_TIER_TEAR_DOWN, INTERNET_GATEWAY_TEAR_DOWN,
+                        PUBLIC_TIER_TEAR_DOWN)
+                .build();
+
+        graph.execute("network-teardown", MAX_CONCURRENT_TEAR_DOWN_TASKS);
+    }
 
-        removeNatGateway(publicSubnet);
-        internetGatewayService.removeInternetGateway(vpc);
+    private Void tearDownTier(Vpc vpc, String routeTableSuffix, String... subnetSuffixes) {
+        RouteTable routeTable = getRouteTable(vpc, routeTableSuffix);
 
-        disassociateRouteTableWithSubnet(publicRouteTable, publicSubnet);
+        for (String subnetSuffix : subnetSuffixes) {
+            Subnet subnet = getSubnet(vpc, subnetSuffix);
+            disassociateRouteTableWithSubnet(routeTable, subnet);
 
-        deleteSubnet(vpc, "public");
-        deleteRouteTable(vpc, "public");
+            retryOnDependencyViolation("delete subnet " + subnetSuffix, () -> deleteSubnet(vpc, subnetSuffix));
+        }
 
-        vpcService.deleteVpc(vpc);
+        return retryOnDependencyViolation("delete route table " + routeTableSuffix, () -> deleteRouteTable(vpc, routeTableSuffix));
+    }
+
+    private Void retryOnDependencyViolation(String description, Runnable action) {
+        long start = System.nanoTime();
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                action.run();
+                return null;
+            }
+            catch (AmazonServiceException e) {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                if (!DEPENDENCY_VIOLATION_ERROR_CODE.equals(e.getErrorCode()) ||
+                        elapsed >= DEPENDENCY_RETRY_POLICY.getDeadlineMillis()) {
+                    throw e;
+                }
+
+                long delay = DEPENDENCY_RETRY_POLICY.nextDelayMillis(attempt, elapsed);
+                Logger.info("Unable to %s yet [%s], retrying in [%s] ms", description, e.getErrorMessage(), delay);
+
+                try {
+                    Thread.sleep(delay);
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting to " + description, ie);
+                }
+            }
+        }
     }
 
     private Vpc getVpc() {
-        Vpc vpc = null;
         String name = nameService.getNameForResource(Vpc.class);
+        Vpc vpc = vpcService.getVpc(name);
 
-        if (vpcService.vpcExists(name)) {
+        if (vpc != null) {
             Logger.info("Vpc already exists");
-            vpc = vpcService.getVpc(name);
         }
 
         return vpc;
     }
 
     private Vpc createVpc(String cidrBlock) {
-        Vpc vpc;
         String name = nameService.getNameForResource(Vpc.class);
+        Vpc vpc = vpcService.getVpc(name);
 
-        if (vpcService.vpcExists(name)) {
+        if (vpc != null) {
             Logger.info("Vpc already exists");
-            vpc = vpcService.getVpc(name);
         }
         else {
             vpc = vpcService.createVpc(cidrBlock);
@@ -176,8 +470,15 @@ public class NetworkService {
     }
 
     private Subnet createSubnet(Vpc vpc, AvailabilityZone availabilityZone, String cidrBlock, String nameSuffix) {
+        String name = nameService.getNameForResource(Subnet.class, nameSuffix);
         Subnet subnet = subnetService.createSubnet(vpc, availabilityZone, cidrBlock);
-        nameService.setNameTag(Subnet.class, subnet.getSubnetId(), nameSuffix);
+
+        boolean named = subnet.getTags().stream()
+                .anyMatch(t -> t.getKey().equals("Name") && t.getValue().equals(name));
+
+        if (!named) {
+            nameService.setNameTag(Subnet.class, subnet.getSubnetId(), nameSuffix);
+        }
         return subnet;
     }
 
@@ -187,14 +488,13 @@ public class NetworkService {
     }
 
     private RouteTable getRouteTable(Vpc vpc, String nameSuffix) {
-        RouteTable routeTable = null;
-
         String name = nameService.getNameForResource(RouteTable.class, nameSuffix);
         String vpcId = vpc.getVpcId();
 
-        if (routeService.routeTableExists(vpc, name)) {
+        RouteTable routeTable = routeService.getRouteTable(vpc, name);
+
+        if (routeTable != null) {
             Logger.info("Route table [%s] exists in vpc [%s]", name, vpcId);
-            routeTable = routeService.getRouteTable(vpc, name);
         }
         else {
             Logger.info("Route table [%s] does not exist in vpc [%s]", name, vpcId);
@@ -204,12 +504,11 @@ public class NetworkService {
     }
 
     private RouteTable createRouteTable(Vpc vpc, String nameSuffix) {
-        RouteTable routeTable;
         String name = nameService.getNameForResource(RouteTable.class, nameSuffix);
+        RouteTable routeTable = routeService.getRouteTable(vpc, name);
 
-        if (routeService.routeTableExists(vpc, name)) {
+        if (routeTable != null) {
             Logger.info("Route table [%s] exists in vpc [%s]", name, vpc.getVpcId());
-            routeTable = routeService.getRouteTable(vpc, name);
         }
         else {
             routeTable = routeService.createRouteTable(vpc);
@@ -239,14 +538,16 @@ public class NetworkService {
         return securityGroupService.createSecurityGroup(vpc, groupName);
     }
 
-    private void deleteSecurityGroup(Vpc vpc, String nameSuffix) {
+    private Void deleteSecurityGroup(Vpc vpc, String nameSuffix) {
         String groupName = nameService.getNameForResource(SecurityGroup.class, nameSuffix);
-        securityGroupService.deleteSecurityGroup(vpc, groupName);
+        return retryOnDependencyViolation("delete security group " + groupName,
+                () -> securityGroupService.deleteSecurityGroup(vpc, groupName));
     }
 
-    private void removeNatGateway(Subnet subnet) {
+    private Void removeNatGateway(Subnet subnet) {
         if (subnet != null) {
             natGatewayService.removeNatGateway(subnet);
         }
+        return null;
     }
 }
@@ -0,0 +1,233 @@
+package in.reeltime.tool.network.describe;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.model.*;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.aws.CoalescingLoader;
+import in.reeltime.tool.log.Logger;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class Ec2DescribeService {
+
+    private static final String NAME_TAG_KEY = "Name";
+
+    private static final String NOT_FOUND_ERROR_CODE_SUFFIX = ".NotFound";
+
+    private final AmazonEC2 ec2;
+
+    private final CoalescingLoader<String, List<Vpc>> vpcsByName;
+    private final CoalescingLoader<String, List<Subnet>> subnetsByVpc;
+    private final CoalescingLoader<String, List<RouteTable>> routeTablesByName;
+    private final CoalescingLoader<String, List<SecurityGroup>> securityGroupsByVpc;
+    private final CoalescingLoader<String, List<InternetGateway>> internetGatewaysByVpc;
+    private final CoalescingLoader<String, List<NatGateway>> natGatewaysBySubnet;
+    private final CoalescingLoader<String, List<NatGateway>> natGatewaysById;
+
+    public Ec2DescribeService(AmazonEC2 ec2) {
+        this.ec2 = ec2;
+
+        this.vpcsByName = new CoalescingLoader<>("vpcs", this::describeVpcsByName);
+        this.subnetsByVpc = new CoalescingLoader<>("subnets", this::describeSubnetsByVpc);
+        this.routeTablesByName = new CoalescingLoader<>("route tables", this::describeRouteTablesByName);
+        this.securityGroupsByVpc = new CoalescingLoader<>("security groups", this::describeSecurityGroupsByVpc);
+        this.internetGatewaysByVpc = new CoalescingLoader<>("internet gateways", this::describeInternetGatewaysByVpc);
+        this.natGatewaysBySubnet = new CoalescingLoader<>("NAT gateways", this::describeNatGatewaysBySubnet);
+        this.natGatewaysById = new CoalescingLoader<>("NAT gateways", this::describeNatGatewaysById);
+    }
+
+    public List<Vpc> getVpcs(String nameTag) {
+        return vpcsByName.load(nameTag);
+    }
+
+    public List<Subnet> getSubnets(String vpcId) {
+        return subnetsByVpc.load(vpcId);
+    }
+
+    public List<RouteTable> getRouteTables(String nameTag) {
+        return routeTablesByName.load(nameTag);
+    }
+
+    public List<SecurityGroup> getSecurityGroups(String vpcId) {
+        return securityGroupsByVpc.load(vpcId);
+    }
+
+    public List<InternetGateway> getInternetGateways(String vpcId) {
+        return internetGatewaysByVpc.load(vpcId);
+    }
+
+    public List<NatGateway> getNatGatewaysForSubnet(String subnetId) {
+        return natGatewaysBySubnet.load(subnetId);
+    }
+
+    public NatGateway getNatGateway(String natGatewayId) {
+        List<NatGateway> natGateways = natGatewaysById.load(natGatewayId);
+        return !natGateways.isEmpty() ? natGateways.get(0) : null;
+    }
+
+    public List<Vpc> getVpcsById(Collection<String> vpcIds) {
+        DescribeVpcsRequest request = new DescribeVpcsRequest()
+                .withVpcIds(vpcIds);
+
+        return describeById(() -> ec2.describeVpcs(request).getVpcs());
+    }
+
+    public List<Subnet> getSubnetsById(Collection<String> subnetIds) {
+        DescribeSubnetsRequest request = new DescribeSubnetsRequest()
+                .withSubnetIds(subnetIds);
+
+        return describeById(() -> ec2.describeSubnets(request).getSubnets());
+    }
+
+    public List<SecurityGroup> getSecurityGroupsById(Collection<String> groupIds) {
+        DescribeSecurityGroupsRequest request = new DescribeSecurityGroupsRequest()
+                .withGroupIds(groupIds);
+
+        return describeById(() -> ec2.describeSecurityGroups(request).getSecurityGroups());
+    }
+
+    public List<RouteTable> getRouteTablesById(Collection<String> routeTableIds) {
+        DescribeRouteTablesRequest request = new DescribeRouteTablesRequest()
+                .withRouteTableIds(routeTableIds);
+
+        return describeById(() -> ec2.describeRouteTables(request).getRouteTables());
+    }
+
+    public List<InternetGateway> getInternetGatewaysById(Collection<String> internetGatewayIds) {
+        DescribeInternetGatewaysRequest request = new DescribeInternetGatewaysRequest()
+                .withInternetGatewayIds(internetGatewayIds);
+
+        return describeById(() -> ec2.describeInternetGateways(request).getInternetGateways());
+    }
+
+    // Describing by id fails outright when any of the ids no longer exists
+    private static <T> List<T> describeById(Supplier<List<T>> describe) {
+        try {
+            return describe.get();
+        }
+        catch (AmazonServiceException e) {
+            if (e.getErrorCode() != null && e.getErrorCode().endsWith(NOT_FOUND_ERROR_CODE_SUFFIX)) {
+                Logger.debug("Describe by id failed: %s", e.getErrorMessage());
+                return ImmutableList.of();
+            }
+            throw e;
+        }
+    }
+
+    private Map<String, List<Vpc>> describeVpcsByName(Set<String> nameTags) {
+        DescribeVpcsRequest request = new DescribeVpcsRequest()
+                .withFilters(filter("tag:" + NAME_TAG_KEY, nameTags));
+
+        logBatch("vpcs", nameTags);
+        List<Vpc> vpcs = ec2.describeVpcs(request).getVpcs();
+
+        return groupBy(nameTags, vpcs, v -> getNameTags(v.getTags()));
+    }
+
+    private Map<String, List<Subnet>> describeSubnetsByVpc(Set<String> vpcIds) {
+        DescribeSubnetsRequest request = new DescribeSubnetsRequest()
+                .withFilters(filter("vpc-id", vpcIds));
+
+        logBatch("subnets", vpcIds);
+        List<Subnet> subnets = ec2.describeSubnets(request).getSubnets();
+
+        return groupBy(vpcIds, subnets, s -> ImmutableList.of(s.getVpcId()));
+    }
+
+    private Map<String, List<RouteTable>> describeRouteTablesByName(Set<String> nameTags) {
+        DescribeRouteTablesRequest request = new DescribeRouteTablesRequest()
+                .withFilters(filter("tag:" + NAME_TAG_KEY, nameTags));
+
+        logBatch("route tables", nameTags);
+        List<RouteTable> routeTables = ec2.describeRouteTables(request).getRouteTables();
+
+        return groupBy(nameTags, routeTables, r -> getNameTags(r.getTags()));
+    }
+
+    private Map<String, List<SecurityGroup>> describeSecurityGroupsByVpc(Set<String> vpcIds) {
+        DescribeSecurityGroupsRequest request = new DescribeSecurityGroupsRequest()
+                .withFilters(filter("vpc-id", vpcIds));
+
+        logBatch("security groups", vpcIds);
+        List<SecurityGroup> securityGroups = ec2.describeSecurityGroups(request).getSecurityGroups();
+
+        return groupBy(vpcIds, securityGroups, g -> ImmutableList.of(g.getVpcId()));
+    }
+
+    private Map<String, List<InternetGateway>> describeInternetGatewaysByVpc(Set<String> vpcIds) {
+        DescribeInternetGatewaysRequest request = new DescribeInternetGatewaysRequest()
+                .withFilters(filter("attachment.vpc-id", vpcIds));
+
+        logBatch("internet gateways", vpcIds);
+        List<InternetGateway> internetGateways = ec2.describeInternetGateways(request).getInternetGateways();
+
+        return groupBy(vpcIds, internetGateways, g -> Lists.transform(g.getAttachments(), InternetGatewayAttachment::getVpcId));
+    }
+
+    private Map<String, List<NatGateway>> describeNatGatewaysBySubnet(Set<String> subnetIds) {
+        DescribeNatGatewaysRequest request = new DescribeNatGatewaysRequest()
+                .withFilter(filter("subnet-id", subnetIds));
+
+        logBatch("NAT gateways", subnetIds);
+        List<NatGateway> natGateways = ec2.describeNatGateways(request).getNatGateways();
+
+        return groupBy(subnetIds, natGateways, g -> ImmutableList.of(g.getSubnetId()));
+    }
+
+    private Map<String, List<NatGateway>> describeNatGatewaysById(Set<String> natGatewayIds) {
+        DescribeNatGatewaysRequest request = new DescribeNatGatewaysRequest()
+                .withFilter(filter("nat-gateway-id", natGatewayIds));
+
+        logBatch("NAT gateways", natGatewayIds);
+        List<NatGateway> natGateways = ec2.describeNatGateways(request).getNatGateways();
+
+        return groupBy(natGatewayIds, natGateways, g -> ImmutableList.of(g.getNatGatewayId()));
+    }
+
+    private static Filter filter(String name, Collection<String> values) {
+        return new Filter()
+                .withName(name)
+                .withValues(values);
+    }
+
+    private static List<String> getNameTags(List<Tag> tags) {
+        List<String> names = Lists.newArrayList();
+
+        for (Tag tag : tags) {
+            if (tag.getKey().equals(NAME_TAG_KEY)) {
+                names.add(tag.getValue());
+            }
+        }
+        return names;
+    }
+
+    private static <T> Map<String, List<T>> groupBy(Set<String> keys, List<T> resources,
+                                                    Function<T, List<String>> keyExtractor) {
+        Map<String, List<T>> grouped = Maps.newHashMap();
+
+        for (String key : keys) {
+            grouped.put(key, Lists.newArrayList());
+        }
+
+        for (T resource : resources) {
+            for (String key : keyExtractor.apply(resource)) {
+                if (grouped.containsKey(key)) {
+                    grouped.get(key).add(resource);
+                }
+            }
+        }
+        return grouped;
+    }
+
+    private static void logBatch(String resourceType, Set<String> keys) {
+        Logger.debug("Describing %s for %s", resourceType, keys);
+    }
+}
@@ -2,16 +2,22 @@ package in.reeltime.tool.network.gateway;
 
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.*;
+import com.google.common.collect.ImmutableList;
 import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.network.describe.Ec2DescribeService;
 
 import java.util.List;
 
 public class InternetGatewayService {
 
+    private static final String ATTACHED_STATE = "available";
+
     private final AmazonEC2 ec2;
+    private final Ec2DescribeService describeService;
 
-    public InternetGatewayService(AmazonEC2 ec2) {
+    public InternetGatewayService(AmazonEC2 ec2, Ec2DescribeService describeService) {
         this.ec2 = ec2;
+        this.describeService = describeService;
     }
 
     public boolean internetGatewayExists(Vpc vpc) {
@@ -19,41 +25,50 @@ public class InternetGatewayService {
     }
 
     public InternetGateway getInternetGateway(Vpc vpc) {
-        List<InternetGateway> internetGateways = getInternetGateways(vpc);
-        String vpcId = vpc.getVpcId();
+        InternetGateway internetGateway = findInternetGateway(vpc);
 
-        if (internetGateways.isEmpty()) {
-            String message = String.format("Internet gateway not found for vpc [%s]", vpcId);
+        if (internetGateway == null) {
+            String message = String.format("Internet gateway not found for vpc [%s]", vpc.getVpcId());
             throw new IllegalArgumentException(message);
         }
-        else if (internetGateways.size() > 1) {
+        return internetGateway;
+    }
+
+    private InternetGateway findInternetGateway(Vpc vpc) {
+        List<InternetGateway> internetGateways = getInternetGateways(vpc);
+        String vpcId = vpc.getVpcId();
+
+        if (internetGateways.size() > 1) {
             String message = String.format("Multiple internet gateways found for vpc [%s]", vpcId);
             throw new IllegalArgumentException(message);
         }
 
-        return internetGateways.get(0);
+        return !internetGateways.isEmpty() ? internetGateways.get(0) : null;
     }
 
     private List<InternetGateway> getInternetGateways(Vpc vpc) {
-        String vpcId = vpc.getVpcId();
+        return describeService.getInternetGateways(vpc.getVpcId());
+    }
 
-        Filter vpcFilter = new Filter()
-                .withName("attachment.vpc-id")
-                .withValues(vpcId);
+    public InternetGateway getInternetGatewayById(String internetGatewayId) {
+        List<InternetGateway> internetGateways = describeService.getInternetGatewaysById(ImmutableList.of(internetGatewayId));
+        return !internetGateways.isEmpty() ? internetGateways.get(0) : null;
+    }
 
-        DescribeInternetGatewaysRequest request = new DescribeInternetGatewaysRequest()
-                .withFilters(vpcFilter);
+    public boolean internetGatewayAttached(InternetGateway internetGateway, Vpc vpc) {
+        String vpcId = vpc.getVpcId();
 
-        DescribeInternetGatewaysResult result = ec2.describeInternetGateways(request);
-        return result.getInternetGateways();
+        return internetGateway.getAttachments().stream()
+                .anyMatch(a -> a.getVpcId().equals(vpcId) && a.getState().equals(ATTACHED_STATE));
     }
 
     public InternetGateway addInternetGateway(Vpc vpc) {
         String vpcId = vpc.getVpcId();
+        InternetGateway existing = findInternetGateway(vpc);
 
-        if (internetGatewayExists(vpc)) {
+        if (existing != null) {
             Logger.info("Internet gateway for vpc [%s] already exists", vpcId);
-            return getInternetGateway(vpc);
+            return existing;
         }
 
         Logger.info("Creating internet gateway for vpc [%s]", vpcId);
@@ -69,13 +84,13 @@ public class InternetGatewayService {
 
     public void removeInternetGateway(Vpc vpc) {
         String vpcId = vpc.getVpcId();
+        InternetGateway internetGateway = findInternetGateway(vpc);
 
-        if (!internetGatewayExists(vpc)) {
+        if (internetGateway == null) {
             Logger.info("Internet gateway does not exist for vpc [%s]", vpcId);
             return;
         }
 
-        InternetGateway internetGateway = getInternetGateway(vpc);
         String internetGatewayId = internetGateway.getInternetGatewayId();
 
         Logger.info("Detaching internet gateway [%s] for vpc [%s]", internetGatewayId, vpcId);
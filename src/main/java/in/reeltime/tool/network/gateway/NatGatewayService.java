@@ -3,19 +3,30 @@ package in.reeltime.tool.network.gateway;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.*;
 import in.reeltime.tool.condition.ConditionalService;
+import in.reeltime.tool.condition.WaitPolicy;
 import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.network.describe.Ec2DescribeService;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 public class NatGatewayService {
 
     private static final long WAIT_FOR_AVAILABLE_POLLING_IN_SECS = 10;
+    private static final long WAIT_FOR_DELETED_POLLING_IN_SECS = 10;
+
+    private static final String AVAILABLE_STATE = "available";
+    private static final String DELETED_STATE = "deleted";
+    private static final String FAILED_STATE = "failed";
 
     private final AmazonEC2 ec2;
+    private final Ec2DescribeService describeService;
     private final ConditionalService conditionalService;
 
-    public NatGatewayService(AmazonEC2 ec2, ConditionalService conditionalService) {
+    public NatGatewayService(AmazonEC2 ec2, Ec2DescribeService describeService, ConditionalService conditionalService) {
         this.ec2 = ec2;
+        this.describeService = describeService;
         this.conditionalService = conditionalService;
     }
 
@@ -24,55 +35,49 @@ public class NatGatewayService {
     }
 
     public NatGateway getNatGateway(Subnet subnet) {
-        List<NatGateway> natGateways = getNatGateways(subnet);
-        String subnetId = subnet.getSubnetId();
+        NatGateway natGateway = findNatGateway(subnet);
 
-        if (natGateways.isEmpty()) {
-            String message = String.format("NAT gateway not found for subnet [%s]", subnetId);
+        if (natGateway == null) {
+            String message = String.format("NAT gateway not found for subnet [%s]", subnet.getSubnetId());
             throw new IllegalArgumentException(message);
         }
-        else if (natGateways.size() > 1) {
+        return natGateway;
+    }
+
+    private NatGateway findNatGateway(Subnet subnet) {
+        List<NatGateway> natGateways = getNatGateways(subnet);
+        String subnetId = subnet.getSubnetId();
+
+        if (natGateways.size() > 1) {
             String message = String.format("Multiple NAT gateways found for subnet [%s]", subnetId);
             throw new IllegalArgumentException(message);
         }
 
-        return natGateways.get(0);
+        return !natGateways.isEmpty() ? natGateways.get(0) : null;
     }
 
     private List<NatGateway> getNatGateways(Subnet subnet) {
-        String subnetId = subnet.getSubnetId();
-
-        Filter subnetFilter = new Filter()
-                .withName("subnet-id")
-                .withValues(subnetId);
-
-        DescribeNatGatewaysRequest request = new DescribeNatGatewaysRequest()
-                .withFilter(subnetFilter);
-
-        DescribeNatGatewaysResult result = ec2.describeNatGateways(request);
-        return result.getNatGateways();
+        // Deleted gateways stay visible for about an hour and would otherwise block a fresh setup
+        return describeService.getNatGatewaysForSubnet(subnet.getSubnetId()).stream()
+                .filter(g -> !g.getState().equals(DELETED_STATE) && !g.getState().equals(FAILED_STATE))
+                .collect(Collectors.toList());
     }
 
-    private NatGateway getNatGateway(String natGatewayId) {
-        Filter natGatewayIdFilter = new Filter()
-                .withName("nat-gateway-id")
-                .withValues(natGatewayId);
-
-        DescribeNatGatewaysRequest request = new DescribeNatGatewaysRequest()
-                .withFilter(natGatewayIdFilter);
-
-        DescribeNatGatewaysResult result = ec2.describeNatGateways(request);
-        List<NatGateway> natGateways = result.getNatGateways();
+    public NatGateway getNatGatewayById(String natGatewayId) {
+        return describeService.getNatGateway(natGatewayId);
+    }
 
-        return !natGateways.isEmpty() ? natGateways.get(0) : null;
+    public boolean natGatewayAvailable(NatGateway natGateway) {
+        return natGateway.getState().equals(AVAILABLE_STATE);
     }
 
     public NatGateway addNatGateway(Subnet subnet) {
         String subnetId = subnet.getSubnetId();
+        NatGateway existing = findNatGateway(subnet);
 
-        if (natGatewayExists(subnet)) {
+        if (existing != null) {
             Logger.info("NAT gateway already exists for subnet [%s]", subnetId);
-            return getNatGateway(subnet);
+            return existing;
         }
 
         String allocationId = allocateElasticIpAddress();
@@ -86,33 +91,35 @@ public class NatGatewayService {
         CreateNatGatewayResult result = ec2.createNatGateway(request);
         NatGateway natGateway = result.getNatGateway();
 
-        return waitForNatGatewayToBecomeAvailable(natGateway);
+        CompletableFuture<NatGateway> future = waitForNatGatewayToBecomeAvailable(natGateway);
+        ConditionalService.await(future);
+
+        return future.join();
     }
 
-    private NatGateway waitForNatGatewayToBecomeAvailable(NatGateway natGateway) {
+    public CompletableFuture<NatGateway> waitForNatGatewayToBecomeAvailable(NatGateway natGateway) {
         String natGatewayId = natGateway.getNatGatewayId();
 
         String statusMessage = String.format("Waiting for NAT gateway [%s] to become available", natGatewayId);
         String failureMessage = "Exceeded max retries for polling NAT gateway state. Check AWS console for more info.";
 
-        conditionalService.waitForCondition(statusMessage, failureMessage, WAIT_FOR_AVAILABLE_POLLING_IN_SECS, () -> {
-            NatGateway gateway = getNatGateway(natGatewayId);
-            return gateway != null && gateway.getState().equals("available");
-        });
+        WaitPolicy policy = WaitPolicy.forPollingInterval(WAIT_FOR_AVAILABLE_POLLING_IN_SECS);
 
-        return getNatGateway(natGatewayId);
+        return conditionalService.waitForConditionAsync("nat-gateway-available", statusMessage, failureMessage, policy, () -> {
+            NatGateway gateway = getNatGatewayById(natGatewayId);
+            return gateway != null && natGatewayAvailable(gateway);
+        }).thenApply(v -> getNatGatewayById(natGatewayId));
     }
 
     public void removeNatGateway(Subnet subnet) {
         String subnetId = subnet.getSubnetId();
+        NatGateway natGateway = findNatGateway(subnet);
 
-        if (!natGatewayExists(subnet)) {
+        if (natGateway == null) {
             Logger.info("NAT gateway does not exist for subnet [%s]", subnetId);
             return;
         }
 
-        NatGateway natGateway = getNatGateway(subnet);
-
         String natGatewayId = natGateway.getNatGatewayId();
         Logger.info("Deleting NAT gateway [%s]", natGatewayId);
 
@@ -121,6 +128,9 @@ public class NatGatewayService {
 
         ec2.deleteNatGateway(request);
 
+        // The addresses stay associated until the gateway is fully deleted
+        ConditionalService.await(waitForNatGatewayToBeDeleted(natGateway));
+
         Logger.info("Releasing addresses associated with NAT gateway [%s]", natGatewayId);
 
         for (NatGatewayAddress natGatewayAddress : natGateway.getNatGatewayAddresses()) {
@@ -130,6 +140,20 @@ public class NatGatewayService {
         }
     }
 
+    private CompletableFuture<Void> waitForNatGatewayToBeDeleted(NatGateway natGateway) {
+        String natGatewayId = natGateway.getNatGatewayId();
+
+        String statusMessage = String.format("Waiting for NAT gateway [%s] to be deleted", natGatewayId);
+        String failureMessage = String.format("NAT gateway [%s] was not deleted during the expected time", natGatewayId);
+
+        WaitPolicy policy = WaitPolicy.forPollingInterval(WAIT_FOR_DELETED_POLLING_IN_SECS);
+
+        return conditionalService.waitForConditionAsync("nat-gateway-deleted", statusMessage, failureMessage, policy, () -> {
+            NatGateway gateway = getNatGatewayById(natGatewayId);
+            return gateway == null || gateway.getState().equals(DELETED_STATE);
+        });
+    }
+
     private String allocateElasticIpAddress() {
         AllocateAddressRequest request = new AllocateAddressRequest()
                 .withDomain(DomainType.Vpc);
@@ -3,16 +3,20 @@ package in.reeltime.tool.network.route;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.*;
 import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.network.describe.Ec2DescribeService;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public class RouteService {
 
     private final AmazonEC2 ec2;
+    private final Ec2DescribeService describeService;
 
-    public RouteService(AmazonEC2 ec2) {
+    public RouteService(AmazonEC2 ec2, Ec2DescribeService describeService) {
         this.ec2 = ec2;
+        this.describeService = describeService;
     }
 
     public boolean routeTableExists(Vpc vpc, String nameTag) {
@@ -21,28 +25,17 @@ public class RouteService {
 
     public RouteTable getRouteTable(Vpc vpc, String nameTag) {
         String vpcId = vpc.getVpcId();
+        List<RouteTable> routeTables = describeService.getRouteTables(nameTag);
 
-        Filter vpcFilter = new Filter()
-                .withName("vpc-id")
-                .withValues(vpcId);
-
-        DescribeRouteTablesRequest request = new DescribeRouteTablesRequest()
-                .withFilters(vpcFilter);
-
-        DescribeRouteTablesResult result = ec2.describeRouteTables(request);
-        List<RouteTable> routeTables = result.getRouteTables();
-
-        RouteTable routeTable = null;
-
-        for (RouteTable table : routeTables) {
-            Optional<Tag> optionalTag = table.getTags().stream()
-                    .filter(t -> t.getKey().equals("Name") && t.getValue().equals(nameTag))
-                    .findFirst();
+        Optional<RouteTable> optional = routeTables.stream()
+                .filter(r -> r.getVpcId().equals(vpcId))
+                .findFirst();
 
-            routeTable = optionalTag.isPresent() ? table : routeTable;
-        }
+        return optional.isPresent() ? optional.get() : null;
+    }
 
-        return routeTable;
+    public List<RouteTable> getRouteTablesById(Collection<String> routeTableIds) {
+        return describeService.getRouteTablesById(routeTableIds);
     }
 
     public RouteTable createRouteTable(Vpc vpc) {
@@ -58,12 +51,14 @@ public class RouteService {
     }
 
     public void deleteRouteTable(Vpc vpc, String nameTag) {
-        if (!routeTableExists(vpc, nameTag)) {
+        RouteTable routeTable = getRouteTable(vpc, nameTag);
+
+        if (routeTable == null) {
             Logger.info("Route table with name [%s] does not exist", nameTag);
             return;
         }
 
-        String routeTableId = getRouteTable(vpc, nameTag).getRouteTableId();
+        String routeTableId = routeTable.getRouteTableId();
         Logger.info("Deleting route table [%s]", routeTableId);
 
         DeleteRouteTableRequest request = new DeleteRouteTableRequest()
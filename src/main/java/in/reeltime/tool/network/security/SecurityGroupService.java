@@ -5,9 +5,11 @@ import com.amazonaws.services.ec2.model.*;
 import com.google.common.collect.Lists;
 import groovy.util.logging.Log;
 import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.network.describe.Ec2DescribeService;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class SecurityGroupService {
 
@@ -18,60 +20,49 @@ public class SecurityGroupService {
     private static final int MAX_IP_PERMISSIONS_PER_SECURITY_GROUP = 50;
 
     private final AmazonEC2 ec2;
+    private final Ec2DescribeService describeService;
     private final IpAddressService ipAddressService;
 
-    public SecurityGroupService(AmazonEC2 ec2, IpAddressService ipAddressService) {
+    public SecurityGroupService(AmazonEC2 ec2, Ec2DescribeService describeService, IpAddressService ipAddressService) {
         this.ec2 = ec2;
+        this.describeService = describeService;
         this.ipAddressService = ipAddressService;
     }
 
     public boolean securityGroupExists(Vpc vpc, String groupName) {
-        Filter vpcIdFilter = new Filter()
-                .withName("vpc-id")
-                .withValues(vpc.getVpcId());
-
-        Filter groupNameFilter = new Filter()
-                .withName("group-name")
-                .withValues(groupName);
-
-        DescribeSecurityGroupsRequest request = new DescribeSecurityGroupsRequest()
-                .withFilters(vpcIdFilter, groupNameFilter);
-
-        DescribeSecurityGroupsResult result = ec2.describeSecurityGroups(request);
-        List<SecurityGroup> securityGroups = result.getSecurityGroups();
-
-        return !securityGroups.isEmpty();
+        return findSecurityGroup(vpc, groupName) != null;
     }
 
     public SecurityGroup getSecurityGroup(Vpc vpc, String groupName) {
-        Filter vpcIdFilter = new Filter()
-                .withName("vpc-id")
-                .withValues(vpc.getVpcId());
+        SecurityGroup securityGroup = findSecurityGroup(vpc, groupName);
 
-        Filter groupNameFilter = new Filter()
-                .withName("group-name")
-                .withValues(groupName);
+        if (securityGroup == null) {
+            throw new IllegalArgumentException("Unknown security group: " + groupName);
+        }
+        return securityGroup;
+    }
 
-        DescribeSecurityGroupsRequest request = new DescribeSecurityGroupsRequest()
-                .withFilters(vpcIdFilter, groupNameFilter);
+    public List<SecurityGroup> getSecurityGroupsById(Collection<String> groupIds) {
+        return describeService.getSecurityGroupsById(groupIds);
+    }
 
-        DescribeSecurityGroupsResult result = ec2.describeSecurityGroups(request);
-        List<SecurityGroup> securityGroups = result.getSecurityGroups();
+    private SecurityGroup findSecurityGroup(Vpc vpc, String groupName) {
+        List<SecurityGroup> securityGroups = getSecurityGroups(vpc).stream()
+                .filter(g -> g.getGroupName().equals(groupName))
+                .collect(Collectors.toList());
 
-        if (securityGroups.isEmpty()) {
-            throw new IllegalArgumentException("Unknown security group: " + groupName);
-        }
-        else if (securityGroups.size() > 1) {
+        if (securityGroups.size() > 1) {
             throw new IllegalArgumentException("Duplicate security groups named: " + groupName);
         }
-
-        return securityGroups.get(0);
+        return !securityGroups.isEmpty() ? securityGroups.get(0) : null;
     }
 
     public SecurityGroup createSecurityGroup(Vpc vpc, String groupName) {
-        if (securityGroupExists(vpc, groupName)) {
+        SecurityGroup existing = findSecurityGroup(vpc, groupName);
+
+        if (existing != null) {
             Logger.info("Security group [%s] already exists", groupName);
-            return getSecurityGroup(vpc, groupName);
+            return existing;
         }
 
         String vpcId = vpc.getVpcId();
@@ -129,12 +120,14 @@ public class SecurityGroupService {
     }
 
     public void deleteSecurityGroup(Vpc vpc, String groupName) {
-        if (!securityGroupExists(vpc, groupName)) {
+        SecurityGroup securityGroup = findSecurityGroup(vpc, groupName);
+
+        if (securityGroup == null) {
             Logger.info("Security group [%s] does not exist", groupName);
             return;
         }
 
-        String groupId = getSecurityGroup(vpc, groupName).getGroupId();
+        String groupId = securityGroup.getGroupId();
         Logger.info("Deleting security group [%s] with id [%s]", groupName, groupId);
 
         DeleteSecurityGroupRequest request = new DeleteSecurityGroupRequest()
@@ -248,15 +241,7 @@ public class SecurityGroupService {
     }
 
     private List<SecurityGroup> getSecurityGroups(Vpc vpc) {
-        Filter vpcIdFilter = new Filter()
-                .withName("vpc-id")
-                .withValues(vpc.getVpcId());
-
-        DescribeSecurityGroupsRequest request = new DescribeSecurityGroupsRequest()
-                .withFilters(vpcIdFilter);
-
-        DescribeSecurityGroupsResult result = ec2.describeSecurityGroups(request);
-        return result.getSecurityGroups();
+        return describeService.getSecurityGroups(vpc.getVpcId());
     }
 
     private SecurityGroup refreshSecurityGroup(SecurityGroup securityGroup) {
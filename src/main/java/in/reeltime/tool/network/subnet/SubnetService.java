@@ -4,9 +4,11 @@ import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.*;
 import in.reeltime.tool.condition.ConditionalService;
 import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.network.describe.Ec2DescribeService;
 
-import java.util.Iterator;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class SubnetService {
 
@@ -19,10 +21,12 @@ public class SubnetService {
             "Subnet [%s] was not created during the expected time";
 
     private final AmazonEC2 ec2;
+    private final Ec2DescribeService describeService;
     private final ConditionalService conditionalService;
 
-    public SubnetService(AmazonEC2 ec2, ConditionalService conditionalService) {
+    public SubnetService(AmazonEC2 ec2, Ec2DescribeService describeService, ConditionalService conditionalService) {
         this.ec2 = ec2;
+        this.describeService = describeService;
         this.conditionalService = conditionalService;
     }
 
@@ -41,23 +45,14 @@ public class SubnetService {
     }
 
     public Subnet getSubnet(Vpc vpc, String nameTag) {
-        Subnet subnet = null;
-
-        Iterator<Subnet> iterator = getSubnets(vpc).iterator();
-
-        while (iterator.hasNext() && subnet == null) {
-            Subnet candidate = iterator.next();
-
-            boolean hasNameTag = candidate.getTags()
-                    .stream()
-                    .filter(t -> t.getKey().equals("Name") && t.getValue().equals(nameTag))
-                    .findFirst()
-                    .isPresent();
-
-            subnet = hasNameTag ? candidate : null;
-        }
+        return describeService.getSubnets(vpc.getVpcId()).stream()
+                .filter(s -> hasNameTag(s, nameTag))
+                .findFirst()
+                .orElse(null);
+    }
 
-        return null;
+    public List<Subnet> getSubnetsById(Collection<String> subnetIds) {
+        return describeService.getSubnetsById(subnetIds);
     }
 
     public Subnet getSubnet(Vpc vpc, AvailabilityZone availabilityZone, String cidrBlock) {
@@ -79,36 +74,26 @@ public class SubnetService {
     private List<Subnet> getSubnets(Vpc vpc, AvailabilityZone availabilityZone, String cidrBlock) {
         String zoneName = availabilityZone.getZoneName();
 
-        Filter availabilityZoneFilter = new Filter()
-                .withName("availabilityZone")
-                .withValues(zoneName);
-
-        Filter cidrBlockFilter = new Filter()
-                .withName("cidrBlock")
-                .withValues(cidrBlock);
-
-        return getSubnets(vpc, availabilityZoneFilter, cidrBlockFilter);
+        return describeService.getSubnets(vpc.getVpcId()).stream()
+                .filter(s -> s.getAvailabilityZone().equals(zoneName) && s.getCidrBlock().equals(cidrBlock))
+                .collect(Collectors.toList());
     }
 
-    private List<Subnet> getSubnets(Vpc vpc, Filter...filters) {
-        String vpcId = vpc.getVpcId();
-
-        Filter vpcFilter = new Filter()
-                .withName("vpc-id")
-                .withValues(vpcId);
-
-        DescribeSubnetsRequest request = new DescribeSubnetsRequest()
-                .withFilters(vpcFilter)
-                .withFilters(filters);
-
-        DescribeSubnetsResult result = ec2.describeSubnets(request);
-        return result.getSubnets();
+    private boolean hasNameTag(Subnet subnet, String nameTag) {
+        return subnet.getTags().stream()
+                .anyMatch(t -> t.getKey().equals("Name") && t.getValue().equals(nameTag));
     }
 
     public Subnet createSubnet(Vpc vpc, AvailabilityZone availabilityZone, String cidrBlock) {
-        if (subnetExists(vpc, availabilityZone, cidrBlock)) {
+        List<Subnet> existing = getSubnets(vpc, availabilityZone, cidrBlock);
+
+        if (existing.size() == 1) {
             Logger.info("Subnet for cidr block [%s] already exists", cidrBlock);
-            return getSubnet(vpc, availabilityZone, cidrBlock);
+            return existing.get(0);
+        }
+        else if (existing.size() > 1) {
+            String message = String.format("Found multiple subnets for cidr block [%s] in vpc [%s]", cidrBlock, vpc.getVpcId());
+            throw new IllegalArgumentException(message);
         }
 
         String vpcId = vpc.getVpcId();
@@ -133,17 +118,19 @@ public class SubnetService {
         String statusMessage = String.format(WAITING_FOR_SUBNET_TO_BE_CREATED_STATUS_FORMAT, subnetId);
         String failureMessage = String.format(WAITING_FOR_SUBNET_TO_BE_CREATED_FAILED_FORMAT, subnetId);
 
-        conditionalService.waitForCondition(statusMessage, failureMessage, WAITING_POLLING_INTERVAL_SECS,
+        conditionalService.waitForCondition("subnet-created", statusMessage, failureMessage, WAITING_POLLING_INTERVAL_SECS,
                 () -> subnetExists(vpc, availabilityZone, cidrBlock));
     }
 
     public void deleteSubnet(Vpc vpc, String nameTag) {
-        if (!subnetExists(vpc, nameTag)) {
+        Subnet subnet = getSubnet(vpc, nameTag);
+
+        if (subnet == null) {
             Logger.info("Subnet [%s] does not exist", nameTag);
             return;
         }
 
-        String subnetId = getSubnet(vpc, nameTag).getSubnetId();
+        String subnetId = subnet.getSubnetId();
         Logger.info("Deleting subnet [%s]", subnetId);
 
         DeleteSubnetRequest request = new DeleteSubnetRequest(subnetId);
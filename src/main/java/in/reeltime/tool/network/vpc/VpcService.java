@@ -2,17 +2,20 @@ package in.reeltime.tool.network.vpc;
 
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.*;
+import com.google.common.collect.ImmutableList;
 import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.network.describe.Ec2DescribeService;
 
 import java.util.List;
-import java.util.Optional;
 
 public class VpcService {
 
     private final AmazonEC2 ec2;
+    private final Ec2DescribeService describeService;
 
-    public VpcService(AmazonEC2 ec2) {
+    public VpcService(AmazonEC2 ec2, Ec2DescribeService describeService) {
         this.ec2 = ec2;
+        this.describeService = describeService;
     }
 
     public boolean vpcExists(String nameTag) {
@@ -20,20 +23,13 @@ public class VpcService {
     }
 
     public Vpc getVpc(String nameTag) {
-        DescribeVpcsResult result = ec2.describeVpcs();
-        List<Vpc> vpcs = result.getVpcs();
-
-        Vpc vpc = null;
-
-        for (Vpc v : vpcs) {
-            Optional<Tag> optionalTag = v.getTags().stream()
-                    .filter(t -> t.getKey().equals("Name") && t.getValue().equals(nameTag))
-                    .findFirst();
-
-            vpc = optionalTag.isPresent() ? v : vpc;
-        }
+        List<Vpc> vpcs = describeService.getVpcs(nameTag);
+        return !vpcs.isEmpty() ? vpcs.get(0) : null;
+    }
 
-        return vpc;
+    public Vpc getVpcById(String vpcId) {
+        List<Vpc> vpcs = describeService.getVpcsById(ImmutableList.of(vpcId));
+        return !vpcs.isEmpty() ? vpcs.get(0) : null;
     }
 
     public Vpc createVpc(String cidrBlock) {
@@ -4,17 +4,22 @@ import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.model.CreateTopicResult;
 import com.amazonaws.services.sns.model.ListTopicsResult;
 import com.amazonaws.services.sns.model.Topic;
+import in.reeltime.tool.aws.Paginator;
+import in.reeltime.tool.inventory.ResourceCache;
+import in.reeltime.tool.inventory.ResourceInventory;
 import in.reeltime.tool.log.Logger;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class TopicService {
 
     private final AmazonSNS sns;
+    private final ResourceCache<String, Topic> topics;
 
-    public TopicService(AmazonSNS sns) {
+    public TopicService(AmazonSNS sns, ResourceInventory inventory) {
         this.sns = sns;
+        this.topics = inventory.cache("topics", this::listTopics);
     }
 
     public boolean topicExists(String topicName) {
@@ -24,37 +29,47 @@ public class TopicService {
 
     public Topic getTopic(String topicName) {
         Logger.info("Getting topic [%s]", topicName);
+        return topics.get(topicName);
+    }
 
-        ListTopicsResult result = sns.listTopics();
-        List<Topic> topics = result.getTopics();
+    private Map<String, Topic> listTopics() {
+        Paginator<String, ListTopicsResult, Topic> pages = Paginator.paginate(null,
+                sns::listTopics,
+                ListTopicsResult::getTopics,
+                ListTopicsResult::getNextToken);
 
-        Optional<Topic> optionalTopic = topics.stream()
-                .filter(t -> t.getTopicArn().endsWith(topicName))
-                .findFirst();
+        return pages.prefetching().stream()
+                .collect(Collectors.toMap(t -> getTopicName(t.getTopicArn()), t -> t, (t1, t2) -> t1));
+    }
 
-        return optionalTopic.isPresent() ? optionalTopic.get() : null;
+    private String getTopicName(String topicArn) {
+        return topicArn.substring(topicArn.lastIndexOf(':') + 1);
     }
 
     public Topic createTopic(String topicName) {
-        if (topicExists(topicName)) {
+        Topic existing = getTopic(topicName);
+
+        if (existing != null) {
             Logger.info("Topic [%s] already exists", topicName);
-            return getTopic(topicName);
+            return existing;
         }
 
         Logger.info("Creating topic [%s]", topicName);
         CreateTopicResult result = sns.createTopic(topicName);
-        return new Topic().withTopicArn(result.getTopicArn());
+        return topics.put(topicName, new Topic().withTopicArn(result.getTopicArn()));
     }
 
     public void deleteTopic(String topicName) {
-        if (!topicExists(topicName)) {
+        Topic topic = getTopic(topicName);
+
+        if (topic == null) {
             Logger.info("Topic [%s] does not exist", topicName);
             return;
         }
 
         Logger.info("Deleting topic [%s]", topicName);
 
-        String topicArn = getTopic(topicName).getTopicArn();
-        sns.deleteTopic(topicArn);
+        sns.deleteTopic(topic.getTopicArn());
+        topics.remove(topicName);
     }
 }
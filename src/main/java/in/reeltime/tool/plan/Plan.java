@@ -0,0 +1,56 @@
+package in.reeltime.tool.plan;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class Plan {
+
+    private final List<ResourceChange> changes;
+
+    private Plan(Builder builder) {
+        this.changes = ImmutableList.copyOf(builder.changes);
+    }
+
+    public List<ResourceChange> getChanges() {
+        return changes.stream()
+                .filter(ResourceChange::isChange)
+                .collect(Collectors.toList());
+    }
+
+    public boolean hasChanges() {
+        return changes.stream().anyMatch(ResourceChange::isChange);
+    }
+
+    public boolean hasMissingPrerequisites() {
+        return changes.stream().anyMatch(c -> c.getAction() == ResourceChange.Action.MISSING);
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+
+        for (ResourceChange change : changes) {
+            sb.append(change).append(System.lineSeparator());
+        }
+
+        long count = changes.stream().filter(ResourceChange::isChange).count();
+        sb.append(String.format("%d of %d resources to change", count, changes.size()));
+
+        return sb.toString();
+    }
+
+    public static class Builder {
+        private List<ResourceChange> changes = Lists.newArrayList();
+
+        public Builder withChange(ResourceChange change) {
+            this.changes.add(change);
+            return this;
+        }
+
+        public Plan build() {
+            return new Plan(this);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package in.reeltime.tool.plan;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import in.reeltime.tool.access.AccessService;
+import in.reeltime.tool.beanstalk.BeanstalkService;
+import in.reeltime.tool.condition.ConditionalService;
+import in.reeltime.tool.database.DatabaseService;
+import in.reeltime.tool.deployment.DeploymentMode;
+import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.network.NetworkService;
+import in.reeltime.tool.storage.StorageService;
+import in.reeltime.tool.transcoder.TranscoderService;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+public class PlanService {
+
+    private static final int MAX_CONCURRENT_CHECKS = 16;
+
+    private final NetworkService networkService;
+    private final DatabaseService databaseService;
+    private final StorageService storageService;
+    private final AccessService accessService;
+    private final TranscoderService transcoderService;
+    private final BeanstalkService beanstalkService;
+
+    public PlanService(NetworkService networkService, DatabaseService databaseService,
+                       StorageService storageService, AccessService accessService,
+                       TranscoderService transcoderService, BeanstalkService beanstalkService) {
+        this.networkService = networkService;
+        this.databaseService = databaseService;
+        this.storageService = storageService;
+        this.accessService = accessService;
+        this.transcoderService = transcoderService;
+        this.beanstalkService = beanstalkService;
+    }
+
+    public Plan plan(String environmentName, String applicationName, String applicationVersion, File war,
+                     String certificateDomainName, boolean production, boolean removeResources,
+                     DeploymentMode deploymentMode) throws FileNotFoundException {
+        if (!war.exists()) {
+            String message = String.format("War file [%s] not found", war.getName());
+            throw new FileNotFoundException(message);
+        }
+
+        String warsBucketName = storageService.getWarsBucketName();
+
+        List<Supplier<ResourceChange>> checks = Lists.newArrayList();
+
+        checks.addAll(networkService.planNetwork());
+        checks.addAll(databaseService.planDatabase(!production && removeResources));
+        checks.addAll(storageService.planStorage());
+        checks.addAll(accessService.planAccess(certificateDomainName));
+        checks.addAll(transcoderService.planTranscoder(!production));
+        checks.addAll(beanstalkService.planBeanstalk(environmentName, applicationName, applicationVersion,
+                war, warsBucketName, production, deploymentMode));
+
+        Logger.info("Checking [%s] resources", checks.size());
+        return runChecks(checks);
+    }
+
+    // Running every check at once lets lookups of the same resource type share one batched describe call
+    private Plan runChecks(List<Supplier<ResourceChange>> checks) {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("plan-%d")
+                .setDaemon(true)
+                .build();
+
+        int threads = Math.max(1, Math.min(MAX_CONCURRENT_CHECKS, checks.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory);
+
+        try {
+            List<CompletableFuture<ResourceChange>> futures = checks.stream()
+                    .map(check -> CompletableFuture.supplyAsync(check, executor))
+                    .collect(Collectors.toList());
+
+            ConditionalService.await(CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])));
+
+            Plan.Builder builder = new Plan.Builder();
+            futures.forEach(future -> builder.withChange(future.join()));
+
+            return builder.build();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package in.reeltime.tool.plan;
+
+public class ResourceChange {
+
+    public enum Action {
+        CREATE("+"),
+        UPDATE("~"),
+        REPLACE("-/+"),
+        NONE("="),
+        MISSING("!");
+
+        private final String symbol;
+
+        Action(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+    }
+
+    private final Action action;
+    private final String resourceType;
+    private final String name;
+
+    public ResourceChange(Action action, String resourceType, String name) {
+        this.action = action;
+        this.resourceType = resourceType;
+        this.name = name;
+    }
+
+    public static ResourceChange ensure(String resourceType, String name, boolean exists) {
+        return new ResourceChange(exists ? Action.NONE : Action.CREATE, resourceType, name);
+    }
+
+    public static ResourceChange recreate(String resourceType, String name, boolean exists) {
+        return new ResourceChange(exists ? Action.REPLACE : Action.CREATE, resourceType, name);
+    }
+
+    public static ResourceChange require(String resourceType, String name, boolean exists) {
+        return new ResourceChange(exists ? Action.NONE : Action.MISSING, resourceType, name);
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isChange() {
+        return action != Action.NONE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%3s %-28s %s", action.getSymbol(), resourceType, name);
+    }
+}
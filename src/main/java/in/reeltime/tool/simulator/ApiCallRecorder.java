@@ -0,0 +1,77 @@
+package in.reeltime.tool.simulator;
+
+import com.google.common.base.Strings;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ApiCallRecorder {
+
+    private static final String OPERATION_KEY_FORMAT = "%s:%s";
+
+    private static final String HEADER_FORMAT = "%-50s %8s %10s %8s%n";
+    private static final String ROW_FORMAT = "%-50s %8d %10d %8d%n";
+
+    private final ConcurrentMap<String, Counts> counts = new ConcurrentHashMap<>();
+
+    void recordCall(String serviceName, String operation) {
+        counts(serviceName, operation).calls.increment();
+    }
+
+    void recordThrottle(String serviceName, String operation) {
+        counts(serviceName, operation).throttles.increment();
+    }
+
+    void recordFault(String serviceName, String operation) {
+        counts(serviceName, operation).faults.increment();
+    }
+
+    public long getCallCount() {
+        return counts.values().stream()
+                .mapToLong(c -> c.calls.sum())
+                .sum();
+    }
+
+    public long getCallCount(String serviceName, String operation) {
+        Counts operationCounts = counts.get(String.format(OPERATION_KEY_FORMAT, serviceName, operation));
+        return operationCounts != null ? operationCounts.calls.sum() : 0;
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(HEADER_FORMAT, "Operation", "Calls", "Throttled", "Faults"));
+
+        long calls = 0;
+        long throttles = 0;
+        long faults = 0;
+
+        for (Map.Entry<String, Counts> entry : new ConcurrentSkipListMap<>(counts).entrySet()) {
+            Counts operationCounts = entry.getValue();
+
+            calls += operationCounts.calls.sum();
+            throttles += operationCounts.throttles.sum();
+            faults += operationCounts.faults.sum();
+
+            sb.append(String.format(ROW_FORMAT, entry.getKey(), operationCounts.calls.sum(),
+                    operationCounts.throttles.sum(), operationCounts.faults.sum()));
+        }
+
+        sb.append(Strings.repeat("-", 79)).append(System.lineSeparator());
+        sb.append(String.format(ROW_FORMAT, "Total", calls, throttles, faults));
+
+        return sb.toString();
+    }
+
+    private Counts counts(String serviceName, String operation) {
+        return counts.computeIfAbsent(String.format(OPERATION_KEY_FORMAT, serviceName, operation), k -> new Counts());
+    }
+
+    private static class Counts {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder throttles = new LongAdder();
+        private final LongAdder faults = new LongAdder();
+    }
+}
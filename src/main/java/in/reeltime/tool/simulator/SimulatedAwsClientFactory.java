@@ -0,0 +1,105 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.certificatemanager.AWSCertificateManager;
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.elasticbeanstalk.AWSElasticBeanstalk;
+import com.amazonaws.services.elasticloadbalancing.AmazonElasticLoadBalancing;
+import com.amazonaws.services.elastictranscoder.AmazonElasticTranscoder;
+import com.amazonaws.services.identitymanagement.AmazonIdentityManagement;
+import com.amazonaws.services.rds.AmazonRDS;
+import com.amazonaws.services.route53.AmazonRoute53;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.sns.AmazonSNS;
+import in.reeltime.tool.aws.AwsClientFactory;
+
+// Hands out clients backed by the in-memory services instead of the AWS endpoints
+public class SimulatedAwsClientFactory extends AwsClientFactory {
+
+    private static final String ACCOUNT_ID = "123456789012";
+
+    private final AWSCertificateManager acm;
+    private final AWSElasticBeanstalk eb;
+    private final AmazonEC2 ec2;
+    private final AmazonElasticLoadBalancing elb;
+    private final AmazonElasticTranscoder ets;
+    private final AmazonIdentityManagement iam;
+    private final AmazonRDS rds;
+    private final AmazonRoute53 route53;
+    private final AmazonS3 s3;
+    private final AmazonSNS sns;
+
+    public SimulatedAwsClientFactory(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder,
+                                     String hostedZoneDomainName, String certificateDomainName) {
+        super(new BasicAWSCredentials("simulated", "simulated"));
+
+        String region = getRegionName();
+        SimulatedBeanstalk beanstalk = new SimulatedBeanstalk(configuration, clock, recorder, region);
+
+        this.acm = new SimulatedCertificateManager(configuration, clock, recorder, ACCOUNT_ID, region, certificateDomainName)
+                .proxy(AWSCertificateManager.class);
+        this.eb = beanstalk.proxy(AWSElasticBeanstalk.class);
+        this.ec2 = new SimulatedEc2(configuration, clock, recorder, ACCOUNT_ID, region).proxy(AmazonEC2.class);
+        this.elb = new SimulatedLoadBalancing(configuration, clock, recorder, beanstalk).proxy(AmazonElasticLoadBalancing.class);
+        this.ets = new SimulatedTranscoder(configuration, clock, recorder, ACCOUNT_ID, region).proxy(AmazonElasticTranscoder.class);
+        this.iam = new SimulatedIdentityManagement(configuration, clock, recorder, ACCOUNT_ID).proxy(AmazonIdentityManagement.class);
+        this.rds = new SimulatedRds(configuration, clock, recorder, region).proxy(AmazonRDS.class);
+        this.route53 = new SimulatedRoute53(configuration, clock, recorder, hostedZoneDomainName).proxy(AmazonRoute53.class);
+        this.s3 = new SimulatedS3(configuration, clock, recorder, region).proxy(AmazonS3.class);
+        this.sns = new SimulatedSns(configuration, clock, recorder, ACCOUNT_ID, region).proxy(AmazonSNS.class);
+    }
+
+    @Override
+    public AWSCertificateManager acm() {
+        return acm;
+    }
+
+    @Override
+    public AWSElasticBeanstalk eb() {
+        return eb;
+    }
+
+    @Override
+    public AmazonEC2 ec2() {
+        return ec2;
+    }
+
+    @Override
+    public AmazonElasticLoadBalancing elb() {
+        return elb;
+    }
+
+    @Override
+    public AmazonElasticTranscoder ets() {
+        return ets;
+    }
+
+    @Override
+    public AmazonIdentityManagement iam() {
+        return iam;
+    }
+
+    @Override
+    public AmazonRDS rds() {
+        return rds;
+    }
+
+    @Override
+    public AmazonRoute53 route53() {
+        return route53;
+    }
+
+    @Override
+    public AmazonS3 s3() {
+        return s3;
+    }
+
+    @Override
+    public AmazonSNS sns() {
+        return sns;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
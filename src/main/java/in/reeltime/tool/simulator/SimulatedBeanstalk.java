@@ -0,0 +1,404 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.services.elasticbeanstalk.model.*;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.aws.ApiRateLimit;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class SimulatedBeanstalk extends SimulatedService {
+
+    private static final String LAUNCHING_STATUS = "Launching";
+    private static final String UPDATING_STATUS = "Updating";
+    private static final String READY_STATUS = "Ready";
+    private static final String TERMINATING_STATUS = "Terminating";
+    private static final String TERMINATED_STATUS = "Terminated";
+
+    private static final String GREEN_HEALTH = "Green";
+    private static final String GREY_HEALTH = "Grey";
+
+    private static final String INFO_SEVERITY = "INFO";
+
+    private static final String CNAME_FORMAT = "%s.%s.elasticbeanstalk.com";
+    private static final String ENDPOINT_URL_FORMAT = "awseb-%s-AWSEBLoa-%s.%s.elb.amazonaws.com";
+
+    private final String region;
+
+    private final Map<String, ApplicationRecord> applications = Maps.newLinkedHashMap();
+    private final Map<String, EnvironmentRecord> environments = Maps.newLinkedHashMap();
+
+    private final List<EventRecord> pendingEvents = Lists.newArrayList();
+    private final List<EventRecord> events = Lists.newArrayList();
+
+    SimulatedBeanstalk(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder, String region) {
+        super(ApiRateLimit.EB, configuration, clock, recorder);
+        this.region = region;
+    }
+
+    public synchronized CreateApplicationResult createApplication(CreateApplicationRequest request) {
+        String applicationName = request.getApplicationName();
+
+        if (applications.containsKey(applicationName)) {
+            throw invalidParameter("Application " + applicationName + " already exists.");
+        }
+
+        ApplicationRecord application = new ApplicationRecord(applicationName);
+        applications.put(applicationName, application);
+
+        return new CreateApplicationResult().withApplication(application.toApplicationDescription());
+    }
+
+    public synchronized DescribeApplicationsResult describeApplications(DescribeApplicationsRequest request) {
+        List<ApplicationDescription> matching = applications.values().stream()
+                .filter(a -> request.getApplicationNames().isEmpty() || request.getApplicationNames().contains(a.name))
+                .map(ApplicationRecord::toApplicationDescription)
+                .collect(Collectors.toList());
+
+        return new DescribeApplicationsResult().withApplications(matching);
+    }
+
+    public synchronized void deleteApplication(DeleteApplicationRequest request) {
+        getApplication(request.getApplicationName());
+        applications.remove(request.getApplicationName());
+    }
+
+    public synchronized CreateApplicationVersionResult createApplicationVersion(CreateApplicationVersionRequest request) {
+        ApplicationRecord application = getApplication(request.getApplicationName());
+        String versionLabel = request.getVersionLabel();
+
+        if (application.versions.containsKey(versionLabel)) {
+            throw invalidParameter("Application Version " + versionLabel + " already exists.");
+        }
+
+        ApplicationVersionDescription version = new ApplicationVersionDescription()
+                .withApplicationName(application.name)
+                .withVersionLabel(versionLabel)
+                .withSourceBundle(request.getSourceBundle())
+                .withDateCreated(new Date());
+
+        application.versions.put(versionLabel, version);
+        return new CreateApplicationVersionResult().withApplicationVersion(copy(version));
+    }
+
+    public synchronized DescribeApplicationVersionsResult describeApplicationVersions(DescribeApplicationVersionsRequest request) {
+        List<ApplicationVersionDescription> matching = applications.values().stream()
+                .filter(a -> request.getApplicationName() == null || request.getApplicationName().equals(a.name))
+                .flatMap(a -> a.versions.values().stream())
+                .filter(v -> request.getVersionLabels().isEmpty() || request.getVersionLabels().contains(v.getVersionLabel()))
+                .map(this::copy)
+                .collect(Collectors.toList());
+
+        return new DescribeApplicationVersionsResult().withApplicationVersions(matching);
+    }
+
+    public synchronized void deleteApplicationVersion(DeleteApplicationVersionRequest request) {
+        ApplicationRecord application = getApplication(request.getApplicationName());
+        String versionLabel = request.getVersionLabel();
+
+        if (application.versions.remove(versionLabel) == null) {
+            throw invalidParameter("Application Version " + versionLabel + " does not exist.");
+        }
+    }
+
+    public synchronized CreateEnvironmentResult createEnvironment(CreateEnvironmentRequest request) {
+        settle();
+
+        ApplicationRecord application = getApplication(request.getApplicationName());
+        String environmentName = request.getEnvironmentName();
+
+        if (!application.versions.containsKey(request.getVersionLabel())) {
+            throw invalidParameter("No Application Version named '" + request.getVersionLabel() + "' found.");
+        }
+
+        boolean nameInUse = environments.values().stream()
+                .anyMatch(e -> e.name.equals(environmentName) && !e.getStatus().equals(TERMINATED_STATUS));
+
+        if (nameInUse) {
+            throw invalidParameter("Environment " + environmentName + " already exists.");
+        }
+
+        String environmentId = newId("e");
+        EnvironmentRecord environment = new EnvironmentRecord(environmentId, request, now());
+        environments.put(environmentId, environment);
+
+        publish(environment, INFO_SEVERITY, "createEnvironment is starting.", 0);
+        publish(environment, INFO_SEVERITY, "Created load balancer named: " + environment.endpointUrl, 0);
+        publish(environment, INFO_SEVERITY, "Successfully launched environment: " + environmentName,
+                configuration.getTransitionDelayMillis(Transition.ENVIRONMENT_LAUNCH));
+
+        EnvironmentDescription description = environment.toEnvironmentDescription();
+
+        return new CreateEnvironmentResult()
+                .withEnvironmentId(description.getEnvironmentId())
+                .withEnvironmentName(description.getEnvironmentName())
+                .withApplicationName(description.getApplicationName())
+                .withVersionLabel(description.getVersionLabel())
+                .withDescription(description.getDescription())
+                .withSolutionStackName(description.getSolutionStackName())
+                .withTier(description.getTier())
+                .withStatus(description.getStatus())
+                .withHealth(description.getHealth())
+                .withDateCreated(description.getDateCreated());
+    }
+
+    public synchronized DescribeEnvironmentsResult describeEnvironments(DescribeEnvironmentsRequest request) {
+        settle();
+
+        boolean includeDeleted = request.getIncludeDeleted() == null || request.getIncludeDeleted();
+
+        List<EnvironmentDescription> matching = environments.values().stream()
+                .filter(e -> request.getEnvironmentIds().isEmpty() || request.getEnvironmentIds().contains(e.id))
+                .filter(e -> request.getEnvironmentNames().isEmpty() || request.getEnvironmentNames().contains(e.name))
+                .filter(e -> request.getApplicationName() == null || request.getApplicationName().equals(e.applicationName))
+                .filter(e -> request.getVersionLabel() == null || request.getVersionLabel().equals(e.versionLabel))
+                .filter(e -> includeDeleted || !e.getStatus().equals(TERMINATED_STATUS))
+                .map(EnvironmentRecord::toEnvironmentDescription)
+                .collect(Collectors.toList());
+
+        return new DescribeEnvironmentsResult().withEnvironments(matching);
+    }
+
+    public synchronized UpdateEnvironmentResult updateEnvironment(UpdateEnvironmentRequest request) {
+        settle();
+
+        EnvironmentRecord environment = getEnvironment(request.getEnvironmentId(), request.getEnvironmentName());
+
+        if (!environment.getStatus().equals(READY_STATUS)) {
+            throw invalidParameter("Environment named " + environment.name + " is in an invalid state for this operation. " +
+                    "Must be Ready.");
+        }
+
+        if (request.getVersionLabel() != null) {
+            environment.versionLabel = request.getVersionLabel();
+        }
+        environment.updatedAt = now();
+        environment.dateUpdated = new Date();
+
+        publish(environment, INFO_SEVERITY, "Environment update is starting.", 0);
+        publish(environment, INFO_SEVERITY, "Environment update completed successfully.",
+                configuration.getTransitionDelayMillis(Transition.ENVIRONMENT_UPDATE));
+
+        EnvironmentDescription description = environment.toEnvironmentDescription();
+
+        return new UpdateEnvironmentResult()
+                .withEnvironmentId(description.getEnvironmentId())
+                .withEnvironmentName(description.getEnvironmentName())
+                .withVersionLabel(description.getVersionLabel())
+                .withStatus(description.getStatus())
+                .withHealth(description.getHealth());
+    }
+
+    public synchronized TerminateEnvironmentResult terminateEnvironment(TerminateEnvironmentRequest request) {
+        settle();
+
+        EnvironmentRecord environment = getEnvironment(request.getEnvironmentId(), request.getEnvironmentName());
+
+        if (environment.terminatedAt == null) {
+            environment.terminatedAt = now();
+
+            publish(environment, INFO_SEVERITY, "terminateEnvironment is starting.", 0);
+            publish(environment, INFO_SEVERITY, "terminateEnvironment completed successfully.",
+                    configuration.getTransitionDelayMillis(Transition.ENVIRONMENT_TERMINATE));
+        }
+
+        return new TerminateEnvironmentResult()
+                .withEnvironmentId(environment.id)
+                .withEnvironmentName(environment.name)
+                .withStatus(environment.getStatus());
+    }
+
+    public synchronized DescribeEventsResult describeEvents(DescribeEventsRequest request) {
+        settle();
+
+        Date startTime = request.getStartTime();
+
+        // Events are returned newest first
+        List<EventDescription> matching = Lists.reverse(events).stream()
+                .filter(e -> request.getEnvironmentId() == null || request.getEnvironmentId().equals(e.environmentId))
+                .filter(e -> request.getRequestId() == null || request.getRequestId().equals(e.requestId))
+                .filter(e -> startTime == null || !e.eventDate.before(startTime))
+                .map(EventRecord::toEventDescription)
+                .collect(Collectors.toList());
+
+        return new DescribeEventsResult().withEvents(matching);
+    }
+
+    synchronized List<String> getLoadBalancerDnsNames() {
+        settle();
+
+        return environments.values().stream()
+                .filter(e -> !e.getStatus().equals(TERMINATED_STATUS))
+                .map(e -> e.endpointUrl)
+                .collect(Collectors.toList());
+    }
+
+    // Events are published once the transition they report on has elapsed, so they carry the time they became visible
+    private void settle() {
+        Iterator<EventRecord> iterator = pendingEvents.iterator();
+
+        while (iterator.hasNext()) {
+            EventRecord event = iterator.next();
+
+            if (now() >= event.dueAt) {
+                iterator.remove();
+
+                event.eventDate = new Date();
+                events.add(event);
+            }
+        }
+    }
+
+    private void publish(EnvironmentRecord environment, String severity, String message, long delayMillis) {
+        pendingEvents.add(new EventRecord(environment, getRequestId(), severity, message, now() + delayMillis));
+        settle();
+    }
+
+    private ApplicationVersionDescription copy(ApplicationVersionDescription version) {
+        return new ApplicationVersionDescription()
+                .withApplicationName(version.getApplicationName())
+                .withVersionLabel(version.getVersionLabel())
+                .withSourceBundle(version.getSourceBundle())
+                .withDateCreated(version.getDateCreated());
+    }
+
+    private ApplicationRecord getApplication(String applicationName) {
+        ApplicationRecord application = applications.get(applicationName);
+
+        if (application == null) {
+            throw invalidParameter("No Application named '" + applicationName + "' found.");
+        }
+        return application;
+    }
+
+    private EnvironmentRecord getEnvironment(String environmentId, String environmentName) {
+        return environments.values().stream()
+                .filter(e -> environmentId != null ? e.id.equals(environmentId) : e.name.equals(environmentName))
+                .filter(e -> !e.getStatus().equals(TERMINATED_STATUS))
+                .findFirst()
+                .orElseThrow(() -> invalidParameter("No Environment found for EnvironmentId = '" + environmentId +
+                        "', EnvironmentName = '" + environmentName + "'."));
+    }
+
+    private RuntimeException invalidParameter(String message) {
+        return serviceException("InvalidParameterValue", 400, message);
+    }
+
+    private class ApplicationRecord {
+        private final String name;
+        private final Date dateCreated = new Date();
+        private final Map<String, ApplicationVersionDescription> versions = Maps.newLinkedHashMap();
+
+        private ApplicationRecord(String name) {
+            this.name = name;
+        }
+
+        private ApplicationDescription toApplicationDescription() {
+            return new ApplicationDescription()
+                    .withApplicationName(name)
+                    .withDateCreated(dateCreated)
+                    .withVersions(Lists.newArrayList(versions.keySet()));
+        }
+    }
+
+    private class EnvironmentRecord {
+        private final String id;
+        private final String name;
+        private final String applicationName;
+        private final String description;
+        private final String solutionStackName;
+        private final EnvironmentTier tier;
+        private final String cname;
+        private final String endpointUrl;
+        private final long createdAt;
+        private final Date dateCreated = new Date();
+
+        private String versionLabel;
+        private Date dateUpdated = dateCreated;
+        private Long updatedAt;
+        private Long terminatedAt;
+
+        private EnvironmentRecord(String id, CreateEnvironmentRequest request, long createdAt) {
+            this.id = id;
+            this.name = request.getEnvironmentName();
+            this.applicationName = request.getApplicationName();
+            this.description = request.getDescription();
+            this.solutionStackName = request.getSolutionStackName();
+            this.tier = request.getTier();
+            this.versionLabel = request.getVersionLabel();
+            this.cname = String.format(CNAME_FORMAT, name, region);
+            this.endpointUrl = String.format(ENDPOINT_URL_FORMAT, id, Long.toHexString(createdAt).toUpperCase(), region);
+            this.createdAt = createdAt;
+        }
+
+        private String getStatus() {
+            if (terminatedAt != null) {
+                return hasElapsed(terminatedAt, Transition.ENVIRONMENT_TERMINATE) ? TERMINATED_STATUS : TERMINATING_STATUS;
+            }
+            else if (!hasElapsed(createdAt, Transition.ENVIRONMENT_LAUNCH)) {
+                return LAUNCHING_STATUS;
+            }
+            else if (updatedAt != null && !hasElapsed(updatedAt, Transition.ENVIRONMENT_UPDATE)) {
+                return UPDATING_STATUS;
+            }
+            return READY_STATUS;
+        }
+
+        private String getHealth() {
+            String status = getStatus();
+            return status.equals(READY_STATUS) || status.equals(UPDATING_STATUS) ? GREEN_HEALTH : GREY_HEALTH;
+        }
+
+        private EnvironmentDescription toEnvironmentDescription() {
+            return new EnvironmentDescription()
+                    .withEnvironmentId(id)
+                    .withEnvironmentName(name)
+                    .withApplicationName(applicationName)
+                    .withVersionLabel(versionLabel)
+                    .withDescription(description)
+                    .withSolutionStackName(solutionStackName)
+                    .withTier(tier)
+                    .withCNAME(cname)
+                    .withEndpointURL(endpointUrl)
+                    .withStatus(getStatus())
+                    .withHealth(getHealth())
+                    .withDateCreated(dateCreated)
+                    .withDateUpdated(dateUpdated);
+        }
+    }
+
+    private static class EventRecord {
+        private final String environmentId;
+        private final String applicationName;
+        private final String environmentName;
+        private final String requestId;
+        private final String severity;
+        private final String message;
+        private final long dueAt;
+        private Date eventDate;
+
+        private EventRecord(EnvironmentRecord environment, String requestId, String severity, String message, long dueAt) {
+            this.environmentId = environment.id;
+            this.applicationName = environment.applicationName;
+            this.environmentName = environment.name;
+            this.requestId = requestId;
+            this.severity = severity;
+            this.message = message;
+            this.dueAt = dueAt;
+        }
+
+        private EventDescription toEventDescription() {
+            return new EventDescription()
+                    .withApplicationName(applicationName)
+                    .withEnvironmentName(environmentName)
+                    .withRequestId(requestId)
+                    .withSeverity(severity)
+                    .withMessage(message)
+                    .withEventDate(eventDate);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.services.certificatemanager.model.*;
+import in.reeltime.tool.aws.ApiRateLimit;
+
+import java.util.Collections;
+import java.util.Date;
+
+// Certificates are issued out of band, so the simulation starts with the one the deployment expects
+class SimulatedCertificateManager extends SimulatedService {
+
+    private static final String CERTIFICATE_ARN_FORMAT = "arn:aws:acm:%s:%s:certificate/%s";
+
+    private final String certificateArn;
+    private final String domainName;
+    private final Date issuedAt = new Date();
+
+    SimulatedCertificateManager(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder,
+                                String accountId, String region, String domainName) {
+        super(ApiRateLimit.ACM, configuration, clock, recorder);
+        this.certificateArn = String.format(CERTIFICATE_ARN_FORMAT, region, accountId, newId("certificate"));
+        this.domainName = domainName;
+    }
+
+    public ListCertificatesResult listCertificates(ListCertificatesRequest request) {
+        boolean issuedRequested = request.getCertificateStatuses().isEmpty() ||
+                request.getCertificateStatuses().contains(CertificateStatus.ISSUED.toString());
+
+        ListCertificatesResult result = new ListCertificatesResult();
+
+        if (issuedRequested) {
+            result.setCertificateSummaryList(Collections.singletonList(new CertificateSummary()
+                    .withCertificateArn(certificateArn)
+                    .withDomainName(domainName)));
+        }
+        return result;
+    }
+
+    public DescribeCertificateResult describeCertificate(DescribeCertificateRequest request) {
+        if (!certificateArn.equals(request.getCertificateArn())) {
+            String message = "Could not find certificate " + request.getCertificateArn() + ".";
+            throw error(new ResourceNotFoundException(message), "ResourceNotFoundException", 400);
+        }
+
+        CertificateDetail certificate = new CertificateDetail()
+                .withCertificateArn(certificateArn)
+                .withDomainName(domainName)
+                .withSubjectAlternativeNames(domainName)
+                .withStatus(CertificateStatus.ISSUED)
+                .withIssuer("Amazon")
+                .withIssuedAt(issuedAt);
+
+        return new DescribeCertificateResult().withCertificate(certificate);
+    }
+}
@@ -0,0 +1,41 @@
+package in.reeltime.tool.simulator;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.util.concurrent.TimeUnit;
+
+// Runs simulated time faster than the wall clock by the inverse of the time scale
+public class SimulatedClock {
+
+    private final double timeScale;
+    private final long startNanos;
+
+    public SimulatedClock(double timeScale) {
+        if (timeScale <= 0) {
+            throw new IllegalArgumentException("Time scale must be positive");
+        }
+
+        this.timeScale = timeScale;
+        this.startNanos = System.nanoTime();
+    }
+
+    public double getTimeScale() {
+        return timeScale;
+    }
+
+    public long currentTimeMillis() {
+        return (long) (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) / timeScale);
+    }
+
+    public long wallClockMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    public void sleep(long simulatedMillis) {
+        long nanos = (long) (TimeUnit.MILLISECONDS.toNanos(simulatedMillis) * timeScale);
+
+        if (nanos > 0) {
+            Uninterruptibles.sleepUninterruptibly(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
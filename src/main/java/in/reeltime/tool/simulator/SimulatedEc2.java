@@ -0,0 +1,710 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.services.ec2.model.*;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.aws.ApiRateLimit;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class SimulatedEc2 extends SimulatedService {
+
+    private static final String AVAILABLE_STATE = "available";
+    private static final String PENDING_STATE = "pending";
+    private static final String DELETING_STATE = "deleting";
+    private static final String DELETED_STATE = "deleted";
+
+    private static final String LOCAL_GATEWAY_ID = "local";
+    private static final String ALL_TRAFFIC_PROTOCOL = "-1";
+    private static final String ANYWHERE_CIDR_BLOCK = "0.0.0.0/0";
+
+    private static final String NOT_FOUND_ERROR_CODE_FORMAT = "%s.NotFound";
+    private static final String DEPENDENCY_VIOLATION_ERROR_CODE = "DependencyViolation";
+
+    private static final String PUBLIC_IP_FORMAT = "203.0.113.%d";
+
+    private final String accountId;
+    private final String region;
+
+    private final Map<String, VpcRecord> vpcs = Maps.newLinkedHashMap();
+    private final Map<String, SubnetRecord> subnets = Maps.newLinkedHashMap();
+    private final Map<String, RouteTableRecord> routeTables = Maps.newLinkedHashMap();
+    private final Map<String, SecurityGroupRecord> securityGroups = Maps.newLinkedHashMap();
+    private final Map<String, InternetGatewayRecord> internetGateways = Maps.newLinkedHashMap();
+    private final Map<String, NatGatewayRecord> natGateways = Maps.newLinkedHashMap();
+    private final Map<String, String> addresses = Maps.newLinkedHashMap();
+
+    private final Map<String, String> resourceTypes = Maps.newHashMap();
+    private final Map<String, Map<String, String>> tags = Maps.newHashMap();
+
+    SimulatedEc2(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder,
+                 String accountId, String region) {
+        super(ApiRateLimit.EC2, configuration, clock, recorder);
+        this.accountId = accountId;
+        this.region = region;
+    }
+
+    public synchronized DescribeAvailabilityZonesResult describeAvailabilityZones(DescribeAvailabilityZonesRequest request) {
+        List<AvailabilityZone> zones = Lists.newArrayList();
+
+        for (char zone = 'a'; zone <= 'c'; zone++) {
+            zones.add(new AvailabilityZone()
+                    .withZoneName(region + zone)
+                    .withRegionName(region)
+                    .withState(AVAILABLE_STATE));
+        }
+        return new DescribeAvailabilityZonesResult().withAvailabilityZones(zones);
+    }
+
+    public synchronized CreateVpcResult createVpc(CreateVpcRequest request) {
+        VpcRecord vpc = new VpcRecord(newId("vpc"), request.getCidrBlock());
+        register(vpcs, vpc.id, vpc, "vpc");
+
+        return new CreateVpcResult().withVpc(vpc.toVpc());
+    }
+
+    public synchronized void modifyVpcAttribute(ModifyVpcAttributeRequest request) {
+        get(vpcs, request.getVpcId(), "InvalidVpcID");
+    }
+
+    public synchronized DescribeVpcsResult describeVpcs(DescribeVpcsRequest request) {
+        List<VpcRecord> matching = describe(vpcs, request.getVpcIds(), "InvalidVpcID", request.getFilters(),
+                (vpc, name) -> name.equals("vpc-id") ? ImmutableList.of(vpc.id) : null);
+
+        return new DescribeVpcsResult().withVpcs(Lists.transform(matching, VpcRecord::toVpc));
+    }
+
+    public synchronized void deleteVpc(DeleteVpcRequest request) {
+        String vpcId = request.getVpcId();
+        get(vpcs, vpcId, "InvalidVpcID");
+
+        boolean inUse = subnets.values().stream().anyMatch(s -> s.vpcId.equals(vpcId)) ||
+                routeTables.values().stream().anyMatch(r -> r.vpcId.equals(vpcId)) ||
+                securityGroups.values().stream().anyMatch(g -> g.vpcId.equals(vpcId)) ||
+                internetGateways.values().stream().anyMatch(g -> vpcId.equals(g.vpcId));
+
+        if (inUse) {
+            throw dependencyViolation(vpcId);
+        }
+        unregister(vpcs, vpcId);
+    }
+
+    public synchronized CreateSubnetResult createSubnet(CreateSubnetRequest request) {
+        get(vpcs, request.getVpcId(), "InvalidVpcID");
+
+        SubnetRecord subnet = new SubnetRecord(newId("subnet"), request.getVpcId(), request.getAvailabilityZone(),
+                request.getCidrBlock());
+        register(subnets, subnet.id, subnet, "subnet");
+
+        return new CreateSubnetResult().withSubnet(subnet.toSubnet());
+    }
+
+    public synchronized DescribeSubnetsResult describeSubnets(DescribeSubnetsRequest request) {
+        List<SubnetRecord> matching = describe(subnets, request.getSubnetIds(), "InvalidSubnetID", request.getFilters(),
+                (subnet, name) -> {
+                    switch (name) {
+                        case "subnet-id":
+                            return ImmutableList.of(subnet.id);
+                        case "vpc-id":
+                            return ImmutableList.of(subnet.vpcId);
+                        case "availability-zone":
+                            return ImmutableList.of(subnet.zone);
+                        default:
+                            return null;
+                    }
+                });
+
+        return new DescribeSubnetsResult().withSubnets(Lists.transform(matching, SubnetRecord::toSubnet));
+    }
+
+    public synchronized void deleteSubnet(DeleteSubnetRequest request) {
+        String subnetId = request.getSubnetId();
+        get(subnets, subnetId, "InvalidSubnetID");
+
+        boolean inUse = natGateways.values().stream()
+                .anyMatch(g -> g.subnetId.equals(subnetId) && !g.getState().equals(DELETED_STATE));
+
+        if (inUse) {
+            throw dependencyViolation(subnetId);
+        }
+
+        routeTables.values().forEach(r -> r.associations.values().remove(subnetId));
+        unregister(subnets, subnetId);
+    }
+
+    public synchronized CreateRouteTableResult createRouteTable(CreateRouteTableRequest request) {
+        VpcRecord vpc = get(vpcs, request.getVpcId(), "InvalidVpcID");
+
+        RouteTableRecord routeTable = new RouteTableRecord(newId("rtb"), vpc.id);
+        routeTable.routes.add(new Route()
+                .withDestinationCidrBlock(vpc.cidrBlock)
+                .withGatewayId(LOCAL_GATEWAY_ID)
+                .withState("active")
+                .withOrigin("CreateRouteTable"));
+
+        register(routeTables, routeTable.id, routeTable, "route-table");
+        return new CreateRouteTableResult().withRouteTable(routeTable.toRouteTable());
+    }
+
+    public synchronized DescribeRouteTablesResult describeRouteTables(DescribeRouteTablesRequest request) {
+        List<RouteTableRecord> matching = describe(routeTables, request.getRouteTableIds(), "InvalidRouteTableID",
+                request.getFilters(), (routeTable, name) -> {
+                    switch (name) {
+                        case "route-table-id":
+                            return ImmutableList.of(routeTable.id);
+                        case "vpc-id":
+                            return ImmutableList.of(routeTable.vpcId);
+                        case "association.subnet-id":
+                            return routeTable.associations.values();
+                        default:
+                            return null;
+                    }
+                });
+
+        return new DescribeRouteTablesResult().withRouteTables(Lists.transform(matching, RouteTableRecord::toRouteTable));
+    }
+
+    public synchronized void deleteRouteTable(DeleteRouteTableRequest request) {
+        String routeTableId = request.getRouteTableId();
+        RouteTableRecord routeTable = get(routeTables, routeTableId, "InvalidRouteTableID");
+
+        if (!routeTable.associations.isEmpty()) {
+            throw dependencyViolation(routeTableId);
+        }
+        unregister(routeTables, routeTableId);
+    }
+
+    public synchronized AssociateRouteTableResult associateRouteTable(AssociateRouteTableRequest request) {
+        RouteTableRecord routeTable = get(routeTables, request.getRouteTableId(), "InvalidRouteTableID");
+        String subnetId = get(subnets, request.getSubnetId(), "InvalidSubnetID").id;
+
+        if (routeTables.values().stream().anyMatch(r -> r.associations.containsValue(subnetId))) {
+            throw serviceException("Resource.AlreadyAssociated", 400, "The subnet " + subnetId + " is already associated");
+        }
+
+        String associationId = newId("rtbassoc");
+        routeTable.associations.put(associationId, subnetId);
+
+        return new AssociateRouteTableResult().withAssociationId(associationId);
+    }
+
+    public synchronized void disassociateRouteTable(DisassociateRouteTableRequest request) {
+        String associationId = request.getAssociationId();
+
+        RouteTableRecord routeTable = routeTables.values().stream()
+                .filter(r -> r.associations.containsKey(associationId))
+                .findFirst()
+                .orElseThrow(() -> notFound("InvalidAssociationID", associationId));
+
+        routeTable.associations.remove(associationId);
+    }
+
+    public synchronized CreateRouteResult createRoute(CreateRouteRequest request) {
+        RouteTableRecord routeTable = get(routeTables, request.getRouteTableId(), "InvalidRouteTableID");
+        String cidrBlock = request.getDestinationCidrBlock();
+
+        if (routeTable.routes.stream().anyMatch(r -> r.getDestinationCidrBlock().equals(cidrBlock))) {
+            throw serviceException("RouteAlreadyExists", 400, "The route identified by " + cidrBlock + " already exists");
+        }
+
+        if (request.getNatGatewayId() != null) {
+            get(natGateways, request.getNatGatewayId(), "NatGateway");
+        }
+        else {
+            get(internetGateways, request.getGatewayId(), "InvalidInternetGatewayID");
+        }
+
+        routeTable.routes.add(new Route()
+                .withDestinationCidrBlock(cidrBlock)
+                .withGatewayId(request.getGatewayId())
+                .withNatGatewayId(request.getNatGatewayId())
+                .withState("active")
+                .withOrigin("CreateRoute"));
+
+        return new CreateRouteResult().withReturn(true);
+    }
+
+    public synchronized CreateInternetGatewayResult createInternetGateway(CreateInternetGatewayRequest request) {
+        InternetGatewayRecord internetGateway = new InternetGatewayRecord(newId("igw"));
+        register(internetGateways, internetGateway.id, internetGateway, "internet-gateway");
+
+        return new CreateInternetGatewayResult().withInternetGateway(internetGateway.toInternetGateway());
+    }
+
+    public synchronized DescribeInternetGatewaysResult describeInternetGateways(DescribeInternetGatewaysRequest request) {
+        List<InternetGatewayRecord> matching = describe(internetGateways, request.getInternetGatewayIds(),
+                "InvalidInternetGatewayID", request.getFilters(), (internetGateway, name) -> {
+                    switch (name) {
+                        case "internet-gateway-id":
+                            return ImmutableList.of(internetGateway.id);
+                        case "attachment.vpc-id":
+                            return internetGateway.vpcId != null ? ImmutableList.of(internetGateway.vpcId) : ImmutableList.of();
+                        default:
+                            return null;
+                    }
+                });
+
+        return new DescribeInternetGatewaysResult()
+                .withInternetGateways(Lists.transform(matching, InternetGatewayRecord::toInternetGateway));
+    }
+
+    public synchronized void attachInternetGateway(AttachInternetGatewayRequest request) {
+        InternetGatewayRecord internetGateway = get(internetGateways, request.getInternetGatewayId(), "InvalidInternetGatewayID");
+        String vpcId = get(vpcs, request.getVpcId(), "InvalidVpcID").id;
+
+        if (internetGateway.vpcId != null) {
+            throw serviceException("Resource.AlreadyAssociated", 400, "The internet gateway is already attached");
+        }
+        internetGateway.vpcId = vpcId;
+    }
+
+    public synchronized void detachInternetGateway(DetachInternetGatewayRequest request) {
+        InternetGatewayRecord internetGateway = get(internetGateways, request.getInternetGatewayId(), "InvalidInternetGatewayID");
+
+        if (!request.getVpcId().equals(internetGateway.vpcId)) {
+            throw serviceException("Gateway.NotAttached", 400, "The internet gateway is not attached to " + request.getVpcId());
+        }
+        internetGateway.vpcId = null;
+    }
+
+    public synchronized void deleteInternetGateway(DeleteInternetGatewayRequest request) {
+        String internetGatewayId = request.getInternetGatewayId();
+        InternetGatewayRecord internetGateway = get(internetGateways, internetGatewayId, "InvalidInternetGatewayID");
+
+        if (internetGateway.vpcId != null) {
+            throw dependencyViolation(internetGatewayId);
+        }
+        unregister(internetGateways, internetGatewayId);
+    }
+
+    public synchronized AllocateAddressResult allocateAddress(AllocateAddressRequest request) {
+        String allocationId = newId("eipalloc");
+        String publicIp = String.format(PUBLIC_IP_FORMAT, addresses.size() + 1);
+
+        addresses.put(allocationId, publicIp);
+
+        return new AllocateAddressResult()
+                .withAllocationId(allocationId)
+                .withPublicIp(publicIp)
+                .withDomain(DomainType.Vpc);
+    }
+
+    public synchronized void releaseAddress(ReleaseAddressRequest request) {
+        String allocationId = request.getAllocationId();
+
+        if (addresses.remove(allocationId) == null) {
+            throw notFound("InvalidAllocationID", allocationId);
+        }
+    }
+
+    public synchronized CreateNatGatewayResult createNatGateway(CreateNatGatewayRequest request) {
+        SubnetRecord subnet = get(subnets, request.getSubnetId(), "InvalidSubnetID");
+        String allocationId = request.getAllocationId();
+
+        if (!addresses.containsKey(allocationId)) {
+            throw notFound("InvalidAllocationID", allocationId);
+        }
+
+        NatGatewayRecord natGateway = new NatGatewayRecord(newId("nat"), subnet.id, subnet.vpcId,
+                allocationId, addresses.get(allocationId), now());
+        register(natGateways, natGateway.id, natGateway, "natgateway");
+
+        return new CreateNatGatewayResult().withNatGateway(natGateway.toNatGateway());
+    }
+
+    public synchronized DescribeNatGatewaysResult describeNatGateways(DescribeNatGatewaysRequest request) {
+        List<NatGatewayRecord> matching = describe(natGateways, request.getNatGatewayIds(), "NatGateway",
+                request.getFilter(), (natGateway, name) -> {
+                    switch (name) {
+                        case "nat-gateway-id":
+                            return ImmutableList.of(natGateway.id);
+                        case "subnet-id":
+                            return ImmutableList.of(natGateway.subnetId);
+                        case "vpc-id":
+                            return ImmutableList.of(natGateway.vpcId);
+                        case "state":
+                            return ImmutableList.of(natGateway.getState());
+                        default:
+                            return null;
+                    }
+                });
+
+        return new DescribeNatGatewaysResult().withNatGateways(Lists.transform(matching, NatGatewayRecord::toNatGateway));
+    }
+
+    public synchronized DeleteNatGatewayResult deleteNatGateway(DeleteNatGatewayRequest request) {
+        NatGatewayRecord natGateway = get(natGateways, request.getNatGatewayId(), "NatGateway");
+
+        if (natGateway.deletedAt == null) {
+            natGateway.deletedAt = now();
+        }
+        return new DeleteNatGatewayResult().withNatGatewayId(natGateway.id);
+    }
+
+    public synchronized CreateSecurityGroupResult createSecurityGroup(CreateSecurityGroupRequest request) {
+        String vpcId = get(vpcs, request.getVpcId(), "InvalidVpcID").id;
+        String groupName = request.getGroupName();
+
+        if (securityGroups.values().stream().anyMatch(g -> g.vpcId.equals(vpcId) && g.name.equals(groupName))) {
+            throw serviceException("InvalidGroup.Duplicate", 400, "The security group '" + groupName + "' already exists");
+        }
+
+        SecurityGroupRecord securityGroup = new SecurityGroupRecord(newId("sg"), vpcId, groupName, request.getDescription());
+        securityGroup.egress.add(new IpPermission()
+                .withIpProtocol(ALL_TRAFFIC_PROTOCOL)
+                .withIpRanges(ANYWHERE_CIDR_BLOCK));
+
+        register(securityGroups, securityGroup.id, securityGroup, "security-group");
+        return new CreateSecurityGroupResult().withGroupId(securityGroup.id);
+    }
+
+    public synchronized DescribeSecurityGroupsResult describeSecurityGroups(DescribeSecurityGroupsRequest request) {
+        List<SecurityGroupRecord> matching = describe(securityGroups, request.getGroupIds(), "InvalidGroup",
+                request.getFilters(), (securityGroup, name) -> {
+                    switch (name) {
+                        case "group-id":
+                            return ImmutableList.of(securityGroup.id);
+                        case "group-name":
+                            return ImmutableList.of(securityGroup.name);
+                        case "vpc-id":
+                            return ImmutableList.of(securityGroup.vpcId);
+                        default:
+                            return null;
+                    }
+                });
+
+        return new DescribeSecurityGroupsResult()
+                .withSecurityGroups(Lists.transform(matching, SecurityGroupRecord::toSecurityGroup));
+    }
+
+    public synchronized void authorizeSecurityGroupIngress(AuthorizeSecurityGroupIngressRequest request) {
+        SecurityGroupRecord securityGroup = get(securityGroups, request.getGroupId(), "InvalidGroup");
+
+        for (IpPermission permission : request.getIpPermissions()) {
+            if (securityGroup.ingress.contains(permission)) {
+                throw serviceException("InvalidPermission.Duplicate", 400, "The specified rule already exists");
+            }
+            securityGroup.ingress.add(permission);
+        }
+    }
+
+    public synchronized void revokeSecurityGroupEgress(RevokeSecurityGroupEgressRequest request) {
+        SecurityGroupRecord securityGroup = get(securityGroups, request.getGroupId(), "InvalidGroup");
+        securityGroup.egress.removeAll(request.getIpPermissions());
+    }
+
+    public synchronized void deleteSecurityGroup(DeleteSecurityGroupRequest request) {
+        String groupId = request.getGroupId();
+        get(securityGroups, groupId, "InvalidGroup");
+
+        unregister(securityGroups, groupId);
+    }
+
+    public synchronized void createTags(CreateTagsRequest request) {
+        for (String resourceId : request.getResources()) {
+            if (!resourceTypes.containsKey(resourceId)) {
+                throw notFound("InvalidID", resourceId);
+            }
+
+            Map<String, String> resourceTags = tags.computeIfAbsent(resourceId, id -> Maps.newLinkedHashMap());
+            request.getTags().forEach(t -> resourceTags.put(t.getKey(), t.getValue()));
+        }
+    }
+
+    public synchronized DescribeTagsResult describeTags(DescribeTagsRequest request) {
+        List<TagDescription> tagDescriptions = Lists.newArrayList();
+
+        tags.forEach((resourceId, resourceTags) -> resourceTags.forEach((key, value) -> {
+            String resourceType = resourceTypes.get(resourceId);
+
+            boolean matches = matches(request.getFilters(), name -> {
+                switch (name) {
+                    case "resource-id":
+                        return ImmutableList.of(resourceId);
+                    case "resource-type":
+                        return ImmutableList.of(resourceType);
+                    case "key":
+                        return ImmutableList.of(key);
+                    case "value":
+                        return ImmutableList.of(value);
+                    default:
+                        return null;
+                }
+            });
+
+            if (matches) {
+                tagDescriptions.add(new TagDescription()
+                        .withResourceId(resourceId)
+                        .withResourceType(resourceType)
+                        .withKey(key)
+                        .withValue(value));
+            }
+        }));
+
+        return new DescribeTagsResult().withTags(tagDescriptions);
+    }
+
+    private <T> void register(Map<String, T> resources, String id, T resource, String resourceType) {
+        resources.put(id, resource);
+        resourceTypes.put(id, resourceType);
+    }
+
+    private <T> void unregister(Map<String, T> resources, String id) {
+        resources.remove(id);
+        resourceTypes.remove(id);
+        tags.remove(id);
+    }
+
+    private <T> T get(Map<String, T> resources, String id, String errorCodePrefix) {
+        T resource = resources.get(id);
+
+        if (resource == null) {
+            throw notFound(errorCodePrefix, id);
+        }
+        return resource;
+    }
+
+    // Describing by id fails when any of the ids is unknown, filters then narrow down what is left
+    private <T> List<T> describe(Map<String, T> resources, List<String> ids, String errorCodePrefix,
+                                 List<Filter> filters, AttributeLookup<T> attributes) {
+        Collection<T> candidates = resources.values();
+
+        if (ids != null && !ids.isEmpty()) {
+            candidates = ids.stream()
+                    .map(id -> get(resources, id, errorCodePrefix))
+                    .collect(Collectors.toList());
+        }
+
+        return candidates.stream()
+                .filter(r -> matches(filters, name -> name.startsWith("tag:") ?
+                        getTagValues(getId(resources, r), name.substring("tag:".length())) :
+                        attributes.lookup(r, name)))
+                .collect(Collectors.toList());
+    }
+
+    private boolean matches(List<Filter> filters, Function<String, Collection<String>> attributes) {
+        if (filters == null) {
+            return true;
+        }
+
+        for (Filter filter : filters) {
+            Collection<String> values = attributes.apply(filter.getName());
+
+            if (values == null) {
+                throw serviceException("InvalidParameterValue", 400, "The filter '" + filter.getName() + "' is invalid");
+            }
+            if (values.stream().noneMatch(filter.getValues()::contains)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private <T> String getId(Map<String, T> resources, T resource) {
+        return resources.entrySet().stream()
+                .filter(e -> e.getValue() == resource)
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Collection<String> getTagValues(String resourceId, String key) {
+        String value = tags.getOrDefault(resourceId, Collections.emptyMap()).get(key);
+        return value != null ? ImmutableList.of(value) : ImmutableList.of();
+    }
+
+    private List<Tag> getTags(String resourceId) {
+        return tags.getOrDefault(resourceId, Collections.emptyMap()).entrySet().stream()
+                .map(e -> new Tag(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private RuntimeException notFound(String errorCodePrefix, String id) {
+        String errorCode = String.format(NOT_FOUND_ERROR_CODE_FORMAT, errorCodePrefix);
+        return serviceException(errorCode, 400, "The ID '" + id + "' does not exist");
+    }
+
+    private RuntimeException dependencyViolation(String id) {
+        return serviceException(DEPENDENCY_VIOLATION_ERROR_CODE, 400, "The resource '" + id + "' has a dependent object");
+    }
+
+    @FunctionalInterface
+    private interface AttributeLookup<T> {
+        Collection<String> lookup(T resource, String filterName);
+    }
+
+    private class VpcRecord {
+        private final String id;
+        private final String cidrBlock;
+
+        private VpcRecord(String id, String cidrBlock) {
+            this.id = id;
+            this.cidrBlock = cidrBlock;
+        }
+
+        private Vpc toVpc() {
+            return new Vpc()
+                    .withVpcId(id)
+                    .withCidrBlock(cidrBlock)
+                    .withState(AVAILABLE_STATE)
+                    .withInstanceTenancy("default")
+                    .withIsDefault(false)
+                    .withTags(getTags(id));
+        }
+    }
+
+    private class SubnetRecord {
+        private final String id;
+        private final String vpcId;
+        private final String zone;
+        private final String cidrBlock;
+
+        private SubnetRecord(String id, String vpcId, String zone, String cidrBlock) {
+            this.id = id;
+            this.vpcId = vpcId;
+            this.zone = zone;
+            this.cidrBlock = cidrBlock;
+        }
+
+        private Subnet toSubnet() {
+            return new Subnet()
+                    .withSubnetId(id)
+                    .withVpcId(vpcId)
+                    .withAvailabilityZone(zone)
+                    .withCidrBlock(cidrBlock)
+                    .withState(AVAILABLE_STATE)
+                    .withAvailableIpAddressCount(251)
+                    .withTags(getTags(id));
+        }
+    }
+
+    private class RouteTableRecord {
+        private final String id;
+        private final String vpcId;
+        private final List<Route> routes = Lists.newArrayList();
+        private final Map<String, String> associations = Maps.newLinkedHashMap();
+
+        private RouteTableRecord(String id, String vpcId) {
+            this.id = id;
+            this.vpcId = vpcId;
+        }
+
+        private RouteTable toRouteTable() {
+            List<RouteTableAssociation> routeTableAssociations = associations.entrySet().stream()
+                    .map(e -> new RouteTableAssociation()
+                            .withRouteTableAssociationId(e.getKey())
+                            .withRouteTableId(id)
+                            .withSubnetId(e.getValue())
+                            .withMain(false))
+                    .collect(Collectors.toList());
+
+            return new RouteTable()
+                    .withRouteTableId(id)
+                    .withVpcId(vpcId)
+                    .withRoutes(Lists.newArrayList(routes))
+                    .withAssociations(routeTableAssociations)
+                    .withTags(getTags(id));
+        }
+    }
+
+    private class SecurityGroupRecord {
+        private final String id;
+        private final String vpcId;
+        private final String name;
+        private final String description;
+        private final List<IpPermission> ingress = Lists.newArrayList();
+        private final List<IpPermission> egress = Lists.newArrayList();
+
+        private SecurityGroupRecord(String id, String vpcId, String name, String description) {
+            this.id = id;
+            this.vpcId = vpcId;
+            this.name = name;
+            this.description = description;
+        }
+
+        private SecurityGroup toSecurityGroup() {
+            return new SecurityGroup()
+                    .withGroupId(id)
+                    .withVpcId(vpcId)
+                    .withGroupName(name)
+                    .withDescription(description)
+                    .withOwnerId(accountId)
+                    .withIpPermissions(Lists.newArrayList(ingress))
+                    .withIpPermissionsEgress(Lists.newArrayList(egress))
+                    .withTags(getTags(id));
+        }
+    }
+
+    private class InternetGatewayRecord {
+        private final String id;
+        private String vpcId;
+
+        private InternetGatewayRecord(String id) {
+            this.id = id;
+        }
+
+        private InternetGateway toInternetGateway() {
+            List<InternetGatewayAttachment> attachments = Lists.newArrayList();
+
+            if (vpcId != null) {
+                attachments.add(new InternetGatewayAttachment()
+                        .withVpcId(vpcId)
+                        .withState(AVAILABLE_STATE));
+            }
+
+            return new InternetGateway()
+                    .withInternetGatewayId(id)
+                    .withAttachments(attachments)
+                    .withTags(getTags(id));
+        }
+    }
+
+    private class NatGatewayRecord {
+        private final String id;
+        private final String subnetId;
+        private final String vpcId;
+        private final String allocationId;
+        private final String publicIp;
+        private final long createdAt;
+        private final Date createTime = new Date();
+        private Long deletedAt;
+
+        private NatGatewayRecord(String id, String subnetId, String vpcId, String allocationId, String publicIp,
+                                 long createdAt) {
+            this.id = id;
+            this.subnetId = subnetId;
+            this.vpcId = vpcId;
+            this.allocationId = allocationId;
+            this.publicIp = publicIp;
+            this.createdAt = createdAt;
+        }
+
+        private String getState() {
+            if (deletedAt != null) {
+                return hasElapsed(deletedAt, Transition.NAT_GATEWAY_DELETE) ? DELETED_STATE : DELETING_STATE;
+            }
+            return hasElapsed(createdAt, Transition.NAT_GATEWAY_CREATE) ? AVAILABLE_STATE : PENDING_STATE;
+        }
+
+        private NatGateway toNatGateway() {
+            NatGatewayAddress address = new NatGatewayAddress()
+                    .withAllocationId(allocationId)
+                    .withPublicIp(publicIp);
+
+            return new NatGateway()
+                    .withNatGatewayId(id)
+                    .withSubnetId(subnetId)
+                    .withVpcId(vpcId)
+                    .withState(getState())
+                    .withCreateTime(createTime)
+                    .withNatGatewayAddresses(address);
+        }
+    }
+}
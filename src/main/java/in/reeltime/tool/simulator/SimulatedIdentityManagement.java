@@ -0,0 +1,183 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.services.identitymanagement.model.*;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.aws.ApiRateLimit;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class SimulatedIdentityManagement extends SimulatedService {
+
+    private static final String DEFAULT_PATH = "/";
+
+    private static final String ROLE_ARN_FORMAT = "arn:aws:iam::%s:role/%s";
+    private static final String INSTANCE_PROFILE_ARN_FORMAT = "arn:aws:iam::%s:instance-profile/%s";
+
+    private final String accountId;
+
+    private final Map<String, RoleRecord> roles = Maps.newLinkedHashMap();
+    private final Map<String, InstanceProfileRecord> instanceProfiles = Maps.newLinkedHashMap();
+
+    SimulatedIdentityManagement(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder,
+                                String accountId) {
+        super(ApiRateLimit.IAM, configuration, clock, recorder);
+        this.accountId = accountId;
+    }
+
+    public synchronized CreateRoleResult createRole(CreateRoleRequest request) {
+        String roleName = request.getRoleName();
+
+        if (roles.containsKey(roleName)) {
+            String message = "Role with name " + roleName + " already exists.";
+            throw error(new EntityAlreadyExistsException(message), "EntityAlreadyExists", 409);
+        }
+
+        RoleRecord role = new RoleRecord(newId("AROA").toUpperCase(), roleName, request.getAssumeRolePolicyDocument());
+        roles.put(roleName, role);
+
+        return new CreateRoleResult().withRole(role.toRole());
+    }
+
+    public synchronized GetRoleResult getRole(GetRoleRequest request) {
+        return new GetRoleResult().withRole(getRole(request.getRoleName()).toRole());
+    }
+
+    public synchronized ListRolesResult listRoles(ListRolesRequest request) {
+        List<Role> matching = roles.values().stream()
+                .map(RoleRecord::toRole)
+                .collect(Collectors.toList());
+
+        return new ListRolesResult()
+                .withRoles(matching)
+                .withIsTruncated(false);
+    }
+
+    public synchronized ListRolePoliciesResult listRolePolicies(ListRolePoliciesRequest request) {
+        RoleRecord role = getRole(request.getRoleName());
+
+        return new ListRolePoliciesResult()
+                .withPolicyNames(Lists.newArrayList(role.policies.keySet()))
+                .withIsTruncated(false);
+    }
+
+    public synchronized void putRolePolicy(PutRolePolicyRequest request) {
+        getRole(request.getRoleName()).policies.put(request.getPolicyName(), request.getPolicyDocument());
+    }
+
+    public synchronized CreateInstanceProfileResult createInstanceProfile(CreateInstanceProfileRequest request) {
+        String instanceProfileName = request.getInstanceProfileName();
+
+        if (instanceProfiles.containsKey(instanceProfileName)) {
+            String message = "Instance Profile " + instanceProfileName + " already exists.";
+            throw error(new EntityAlreadyExistsException(message), "EntityAlreadyExists", 409);
+        }
+
+        InstanceProfileRecord instanceProfile = new InstanceProfileRecord(newId("AIPA").toUpperCase(), instanceProfileName);
+        instanceProfiles.put(instanceProfileName, instanceProfile);
+
+        return new CreateInstanceProfileResult().withInstanceProfile(instanceProfile.toInstanceProfile());
+    }
+
+    public synchronized void addRoleToInstanceProfile(AddRoleToInstanceProfileRequest request) {
+        InstanceProfileRecord instanceProfile = getInstanceProfile(request.getInstanceProfileName());
+        String roleName = getRole(request.getRoleName()).name;
+
+        // An instance profile can hold a single role
+        if (!instanceProfile.roleNames.isEmpty()) {
+            String message = "Cannot exceed quota for InstanceSessionsPerInstanceProfile: 1";
+            throw error(new LimitExceededException(message), "LimitExceeded", 409);
+        }
+        instanceProfile.roleNames.add(roleName);
+    }
+
+    public synchronized GetInstanceProfileResult getInstanceProfile(GetInstanceProfileRequest request) {
+        InstanceProfileRecord instanceProfile = getInstanceProfile(request.getInstanceProfileName());
+        return new GetInstanceProfileResult().withInstanceProfile(instanceProfile.toInstanceProfile());
+    }
+
+    public synchronized ListInstanceProfilesResult listInstanceProfiles(ListInstanceProfilesRequest request) {
+        List<InstanceProfile> matching = instanceProfiles.values().stream()
+                .map(InstanceProfileRecord::toInstanceProfile)
+                .collect(Collectors.toList());
+
+        return new ListInstanceProfilesResult()
+                .withInstanceProfiles(matching)
+                .withIsTruncated(false);
+    }
+
+    private RoleRecord getRole(String roleName) {
+        RoleRecord role = roles.get(roleName);
+
+        if (role == null) {
+            throw noSuchEntity("The role with name " + roleName + " cannot be found.");
+        }
+        return role;
+    }
+
+    private InstanceProfileRecord getInstanceProfile(String instanceProfileName) {
+        InstanceProfileRecord instanceProfile = instanceProfiles.get(instanceProfileName);
+
+        if (instanceProfile == null) {
+            throw noSuchEntity("Instance Profile " + instanceProfileName + " cannot be found.");
+        }
+        return instanceProfile;
+    }
+
+    private NoSuchEntityException noSuchEntity(String message) {
+        return error(new NoSuchEntityException(message), "NoSuchEntity", 404);
+    }
+
+    private class RoleRecord {
+        private final String id;
+        private final String name;
+        private final String assumeRolePolicyDocument;
+        private final Date createDate = new Date();
+        private final Map<String, String> policies = Maps.newLinkedHashMap();
+
+        private RoleRecord(String id, String name, String assumeRolePolicyDocument) {
+            this.id = id;
+            this.name = name;
+            this.assumeRolePolicyDocument = assumeRolePolicyDocument;
+        }
+
+        private Role toRole() {
+            return new Role()
+                    .withRoleId(id)
+                    .withRoleName(name)
+                    .withPath(DEFAULT_PATH)
+                    .withArn(String.format(ROLE_ARN_FORMAT, accountId, name))
+                    .withAssumeRolePolicyDocument(assumeRolePolicyDocument)
+                    .withCreateDate(createDate);
+        }
+    }
+
+    private class InstanceProfileRecord {
+        private final String id;
+        private final String name;
+        private final Date createDate = new Date();
+        private final List<String> roleNames = Lists.newArrayList();
+
+        private InstanceProfileRecord(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        private InstanceProfile toInstanceProfile() {
+            List<Role> profileRoles = roleNames.stream()
+                    .map(roleName -> roles.get(roleName).toRole())
+                    .collect(Collectors.toList());
+
+            return new InstanceProfile()
+                    .withInstanceProfileId(id)
+                    .withInstanceProfileName(name)
+                    .withPath(DEFAULT_PATH)
+                    .withArn(String.format(INSTANCE_PROFILE_ARN_FORMAT, accountId, name))
+                    .withCreateDate(createDate)
+                    .withRoles(profileRoles);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package in.reeltime.tool.simulator;
+
+import in.reeltime.tool.network.security.IpAddressService;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Stands in for the published Amazon ranges with enough prefixes to need several security groups
+class SimulatedIpAddressService extends IpAddressService {
+
+    private static final int PREFIX_COUNT = 200;
+    private static final String PREFIX_FORMAT = "54.%d.%d.0/24";
+
+    @Override
+    public List<String> getAmazonIpAddresses() {
+        return IntStream.range(0, PREFIX_COUNT)
+                .mapToObj(i -> String.format(PREFIX_FORMAT, i / 256, i % 256))
+                .collect(Collectors.toList());
+    }
+}
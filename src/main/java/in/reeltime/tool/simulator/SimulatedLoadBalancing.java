@@ -0,0 +1,37 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.services.elasticloadbalancing.model.DescribeLoadBalancersRequest;
+import com.amazonaws.services.elasticloadbalancing.model.DescribeLoadBalancersResult;
+import com.amazonaws.services.elasticloadbalancing.model.LoadBalancerDescription;
+import in.reeltime.tool.aws.ApiRateLimit;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Load balancers only exist as part of the Beanstalk environments that created them
+class SimulatedLoadBalancing extends SimulatedService {
+
+    private static final String CANONICAL_HOSTED_ZONE_NAME_ID = "Z35SXDOTRQ7X7K";
+
+    private final SimulatedBeanstalk beanstalk;
+
+    SimulatedLoadBalancing(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder,
+                           SimulatedBeanstalk beanstalk) {
+        super(ApiRateLimit.ELB, configuration, clock, recorder);
+        this.beanstalk = beanstalk;
+    }
+
+    public DescribeLoadBalancersResult describeLoadBalancers(DescribeLoadBalancersRequest request) {
+        List<LoadBalancerDescription> loadBalancers = beanstalk.getLoadBalancerDnsNames().stream()
+                .map(dnsName -> new LoadBalancerDescription()
+                        .withLoadBalancerName(dnsName.substring(0, dnsName.indexOf('.')))
+                        .withDNSName(dnsName)
+                        .withCanonicalHostedZoneName(dnsName)
+                        .withCanonicalHostedZoneNameID(CANONICAL_HOSTED_ZONE_NAME_ID))
+                .filter(lb -> request.getLoadBalancerNames().isEmpty() ||
+                        request.getLoadBalancerNames().contains(lb.getLoadBalancerName()))
+                .collect(Collectors.toList());
+
+        return new DescribeLoadBalancersResult().withLoadBalancerDescriptions(loadBalancers);
+    }
+}
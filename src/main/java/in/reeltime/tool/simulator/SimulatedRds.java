@@ -0,0 +1,274 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.services.rds.model.*;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.aws.ApiRateLimit;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class SimulatedRds extends SimulatedService {
+
+    private static final String CREATING_STATUS = "creating";
+    private static final String AVAILABLE_STATUS = "available";
+    private static final String RENAMING_STATUS = "renaming";
+    private static final String DELETING_STATUS = "deleting";
+
+    private static final String ENDPOINT_ADDRESS_FORMAT = "%s.c0simulated.%s.rds.amazonaws.com";
+
+    private static final int MYSQL_PORT = 3306;
+    private static final int POSTGRES_PORT = 5432;
+
+    private final String region;
+
+    private final Map<String, InstanceRecord> instances = Maps.newLinkedHashMap();
+    private final Map<String, DBSubnetGroup> subnetGroups = Maps.newLinkedHashMap();
+
+    SimulatedRds(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder, String region) {
+        super(ApiRateLimit.RDS, configuration, clock, recorder);
+        this.region = region;
+    }
+
+    public synchronized DBInstance createDBInstance(CreateDBInstanceRequest request) {
+        settle();
+
+        String identifier = request.getDBInstanceIdentifier();
+
+        if (instances.containsKey(identifier)) {
+            String message = "DB instance already exists";
+            throw error(new DBInstanceAlreadyExistsException(message), "DBInstanceAlreadyExists", 400);
+        }
+        getSubnetGroup(request.getDBSubnetGroupName());
+
+        InstanceRecord instance = new InstanceRecord(identifier, request, now());
+        instances.put(identifier, instance);
+
+        return instance.toDBInstance();
+    }
+
+    public synchronized DescribeDBInstancesResult describeDBInstances(DescribeDBInstancesRequest request) {
+        settle();
+
+        String identifier = request.getDBInstanceIdentifier();
+
+        List<InstanceRecord> matching = identifier != null ?
+                Lists.newArrayList(getInstance(identifier)) :
+                Lists.newArrayList(instances.values());
+
+        return new DescribeDBInstancesResult()
+                .withDBInstances(matching.stream().map(InstanceRecord::toDBInstance).collect(Collectors.toList()));
+    }
+
+    public synchronized DBInstance modifyDBInstance(ModifyDBInstanceRequest request) {
+        settle();
+
+        InstanceRecord instance = getInstance(request.getDBInstanceIdentifier());
+        String newIdentifier = request.getNewDBInstanceIdentifier();
+
+        if (!instance.getStatus().equals(AVAILABLE_STATUS)) {
+            String message = "DB instance is not in available state";
+            throw error(new InvalidDBInstanceStateException(message), "InvalidDBInstanceState", 400);
+        }
+
+        if (!request.getVpcSecurityGroupIds().isEmpty()) {
+            instance.securityGroupIds = Lists.newArrayList(request.getVpcSecurityGroupIds());
+        }
+
+        if (newIdentifier != null && !newIdentifier.equals(instance.identifier)) {
+            if (instances.containsKey(newIdentifier)) {
+                String message = "DB instance already exists";
+                throw error(new DBInstanceAlreadyExistsException(message), "DBInstanceAlreadyExists", 400);
+            }
+
+            instance.newIdentifier = newIdentifier;
+            instance.renamedAt = now();
+        }
+        return instance.toDBInstance();
+    }
+
+    public synchronized DBInstance deleteDBInstance(DeleteDBInstanceRequest request) {
+        settle();
+
+        InstanceRecord instance = getInstance(request.getDBInstanceIdentifier());
+
+        if (instance.deletedAt == null) {
+            instance.deletedAt = now();
+        }
+        return instance.toDBInstance();
+    }
+
+    public synchronized DBSubnetGroup createDBSubnetGroup(CreateDBSubnetGroupRequest request) {
+        String groupName = request.getDBSubnetGroupName();
+
+        if (subnetGroups.containsKey(groupName)) {
+            String message = "DB subnet group already exists";
+            throw error(new DBSubnetGroupAlreadyExistsException(message), "DBSubnetGroupAlreadyExists", 400);
+        }
+
+        List<Subnet> subnets = request.getSubnetIds().stream()
+                .map(id -> new Subnet().withSubnetIdentifier(id).withSubnetStatus("Active"))
+                .collect(Collectors.toList());
+
+        DBSubnetGroup subnetGroup = new DBSubnetGroup()
+                .withDBSubnetGroupName(groupName)
+                .withDBSubnetGroupDescription(request.getDBSubnetGroupDescription())
+                .withSubnetGroupStatus("Complete")
+                .withSubnets(subnets);
+
+        subnetGroups.put(groupName, subnetGroup);
+        return copy(subnetGroup);
+    }
+
+    public synchronized DescribeDBSubnetGroupsResult describeDBSubnetGroups(DescribeDBSubnetGroupsRequest request) {
+        String groupName = request.getDBSubnetGroupName();
+
+        List<DBSubnetGroup> matching = groupName != null ?
+                Lists.newArrayList(getSubnetGroup(groupName)) :
+                Lists.newArrayList(subnetGroups.values());
+
+        return new DescribeDBSubnetGroupsResult()
+                .withDBSubnetGroups(matching.stream().map(this::copy).collect(Collectors.toList()));
+    }
+
+    public synchronized void deleteDBSubnetGroup(DeleteDBSubnetGroupRequest request) {
+        settle();
+
+        String groupName = getSubnetGroup(request.getDBSubnetGroupName()).getDBSubnetGroupName();
+
+        if (instances.values().stream().anyMatch(i -> i.subnetGroupName.equals(groupName))) {
+            String message = "DB subnet group is still in use";
+            throw error(new InvalidDBSubnetGroupStateException(message), "InvalidDBSubnetGroupStateFault", 400);
+        }
+        subnetGroups.remove(groupName);
+    }
+
+    // Completes the renames and deletions whose transition has elapsed
+    private void settle() {
+        Iterator<InstanceRecord> iterator = instances.values().iterator();
+        List<InstanceRecord> renamed = Lists.newArrayList();
+
+        while (iterator.hasNext()) {
+            InstanceRecord instance = iterator.next();
+
+            if (instance.deletedAt != null && hasElapsed(instance.deletedAt, Transition.DB_INSTANCE_DELETE)) {
+                iterator.remove();
+            }
+            else if (instance.newIdentifier != null && hasElapsed(instance.renamedAt, Transition.DB_INSTANCE_RENAME)) {
+                iterator.remove();
+                renamed.add(instance);
+            }
+        }
+
+        for (InstanceRecord instance : renamed) {
+            instance.identifier = instance.newIdentifier;
+            instance.newIdentifier = null;
+            instance.renamedAt = null;
+            instances.put(instance.identifier, instance);
+        }
+    }
+
+    private InstanceRecord getInstance(String identifier) {
+        InstanceRecord instance = instances.get(identifier);
+
+        if (instance == null) {
+            String message = "DBInstance " + identifier + " not found";
+            throw error(new DBInstanceNotFoundException(message), "DBInstanceNotFound", 404);
+        }
+        return instance;
+    }
+
+    private DBSubnetGroup getSubnetGroup(String groupName) {
+        DBSubnetGroup subnetGroup = subnetGroups.get(groupName);
+
+        if (subnetGroup == null) {
+            String message = "DB subnet group '" + groupName + "' not found";
+            throw error(new DBSubnetGroupNotFoundException(message), "DBSubnetGroupNotFoundFault", 404);
+        }
+        return subnetGroup;
+    }
+
+    private DBSubnetGroup copy(DBSubnetGroup subnetGroup) {
+        return new DBSubnetGroup()
+                .withDBSubnetGroupName(subnetGroup.getDBSubnetGroupName())
+                .withDBSubnetGroupDescription(subnetGroup.getDBSubnetGroupDescription())
+                .withSubnetGroupStatus(subnetGroup.getSubnetGroupStatus())
+                .withSubnets(Lists.newArrayList(subnetGroup.getSubnets()));
+    }
+
+    private class InstanceRecord {
+        private String identifier;
+        private final String databaseName;
+        private final String instanceClass;
+        private final String engine;
+        private final String engineVersion;
+        private final String masterUsername;
+        private final String subnetGroupName;
+        private final int allocatedStorage;
+        private final long createdAt;
+        private final Date createTime = new Date();
+
+        private List<String> securityGroupIds;
+        private String newIdentifier;
+        private Long renamedAt;
+        private Long deletedAt;
+
+        private InstanceRecord(String identifier, CreateDBInstanceRequest request, long createdAt) {
+            this.identifier = identifier;
+            this.databaseName = request.getDBName();
+            this.instanceClass = request.getDBInstanceClass();
+            this.engine = request.getEngine();
+            this.engineVersion = request.getEngineVersion();
+            this.masterUsername = request.getMasterUsername();
+            this.subnetGroupName = request.getDBSubnetGroupName();
+            this.allocatedStorage = request.getAllocatedStorage() != null ? request.getAllocatedStorage() : 5;
+            this.securityGroupIds = Lists.newArrayList(request.getVpcSecurityGroupIds());
+            this.createdAt = createdAt;
+        }
+
+        private String getStatus() {
+            if (deletedAt != null) {
+                return DELETING_STATUS;
+            }
+            else if (newIdentifier != null) {
+                return RENAMING_STATUS;
+            }
+            return hasElapsed(createdAt, Transition.DB_INSTANCE_CREATE) ? AVAILABLE_STATUS : CREATING_STATUS;
+        }
+
+        private DBInstance toDBInstance() {
+            String status = getStatus();
+
+            List<VpcSecurityGroupMembership> securityGroups = securityGroupIds.stream()
+                    .map(id -> new VpcSecurityGroupMembership().withVpcSecurityGroupId(id).withStatus("active"))
+                    .collect(Collectors.toList());
+
+            DBInstance instance = new DBInstance()
+                    .withDBInstanceIdentifier(identifier)
+                    .withDBInstanceStatus(status)
+                    .withDBName(databaseName)
+                    .withDBInstanceClass(instanceClass)
+                    .withEngine(engine)
+                    .withEngineVersion(engineVersion)
+                    .withMasterUsername(masterUsername)
+                    .withAllocatedStorage(allocatedStorage)
+                    .withMultiAZ(false)
+                    .withStorageEncrypted(false)
+                    .withVpcSecurityGroups(securityGroups)
+                    .withDBSubnetGroup(copy(subnetGroups.get(subnetGroupName)));
+
+            if (!status.equals(CREATING_STATUS)) {
+                int port = engine != null && engine.startsWith("postgres") ? POSTGRES_PORT : MYSQL_PORT;
+
+                instance.setInstanceCreateTime(createTime);
+                instance.setEndpoint(new Endpoint()
+                        .withAddress(String.format(ENDPOINT_ADDRESS_FORMAT, identifier, region))
+                        .withPort(port));
+            }
+            return instance;
+        }
+    }
+}
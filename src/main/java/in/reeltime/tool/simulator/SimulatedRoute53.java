@@ -0,0 +1,188 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.services.route53.model.*;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.aws.ApiRateLimit;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class SimulatedRoute53 extends SimulatedService {
+
+    private static final String PENDING_STATUS = "PENDING";
+    private static final String INSYNC_STATUS = "INSYNC";
+
+    private static final String HOSTED_ZONE_ID_FORMAT = "/hostedzone/%s";
+    private static final String CHANGE_ID_FORMAT = "/change/%s";
+
+    private static final long DEFAULT_TTL = 172800;
+
+    private final HostedZone hostedZone;
+
+    // Keyed by name and type, kept in the order the service lists them in
+    private final Map<String, ResourceRecordSet> records = Maps.newTreeMap();
+    private final Map<String, ChangeRecord> changes = Maps.newHashMap();
+
+    SimulatedRoute53(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder,
+                     String domainName) {
+        super(ApiRateLimit.ROUTE53, configuration, clock, recorder);
+
+        String zoneName = domainName.endsWith(".") ? domainName : domainName + ".";
+        String zoneId = newId("Z").toUpperCase();
+
+        this.hostedZone = new HostedZone()
+                .withId(String.format(HOSTED_ZONE_ID_FORMAT, zoneId))
+                .withName(zoneName)
+                .withCallerReference(zoneId);
+
+        put(new ResourceRecordSet(zoneName, RRType.NS)
+                .withTTL(DEFAULT_TTL)
+                .withResourceRecords(new ResourceRecord("ns-1.awsdns-01.org.")));
+
+        put(new ResourceRecordSet(zoneName, RRType.SOA)
+                .withTTL(900L)
+                .withResourceRecords(new ResourceRecord("ns-1.awsdns-01.org. hostmaster.amazon.com. 1 7200 900 1209600 86400")));
+    }
+
+    public synchronized ListHostedZonesResult listHostedZones(ListHostedZonesRequest request) {
+        return new ListHostedZonesResult()
+                .withHostedZones(new HostedZone()
+                        .withId(hostedZone.getId())
+                        .withName(hostedZone.getName())
+                        .withCallerReference(hostedZone.getCallerReference())
+                        .withResourceRecordSetCount((long) records.size()))
+                .withIsTruncated(false)
+                .withMaxItems("100");
+    }
+
+    public synchronized ListResourceRecordSetsResult listResourceRecordSets(ListResourceRecordSetsRequest request) {
+        getHostedZone(request.getHostedZoneId());
+
+        List<ResourceRecordSet> recordSets = records.values().stream()
+                .map(this::copy)
+                .collect(Collectors.toList());
+
+        return new ListResourceRecordSetsResult()
+                .withResourceRecordSets(recordSets)
+                .withIsTruncated(false)
+                .withMaxItems("300");
+    }
+
+    // Changes in a batch are applied all or nothing
+    public synchronized ChangeResourceRecordSetsResult changeResourceRecordSets(ChangeResourceRecordSetsRequest request) {
+        getHostedZone(request.getHostedZoneId());
+
+        Map<String, ResourceRecordSet> updated = Maps.newTreeMap();
+        updated.putAll(records);
+
+        for (Change change : request.getChangeBatch().getChanges()) {
+            ResourceRecordSet recordSet = copy(change.getResourceRecordSet());
+            recordSet.setName(recordSet.getName().endsWith(".") ? recordSet.getName() : recordSet.getName() + ".");
+
+            String key = getKey(recordSet);
+
+            switch (ChangeAction.fromValue(change.getAction())) {
+                case CREATE:
+                    if (updated.containsKey(key)) {
+                        throw invalidChangeBatch("create", recordSet, "it already exists");
+                    }
+                    updated.put(key, recordSet);
+                    break;
+                case UPSERT:
+                    updated.put(key, recordSet);
+                    break;
+                case DELETE:
+                    if (updated.remove(key) == null) {
+                        throw invalidChangeBatch("delete", recordSet, "it was not found");
+                    }
+                    break;
+            }
+        }
+
+        records.clear();
+        records.putAll(updated);
+
+        String changeId = String.format(CHANGE_ID_FORMAT, newId("C").toUpperCase());
+        changes.put(changeId, new ChangeRecord(now()));
+
+        return new ChangeResourceRecordSetsResult().withChangeInfo(getChangeInfo(changeId));
+    }
+
+    public synchronized GetChangeResult getChange(GetChangeRequest request) {
+        String changeId = request.getId().startsWith("/") ? request.getId() : String.format(CHANGE_ID_FORMAT, request.getId());
+
+        if (!changes.containsKey(changeId)) {
+            String message = "A change with the specified change ID does not exist.";
+            throw error(new NoSuchChangeException(message), "NoSuchChange", 404);
+        }
+        return new GetChangeResult().withChangeInfo(getChangeInfo(changeId));
+    }
+
+    private ChangeInfo getChangeInfo(String changeId) {
+        ChangeRecord change = changes.get(changeId);
+        boolean inSync = hasElapsed(change.submittedAt, Transition.DNS_CHANGE);
+
+        return new ChangeInfo()
+                .withId(changeId)
+                .withStatus(inSync ? INSYNC_STATUS : PENDING_STATUS)
+                .withSubmittedAt(change.submitTime);
+    }
+
+    private HostedZone getHostedZone(String hostedZoneId) {
+        String id = hostedZoneId.startsWith("/") ? hostedZoneId : String.format(HOSTED_ZONE_ID_FORMAT, hostedZoneId);
+
+        if (!hostedZone.getId().equals(id)) {
+            String message = "No hosted zone found with ID: " + hostedZoneId;
+            throw error(new NoSuchHostedZoneException(message), "NoSuchHostedZone", 404);
+        }
+        return hostedZone;
+    }
+
+    private void put(ResourceRecordSet recordSet) {
+        records.put(getKey(recordSet), recordSet);
+    }
+
+    private String getKey(ResourceRecordSet recordSet) {
+        return recordSet.getName() + " " + recordSet.getType();
+    }
+
+    private RuntimeException invalidChangeBatch(String action, ResourceRecordSet recordSet, String reason) {
+        String message = String.format("Tried to %s resource record set [name='%s', type='%s'] but %s",
+                action, recordSet.getName(), recordSet.getType(), reason);
+        return error(new InvalidChangeBatchException(message), "InvalidChangeBatch", 400);
+    }
+
+    private ResourceRecordSet copy(ResourceRecordSet recordSet) {
+        ResourceRecordSet copy = new ResourceRecordSet()
+                .withName(recordSet.getName())
+                .withType(recordSet.getType())
+                .withTTL(recordSet.getTTL());
+
+        if (recordSet.getAliasTarget() != null) {
+            AliasTarget aliasTarget = recordSet.getAliasTarget();
+
+            copy.setAliasTarget(new AliasTarget()
+                    .withDNSName(aliasTarget.getDNSName())
+                    .withHostedZoneId(aliasTarget.getHostedZoneId())
+                    .withEvaluateTargetHealth(aliasTarget.getEvaluateTargetHealth()));
+        }
+
+        if (!recordSet.getResourceRecords().isEmpty()) {
+            copy.setResourceRecords(recordSet.getResourceRecords().stream()
+                    .map(r -> new ResourceRecord(r.getValue()))
+                    .collect(Collectors.toList()));
+        }
+        return copy;
+    }
+
+    private static class ChangeRecord {
+        private final long submittedAt;
+        private final Date submitTime = new Date();
+
+        private ChangeRecord(long submittedAt) {
+            this.submittedAt = submittedAt;
+        }
+    }
+}
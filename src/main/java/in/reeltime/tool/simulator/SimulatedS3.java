@@ -0,0 +1,448 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.*;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import in.reeltime.tool.aws.ApiRateLimit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+// Objects are tracked by size and digest; only content small enough to be read back, such as manifests, is kept
+class SimulatedS3 extends SimulatedService {
+
+    private static final int MAX_RETAINED_CONTENT_BYTES = 1024 * 1024;
+    private static final int DEFAULT_MAX_KEYS = 1000;
+
+    private static final String US_STANDARD_REGION = "us-east-1";
+    private static final String US_STANDARD_LOCATION = "US";
+
+    private static final String MULTIPART_ETAG_FORMAT = "%s-%d";
+
+    private final String region;
+
+    private final Map<String, BucketRecord> buckets = Maps.newLinkedHashMap();
+    private final Map<String, UploadRecord> uploads = Maps.newHashMap();
+
+    SimulatedS3(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder, String region) {
+        super(ApiRateLimit.S3, configuration, clock, recorder);
+        this.region = region;
+    }
+
+    public synchronized Bucket createBucket(String bucketName) {
+        if (buckets.containsKey(bucketName)) {
+            throw s3Exception("BucketAlreadyOwnedByYou", 409, "Your previous request to create the named bucket succeeded");
+        }
+
+        BucketRecord bucket = new BucketRecord(bucketName);
+        buckets.put(bucketName, bucket);
+
+        return bucket.toBucket();
+    }
+
+    public synchronized String getBucketLocation(String bucketName) {
+        getBucket(bucketName);
+        return region.equals(US_STANDARD_REGION) ? US_STANDARD_LOCATION : region;
+    }
+
+    public synchronized List<Bucket> listBuckets(ListBucketsRequest request) {
+        return buckets.values().stream()
+                .map(BucketRecord::toBucket)
+                .collect(Collectors.toList());
+    }
+
+    public synchronized void deleteBucket(String bucketName) {
+        BucketRecord bucket = getBucket(bucketName);
+
+        if (!bucket.objects.isEmpty()) {
+            throw s3Exception("BucketNotEmpty", 409, "The bucket you tried to delete is not empty");
+        }
+        buckets.remove(bucketName);
+    }
+
+    public PutObjectResult putObject(String bucketName, String key, InputStream input, ObjectMetadata metadata) {
+        return putObject(new PutObjectRequest(bucketName, key, input, metadata));
+    }
+
+    // The content is read before taking the lock so that concurrent uploads are limited by bandwidth alone
+    public PutObjectResult putObject(PutObjectRequest request) {
+        Content content = request.getFile() != null ? read(request.getFile()) : read(request.getInputStream());
+        transfer(content.length);
+
+        ObjectMetadata metadata = request.getMetadata() != null ? request.getMetadata() : new ObjectMetadata();
+
+        synchronized (this) {
+            ObjectRecord object = new ObjectRecord(copy(metadata), content.length, content.digest, content.bytes);
+            getBucket(request.getBucketName()).objects.put(request.getKey(), object);
+
+            PutObjectResult result = new PutObjectResult();
+            result.setETag(object.etag);
+            return result;
+        }
+    }
+
+    public synchronized boolean doesObjectExist(String bucketName, String key) {
+        return getBucket(bucketName).objects.containsKey(key);
+    }
+
+    public synchronized ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        return getObject(getBucket(bucketName), key).toObjectMetadata();
+    }
+
+    public S3Object getObject(String bucketName, String key) {
+        ObjectRecord object;
+
+        synchronized (this) {
+            object = getObject(getBucket(bucketName), key);
+        }
+
+        if (object.content == null) {
+            String message = String.format("Simulated [s3] does not keep the content of [%s] in [%s]", key, bucketName);
+            throw new UnsupportedOperationException(message);
+        }
+        transfer(object.length);
+
+        S3Object s3Object = new S3Object();
+        s3Object.setBucketName(bucketName);
+        s3Object.setKey(key);
+        s3Object.setObjectMetadata(object.toObjectMetadata());
+        s3Object.setObjectContent(new ByteArrayInputStream(object.content));
+        return s3Object;
+    }
+
+    public synchronized ObjectListing listObjects(ListObjectsRequest request) {
+        BucketRecord bucket = getBucket(request.getBucketName());
+
+        String prefix = request.getPrefix() != null ? request.getPrefix() : "";
+        int maxKeys = request.getMaxKeys() != null ? request.getMaxKeys() : DEFAULT_MAX_KEYS;
+
+        SortedMap<String, ObjectRecord> objects = request.getMarker() != null ?
+                bucket.objects.tailMap(request.getMarker() + "\0") : bucket.objects;
+
+        List<String> keys = objects.keySet().stream()
+                .filter(k -> k.startsWith(prefix))
+                .limit(maxKeys + 1)
+                .collect(Collectors.toList());
+
+        ObjectListing listing = new ObjectListing();
+        listing.setBucketName(bucket.name);
+        listing.setPrefix(request.getPrefix());
+        listing.setTruncated(keys.size() > maxKeys);
+
+        for (String key : keys.subList(0, Math.min(keys.size(), maxKeys))) {
+            ObjectRecord object = bucket.objects.get(key);
+
+            S3ObjectSummary summary = new S3ObjectSummary();
+            summary.setBucketName(bucket.name);
+            summary.setKey(key);
+            summary.setSize(object.length);
+            summary.setETag(object.etag);
+            summary.setLastModified(object.lastModified);
+
+            listing.getObjectSummaries().add(summary);
+        }
+
+        // Like S3, the next marker is only returned when the request has a delimiter
+        List<S3ObjectSummary> summaries = listing.getObjectSummaries();
+        if (request.getDelimiter() != null && listing.isTruncated()) {
+            listing.setDelimiter(request.getDelimiter());
+            listing.setNextMarker(summaries.get(summaries.size() - 1).getKey());
+        }
+        return listing;
+    }
+
+    public synchronized void deleteObject(String bucketName, String key) {
+        getBucket(bucketName).objects.remove(key);
+    }
+
+    public synchronized InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        getBucket(request.getBucketName());
+
+        ObjectMetadata metadata = request.getObjectMetadata() != null ? request.getObjectMetadata() : new ObjectMetadata();
+        UploadRecord upload = new UploadRecord(newId("upload"), request.getBucketName(), request.getKey(), copy(metadata));
+        uploads.put(upload.id, upload);
+
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(upload.bucketName);
+        result.setKey(upload.key);
+        result.setUploadId(upload.id);
+        return result;
+    }
+
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        synchronized (this) {
+            getUpload(request.getUploadId());
+        }
+
+        Content content = request.getFile() != null ?
+                read(request.getFile(), request.getFileOffset(), request.getPartSize()) :
+                read(ByteStreams.limit(request.getInputStream(), request.getPartSize()));
+
+        transfer(content.length);
+
+        synchronized (this) {
+            PartRecord part = new PartRecord(content.length, content.digest);
+            getUpload(request.getUploadId()).parts.put(request.getPartNumber(), part);
+
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag(part.etag);
+            return result;
+        }
+    }
+
+    // Copies happen within the service, so only the latency of the call is paid
+    public synchronized CopyPartResult copyPart(CopyPartRequest request) {
+        UploadRecord upload = getUpload(request.getUploadId());
+        ObjectRecord source = getObject(getBucket(request.getSourceBucketName()), request.getSourceKey());
+
+        long firstByte = request.getFirstByte() != null ? request.getFirstByte() : 0;
+        long lastByte = request.getLastByte() != null ? request.getLastByte() : source.length - 1;
+
+        if (firstByte < 0 || lastByte >= source.length || lastByte < firstByte) {
+            throw s3Exception("InvalidRange", 416, "The requested range is not satisfiable");
+        }
+
+        String digest = Hashing.md5().newHasher()
+                .putString(source.etag, StandardCharsets.UTF_8)
+                .putLong(firstByte)
+                .putLong(lastByte)
+                .hash().toString();
+
+        PartRecord part = new PartRecord(lastByte - firstByte + 1, digest);
+        upload.parts.put(request.getPartNumber(), part);
+
+        CopyPartResult result = new CopyPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(part.etag);
+        result.setLastModifiedDate(new Date());
+        return result;
+    }
+
+    public synchronized PartListing listParts(ListPartsRequest request) {
+        UploadRecord upload = getUpload(request.getUploadId());
+
+        List<PartSummary> parts = upload.parts.entrySet().stream()
+                .map(e -> {
+                    PartSummary part = new PartSummary();
+                    part.setPartNumber(e.getKey());
+                    part.setETag(e.getValue().etag);
+                    part.setSize(e.getValue().length);
+                    return part;
+                })
+                .collect(Collectors.toList());
+
+        PartListing listing = new PartListing();
+        listing.setBucketName(upload.bucketName);
+        listing.setKey(upload.key);
+        listing.setUploadId(upload.id);
+        listing.setParts(parts);
+        listing.setTruncated(false);
+        return listing;
+    }
+
+    public synchronized CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        UploadRecord upload = getUpload(request.getUploadId());
+
+        Hasher hasher = Hashing.md5().newHasher();
+        long length = 0;
+
+        for (PartETag partETag : request.getPartETags()) {
+            PartRecord part = upload.parts.get(partETag.getPartNumber());
+
+            if (part == null || !part.etag.equals(partETag.getETag())) {
+                throw s3Exception("InvalidPart", 400, "One or more of the specified parts could not be found");
+            }
+
+            hasher.putString(part.etag, StandardCharsets.UTF_8);
+            length += part.length;
+        }
+
+        String etag = String.format(MULTIPART_ETAG_FORMAT, hasher.hash(), request.getPartETags().size());
+
+        ObjectRecord object = new ObjectRecord(upload.metadata, length, etag, null);
+        getBucket(upload.bucketName).objects.put(upload.key, object);
+        uploads.remove(upload.id);
+
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(upload.bucketName);
+        result.setKey(upload.key);
+        result.setETag(etag);
+        return result;
+    }
+
+    public synchronized void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        uploads.remove(getUpload(request.getUploadId()).id);
+    }
+
+    private BucketRecord getBucket(String bucketName) {
+        BucketRecord bucket = buckets.get(bucketName);
+
+        if (bucket == null) {
+            throw s3Exception("NoSuchBucket", 404, "The specified bucket does not exist");
+        }
+        return bucket;
+    }
+
+    private ObjectRecord getObject(BucketRecord bucket, String key) {
+        ObjectRecord object = bucket.objects.get(key);
+
+        if (object == null) {
+            throw s3Exception("NoSuchKey", 404, "The specified key does not exist.");
+        }
+        return object;
+    }
+
+    private UploadRecord getUpload(String uploadId) {
+        UploadRecord upload = uploads.get(uploadId);
+
+        if (upload == null) {
+            throw s3Exception("NoSuchUpload", 404, "The specified upload does not exist.");
+        }
+        return upload;
+    }
+
+    private AmazonS3Exception s3Exception(String errorCode, int statusCode, String message) {
+        return error(new AmazonS3Exception(message), errorCode, statusCode);
+    }
+
+    private Content read(File file) {
+        return read(file, 0, file.length());
+    }
+
+    private Content read(File file, long offset, long length) {
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            ByteStreams.skipFully(inputStream, offset);
+            return read(ByteStreams.limit(inputStream, length));
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to read file: " + file.getPath(), e);
+        }
+    }
+
+    private Content read(InputStream inputStream) {
+        Hasher hasher = Hashing.md5().newHasher();
+        ByteArrayOutputStream retained = new ByteArrayOutputStream();
+
+        byte[] buffer = new byte[64 * 1024];
+        long length = 0;
+
+        try {
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1) {
+                hasher.putBytes(buffer, 0, read);
+
+                if (length + read <= MAX_RETAINED_CONTENT_BYTES) {
+                    retained.write(buffer, 0, read);
+                }
+                length += read;
+            }
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to read content", e);
+        }
+
+        byte[] bytes = length <= MAX_RETAINED_CONTENT_BYTES ? retained.toByteArray() : null;
+        return new Content(length, hasher.hash().toString(), bytes);
+    }
+
+    private static ObjectMetadata copy(ObjectMetadata metadata) {
+        ObjectMetadata copy = new ObjectMetadata();
+        copy.setUserMetadata(Maps.newHashMap(metadata.getUserMetadata()));
+
+        if (metadata.getContentType() != null) {
+            copy.setContentType(metadata.getContentType());
+        }
+        return copy;
+    }
+
+    private static class Content {
+        private final long length;
+        private final String digest;
+        private final byte[] bytes;
+
+        private Content(long length, String digest, byte[] bytes) {
+            this.length = length;
+            this.digest = digest;
+            this.bytes = bytes;
+        }
+    }
+
+    private static class BucketRecord {
+        private final String name;
+        private final Date creationDate = new Date();
+        private final SortedMap<String, ObjectRecord> objects = Maps.newTreeMap();
+
+        private BucketRecord(String name) {
+            this.name = name;
+        }
+
+        private Bucket toBucket() {
+            Bucket bucket = new Bucket(name);
+            bucket.setCreationDate(creationDate);
+            return bucket;
+        }
+    }
+
+    private static class ObjectRecord {
+        private final ObjectMetadata metadata;
+        private final long length;
+        private final String etag;
+        private final byte[] content;
+        private final Date lastModified = new Date();
+
+        private ObjectRecord(ObjectMetadata metadata, long length, String etag, byte[] content) {
+            this.metadata = metadata;
+            this.length = length;
+            this.etag = etag;
+            this.content = content;
+        }
+
+        private ObjectMetadata toObjectMetadata() {
+            ObjectMetadata copy = copy(metadata);
+            copy.setContentLength(length);
+            copy.setLastModified(lastModified);
+            copy.setHeader(Headers.ETAG, etag);
+            return copy;
+        }
+    }
+
+    private static class UploadRecord {
+        private final String id;
+        private final String bucketName;
+        private final String key;
+        private final ObjectMetadata metadata;
+        private final SortedMap<Integer, PartRecord> parts = Maps.newTreeMap();
+
+        private UploadRecord(String id, String bucketName, String key, ObjectMetadata metadata) {
+            this.id = id;
+            this.bucketName = bucketName;
+            this.key = key;
+            this.metadata = metadata;
+        }
+    }
+
+    private static class PartRecord {
+        private final long length;
+        private final String etag;
+
+        private PartRecord(long length, String etag) {
+            this.length = length;
+            this.etag = etag;
+        }
+    }
+}
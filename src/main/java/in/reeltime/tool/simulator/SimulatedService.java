@@ -0,0 +1,249 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ResponseMetadata;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import in.reeltime.tool.aws.ApiRateLimit;
+import in.reeltime.tool.aws.TokenBucket;
+import in.reeltime.tool.trace.Span;
+import in.reeltime.tool.trace.Tracer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Answers the calls made through an SDK client interface from the in-memory fake that extends it.
+// Each operation is handled by a method of the same name and parameter types; the SDK's no-argument
+// overloads are handled by the method taking the corresponding request. Before an operation reaches
+// the fake it is delayed by a sampled latency and may be throttled or fail, which is then retried
+// the way the real client does.
+abstract class SimulatedService implements InvocationHandler {
+
+    private static final int MAX_ERROR_RETRY = 10;
+
+    private static final long BASE_RETRY_DELAY_MILLIS = 100;
+    private static final long THROTTLED_BASE_RETRY_DELAY_MILLIS = 500;
+    private static final long MAX_RETRY_DELAY_MILLIS = 20000;
+
+    private static final String THROTTLING_ERROR_CODE = "Throttling";
+    private static final String INTERNAL_FAILURE_ERROR_CODE = "InternalFailure";
+
+    private static final String ID_FORMAT = "%s-%08x";
+
+    private final String serviceName;
+
+    protected final SimulatorConfiguration configuration;
+    protected final SimulatedClock clock;
+
+    private final ApiCallRecorder recorder;
+    private final TokenBucket tokenBucket;
+    private final Random random;
+
+    private final ConcurrentMap<Method, Method> handlers = new ConcurrentHashMap<>();
+
+    private final Map<AmazonWebServiceRequest, String> requestIds = new MapMaker().weakKeys().makeMap();
+    private final ThreadLocal<String> currentRequestId = new ThreadLocal<>();
+
+    private final AtomicLong nextId = new AtomicLong();
+
+    protected SimulatedService(ApiRateLimit rateLimit, SimulatorConfiguration configuration, SimulatedClock clock,
+                               ApiCallRecorder recorder) {
+        this.serviceName = rateLimit.getServiceName();
+        this.configuration = configuration;
+        this.clock = clock;
+        this.recorder = recorder;
+        this.tokenBucket = rateLimit.newTokenBucket(clock.getTimeScale());
+        this.random = new Random(configuration.getSeed() ^ serviceName.hashCode());
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T proxy(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+
+        switch (method.getName()) {
+            case "setEndpoint":
+            case "setRegion":
+            case "shutdown":
+                return null;
+            case "getCachedResponseMetadata":
+                return getCachedResponseMetadata(args[0]);
+        }
+
+        Method handler = handlers.computeIfAbsent(method, this::findHandler);
+
+        Object[] handlerArgs = handler.getParameterCount() == method.getParameterCount() ? args :
+                new Object[] { handler.getParameterTypes()[0].getDeclaredConstructor().newInstance() };
+
+        String operation = getOperationName(method);
+        String requestId = UUID.randomUUID().toString();
+
+        if (args != null && args.length > 0 && args[0] instanceof AmazonWebServiceRequest) {
+            requestIds.put((AmazonWebServiceRequest) args[0], requestId);
+        }
+
+        // Stands in for the span the tracing request handler opens around a real client's calls
+        Span span = Tracer.start("aws", serviceName + "." + operation)
+                .setAttribute("service", serviceName)
+                .setAttribute("operation", operation);
+
+        recorder.recordCall(serviceName, operation);
+
+        try {
+            awaitResponse(operation);
+            currentRequestId.set(requestId);
+
+            return handler.invoke(this, handlerArgs);
+        }
+        catch (InvocationTargetException e) {
+            span.setError(e.getCause());
+            throw e.getCause();
+        }
+        catch (RuntimeException e) {
+            span.setError(e);
+            throw e;
+        }
+        finally {
+            currentRequestId.remove();
+            span.end();
+        }
+    }
+
+    protected String getRequestId() {
+        return currentRequestId.get();
+    }
+
+    protected String newId(String prefix) {
+        return String.format(ID_FORMAT, prefix, nextId.incrementAndGet());
+    }
+
+    protected long now() {
+        return clock.currentTimeMillis();
+    }
+
+    protected boolean hasElapsed(long since, String transition) {
+        return now() - since >= configuration.getTransitionDelayMillis(transition);
+    }
+
+    protected void transfer(long bytes) {
+        clock.sleep(bytes * 1000 / configuration.getBandwidthBytesPerSec());
+    }
+
+    protected AmazonServiceException serviceException(String errorCode, int statusCode, String message) {
+        return error(new AmazonServiceException(message), errorCode, statusCode);
+    }
+
+    protected <E extends AmazonServiceException> E error(E exception, String errorCode, int statusCode) {
+        exception.setServiceName(serviceName);
+        exception.setErrorCode(errorCode);
+        exception.setStatusCode(statusCode);
+        exception.setErrorType(statusCode >= 500 ? AmazonServiceException.ErrorType.Service :
+                AmazonServiceException.ErrorType.Client);
+        exception.setRequestId(getRequestId());
+        return exception;
+    }
+
+    private void awaitResponse(String operation) {
+        tokenBucket.acquire();
+
+        for (int retries = 0; ; retries++) {
+            clock.sleep(sampleLatencyMillis());
+
+            AmazonServiceException error = injectError(operation);
+
+            if (error == null) {
+                return;
+            }
+            if (retries == MAX_ERROR_RETRY) {
+                throw error;
+            }
+            clock.sleep(getRetryDelayMillis(error, retries));
+        }
+    }
+
+    private AmazonServiceException injectError(String operation) {
+        double roll = nextDouble();
+
+        if (roll < configuration.getThrottleRate()) {
+            recorder.recordThrottle(serviceName, operation);
+            return serviceException(THROTTLING_ERROR_CODE, 400, "Rate exceeded");
+        }
+        else if (roll < configuration.getThrottleRate() + configuration.getFaultRate()) {
+            recorder.recordFault(serviceName, operation);
+            return serviceException(INTERNAL_FAILURE_ERROR_CODE, 500, "An internal error has occurred");
+        }
+        return null;
+    }
+
+    private synchronized double nextDouble() {
+        return random.nextDouble();
+    }
+
+    private synchronized long sampleLatencyMillis() {
+        return (long) (configuration.getLatencyMillis() * Math.exp(configuration.getLatencySpread() * random.nextGaussian()));
+    }
+
+    // Exponential backoff with full jitter, as the client's default retry policy does
+    private synchronized long getRetryDelayMillis(AmazonServiceException error, int retries) {
+        long baseDelay = THROTTLING_ERROR_CODE.equals(error.getErrorCode()) ?
+                THROTTLED_BASE_RETRY_DELAY_MILLIS : BASE_RETRY_DELAY_MILLIS;
+
+        long delay = Math.min(MAX_RETRY_DELAY_MILLIS, baseDelay << retries);
+        return (long) (random.nextDouble() * delay);
+    }
+
+    private Method findHandler(Method method) {
+        try {
+            return getClass().getMethod(method.getName(), method.getParameterTypes());
+        }
+        catch (NoSuchMethodException e) {
+            if (method.getParameterCount() == 0) {
+                for (Method candidate : getClass().getMethods()) {
+                    if (candidate.getName().equals(method.getName()) && candidate.getParameterCount() == 1 &&
+                            AmazonWebServiceRequest.class.isAssignableFrom(candidate.getParameterTypes()[0])) {
+                        return candidate;
+                    }
+                }
+            }
+
+            String message = String.format("Simulated [%s] does not support [%s]", serviceName, method.getName());
+            throw new UnsupportedOperationException(message);
+        }
+    }
+
+    private ResponseMetadata getCachedResponseMetadata(Object request) {
+        String requestId = requestIds.get(request);
+        return requestId != null ? new ResponseMetadata(ImmutableMap.of(ResponseMetadata.AWS_REQUEST_ID, requestId)) : null;
+    }
+
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "Simulated " + serviceName;
+        }
+    }
+
+    private static String getOperationName(Method method) {
+        String name = method.getName();
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
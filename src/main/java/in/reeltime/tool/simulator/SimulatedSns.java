@@ -0,0 +1,101 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.services.sns.model.*;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.aws.ApiRateLimit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class SimulatedSns extends SimulatedService {
+
+    private static final String TOPIC_ARN_FORMAT = "arn:aws:sns:%s:%s:%s";
+    private static final String SUBSCRIPTION_ARN_FORMAT = "%s:%s";
+
+    private final String accountId;
+    private final String region;
+
+    private final Map<String, List<Subscription>> topics = Maps.newLinkedHashMap();
+
+    SimulatedSns(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder,
+                 String accountId, String region) {
+        super(ApiRateLimit.SNS, configuration, clock, recorder);
+        this.accountId = accountId;
+        this.region = region;
+    }
+
+    // Creating a topic that already exists returns the existing one
+    public synchronized CreateTopicResult createTopic(String name) {
+        String topicArn = String.format(TOPIC_ARN_FORMAT, region, accountId, name);
+        topics.computeIfAbsent(topicArn, arn -> Lists.newArrayList());
+
+        return new CreateTopicResult().withTopicArn(topicArn);
+    }
+
+    public synchronized ListTopicsResult listTopics(String nextToken) {
+        List<Topic> matching = topics.keySet().stream()
+                .map(arn -> new Topic().withTopicArn(arn))
+                .collect(Collectors.toList());
+
+        return new ListTopicsResult().withTopics(matching);
+    }
+
+    public synchronized void deleteTopic(String topicArn) {
+        topics.remove(topicArn);
+    }
+
+    public synchronized SubscribeResult subscribe(String topicArn, String protocol, String endpoint) {
+        List<Subscription> subscriptions = getSubscriptions(topicArn);
+        String subscriptionArn = String.format(SUBSCRIPTION_ARN_FORMAT, topicArn, newId("subscription"));
+
+        subscriptions.add(new Subscription()
+                .withSubscriptionArn(subscriptionArn)
+                .withTopicArn(topicArn)
+                .withProtocol(protocol)
+                .withEndpoint(endpoint)
+                .withOwner(accountId));
+
+        return new SubscribeResult().withSubscriptionArn(subscriptionArn);
+    }
+
+    public synchronized ListSubscriptionsByTopicResult listSubscriptionsByTopic(ListSubscriptionsByTopicRequest request) {
+        return listSubscriptionsByTopic(request.getTopicArn());
+    }
+
+    public synchronized ListSubscriptionsByTopicResult listSubscriptionsByTopic(String topicArn) {
+        List<Subscription> subscriptions = getSubscriptions(topicArn).stream()
+                .map(s -> new Subscription()
+                        .withSubscriptionArn(s.getSubscriptionArn())
+                        .withTopicArn(s.getTopicArn())
+                        .withProtocol(s.getProtocol())
+                        .withEndpoint(s.getEndpoint())
+                        .withOwner(s.getOwner()))
+                .collect(Collectors.toList());
+
+        return new ListSubscriptionsByTopicResult().withSubscriptions(subscriptions);
+    }
+
+    public synchronized void unsubscribe(String subscriptionArn) {
+        for (List<Subscription> subscriptions : topics.values()) {
+            if (subscriptions.removeIf(s -> s.getSubscriptionArn().equals(subscriptionArn))) {
+                return;
+            }
+        }
+        throw notFound("Subscription does not exist");
+    }
+
+    private List<Subscription> getSubscriptions(String topicArn) {
+        List<Subscription> subscriptions = topics.get(topicArn);
+
+        if (subscriptions == null) {
+            throw notFound("Topic does not exist");
+        }
+        return subscriptions;
+    }
+
+    private NotFoundException notFound(String message) {
+        return error(new NotFoundException(message), "NotFound", 404);
+    }
+}
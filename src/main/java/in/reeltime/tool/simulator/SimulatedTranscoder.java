@@ -0,0 +1,69 @@
+package in.reeltime.tool.simulator;
+
+import com.amazonaws.services.elastictranscoder.model.*;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.aws.ApiRateLimit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class SimulatedTranscoder extends SimulatedService {
+
+    private static final String ACTIVE_STATUS = "Active";
+
+    private static final String PIPELINE_ARN_FORMAT = "arn:aws:elastictranscoder:%s:%s:pipeline/%s";
+
+    private final String accountId;
+    private final String region;
+
+    private final Map<String, CreatePipelineRequest> pipelines = Maps.newLinkedHashMap();
+
+    SimulatedTranscoder(SimulatorConfiguration configuration, SimulatedClock clock, ApiCallRecorder recorder,
+                        String accountId, String region) {
+        super(ApiRateLimit.ETS, configuration, clock, recorder);
+        this.accountId = accountId;
+        this.region = region;
+    }
+
+    public synchronized CreatePipelineResult createPipeline(CreatePipelineRequest request) {
+        String pipelineId = newId("pipeline");
+        pipelines.put(pipelineId, request);
+
+        return new CreatePipelineResult().withPipeline(toPipeline(pipelineId, request));
+    }
+
+    public synchronized ListPipelinesResult listPipelines(ListPipelinesRequest request) {
+        List<Pipeline> matching = pipelines.entrySet().stream()
+                .map(e -> toPipeline(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+
+        return new ListPipelinesResult().withPipelines(matching);
+    }
+
+    public synchronized DeletePipelineResult deletePipeline(DeletePipelineRequest request) {
+        if (pipelines.remove(request.getId()) == null) {
+            String message = "The specified pipeline was not found: " + request.getId();
+            throw error(new ResourceNotFoundException(message), "ResourceNotFoundException", 404);
+        }
+        return new DeletePipelineResult();
+    }
+
+    private Pipeline toPipeline(String pipelineId, CreatePipelineRequest request) {
+        Notifications notifications = request.getNotifications();
+
+        return new Pipeline()
+                .withId(pipelineId)
+                .withArn(String.format(PIPELINE_ARN_FORMAT, region, accountId, pipelineId))
+                .withName(request.getName())
+                .withStatus(ACTIVE_STATUS)
+                .withRole(request.getRole())
+                .withInputBucket(request.getInputBucket())
+                .withOutputBucket(request.getOutputBucket())
+                .withNotifications(new Notifications()
+                        .withCompleted(notifications.getCompleted())
+                        .withError(notifications.getError())
+                        .withProgressing(notifications.getProgressing())
+                        .withWarning(notifications.getWarning()));
+    }
+}
@@ -0,0 +1,82 @@
+package in.reeltime.tool.simulator;
+
+import in.reeltime.tool.condition.ConditionalService;
+import in.reeltime.tool.factory.ServiceFactory;
+import in.reeltime.tool.log.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Runs deployments against in-memory AWS services so their duration and API usage can be measured offline
+public class Simulator {
+
+    private static final String STATE_DIRECTORY_PROPERTY = "reeltime.state.dir";
+
+    private static final String REPORT_FORMAT = "Simulated time: %ds (wall clock: %.1fs, time scale: %s)%n%n%s";
+
+    private final SimulatorConfiguration configuration;
+    private final SimulatedClock clock;
+    private final ApiCallRecorder recorder;
+    private final SimulatedAwsClientFactory awsClientFactory;
+
+    public Simulator(String hostedZoneDomainName, String certificateDomainName) {
+        this(SimulatorConfiguration.fromSystemProperties(), hostedZoneDomainName, certificateDomainName);
+    }
+
+    public Simulator(SimulatorConfiguration configuration, String hostedZoneDomainName, String certificateDomainName) {
+        // Journals and wait history from real deployments must neither leak into nor be overwritten by a simulation
+        useTemporaryStateDirectory();
+
+        this.configuration = configuration;
+        this.clock = new SimulatedClock(configuration.getTimeScale());
+        this.recorder = new ApiCallRecorder();
+        this.awsClientFactory = new SimulatedAwsClientFactory(configuration, clock, recorder,
+                hostedZoneDomainName, certificateDomainName);
+    }
+
+    public ServiceFactory serviceFactory(String environmentName) {
+        ConditionalService conditionalService = new ConditionalService(configuration.getTimeScale());
+        return new ServiceFactory(environmentName, awsClientFactory, conditionalService, hostname -> true,
+                new SimulatedIpAddressService());
+    }
+
+    public ApiCallRecorder getRecorder() {
+        return recorder;
+    }
+
+    public String report() {
+        long simulatedSecs = TimeUnit.MILLISECONDS.toSeconds(clock.currentTimeMillis());
+        double wallClockSecs = clock.wallClockMillis() / 1000.0;
+
+        return String.format(REPORT_FORMAT, simulatedSecs, wallClockSecs, configuration.getTimeScale(), recorder.format());
+    }
+
+    private static void useTemporaryStateDirectory() {
+        try {
+            Path directory = Files.createTempDirectory("reeltime-simulator");
+            System.setProperty(STATE_DIRECTORY_PROPERTY, directory.toString());
+
+            // deleteOnExit only removes empty directories and the journals are written into this one
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteStateDirectory(directory), "simulator-cleanup"));
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Unable to create state directory for simulation", e);
+        }
+    }
+
+    private static void deleteStateDirectory(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)
+                    .forEach(File::delete);
+        }
+        catch (IOException e) {
+            Logger.warn("Unable to delete simulation state directory [%s]: %s", directory, e.getMessage());
+        }
+    }
+}
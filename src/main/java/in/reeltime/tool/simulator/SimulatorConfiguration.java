@@ -0,0 +1,201 @@
+package in.reeltime.tool.simulator;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.util.SystemPropertyUtil;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class SimulatorConfiguration {
+
+    private static final String TIME_SCALE_PROPERTY = "reeltime.simulator.timeScale";
+    private static final double DEFAULT_TIME_SCALE = 0.01;
+
+    private static final String LATENCY_MILLIS_PROPERTY = "reeltime.simulator.latencyMillis";
+    private static final long DEFAULT_LATENCY_MILLIS = 80;
+
+    private static final String LATENCY_SPREAD_PROPERTY = "reeltime.simulator.latencySpread";
+    private static final double DEFAULT_LATENCY_SPREAD = 0.5;
+
+    private static final String THROTTLE_RATE_PROPERTY = "reeltime.simulator.throttleRate";
+    private static final double DEFAULT_THROTTLE_RATE = 0.0;
+
+    private static final String FAULT_RATE_PROPERTY = "reeltime.simulator.faultRate";
+    private static final double DEFAULT_FAULT_RATE = 0.0;
+
+    private static final String BANDWIDTH_MB_PER_SEC_PROPERTY = "reeltime.simulator.bandwidthMBps";
+    private static final long DEFAULT_BANDWIDTH_MB_PER_SEC = 50;
+
+    private static final String SEED_PROPERTY = "reeltime.simulator.seed";
+
+    private static final String TRANSITION_DELAY_PROPERTY_FORMAT = "reeltime.simulator.delay.%sSecs";
+
+    // Typical durations observed against us-east-1
+    private static final Map<String, Long> DEFAULT_TRANSITION_DELAY_SECS = new ImmutableMap.Builder<String, Long>()
+            .put(Transition.NAT_GATEWAY_CREATE, 90L)
+            .put(Transition.NAT_GATEWAY_DELETE, 60L)
+            .put(Transition.DB_INSTANCE_CREATE, 420L)
+            .put(Transition.DB_INSTANCE_RENAME, 120L)
+            .put(Transition.DB_INSTANCE_DELETE, 300L)
+            .put(Transition.ENVIRONMENT_LAUNCH, 360L)
+            .put(Transition.ENVIRONMENT_UPDATE, 150L)
+            .put(Transition.ENVIRONMENT_TERMINATE, 240L)
+            .put(Transition.DNS_CHANGE, 45L)
+            .build();
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    private final double timeScale;
+
+    private final long latencyMillis;
+    private final double latencySpread;
+
+    private final double throttleRate;
+    private final double faultRate;
+
+    private final long bandwidthBytesPerSec;
+    private final long seed;
+
+    private final Map<String, Long> transitionDelaysMillis;
+
+    private SimulatorConfiguration(Builder builder) {
+        this.timeScale = builder.timeScale;
+        this.latencyMillis = builder.latencyMillis;
+        this.latencySpread = builder.latencySpread;
+        this.throttleRate = builder.throttleRate;
+        this.faultRate = builder.faultRate;
+        this.bandwidthBytesPerSec = builder.bandwidthBytesPerSec;
+        this.seed = builder.seed;
+        this.transitionDelaysMillis = ImmutableMap.copyOf(builder.transitionDelaysMillis);
+    }
+
+    public static SimulatorConfiguration fromSystemProperties() {
+        Builder builder = new Builder()
+                .withTimeScale(SystemPropertyUtil.getDoubleSystemProperty(TIME_SCALE_PROPERTY, DEFAULT_TIME_SCALE))
+                .withLatency(SystemPropertyUtil.getLongSystemProperty(LATENCY_MILLIS_PROPERTY, DEFAULT_LATENCY_MILLIS),
+                        SystemPropertyUtil.getDoubleSystemProperty(LATENCY_SPREAD_PROPERTY, DEFAULT_LATENCY_SPREAD))
+                .withThrottleRate(SystemPropertyUtil.getDoubleSystemProperty(THROTTLE_RATE_PROPERTY, DEFAULT_THROTTLE_RATE))
+                .withFaultRate(SystemPropertyUtil.getDoubleSystemProperty(FAULT_RATE_PROPERTY, DEFAULT_FAULT_RATE))
+                .withBandwidth(SystemPropertyUtil.getLongSystemProperty(BANDWIDTH_MB_PER_SEC_PROPERTY, DEFAULT_BANDWIDTH_MB_PER_SEC) * MEGABYTE)
+                .withSeed(SystemPropertyUtil.getLongSystemProperty(SEED_PROPERTY, System.nanoTime()));
+
+        DEFAULT_TRANSITION_DELAY_SECS.forEach((transition, defaultSecs) -> {
+            String property = String.format(TRANSITION_DELAY_PROPERTY_FORMAT, transition);
+            long secs = SystemPropertyUtil.getLongSystemProperty(property, defaultSecs);
+
+            builder.withTransitionDelay(transition, secs, TimeUnit.SECONDS);
+        });
+
+        return builder.build();
+    }
+
+    public double getTimeScale() {
+        return timeScale;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public double getLatencySpread() {
+        return latencySpread;
+    }
+
+    public double getThrottleRate() {
+        return throttleRate;
+    }
+
+    public double getFaultRate() {
+        return faultRate;
+    }
+
+    public long getBandwidthBytesPerSec() {
+        return bandwidthBytesPerSec;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTransitionDelayMillis(String transition) {
+        Long delay = transitionDelaysMillis.get(transition);
+
+        if (delay == null) {
+            throw new IllegalArgumentException("Unknown transition: " + transition);
+        }
+        return delay;
+    }
+
+    public static class Builder {
+        private double timeScale = DEFAULT_TIME_SCALE;
+        private long latencyMillis = DEFAULT_LATENCY_MILLIS;
+        private double latencySpread = DEFAULT_LATENCY_SPREAD;
+        private double throttleRate = DEFAULT_THROTTLE_RATE;
+        private double faultRate = DEFAULT_FAULT_RATE;
+        private long bandwidthBytesPerSec = DEFAULT_BANDWIDTH_MB_PER_SEC * MEGABYTE;
+        private long seed = 0;
+        private Map<String, Long> transitionDelaysMillis = Maps.newHashMap();
+
+        public Builder() {
+            DEFAULT_TRANSITION_DELAY_SECS.forEach((transition, secs) ->
+                    transitionDelaysMillis.put(transition, TimeUnit.SECONDS.toMillis(secs)));
+        }
+
+        public Builder withTimeScale(double timeScale) {
+            this.timeScale = timeScale;
+            return this;
+        }
+
+        // Latencies are log-normally distributed around the median, with the spread as the standard deviation of the log
+        public Builder withLatency(long medianMillis, double spread) {
+            this.latencyMillis = medianMillis;
+            this.latencySpread = spread;
+            return this;
+        }
+
+        public Builder withThrottleRate(double throttleRate) {
+            this.throttleRate = throttleRate;
+            return this;
+        }
+
+        public Builder withFaultRate(double faultRate) {
+            this.faultRate = faultRate;
+            return this;
+        }
+
+        public Builder withBandwidth(long bytesPerSec) {
+            this.bandwidthBytesPerSec = bytesPerSec;
+            return this;
+        }
+
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder withTransitionDelay(String transition, long delay, TimeUnit unit) {
+            if (!transitionDelaysMillis.containsKey(transition)) {
+                throw new IllegalArgumentException("Unknown transition: " + transition);
+            }
+            this.transitionDelaysMillis.put(transition, unit.toMillis(delay));
+            return this;
+        }
+
+        public SimulatorConfiguration build() {
+            if (timeScale <= 0) {
+                throw new IllegalArgumentException("Time scale must be positive");
+            }
+            if (latencyMillis < 0 || latencySpread < 0) {
+                throw new IllegalArgumentException("Latency must not be negative");
+            }
+            if (throttleRate < 0.0 || throttleRate >= 1.0 || faultRate < 0.0 || faultRate >= 1.0) {
+                throw new IllegalArgumentException("Throttle and fault rates must be in the range [0.0, 1.0)");
+            }
+            if (bandwidthBytesPerSec <= 0) {
+                throw new IllegalArgumentException("Bandwidth must be positive");
+            }
+            return new SimulatorConfiguration(this);
+        }
+    }
+}
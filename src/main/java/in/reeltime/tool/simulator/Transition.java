@@ -0,0 +1,20 @@
+package in.reeltime.tool.simulator;
+
+// Names of the asynchronous state changes whose duration can be configured
+final class Transition {
+
+    static final String NAT_GATEWAY_CREATE = "natGatewayCreate";
+    static final String NAT_GATEWAY_DELETE = "natGatewayDelete";
+
+    static final String DB_INSTANCE_CREATE = "dbInstanceCreate";
+    static final String DB_INSTANCE_RENAME = "dbInstanceRename";
+    static final String DB_INSTANCE_DELETE = "dbInstanceDelete";
+
+    static final String ENVIRONMENT_LAUNCH = "environmentLaunch";
+    static final String ENVIRONMENT_UPDATE = "environmentUpdate";
+    static final String ENVIRONMENT_TERMINATE = "environmentTerminate";
+
+    static final String DNS_CHANGE = "dnsChange";
+
+    private Transition() { }
+}
@@ -0,0 +1,133 @@
+package in.reeltime.tool.state;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.trace.Span;
+import in.reeltime.tool.trace.Tracer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class DeploymentState {
+
+    // Bump when the resources a step records, or the way they are created, change incompatibly
+    private static final String STATE_VERSION = "1";
+
+    private final File file;
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, StepState> steps;
+
+    public DeploymentState(File file, boolean enabled) {
+        this.file = file;
+        this.enabled = enabled;
+        this.objectMapper = new ObjectMapper();
+        this.steps = load();
+    }
+
+    public static String hashInputs(Object... inputs) {
+        String joined = STATE_VERSION + "|" + Joiner.on('|').useForNull("").join(inputs);
+        return Hashing.sha256().hashString(joined, StandardCharsets.UTF_8).toString();
+    }
+
+    public <T> T runStep(String step, String inputsHash, Function<Map<String, String>, T> restore,
+                         Supplier<T> setup, Function<T, Map<String, String>> record) {
+        StepState saved = getStep(step);
+
+        if (enabled && saved != null && saved.inputsHash.equals(inputsHash)) {
+            Logger.info("Verifying [%s] resources recorded in [%s]", step, file.getPath());
+            T restored;
+
+            try (Span span = Tracer.start("step", step + ".restore")) {
+                restored = restore.apply(saved.resources);
+                span.setAttribute("restored", restored != null);
+            }
+
+            if (restored != null) {
+                Logger.info("Skipping [%s] setup, inputs are unchanged since the last run", step);
+                return restored;
+            }
+            Logger.info("Recorded [%s] resources have drifted, running full setup", step);
+        }
+
+        try (Span span = Tracer.start("step", step + ".setup")) {
+            T value = setup.get();
+            Map<String, String> resources = record.apply(value);
+
+            // The recorded resource ids are what a slow setup is usually investigated by
+            resources.forEach(span::setAttribute);
+
+            putStep(step, new StepState(inputsHash, resources));
+            return value;
+        }
+    }
+
+    public synchronized void forget(String step) {
+        if (steps.remove(step) != null) {
+            save();
+        }
+    }
+
+    private synchronized StepState getStep(String step) {
+        return steps.get(step);
+    }
+
+    private synchronized void putStep(String step, StepState state) {
+        steps.put(step, state);
+        save();
+    }
+
+    private Map<String, StepState> load() {
+        if (!file.exists()) {
+            return Maps.newHashMap();
+        }
+
+        try {
+            return objectMapper.readValue(file, new TypeReference<Map<String, StepState>>() {});
+        }
+        catch (IOException e) {
+            Logger.warn("Ignoring unreadable deployment state [%s]: %s", file.getPath(), e.getMessage());
+            return Maps.newHashMap();
+        }
+    }
+
+    private void save() {
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, steps);
+        }
+        catch (IOException e) {
+            Logger.warn("Failed to write deployment state [%s]: %s", file.getPath(), e.getMessage());
+        }
+    }
+
+    private static class StepState {
+
+        @JsonProperty("inputsHash")
+        private String inputsHash;
+
+        @JsonProperty("resources")
+        private Map<String, String> resources;
+
+        @JsonProperty("recordedAt")
+        private long recordedAt;
+
+        private StepState() { }
+
+        private StepState(String inputsHash, Map<String, String> resources) {
+            this.inputsHash = inputsHash;
+            this.resources = ImmutableMap.copyOf(resources);
+            this.recordedAt = System.currentTimeMillis();
+        }
+    }
+}
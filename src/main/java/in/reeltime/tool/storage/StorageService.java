@@ -1,11 +1,22 @@
 package in.reeltime.tool.storage;
 
 import com.amazonaws.services.s3.model.Bucket;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import in.reeltime.tool.name.NameService;
+import in.reeltime.tool.plan.ResourceChange;
 import in.reeltime.tool.storage.bucket.BucketService;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 public class StorageService {
 
+    private static final List<String> BUCKET_NAME_SUFFIXES =
+            ImmutableList.of("master-videos", "thumbnails", "playlists-and-segments", "wars");
+
     private final NameService nameService;
     private final BucketService bucketService;
 
@@ -28,6 +39,41 @@ public class StorageService {
                 .build();
     }
 
+    public Map<String, String> recordStorage(Storage storage) {
+        return ImmutableMap.of(
+                "master-videos", storage.getMasterVideosBucket().getName(),
+                "thumbnails", storage.getThumbnailsBucket().getName(),
+                "playlists-and-segments", storage.getPlaylistsAndSegmentsBucket().getName(),
+                "wars", storage.getWarsBucket().getName());
+    }
+
+    public Storage restoreStorage(Map<String, String> resources) {
+        Map<String, Bucket> buckets = bucketService.getBuckets().stream()
+                .collect(Collectors.toMap(Bucket::getName, b -> b));
+
+        if (!buckets.keySet().containsAll(resources.values())) {
+            return null;
+        }
+
+        return new Storage.Builder()
+                .withMasterVideosBucket(buckets.get(resources.get("master-videos")))
+                .withThumbnailsBucket(buckets.get(resources.get("thumbnails")))
+                .withPlaylistsAndSegmentsBucket(buckets.get(resources.get("playlists-and-segments")))
+                .withWarsBucket(buckets.get(resources.get("wars")))
+                .build();
+    }
+
+    public List<Supplier<ResourceChange>> planStorage() {
+        return BUCKET_NAME_SUFFIXES.stream()
+                .map(nameSuffix -> nameService.getNameForResource(Bucket.class, nameSuffix))
+                .map(name -> (Supplier<ResourceChange>) () -> ResourceChange.ensure("bucket", name, bucketService.bucketExists(name)))
+                .collect(Collectors.toList());
+    }
+
+    public String getWarsBucketName() {
+        return nameService.getNameForResource(Bucket.class, "wars");
+    }
+
     public void tearDownStorage() {
         deleteBucket("master-videos");
         deleteBucket("thumbnails");
@@ -1,47 +1,80 @@
 package in.reeltime.tool.storage.bucket;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
+import in.reeltime.tool.inventory.ResourceCache;
+import in.reeltime.tool.inventory.ResourceInventory;
 import in.reeltime.tool.log.Logger;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 public class BucketService {
 
     private final AmazonS3 s3;
+    private final ResourceCache<String, Bucket> buckets;
 
-    public BucketService(AmazonS3 s3) {
+    public BucketService(AmazonS3 s3, ResourceInventory inventory) {
         this.s3 = s3;
+        this.buckets = inventory.cache("buckets", this::listBuckets, this::lookupBucket);
     }
 
     public boolean bucketExists(String bucketName) {
         Logger.info("Checking existence of bucket [%s]", bucketName);
-        return s3.doesBucketExist(bucketName);
+        return buckets.contains(bucketName);
     }
 
     public Bucket getBucket(String bucketName) {
         Logger.info("Getting bucket [%s]", bucketName);
+        return buckets.get(bucketName);
+    }
+
+    public List<Bucket> getBuckets() {
+        return buckets.values();
+    }
+
+    private Bucket lookupBucket(String bucketName) {
+        try {
+            // Fails with 404 for a missing bucket and 403 for one owned by another account
+            s3.getBucketLocation(bucketName);
+            return new Bucket(bucketName);
+        }
+        catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404 || e.getStatusCode() == 403) {
+                return null;
+            }
+            throw e;
+        }
+    }
 
+    private Map<String, Bucket> listBuckets() {
         return s3.listBuckets().stream()
-                .filter(b -> b.getName().equals(bucketName))
-                .findFirst().get();
+                .collect(Collectors.toMap(Bucket::getName, b -> b));
     }
 
     public Bucket createBucket(String bucketName) {
-        if (bucketExists(bucketName)) {
+        Bucket existing = getBucket(bucketName);
+
+        if (existing != null) {
             Logger.info("Bucket [%s] already exists", bucketName);
-            return getBucket(bucketName);
+            return existing;
         }
 
         Logger.info("Creating bucket [%s]", bucketName);
-        return s3.createBucket(bucketName);
+        return buckets.put(bucketName, s3.createBucket(bucketName));
     }
 
     public void deleteBucket(String bucketName) {
-        if (!bucketExists(bucketName)) {
+        if (getBucket(bucketName) == null) {
             Logger.info("Bucket [%s] does not exist", bucketName);
             return;
         }
 
         Logger.info("Deleting bucket [%s]", bucketName);
         s3.deleteBucket(bucketName);
+
+        buckets.remove(bucketName);
     }
 }
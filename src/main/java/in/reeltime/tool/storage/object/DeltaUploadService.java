@@ -0,0 +1,273 @@
+package in.reeltime.tool.storage.object;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.log.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+public class DeltaUploadService {
+
+    private static final int NOT_FOUND_STATUS_CODE = 404;
+
+    // S3 limits a single part (uploaded or copied) to 5GB
+    private static final long MAX_PART_SIZE = 5L * 1024L * 1024L * 1024L;
+
+    private static final String MANIFEST_KEY_FORMAT = "manifests/%s.json";
+    private static final String MANIFEST_CONTENT_TYPE = "application/json";
+
+    private final AmazonS3 s3;
+    private final MultipartUploadService multipartUploadService;
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+
+    public DeltaUploadService(AmazonS3 s3, MultipartUploadService multipartUploadService, boolean enabled) {
+        this.s3 = s3;
+        this.multipartUploadService = multipartUploadService;
+        this.enabled = enabled;
+        this.objectMapper = new ObjectMapper();
+    }
+
+    public ZipManifest readManifest(File file, String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        try {
+            return ZipManifest.read(file, key);
+        }
+        catch (IOException e) {
+            Logger.warn("Unable to read zip entries of [%s]: %s", file.getPath(), e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean upload(File file, String bucketName, ZipManifest manifest, ObjectMetadata metadata) {
+        ZipManifest previous = getPreviousManifest(bucketName, file.getName());
+
+        if (previous == null || !isSourceAvailable(bucketName, previous)) {
+            Logger.info("No previous version of [%s] available for a delta upload", file.getName());
+            return false;
+        }
+
+        List<UploadPart> parts = planParts(manifest, previous);
+        long copiedBytes = parts.stream().filter(UploadPart::isCopy).mapToLong(UploadPart::getLength).sum();
+
+        if (copiedBytes == 0) {
+            Logger.info("No unchanged ranges of [%s] are large enough to copy from [%s]", file.getName(), previous.getKey());
+            return false;
+        }
+
+        Logger.info("Reusing [%s] of [%s] bytes from [%s]", copiedBytes, file.length(), previous.getKey());
+        multipartUploadService.upload(file, bucketName, manifest.getKey(), metadata, parts);
+
+        return true;
+    }
+
+    public void saveManifest(String bucketName, String fileName, ZipManifest manifest) {
+        String manifestKey = String.format(MANIFEST_KEY_FORMAT, fileName);
+
+        try {
+            byte[] content = objectMapper.writeValueAsBytes(manifest);
+
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(content.length);
+            metadata.setContentType(MANIFEST_CONTENT_TYPE);
+
+            Logger.info("Saving manifest [%s] for key [%s]", manifestKey, manifest.getKey());
+            s3.putObject(bucketName, manifestKey, new ByteArrayInputStream(content), metadata);
+        }
+        catch (IOException e) {
+            Logger.warn("Failed to save manifest [%s]: %s", manifestKey, e.getMessage());
+        }
+    }
+
+    private ZipManifest getPreviousManifest(String bucketName, String fileName) {
+        String manifestKey = String.format(MANIFEST_KEY_FORMAT, fileName);
+
+        try (S3Object object = s3.getObject(bucketName, manifestKey);
+             InputStream inputStream = object.getObjectContent()) {
+            return objectMapper.readValue(inputStream, ZipManifest.class);
+        }
+        catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == NOT_FOUND_STATUS_CODE) {
+                return null;
+            }
+            throw e;
+        }
+        catch (IOException e) {
+            Logger.warn("Ignoring unreadable manifest [%s]: %s", manifestKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isSourceAvailable(String bucketName, ZipManifest previous) {
+        try {
+            ObjectMetadata metadata = s3.getObjectMetadata(bucketName, previous.getKey());
+            return metadata.getContentLength() == previous.getLength();
+        }
+        catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == NOT_FOUND_STATUS_CODE) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private List<UploadPart> planParts(ZipManifest manifest, ZipManifest previous) {
+        Map<String, ZipManifest.Entry> previousEntries = Maps.newHashMap();
+
+        for (ZipManifest.Entry entry : previous.getEntries()) {
+            previousEntries.put(entry.getSha256(), entry);
+        }
+
+        List<Range> ranges = Lists.newArrayList();
+        long position = 0;
+
+        for (ZipManifest.Entry entry : manifest.getEntries()) {
+            ZipManifest.Entry unchanged = previousEntries.get(entry.getSha256());
+
+            if (entry.getOffset() > position) {
+                addRange(ranges, Range.upload(position, entry.getOffset() - position));
+            }
+
+            if (unchanged != null) {
+                addRange(ranges, Range.copy(entry.getOffset(), entry.getLength(), unchanged.getOffset()));
+            }
+            else {
+                addRange(ranges, Range.upload(entry.getOffset(), entry.getLength()));
+            }
+            position = entry.getOffset() + entry.getLength();
+        }
+
+        // The central directory always differs once any entry has moved
+        if (manifest.getLength() > position) {
+            addRange(ranges, Range.upload(position, manifest.getLength() - position));
+        }
+
+        return toParts(ranges, previous.getKey());
+    }
+
+    private void addRange(List<Range> ranges, Range range) {
+        Range last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+
+        if (last != null && last.isContiguousWith(range)) {
+            last.length += range.length;
+        }
+        else {
+            ranges.add(range);
+        }
+    }
+
+    private List<UploadPart> toParts(List<Range> ranges, String sourceKey) {
+        long minPartSize = MultipartUploadService.MIN_PART_SIZE;
+        long partSize = multipartUploadService.getPartSize();
+
+        List<UploadPart> parts = Lists.newArrayList();
+        Range pending = null;
+
+        for (Range range : ranges) {
+            if (!range.copy || range.length < minPartSize) {
+                pending = (pending == null) ? Range.upload(range.offset, range.length) : pending.extend(range.length);
+                continue;
+            }
+
+            if (pending != null && pending.length < minPartSize) {
+                long needed = minPartSize - pending.length;
+
+                // Borrow the head of the copy to bring the pending upload up to the minimum part size
+                if (range.length - needed < minPartSize) {
+                    pending.extend(range.length);
+                    continue;
+                }
+
+                pending.extend(needed);
+                range = Range.copy(range.offset + needed, range.length - needed, range.sourceOffset + needed);
+            }
+
+            addUploadParts(parts, pending, partSize, minPartSize);
+            pending = null;
+
+            // Equal chunks keep every copy part above the minimum, where a fixed split could leave a short tail
+            long count = (range.length + MAX_PART_SIZE - 1) / MAX_PART_SIZE;
+            long offset = 0;
+
+            for (long chunk = 0; chunk < count; chunk++) {
+                long length = range.length / count + (chunk < range.length % count ? 1 : 0);
+                parts.add(UploadPart.copyOf(parts.size() + 1, range.offset + offset, length, sourceKey,
+                        range.sourceOffset + offset));
+                offset += length;
+            }
+        }
+
+        addUploadParts(parts, pending, partSize, minPartSize);
+        return parts;
+    }
+
+    private void addUploadParts(List<UploadPart> parts, Range range, long partSize, long minPartSize) {
+        if (range == null) {
+            return;
+        }
+
+        long end = range.offset + range.length;
+        long offset = range.offset;
+
+        while (offset < end) {
+            long length = Math.min(partSize, end - offset);
+
+            // Fold a short remainder into this part so that only the final part of the object can be small
+            if (end - offset - length < minPartSize) {
+                length = end - offset;
+            }
+
+            parts.add(UploadPart.fromFile(parts.size() + 1, offset, length));
+            offset += length;
+        }
+    }
+
+    private static class Range {
+
+        private final boolean copy;
+        private final long offset;
+        private final long sourceOffset;
+
+        private long length;
+
+        private Range(boolean copy, long offset, long length, long sourceOffset) {
+            this.copy = copy;
+            this.offset = offset;
+            this.length = length;
+            this.sourceOffset = sourceOffset;
+        }
+
+        static Range upload(long offset, long length) {
+            return new Range(false, offset, length, -1);
+        }
+
+        static Range copy(long offset, long length, long sourceOffset) {
+            return new Range(true, offset, length, sourceOffset);
+        }
+
+        Range extend(long length) {
+            this.length += length;
+            return this;
+        }
+
+        boolean isContiguousWith(Range next) {
+            if (copy != next.copy || offset + length != next.offset) {
+                return false;
+            }
+            return !copy || sourceOffset + length == next.sourceOffset;
+        }
+    }
+}
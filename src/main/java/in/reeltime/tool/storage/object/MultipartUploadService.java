@@ -0,0 +1,316 @@
+package in.reeltime.tool.storage.object;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.util.StateDirectoryUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MultipartUploadService {
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    // S3 rejects multipart uploads with non-final parts smaller than 5MB
+    public static final long MIN_PART_SIZE = 5 * MEGABYTE;
+
+    private static final int MAX_PART_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(2);
+
+    private static final String JOURNAL_FILENAME_FORMAT = "upload-%s-%s.json";
+
+    private final AmazonS3 s3;
+
+    private final long partSize;
+    private final int parallelism;
+
+    public MultipartUploadService(AmazonS3 s3, long partSize, int parallelism) {
+        if (partSize < MIN_PART_SIZE) {
+            String message = String.format("Part size must be at least %s bytes", MIN_PART_SIZE);
+            throw new IllegalArgumentException(message);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+
+        this.s3 = s3;
+        this.partSize = partSize;
+        this.parallelism = parallelism;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public boolean shouldUseMultipartUpload(File file) {
+        return file.length() > partSize;
+    }
+
+    public void upload(File file, String bucketName, String key, ObjectMetadata metadata) {
+        List<UploadPart> parts = Lists.newArrayList();
+
+        long length = file.length();
+        int partNumber = 1;
+
+        for (long offset = 0; offset < length; offset += partSize) {
+            parts.add(UploadPart.fromFile(partNumber++, offset, Math.min(partSize, length - offset)));
+        }
+
+        upload(file, bucketName, key, metadata, parts);
+    }
+
+    public void upload(File file, String bucketName, String key, ObjectMetadata metadata, List<UploadPart> parts) {
+        File journalFile = getJournalFile(bucketName, key);
+        String partLayout = getPartLayout(parts);
+
+        UploadJournal journal = resumeUpload(journalFile, bucketName, key, file, partLayout);
+
+        if (journal == null) {
+            journal = initiateUpload(journalFile, bucketName, key, file, partLayout, metadata);
+        }
+
+        String uploadId = journal.getUploadId();
+
+        Logger.info("Uploading file [%s] in [%s] parts of up to [%s]MB with [%s] concurrent uploads",
+                file.getPath(), parts.size(), partSize / MEGABYTE, parallelism);
+
+        uploadParts(file, bucketName, key, journal, parts);
+
+        CompleteMultipartUploadRequest request = new CompleteMultipartUploadRequest(
+                bucketName, key, uploadId, journal.getPartETags());
+
+        Logger.info("Completing multipart upload [%s] for key [%s]", uploadId, key);
+        s3.completeMultipartUpload(request);
+
+        journal.delete();
+    }
+
+    private UploadJournal resumeUpload(File journalFile, String bucketName, String key, File file,
+                                       String partLayout) {
+        UploadJournal journal = UploadJournal.load(journalFile);
+
+        if (journal == null) {
+            return null;
+        }
+
+        if (!journal.matches(bucketName, key, file, partLayout)) {
+            Logger.info("Discarding upload journal for key [%s] because the file or part layout changed", key);
+            abortUpload(bucketName, key, journal.getUploadId());
+            journal.delete();
+            return null;
+        }
+
+        String uploadId = journal.getUploadId();
+
+        try {
+            journal.retainParts(listUploadedParts(bucketName, key, uploadId));
+            Logger.info("Resuming multipart upload [%s] for key [%s]", uploadId, key);
+            return journal;
+        }
+        catch (AmazonS3Exception e) {
+            Logger.info("Multipart upload [%s] can no longer be resumed: %s", uploadId, e.getErrorCode());
+            journal.delete();
+            return null;
+        }
+    }
+
+    private UploadJournal initiateUpload(File journalFile, String bucketName, String key, File file,
+                                         String partLayout, ObjectMetadata metadata) {
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucketName, key, metadata);
+        InitiateMultipartUploadResult result = s3.initiateMultipartUpload(request);
+
+        String uploadId = result.getUploadId();
+        Logger.info("Initiated multipart upload [%s] for key [%s]", uploadId, key);
+
+        return UploadJournal.create(journalFile, bucketName, key, uploadId, file, partLayout);
+    }
+
+    private Map<Integer, String> listUploadedParts(String bucketName, String key, String uploadId) {
+        Map<Integer, String> uploadedParts = Maps.newHashMap();
+
+        ListPartsRequest request = new ListPartsRequest(bucketName, key, uploadId);
+        PartListing listing;
+
+        do {
+            listing = s3.listParts(request);
+
+            for (PartSummary part : listing.getParts()) {
+                uploadedParts.put(part.getPartNumber(), part.getETag());
+            }
+
+            request.setPartNumberMarker(listing.getNextPartNumberMarker());
+        }
+        while (listing.isTruncated());
+
+        return uploadedParts;
+    }
+
+    private void uploadParts(File file, String bucketName, String key, UploadJournal journal, List<UploadPart> parts) {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("upload-%d")
+                .setDaemon(true)
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+
+        int partCount = parts.size();
+        AtomicInteger partsCompleted = new AtomicInteger();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<CompletableFuture<Void>> futures = Lists.newArrayList();
+
+            for (UploadPart part : parts) {
+                int partNumber = part.getPartNumber();
+
+                if (journal.isPartCompleted(partNumber)) {
+                    partsCompleted.incrementAndGet();
+                    continue;
+                }
+
+                futures.add(CompletableFuture.runAsync(() -> {
+                    PartETag partETag = transferPart(channel, bucketName, key, journal.getUploadId(), part);
+                    journal.recordPart(partETag);
+
+                    Logger.info("%s part [%s] (%s of %s)", part.isCopy() ? "Copied" : "Uploaded",
+                            partNumber, partsCompleted.incrementAndGet(), partCount);
+                }, executor));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        }
+        catch (CompletionException e) {
+            Logger.warn("Multipart upload [%s] failed; rerun to resume from the completed parts", journal.getUploadId());
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Failed to upload parts for key: " + key, cause);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to read file: " + file.getPath(), e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PartETag transferPart(FileChannel channel, String bucketName, String key, String uploadId, UploadPart part) {
+        int partNumber = part.getPartNumber();
+        int attempt = 1;
+
+        while (true) {
+            try {
+                return part.isCopy() ?
+                        copyPart(bucketName, key, uploadId, part) :
+                        uploadPart(channel, bucketName, key, uploadId, part);
+            }
+            catch (AmazonClientException | IOException e) {
+                if (attempt >= MAX_PART_ATTEMPTS) {
+                    String message = String.format("Failed to transfer part [%s] after [%s] attempts", partNumber, attempt);
+                    throw new RuntimeException(message, e);
+                }
+
+                Logger.warn("Retrying part [%s] after failed attempt [%s]: %s", partNumber, attempt, e.getMessage());
+                sleep(RETRY_DELAY_MILLIS * attempt);
+                attempt++;
+            }
+        }
+    }
+
+    private PartETag uploadPart(FileChannel channel, String bucketName, String key, String uploadId,
+                                UploadPart part) throws IOException {
+        long size = part.getLength();
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, part.getOffset(), size);
+        InputStream inputStream = new ByteBufferInputStream(buffer);
+
+        UploadPartRequest request = new UploadPartRequest()
+                .withBucketName(bucketName)
+                .withKey(key)
+                .withUploadId(uploadId)
+                .withPartNumber(part.getPartNumber())
+                .withPartSize(size)
+                .withInputStream(inputStream);
+
+        UploadPartResult result = s3.uploadPart(request);
+        return result.getPartETag();
+    }
+
+    private PartETag copyPart(String bucketName, String key, String uploadId, UploadPart part) {
+        long firstByte = part.getSourceOffset();
+        long lastByte = firstByte + part.getLength() - 1;
+
+        CopyPartRequest request = new CopyPartRequest()
+                .withSourceBucketName(bucketName)
+                .withSourceKey(part.getSourceKey())
+                .withDestinationBucketName(bucketName)
+                .withDestinationKey(key)
+                .withUploadId(uploadId)
+                .withPartNumber(part.getPartNumber())
+                .withFirstByte(firstByte)
+                .withLastByte(lastByte);
+
+        CopyPartResult result = s3.copyPart(request);
+        return result.getPartETag();
+    }
+
+    private void abortUpload(String bucketName, String key, String uploadId) {
+        try {
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+        }
+        catch (AmazonClientException e) {
+            Logger.warn("Failed to abort multipart upload [%s]: %s", uploadId, e.getMessage());
+        }
+    }
+
+    private String getPartLayout(List<UploadPart> parts) {
+        Hasher hasher = Hashing.sha256().newHasher();
+
+        for (UploadPart part : parts) {
+            hasher.putInt(part.getPartNumber())
+                    .putLong(part.getOffset())
+                    .putLong(part.getLength())
+                    .putString(Strings.nullToEmpty(part.getSourceKey()), StandardCharsets.UTF_8)
+                    .putLong(part.getSourceOffset());
+        }
+        return hasher.hash().toString();
+    }
+
+    private File getJournalFile(String bucketName, String key) {
+        String fileName = String.format(JOURNAL_FILENAME_FORMAT, bucketName, key).replaceAll("[^A-Za-z0-9.\\-]", "_");
+        return StateDirectoryUtil.getStateFile(fileName);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry part upload", e);
+        }
+    }
+}
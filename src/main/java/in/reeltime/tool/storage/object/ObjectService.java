@@ -2,28 +2,54 @@ package in.reeltime.tool.storage.object;
 
 import com.amazonaws.event.ProgressListener;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import in.reeltime.tool.aws.Paginator;
 import in.reeltime.tool.condition.ConditionalService;
 import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.util.DigestUtil;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class ObjectService {
 
     private static final long WAITING_POLLING_INTERVAL_SECS = 5;
 
+    private static final int NOT_FOUND_STATUS_CODE = 404;
+
+    private static final String CONTENT_ADDRESSED_KEY_PREFIX = "sha256/";
+    private static final String CONTENT_ADDRESSED_KEY_FORMAT = CONTENT_ADDRESSED_KEY_PREFIX + "%s/%s";
+
+    // Leaves objects alone that a concurrent deployment has uploaded but not yet created a version for
+    private static final long UNREFERENCED_OBJECT_MIN_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String SHA_256_METADATA_KEY = "sha256";
+    private static final String FILENAME_METADATA_KEY = "original-filename";
+
     private static final String WAITING_FOR_OBJECT_STATUS_FORMAT = "Waiting for [%s :: %s] to become available in S3";
     private static final String WAITING_FOR_OBJECT_FAILED_FORMAT = "A problem occurred while waiting for [%s :: %s] on S3";
 
     private final AmazonS3 s3;
+    private final MultipartUploadService multipartUploadService;
+    private final DeltaUploadService deltaUploadService;
     private final ConditionalService conditionalService;
 
-    public ObjectService(AmazonS3 s3, ConditionalService conditionalService) {
+    public ObjectService(AmazonS3 s3, MultipartUploadService multipartUploadService,
+                         DeltaUploadService deltaUploadService, ConditionalService conditionalService) {
         this.s3 = s3;
+        this.multipartUploadService = multipartUploadService;
+        this.deltaUploadService = deltaUploadService;
         this.conditionalService = conditionalService;
     }
 
@@ -31,13 +57,115 @@ public class ObjectService {
         return s3.doesObjectExist(bucketName, key);
     }
 
+    public String createContentAddressedObject(File file, Bucket bucket) throws FileNotFoundException {
+        String bucketName = bucket.getName();
+        String filePath = file.getPath();
+
+        Logger.info("Computing SHA-256 digest of file [%s]", filePath);
+        String digest = DigestUtil.sha256Hex(file);
+
+        String key = getContentAddressedKey(file, digest);
+
+        if (digest.equals(getObjectDigest(bucketName, key))) {
+            Logger.info("File [%s] is already stored in S3 bucket [%s] with key [%s]", filePath, bucketName, key);
+            return key;
+        }
+
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.addUserMetadata(SHA_256_METADATA_KEY, digest);
+        metadata.addUserMetadata(FILENAME_METADATA_KEY, file.getName());
+
+        ZipManifest manifest = deltaUploadService.readManifest(file, key);
+
+        if (manifest != null && deltaUploadService.upload(file, bucketName, manifest, metadata)) {
+            Logger.info("Finished delta upload of file [%s] to S3", filePath);
+            waitForObjectToExist(bucketName, key);
+        }
+        else {
+            createObject(file, bucket, key, metadata);
+        }
+
+        if (manifest != null) {
+            deltaUploadService.saveManifest(bucketName, file.getName(), manifest);
+        }
+        return key;
+    }
+
+    public boolean contentAddressedObjectExists(File file, String bucketName) {
+        String digest = DigestUtil.sha256Hex(file);
+        return digest.equals(getObjectDigest(bucketName, getContentAddressedKey(file, digest)));
+    }
+
+    public String getContentDigest(String contentAddressedKey) {
+        return contentAddressedKey.split("/")[1];
+    }
+
+    private String getContentAddressedKey(File file, String digest) {
+        return String.format(CONTENT_ADDRESSED_KEY_FORMAT, digest, file.getName());
+    }
+
+    // Content addressed objects are shared between versions, so they are only removed once nothing refers to them
+    public void deleteUnreferencedContentAddressedObjects(String bucketName, Set<String> referencedKeys) {
+        long cutoff = System.currentTimeMillis() - UNREFERENCED_OBJECT_MIN_AGE_MILLIS;
+
+        Paginator<String, ObjectListing, S3ObjectSummary> pages = Paginator.paginate(null,
+                marker -> s3.listObjects(new ListObjectsRequest()
+                        .withBucketName(bucketName)
+                        .withPrefix(CONTENT_ADDRESSED_KEY_PREFIX)
+                        .withMarker(marker)),
+                ObjectListing::getObjectSummaries,
+                ObjectService::nextMarker);
+
+        List<String> unreferencedKeys = pages.stream()
+                .filter(o -> !referencedKeys.contains(o.getKey()) && o.getLastModified().getTime() < cutoff)
+                .map(S3ObjectSummary::getKey)
+                .collect(Collectors.toList());
+
+        Logger.info("Found [%s] unreferenced objects in bucket [%s]", unreferencedKeys.size(), bucketName);
+        unreferencedKeys.forEach(key -> deleteObject(bucketName, key));
+    }
+
+    // S3 only returns a next marker when a delimiter is given, otherwise the last key listed is the marker
+    private static String nextMarker(ObjectListing listing) {
+        if (!listing.isTruncated()) {
+            return null;
+        }
+        if (listing.getNextMarker() != null) {
+            return listing.getNextMarker();
+        }
+        List<S3ObjectSummary> summaries = listing.getObjectSummaries();
+        return summaries.get(summaries.size() - 1).getKey();
+    }
+
     public void createObject(File file, Bucket bucket, String key) throws FileNotFoundException {
+        createObject(file, bucket, key, new ObjectMetadata());
+    }
+
+    public void deleteObject(String bucketName, String key) {
+        Logger.info("Deleting object [%s] from bucket [%s]", key, bucketName);
+        s3.deleteObject(bucketName, key);
+    }
+
+    private void createObject(File file, Bucket bucket, String key, ObjectMetadata metadata) throws FileNotFoundException {
         String bucketName = bucket.getName();
+        String filePath = file.getPath();
+
+        if (multipartUploadService.shouldUseMultipartUpload(file)) {
+            Logger.info("Uploading file [%s] to S3 bucket [%s] with key [%s] in parts", filePath, bucketName, key);
+            multipartUploadService.upload(file, bucketName, key, metadata);
+        }
+        else {
+            putObject(file, bucketName, key, metadata);
+        }
+
+        Logger.info("Finished uploading file [%s] to S3", filePath);
+        waitForObjectToExist(bucketName, key);
+    }
 
+    private void putObject(File file, String bucketName, String key, ObjectMetadata metadata) throws FileNotFoundException {
         FileInputStream inputStream = new FileInputStream(file);
         long totalSize = file.length();
 
-        ObjectMetadata metadata = new ObjectMetadata();
         metadata.setContentLength(totalSize);
 
         ProgressListener progressListener = new TransferAwareProgressListener(totalSize);
@@ -45,25 +173,28 @@ public class ObjectService {
         PutObjectRequest request = new PutObjectRequest(bucketName, key, inputStream, metadata);
         request.setGeneralProgressListener(progressListener);
 
-        String filePath = file.getPath();
-
-        Logger.info("Uploading file [%s] to S3 bucket [%s] with key [%s]", filePath, bucketName, key);
+        Logger.info("Uploading file [%s] to S3 bucket [%s] with key [%s]", file.getPath(), bucketName, key);
         s3.putObject(request);
-
-        Logger.info("Finished uploading file [%s] to S3", filePath);
-        waitForObjectToExist(bucketName, key);
     }
 
-    public void deleteObject(String bucketName, String key) {
-        Logger.info("Deleting object [%s] from bucket [%s]", key, bucketName);
-        s3.deleteObject(bucketName, key);
+    private String getObjectDigest(String bucketName, String key) {
+        try {
+            ObjectMetadata metadata = s3.getObjectMetadata(bucketName, key);
+            return metadata.getUserMetaDataOf(SHA_256_METADATA_KEY);
+        }
+        catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == NOT_FOUND_STATUS_CODE) {
+                return null;
+            }
+            throw e;
+        }
     }
 
     private void waitForObjectToExist(String bucketName, String key) {
         String statusMessage = String.format(WAITING_FOR_OBJECT_STATUS_FORMAT, bucketName, key);
         String failureMessage = String.format(WAITING_FOR_OBJECT_FAILED_FORMAT, bucketName, key);
 
-        conditionalService.waitForCondition(statusMessage, failureMessage, WAITING_POLLING_INTERVAL_SECS,
+        conditionalService.waitForCondition("s3-object-exists", statusMessage, failureMessage, WAITING_POLLING_INTERVAL_SECS,
                 () -> objectExists(bucketName, key));
     }
 }
@@ -0,0 +1,126 @@
+package in.reeltime.tool.storage.object;
+
+import com.amazonaws.services.s3.model.PartETag;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.log.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+public class UploadJournal {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @JsonIgnore
+    private File journalFile;
+
+    @JsonProperty("bucketName")
+    private String bucketName;
+
+    @JsonProperty("key")
+    private String key;
+
+    @JsonProperty("uploadId")
+    private String uploadId;
+
+    @JsonProperty("fileLength")
+    private long fileLength;
+
+    @JsonProperty("fileLastModified")
+    private long fileLastModified;
+
+    @JsonProperty("partLayout")
+    private String partLayout;
+
+    @JsonProperty("completedParts")
+    private SortedMap<Integer, String> completedParts = Maps.newTreeMap();
+
+    public static UploadJournal create(File journalFile, String bucketName, String key, String uploadId,
+                                       File file, String partLayout) {
+        UploadJournal journal = new UploadJournal();
+
+        journal.journalFile = journalFile;
+        journal.bucketName = bucketName;
+        journal.key = key;
+        journal.uploadId = uploadId;
+        journal.fileLength = file.length();
+        journal.fileLastModified = file.lastModified();
+        journal.partLayout = partLayout;
+
+        journal.save();
+        return journal;
+    }
+
+    public static UploadJournal load(File journalFile) {
+        if (!journalFile.exists()) {
+            return null;
+        }
+
+        try {
+            UploadJournal journal = OBJECT_MAPPER.readValue(journalFile, UploadJournal.class);
+            journal.journalFile = journalFile;
+            return journal;
+        }
+        catch (IOException e) {
+            Logger.warn("Ignoring unreadable upload journal [%s]: %s", journalFile.getPath(), e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean matches(String bucketName, String key, File file, String partLayout) {
+        return this.bucketName.equals(bucketName) &&
+                this.key.equals(key) &&
+                this.fileLength == file.length() &&
+                this.fileLastModified == file.lastModified() &&
+                this.partLayout.equals(partLayout);
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public synchronized boolean isPartCompleted(int partNumber) {
+        return completedParts.containsKey(partNumber);
+    }
+
+    public synchronized void recordPart(PartETag partETag) {
+        completedParts.put(partETag.getPartNumber(), partETag.getETag());
+        save();
+    }
+
+    public synchronized void retainParts(Map<Integer, String> uploadedParts) {
+        completedParts.entrySet().removeIf(e -> !e.getValue().equals(uploadedParts.get(e.getKey())));
+        save();
+    }
+
+    public synchronized List<PartETag> getPartETags() {
+        List<PartETag> partETags = Lists.newArrayList();
+
+        for (Map.Entry<Integer, String> entry : completedParts.entrySet()) {
+            partETags.add(new PartETag(entry.getKey(), entry.getValue()));
+        }
+        return partETags;
+    }
+
+    public void delete() {
+        if (journalFile.exists() && !journalFile.delete()) {
+            Logger.warn("Failed to delete upload journal [%s]", journalFile.getPath());
+        }
+    }
+
+    private void save() {
+        try {
+            OBJECT_MAPPER.writeValue(journalFile, this);
+        }
+        catch (IOException e) {
+            Logger.warn("Failed to write upload journal [%s]: %s", journalFile.getPath(), e.getMessage());
+        }
+    }
+}
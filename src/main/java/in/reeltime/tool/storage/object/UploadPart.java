@@ -0,0 +1,52 @@
+package in.reeltime.tool.storage.object;
+
+public class UploadPart {
+
+    private final int partNumber;
+
+    private final long offset;
+    private final long length;
+
+    private final String sourceKey;
+    private final long sourceOffset;
+
+    private UploadPart(int partNumber, long offset, long length, String sourceKey, long sourceOffset) {
+        this.partNumber = partNumber;
+        this.offset = offset;
+        this.length = length;
+        this.sourceKey = sourceKey;
+        this.sourceOffset = sourceOffset;
+    }
+
+    public static UploadPart fromFile(int partNumber, long offset, long length) {
+        return new UploadPart(partNumber, offset, length, null, -1);
+    }
+
+    public static UploadPart copyOf(int partNumber, long offset, long length, String sourceKey, long sourceOffset) {
+        return new UploadPart(partNumber, offset, length, sourceKey, sourceOffset);
+    }
+
+    public int getPartNumber() {
+        return partNumber;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public boolean isCopy() {
+        return sourceKey != null;
+    }
+
+    public String getSourceKey() {
+        return sourceKey;
+    }
+
+    public long getSourceOffset() {
+        return sourceOffset;
+    }
+}
@@ -0,0 +1,187 @@
+package in.reeltime.tool.storage.object;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.Lists;
+import in.reeltime.tool.util.DigestUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+
+public class ZipManifest {
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+    @JsonProperty("key")
+    private String key;
+
+    @JsonProperty("length")
+    private long length;
+
+    @JsonProperty("entries")
+    private List<Entry> entries = Lists.newArrayList();
+
+    public static ZipManifest read(File file, String key) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            ByteBuffer endOfCentralDirectory = findEndOfCentralDirectory(channel, size);
+
+            if (endOfCentralDirectory == null) {
+                return null;
+            }
+
+            long centralDirectorySize = unsignedInt(endOfCentralDirectory, 12);
+            long centralDirectoryOffset = unsignedInt(endOfCentralDirectory, 16);
+
+            // Zip64 archives store the real values in a separate record that is not supported here
+            if (centralDirectoryOffset == ZIP64_MARKER || centralDirectorySize == ZIP64_MARKER) {
+                return null;
+            }
+
+            List<Long> localHeaderOffsets = Lists.newArrayList();
+            List<String> names = Lists.newArrayList();
+
+            ByteBuffer centralDirectory = read(channel, centralDirectoryOffset, (int) centralDirectorySize);
+
+            while (centralDirectory.remaining() >= CENTRAL_DIRECTORY_HEADER_SIZE) {
+                int position = centralDirectory.position();
+
+                if (centralDirectory.getInt(position) != CENTRAL_DIRECTORY_HEADER_SIGNATURE) {
+                    break;
+                }
+
+                int nameLength = unsignedShort(centralDirectory, position + 28);
+                int extraLength = unsignedShort(centralDirectory, position + 30);
+                int commentLength = unsignedShort(centralDirectory, position + 32);
+                long localHeaderOffset = unsignedInt(centralDirectory, position + 42);
+
+                if (localHeaderOffset == ZIP64_MARKER) {
+                    return null;
+                }
+
+                byte[] name = new byte[nameLength];
+                centralDirectory.position(position + CENTRAL_DIRECTORY_HEADER_SIZE);
+                centralDirectory.get(name);
+
+                names.add(new String(name, "UTF-8"));
+                localHeaderOffsets.add(localHeaderOffset);
+
+                centralDirectory.position(position + CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength);
+            }
+
+            ZipManifest manifest = new ZipManifest();
+            manifest.key = key;
+            manifest.length = size;
+
+            List<Entry> entries = Lists.newArrayList();
+
+            for (int i = 0; i < names.size(); i++) {
+                Entry entry = new Entry();
+                entry.name = names.get(i);
+                entry.offset = localHeaderOffsets.get(i);
+                entries.add(entry);
+            }
+
+            entries.sort(Comparator.comparingLong(Entry::getOffset));
+
+            // Each entry spans its local header, data and descriptor up to the next local header
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                long end = (i + 1 < entries.size()) ? entries.get(i + 1).offset : centralDirectoryOffset;
+
+                entry.length = end - entry.offset;
+                entry.sha256 = DigestUtil.sha256Hex(channel, entry.offset, entry.length);
+            }
+
+            manifest.entries = entries;
+            return manifest;
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public static class Entry {
+
+        @JsonProperty("name")
+        private String name;
+
+        @JsonProperty("offset")
+        private long offset;
+
+        @JsonProperty("length")
+        private long length;
+
+        @JsonProperty("sha256")
+        private String sha256;
+
+        public String getName() {
+            return name;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+    }
+
+    private static ByteBuffer findEndOfCentralDirectory(FileChannel channel, long size) throws IOException {
+        if (size < END_OF_CENTRAL_DIRECTORY_SIZE) {
+            return null;
+        }
+
+        int searchLength = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        long searchStart = size - searchLength;
+
+        ByteBuffer buffer = read(channel, searchStart, searchLength);
+
+        for (int position = searchLength - END_OF_CENTRAL_DIRECTORY_SIZE; position >= 0; position--) {
+            if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                buffer.position(position);
+                return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        return null;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int unsignedShort(ByteBuffer buffer, int index) {
+        return buffer.getShort(index) & 0xFFFF;
+    }
+
+    private static long unsignedInt(ByteBuffer buffer, int index) {
+        return buffer.getInt(index) & 0xFFFFFFFFL;
+    }
+}
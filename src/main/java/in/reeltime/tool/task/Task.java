@@ -0,0 +1,7 @@
+package in.reeltime.tool.task;
+
+@FunctionalInterface
+public interface Task<T> {
+
+    T run(TaskResults results);
+}
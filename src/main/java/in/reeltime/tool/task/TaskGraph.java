@@ -0,0 +1,171 @@
+package in.reeltime.tool.task;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import in.reeltime.tool.log.LogContext;
+import in.reeltime.tool.log.Logger;
+import in.reeltime.tool.trace.Span;
+import in.reeltime.tool.trace.Tracer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class TaskGraph {
+
+    private final List<Node<?>> nodes;
+
+    private TaskGraph(List<Node<?>> nodes) {
+        this.nodes = ImmutableList.copyOf(nodes);
+    }
+
+    public TaskResults execute(String graphName, int maxConcurrentTasks) {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat(graphName + "-%d")
+                .setDaemon(true)
+                .build();
+
+        int threads = Math.max(1, Math.min(maxConcurrentTasks, nodes.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory);
+
+        Map<TaskKey<?>, CompletableFuture<?>> futures = new ConcurrentHashMap<>();
+
+        Span span = Tracer.start("graph", graphName)
+                .setAttribute("tasks", nodes.size())
+                .setAttribute("threads", threads);
+
+        try {
+            // Nodes are topologically sorted, so every dependency future exists before it is needed
+            for (Node<?> node : nodes) {
+                futures.put(node.key, schedule(node, futures, executor, span));
+            }
+
+            CompletableFuture<?>[] all = futures.values().toArray(new CompletableFuture<?>[futures.size()]);
+            CompletableFuture.allOf(all).join();
+
+            return new TaskResults(futures, futures.keySet());
+        }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            span.setError(cause);
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Task graph [" + graphName + "] failed", cause);
+        }
+        finally {
+            executor.shutdownNow();
+            span.end();
+        }
+    }
+
+    private <T> CompletableFuture<T> schedule(Node<T> node, Map<TaskKey<?>, CompletableFuture<?>> futures,
+                                              ExecutorService executor, Span graphSpan) {
+        CompletableFuture<?>[] dependencies = node.dependencies.stream()
+                .map(futures::get)
+                .toArray(CompletableFuture<?>[]::new);
+
+        TaskResults results = new TaskResults(futures, node.dependencies);
+
+        return CompletableFuture.allOf(dependencies).thenApplyAsync(v -> {
+            LogContext logContext = LogContext.phase(node.key.getName());
+
+            Logger.info("Starting task [%s]", node.key);
+            Stopwatch stopwatch = Stopwatch.createStarted();
+
+            Span span = Tracer.start("task", node.key.getName(), graphSpan);
+
+            try {
+                T value = node.task.run(results);
+
+                Logger.info("Finished task [%s] in [%s] seconds", node.key, stopwatch.elapsed(TimeUnit.SECONDS));
+                return value;
+            }
+            catch (RuntimeException e) {
+                span.setError(e);
+                throw e;
+            }
+            finally {
+                span.end();
+                logContext.close();
+            }
+        }, executor);
+    }
+
+    private static class Node<T> {
+        private final TaskKey<T> key;
+        private final Task<T> task;
+        private final List<TaskKey<?>> dependencies;
+
+        private Node(TaskKey<T> key, Task<T> task, List<TaskKey<?>> dependencies) {
+            this.key = key;
+            this.task = task;
+            this.dependencies = ImmutableList.copyOf(dependencies);
+        }
+    }
+
+    public static class Builder {
+        private final Map<TaskKey<?>, Node<?>> nodes = Maps.newLinkedHashMap();
+
+        public <T> Builder add(TaskKey<T> key, Task<T> task, TaskKey<?>... dependencies) {
+            if (nodes.containsKey(key)) {
+                throw new IllegalArgumentException("Duplicate task: " + key);
+            }
+
+            nodes.put(key, new Node<>(key, task, Lists.newArrayList(dependencies)));
+            return this;
+        }
+
+        public TaskGraph build() {
+            List<Node<?>> sorted = Lists.newArrayList();
+
+            Set<TaskKey<?>> visited = Sets.newHashSet();
+            Set<TaskKey<?>> visiting = Sets.newHashSet();
+
+            for (TaskKey<?> key : nodes.keySet()) {
+                visit(key, visited, visiting, sorted);
+            }
+
+            return new TaskGraph(sorted);
+        }
+
+        private void visit(TaskKey<?> key, Set<TaskKey<?>> visited, Set<TaskKey<?>> visiting,
+                           Collection<Node<?>> sorted) {
+            if (visited.contains(key)) {
+                return;
+            }
+
+            if (!visiting.add(key)) {
+                throw new IllegalStateException("Cycle detected at task: " + key);
+            }
+
+            Node<?> node = nodes.get(key);
+
+            if (node == null) {
+                throw new IllegalStateException("Unknown task dependency: " + key);
+            }
+
+            for (TaskKey<?> dependency : node.dependencies) {
+                visit(dependency, visited, visiting, sorted);
+            }
+
+            visiting.remove(key);
+            visited.add(key);
+
+            sorted.add(node);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package in.reeltime.tool.task;
+
+public class TaskKey<T> {
+
+    private final String name;
+    private final Class<T> type;
+
+    private TaskKey(String name, Class<T> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public static <T> TaskKey<T> of(Class<T> type) {
+        return new TaskKey<>(type.getSimpleName(), type);
+    }
+
+    public static <T> TaskKey<T> of(String name, Class<T> type) {
+        return new TaskKey<>(name, type);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,26 @@
+package in.reeltime.tool.task;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class TaskResults {
+
+    private final Map<TaskKey<?>, CompletableFuture<?>> futures;
+    private final Collection<TaskKey<?>> available;
+
+    TaskResults(Map<TaskKey<?>, CompletableFuture<?>> futures, Collection<TaskKey<?>> available) {
+        this.futures = futures;
+        this.available = available;
+    }
+
+    public <T> T get(TaskKey<T> key) {
+        if (!available.contains(key)) {
+            String message = String.format("Task [%s] is not a declared dependency", key);
+            throw new IllegalArgumentException(message);
+        }
+
+        Object value = futures.get(key).join();
+        return key.getType().cast(value);
+    }
+}
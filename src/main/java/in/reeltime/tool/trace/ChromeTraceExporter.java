@@ -0,0 +1,98 @@
+package in.reeltime.tool.trace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import in.reeltime.tool.log.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Writes finished spans in the Chrome trace event format, which chrome://tracing and Perfetto
+// render as a flame chart per thread. Scoped spans nest by time on the thread that ran them;
+// async spans are drawn on their own track since they may outlive the code that started them.
+public class ChromeTraceExporter {
+
+    private static final int PROCESS_ID = 1;
+
+    private static final String COMPLETE_PHASE = "X";
+    private static final String ASYNC_BEGIN_PHASE = "b";
+    private static final String ASYNC_END_PHASE = "e";
+    private static final String METADATA_PHASE = "M";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public void export(List<Span> spans, File file) {
+        List<Map<String, Object>> events = Lists.newArrayList();
+        Map<Long, String> threadNames = Maps.newTreeMap();
+
+        for (Span span : spans) {
+            threadNames.put(span.getThreadId(), span.getThreadName());
+
+            if (span.isAsync()) {
+                events.add(asyncEvent(span, ASYNC_BEGIN_PHASE, span.getStartNanos(), getArgs(span)));
+                events.add(asyncEvent(span, ASYNC_END_PHASE, span.getEndNanos(), ImmutableMap.of()));
+            }
+            else {
+                Map<String, Object> event = event(span, COMPLETE_PHASE, span.getStartNanos(), getArgs(span));
+                event.put("dur", toMicros(span.getEndNanos() - span.getStartNanos()));
+                events.add(event);
+            }
+        }
+
+        threadNames.forEach((threadId, threadName) -> {
+            Map<String, Object> event = Maps.newLinkedHashMap();
+            event.put("name", "thread_name");
+            event.put("ph", METADATA_PHASE);
+            event.put("pid", PROCESS_ID);
+            event.put("tid", threadId);
+            event.put("args", ImmutableMap.of("name", threadName));
+            events.add(event);
+        });
+
+        try {
+            objectMapper.writeValue(file, ImmutableMap.of("traceEvents", events, "displayTimeUnit", "ms"));
+            Logger.info("Wrote [%s] spans to trace file [%s]", spans.size(), file.getPath());
+        }
+        catch (IOException e) {
+            Logger.warn("Failed to write trace file [%s]: %s", file.getPath(), e.getMessage());
+        }
+    }
+
+    private Map<String, Object> asyncEvent(Span span, String phase, long nanos, Map<String, Object> args) {
+        Map<String, Object> event = event(span, phase, nanos, args);
+        event.put("id", Long.toHexString(span.getId()));
+        return event;
+    }
+
+    private Map<String, Object> event(Span span, String phase, long nanos, Map<String, Object> args) {
+        Map<String, Object> event = Maps.newLinkedHashMap();
+        event.put("name", span.getName());
+        event.put("cat", span.getCategory());
+        event.put("ph", phase);
+        event.put("ts", toMicros(nanos));
+        event.put("pid", PROCESS_ID);
+        event.put("tid", span.getThreadId());
+        event.put("args", args);
+        return event;
+    }
+
+    // The viewers nest spans by time alone, so the ids keep the logical parent visible across threads
+    private Map<String, Object> getArgs(Span span) {
+        Map<String, Object> args = Maps.newLinkedHashMap(span.getAttributes());
+        args.put("spanId", span.getId());
+
+        if (span.getParentId() != 0) {
+            args.put("parentId", span.getParentId());
+        }
+        return args;
+    }
+
+    private static double toMicros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,118 @@
+package in.reeltime.tool.trace;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// A timed unit of work in a trace. Spans started while tracing is disabled record nothing.
+public class Span implements AutoCloseable {
+
+    static final Span NOOP = new Span(0, 0, "", "", false, null);
+
+    private final long id;
+    private final long parentId;
+
+    private final String category;
+    private final String name;
+
+    // Async spans may end on a different thread than the one that started them
+    private final boolean async;
+
+    // The span that was current on the starting thread, restored when a scoped span ends
+    private final Span previous;
+
+    private final long threadId;
+    private final String threadName;
+
+    private final long startNanos;
+    private volatile long endNanos;
+
+    private final Map<String, Object> attributes = Collections.synchronizedMap(Maps.newLinkedHashMap());
+    private final AtomicBoolean ended = new AtomicBoolean();
+
+    Span(long id, long parentId, String category, String name, boolean async, Span previous) {
+        this.id = id;
+        this.parentId = parentId;
+        this.category = category;
+        this.name = name;
+        this.async = async;
+        this.previous = previous;
+        this.threadId = Thread.currentThread().getId();
+        this.threadName = Thread.currentThread().getName();
+        this.startNanos = Tracer.now();
+    }
+
+    public Span setAttribute(String key, Object value) {
+        if (this != NOOP && value != null) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    public Span setError(Throwable error) {
+        return setAttribute("error", error.getClass().getSimpleName() + ": " + error.getMessage());
+    }
+
+    public void end() {
+        if (this == NOOP || !ended.compareAndSet(false, true)) {
+            return;
+        }
+
+        endNanos = Tracer.now();
+        Tracer.finish(this);
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+
+    long getId() {
+        return id;
+    }
+
+    long getParentId() {
+        return parentId;
+    }
+
+    String getCategory() {
+        return category;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    Span getPrevious() {
+        return previous;
+    }
+
+    long getThreadId() {
+        return threadId;
+    }
+
+    String getThreadName() {
+        return threadName;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getEndNanos() {
+        return endNanos;
+    }
+
+    Map<String, Object> getAttributes() {
+        synchronized (attributes) {
+            return ImmutableMap.copyOf(attributes);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package in.reeltime.tool.trace;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Collects the spans of a run in memory until they are exported. Tracing is off until enabled,
+// in which case every span is a no-op and costs a single volatile read.
+public class Tracer {
+
+    private static final long EPOCH_NANOS = System.nanoTime();
+
+    private static final AtomicLong NEXT_SPAN_ID = new AtomicLong();
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private static final Queue<Span> FINISHED = new ConcurrentLinkedQueue<>();
+
+    private static volatile boolean enabled = false;
+
+    private Tracer() { }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // The innermost scoped span open on this thread
+    public static Span current() {
+        Span span = CURRENT.get();
+        return span != null ? span : Span.NOOP;
+    }
+
+    // Starts a span under the current one that stays current on this thread until it ends
+    public static Span start(String category, String name) {
+        return start(category, name, current());
+    }
+
+    // Starts a span under the given one, which was typically current on the thread that handed off the work
+    public static Span start(String category, String name, Span parent) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+
+        Span span = new Span(NEXT_SPAN_ID.incrementAndGet(), parent.getId(), category, name, false, CURRENT.get());
+        CURRENT.set(span);
+        return span;
+    }
+
+    // Starts a span under the current one that may end on another thread, so it never becomes current
+    public static Span startAsync(String category, String name) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        return new Span(NEXT_SPAN_ID.incrementAndGet(), current().getId(), category, name, true, null);
+    }
+
+    public static List<Span> getFinishedSpans() {
+        return ImmutableList.copyOf(FINISHED);
+    }
+
+    static void finish(Span span) {
+        if (!span.isAsync() && CURRENT.get() == span) {
+            Span previous = span.getPrevious();
+
+            if (previous != null) {
+                CURRENT.set(previous);
+            }
+            else {
+                CURRENT.remove();
+            }
+        }
+        FINISHED.add(span);
+    }
+
+    static long now() {
+        return System.nanoTime() - EPOCH_NANOS;
+    }
+}
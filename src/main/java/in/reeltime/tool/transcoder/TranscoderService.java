@@ -4,12 +4,19 @@ import com.amazonaws.services.elastictranscoder.model.Pipeline;
 import com.amazonaws.services.identitymanagement.model.Role;
 import com.amazonaws.services.s3.model.Bucket;
 import com.amazonaws.services.sns.model.Topic;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import in.reeltime.tool.access.Access;
 import in.reeltime.tool.name.NameService;
 import in.reeltime.tool.notification.topic.TopicService;
+import in.reeltime.tool.plan.ResourceChange;
 import in.reeltime.tool.storage.Storage;
 import in.reeltime.tool.transcoder.pipeline.PipelineService;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
 public class TranscoderService {
 
     private final NameService nameService;
@@ -45,6 +52,43 @@ public class TranscoderService {
                 .build();
     }
 
+    public Map<String, String> recordTranscoder(Transcoder transcoder) {
+        return ImmutableMap.of(
+                "topic", transcoder.getTopic().getTopicArn(),
+                "pipeline", transcoder.getPipeline().getId());
+    }
+
+    public Transcoder restoreTranscoder(Map<String, String> resources) {
+        Topic topic = topicService.getTopic(getTranscoderTopicName());
+        Pipeline pipeline = pipelineService.getPipeline(nameService.getNameForResource(Pipeline.class));
+
+        if (topic == null || !topic.getTopicArn().equals(resources.get("topic")) ||
+                pipeline == null || !pipeline.getId().equals(resources.get("pipeline"))) {
+            return null;
+        }
+
+        return new Transcoder.Builder()
+                .withTopic(topic)
+                .withPipeline(pipeline)
+                .build();
+    }
+
+    public List<Supplier<ResourceChange>> planTranscoder(boolean recreate) {
+        String topicName = getTranscoderTopicName();
+        String pipelineName = nameService.getNameForResource(Pipeline.class);
+
+        List<Supplier<ResourceChange>> checks = Lists.newArrayList();
+
+        checks.add(() -> plan(recreate, "topic", topicName, topicService.topicExists(topicName)));
+        checks.add(() -> plan(recreate, "pipeline", pipelineName, pipelineService.pipelineExists(pipelineName)));
+
+        return checks;
+    }
+
+    private ResourceChange plan(boolean recreate, String resourceType, String name, boolean exists) {
+        return recreate ? ResourceChange.recreate(resourceType, name, exists) : ResourceChange.ensure(resourceType, name, exists);
+    }
+
     public void tearDownTranscoder() {
         String pipelineName = nameService.getNameForResource(Pipeline.class);
         pipelineService.deletePipeline(pipelineName);
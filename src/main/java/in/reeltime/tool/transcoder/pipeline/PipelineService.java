@@ -5,17 +5,22 @@ import com.amazonaws.services.elastictranscoder.model.*;
 import com.amazonaws.services.identitymanagement.model.Role;
 import com.amazonaws.services.s3.model.Bucket;
 import com.amazonaws.services.sns.model.Topic;
+import in.reeltime.tool.aws.Paginator;
+import in.reeltime.tool.inventory.ResourceCache;
+import in.reeltime.tool.inventory.ResourceInventory;
 import in.reeltime.tool.log.Logger;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class PipelineService {
 
     private final AmazonElasticTranscoder ets;
+    private final ResourceCache<String, Pipeline> pipelines;
 
-    public PipelineService(AmazonElasticTranscoder ets) {
+    public PipelineService(AmazonElasticTranscoder ets, ResourceInventory inventory) {
         this.ets = ets;
+        this.pipelines = inventory.cache("pipelines", this::listPipelines);
     }
 
     public boolean pipelineExists(String pipelineName) {
@@ -25,21 +30,25 @@ public class PipelineService {
 
     public Pipeline getPipeline(String pipelineName) {
         Logger.info("Getting pipeline [%s]", pipelineName);
+        return pipelines.get(pipelineName);
+    }
 
-        ListPipelinesResult result = ets.listPipelines();
-        List<Pipeline> pipelines = result.getPipelines();
-
-        Optional<Pipeline> optionalPipeline = pipelines.stream()
-                .filter(p -> p.getName().equals(pipelineName))
-                .findFirst();
+    private Map<String, Pipeline> listPipelines() {
+        Paginator<String, ListPipelinesResult, Pipeline> pages = Paginator.paginate(null,
+                pageToken -> ets.listPipelines(new ListPipelinesRequest().withPageToken(pageToken)),
+                ListPipelinesResult::getPipelines,
+                ListPipelinesResult::getNextPageToken);
 
-        return optionalPipeline.isPresent() ? optionalPipeline.get() : null;
+        return pages.prefetching().stream()
+                .collect(Collectors.toMap(Pipeline::getName, p -> p, (p1, p2) -> p1));
     }
 
     public Pipeline createPipeline(String pipelineName, Topic topic, Role role, Bucket inputBucket, Bucket outputBucket) {
-        if (pipelineExists(pipelineName)) {
+        Pipeline existing = getPipeline(pipelineName);
+
+        if (existing != null) {
             Logger.info("Pipeline [%s] already exists", pipelineName);
-            return getPipeline(pipelineName);
+            return existing;
         }
 
         String topicArn = topic.getTopicArn();
@@ -60,20 +69,24 @@ public class PipelineService {
         Logger.info("Creating pipeline [%s]", pipelineName);
 
         CreatePipelineResult result = ets.createPipeline(request);
-        return result.getPipeline();
+        return pipelines.put(pipelineName, result.getPipeline());
     }
 
     public void deletePipeline(String pipelineName) {
-        if (!pipelineExists(pipelineName)) {
+        Pipeline pipeline = getPipeline(pipelineName);
+
+        if (pipeline == null) {
             Logger.info("Pipeline [%s] does not exist", pipelineName);
             return;
         }
 
-        String pipelineId = getPipeline(pipelineName).getId();
+        String pipelineId = pipeline.getId();
         DeletePipelineRequest request = new DeletePipelineRequest()
                 .withId(pipelineId);
 
         Logger.info("Deleting pipeline [%s]", pipelineName);
         ets.deletePipeline(request);
+
+        pipelines.remove(pipelineName);
     }
 }
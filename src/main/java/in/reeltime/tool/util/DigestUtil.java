@@ -0,0 +1,52 @@
+package in.reeltime.tool.util;
+
+import com.google.common.io.BaseEncoding;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class DigestUtil {
+
+    private static final String SHA_256 = "SHA-256";
+
+    // Mapping in windows keeps files larger than 2GB within the limits of a single MappedByteBuffer
+    private static final long MAPPING_WINDOW_SIZE = 64L * 1024L * 1024L;
+
+    private DigestUtil() { }
+
+    public static String sha256Hex(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return sha256Hex(channel, 0, channel.size());
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Failed to compute digest of file: " + file.getPath(), e);
+        }
+    }
+
+    public static String sha256Hex(FileChannel channel, long offset, long length) throws IOException {
+        MessageDigest digest = newSha256Digest();
+        long end = offset + length;
+
+        for (long position = offset; position < end; position += MAPPING_WINDOW_SIZE) {
+            long windowLength = Math.min(MAPPING_WINDOW_SIZE, end - position);
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, windowLength);
+            digest.update(buffer);
+        }
+        return BaseEncoding.base16().lowerCase().encode(digest.digest());
+    }
+
+    private static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance(SHA_256);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(SHA_256 + " not supported", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package in.reeltime.tool.util;
+
+import java.io.File;
+
+public class StateDirectoryUtil {
+
+    private static final String STATE_DIRECTORY_PROPERTY = "reeltime.state.dir";
+    private static final String DEFAULT_STATE_DIRECTORY = ".reeltime-deploy";
+
+    private StateDirectoryUtil() { }
+
+    public static File getStateFile(String fileName) {
+        String directoryName = SystemPropertyUtil.getSystemProperty(STATE_DIRECTORY_PROPERTY, DEFAULT_STATE_DIRECTORY);
+        File directory = new File(directoryName);
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            String message = String.format("Unable to create state directory [%s]", directory.getAbsolutePath());
+            throw new IllegalStateException(message);
+        }
+        return new File(directory, fileName);
+    }
+}
@@ -13,4 +13,50 @@ public class SystemPropertyUtil {
         }
         return property;
     }
+
+    public static String getSystemProperty(String propertyName, String defaultValue) {
+        return System.getProperty(propertyName, defaultValue);
+    }
+
+    public static long getLongSystemProperty(String propertyName, long defaultValue) {
+        String property = System.getProperty(propertyName);
+
+        if (property == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(property.trim());
+        }
+        catch (NumberFormatException e) {
+            String message = String.format("System property [%s] must be a number but was [%s]", propertyName, property);
+            throw new IllegalArgumentException(message, e);
+        }
+    }
+
+    public static int getIntSystemProperty(String propertyName, int defaultValue) {
+        long value = getLongSystemProperty(propertyName, defaultValue);
+
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            String message = String.format("System property [%s] is out of range", propertyName);
+            throw new IllegalArgumentException(message);
+        }
+        return (int) value;
+    }
+
+    public static double getDoubleSystemProperty(String propertyName, double defaultValue) {
+        String property = System.getProperty(propertyName);
+
+        if (property == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Double.parseDouble(property.trim());
+        }
+        catch (NumberFormatException e) {
+            String message = String.format("System property [%s] must be a number but was [%s]", propertyName, property);
+            throw new IllegalArgumentException(message, e);
+        }
+    }
 }